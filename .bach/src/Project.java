@@ -31,6 +31,7 @@ record Project(Workflow workflow) implements Builder {
             .with(mainModule("se.jbee.inject.contract"))
             .with(mainModule("se.jbee.inject.convert"))
             .with(mainModule("se.jbee.inject.event"))
+            .with(mainModule("se.jbee.inject.processor"))
             .with(mainModule("se.jbee.lang"));
     var test =
         new Space("test", main)
@@ -96,7 +97,8 @@ record Project(Workflow workflow) implements Builder {
             .add(
                 "-group",
                 "Add-ons",
-                "se.jbee.inject.action:se.jbee.inject.event:se.jbee.inject.convert:se.jbee.inject.contract");
+                "se.jbee.inject.action:se.jbee.inject.event:se.jbee.inject.convert:se.jbee.inject.contract")
+            .add("-group", "Tooling", "se.jbee.inject.processor");
 
     run(javadoc);
   }
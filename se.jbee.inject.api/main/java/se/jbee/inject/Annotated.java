@@ -59,4 +59,26 @@ public interface Annotated {
 	 */
 	Annotated EMPTY = () -> NOT_ANNOTATED;
 
+	/**
+	 * An index of the {@link Resource}s in an {@link Injector} context by the
+	 * {@link Annotation}s present on their {@link Resource#annotations}.
+	 * <p>
+	 * It is provided by the {@link Injector} context itself and resolved as any
+	 * other instance.
+	 *
+	 * @since 8.1
+	 */
+	@FunctionalInterface
+	interface Index {
+
+		/**
+		 * @param type the {@link Annotation} type to look for
+		 * @return all {@link Resource}s where the given {@link Annotation} is
+		 * present directly or as meta-annotation of a present {@link
+		 * Annotation}, in the order of the {@link Resource}s in the context.
+		 * The returned array is a copy.
+		 */
+		Resource<?>[] annotatedWith(Class<? extends Annotation> type);
+	}
+
 }
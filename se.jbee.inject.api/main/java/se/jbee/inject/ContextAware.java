@@ -38,4 +38,18 @@ public interface ContextAware<T> {
 	 * @return This instance adopted to the context
 	 */
 	T inContext(Dependency<? super T> context);
+
+	/**
+	 * When an implementation only depends on the {@link Dependency#target()}
+	 * (or the {@link Dependency} not being targeted at all) the container can
+	 * reuse the instance returned by {@link #inContext(Dependency)} for all
+	 * further resolutions with the same target.
+	 *
+	 * @return true, if the result of {@link #inContext(Dependency)} for the
+	 * same target is always equivalent and can therefore be reused
+	 * @since 8.1
+	 */
+	default boolean isTargetProjection() {
+		return false;
+	}
 }
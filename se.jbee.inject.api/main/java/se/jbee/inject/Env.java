@@ -49,9 +49,52 @@ public interface Env {
 	 */
 	String BIND_BINDINGS = "self-bind";
 
+	/**
+	 * Boolean flag property which when set to {@code true} declares stateless
+	 * {@code se.jbee.inject.bind.Module}s concurrently. Each module declares
+	 * into its own buffer. The buffers are merged in module order so that the
+	 * result is the same as for a sequential declaration (default).
+	 */
+	String PARALLEL_DECLARATION = "parallel-declaration";
+
+	/**
+	 * Boolean flag property which when set to {@code true} creates an {@link
+	 * Injector} context that only creates the {@link Resource}s of a raw type
+	 * on first lookup of that type. Eager {@link Resource}s are still created
+	 * up front.
+	 */
+	String LAZY_RESOURCES = "lazy-resources";
+
+	/**
+	 * Boolean flag property which when set to {@code true} binds types that
+	 * have a {@code se.jbee.inject.processor} generated {@code
+	 * se.jbee.inject.config.New} to the generated {@link Supplier} instead of
+	 * picking and calling their {@link java.lang.reflect.Constructor} using
+	 * reflection. This only applies while the default strategies are used to
+	 * pick constructors and their parameter {@link Hint}s as these are what the
+	 * generated {@link Supplier}s precompute.
+	 *
+	 * @since 8.1
+	 */
+	String PREFER_GENERATED = "prefer-generated";
+
 	<T> T property(Name qualifier, Type<T> property, Class<?> ns)
 			throws InconsistentDeclaration;
 
+	/**
+	 * Same as {@link #property(Name, Type, Class)} except that an undefined
+	 * property results in the given default value. Implementations should
+	 * override this to tell absence without throwing an {@link
+	 * InconsistentDeclaration}.
+	 *
+	 * @since 8.1
+	 */
+	default <T> T property(Name qualifier, Type<T> property, Class<?> ns,
+			T defaultValue) {
+		return Utils.orElse(defaultValue,
+				() -> property(qualifier, property, ns));
+	}
+
 	default <T> T property(Class<T> property) {
 		return property(raw(property));
 	}
@@ -85,8 +128,7 @@ public interface Env {
 	}
 
 	default <T> T property(String qualifier, Type<T> property, T defaultValue) {
-		return Utils.orElse(defaultValue,
-				() ->  property(named(qualifier), property, null));
+		return property(named(qualifier), property, null, defaultValue);
 	}
 
 	default Env in(Class<?> ns) {
@@ -110,6 +152,12 @@ public interface Env {
 				return env.property(qualifier, property, this.ns);
 			}
 
+			@Override
+			public <T> T property(Name qualifier, Type<T> property, Class<?> ns,
+					T defaultValue) {
+				return env.property(qualifier, property, this.ns, defaultValue);
+			}
+
 			@Override
 			public String toString() {
 				return "EnvIn[" + ns.getName() + "]\n" + env.toString();
@@ -173,6 +221,16 @@ public interface Env {
 				return env.property(qualifier, property, ns);
 			}
 
+			@SuppressWarnings("unchecked")
+			@Override
+			public <T> T property(Name qualifier, Type<T> property, Class<?> ns,
+					T defaultValue) {
+				Instance<T> key = instance(qualifier, property);
+				if (values.containsKey(key))
+					return (T) values.get(key);
+				return env.property(qualifier, property, ns, defaultValue);
+			}
+
 			@Override
 			public Env withIsolate() {
 				isolate = true;
@@ -9,6 +9,7 @@ import se.jbee.lang.Type;
 
 import java.lang.annotation.Annotation;
 import java.util.List;
+import java.util.Optional;
 
 import static se.jbee.inject.Dependency.dependency;
 import static se.jbee.inject.Instance.instance;
@@ -46,6 +47,53 @@ public interface Injector {
 	 */
 	<T> T resolve(Dependency<T> dependency) throws UnresolvableDependency;
 
+	/**
+	 * Same as {@link #resolve(Dependency)} except that the absence of a {@link
+	 * Resource} for the {@link Dependency} is reported by returning the given
+	 * fallback instead of throwing an {@link UnresolvableDependency}.
+	 * <p>
+	 * The default implementation has to catch the {@link
+	 * UnresolvableDependency} and therefore should be overridden by
+	 * implementations that can tell absence upfront.
+	 *
+	 * @param dependency describes the absolute instance to resolve
+	 * @param fallback   the value to return in case there is no {@link
+	 *                   Resource} that could serve the requested instance
+	 * @return the resolved instance or the fallback
+	 * @throws UnresolvableDependency in case a {@link Resource} exists but
+	 *                                fails to create the instance
+	 * @since 8.1
+	 */
+	default <T> T resolveOrElse(Dependency<T> dependency, T fallback)
+			throws UnresolvableDependency {
+		try {
+			return resolve(dependency);
+		} catch (UnresolvableDependency e) {
+			return fallback;
+		}
+	}
+
+	/**
+	 * @see #resolveOrElse(Dependency, Object)
+	 * @since 8.1
+	 */
+	default <T> T resolveOrNull(Dependency<T> dependency)
+			throws UnresolvableDependency {
+		return resolveOrElse(dependency, null);
+	}
+
+	/**
+	 * @return the resolved instance or {@link Optional#empty()} in case there
+	 * is no {@link Resource} that could serve it (or it resolved to {@code
+	 * null})
+	 * @see #resolveOrElse(Dependency, Object)
+	 * @since 8.1
+	 */
+	default <T> Optional<T> tryResolve(Dependency<T> dependency)
+			throws UnresolvableDependency {
+		return Optional.ofNullable(resolveOrNull(dependency));
+	}
+
 	/* Utility methods */
 
 	/**
@@ -79,6 +127,18 @@ public interface Injector {
 		return resolve(dependency(inst));
 	}
 
+	default <T> T resolveOrNull(Class<T> type) {
+		return resolveOrNull(dependency(type));
+	}
+
+	default <T> Optional<T> tryResolve(Class<T> type) {
+		return tryResolve(dependency(type));
+	}
+
+	default <T> Optional<T> tryResolve(Type<T> type) {
+		return tryResolve(dependency(type));
+	}
+
 	default Injector subContext(Class<?> target) {
 		return subContext(target.getName());
 	}
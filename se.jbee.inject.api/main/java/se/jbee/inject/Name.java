@@ -60,6 +60,13 @@ public final class Name
 	public static final Name AS = new Name("as");
 
 	final String value;
+	private final boolean any;
+	/**
+	 * The parts between {@link #WILDCARD}s of a pattern name split once so
+	 * matching does not need to search for the wild-cards again. Null for
+	 * names that are no patterns.
+	 */
+	private final String[] segments;
 
 	public static <T> Name named(T name) {
 		if (name == null)
@@ -77,6 +84,10 @@ public final class Name
 
 	private Name(String value) {
 		this.value = value;
+		this.any = value.length() == 1 && value.charAt(0) == WILDCARD;
+		this.segments = value.indexOf(WILDCARD) >= 0
+			? value.split("\\" + WILDCARD, -1)
+			: null;
 	}
 
 	@Override
@@ -119,7 +130,7 @@ public final class Name
 	}
 
 	public boolean isAny() {
-		return value.equals(ANY.value);
+		return any;
 	}
 
 	public boolean isDefault() {
@@ -127,7 +138,7 @@ public final class Name
 	}
 
 	public boolean isPattern() {
-		return value.contains(WILDCARD+"");
+		return segments != null;
 	}
 
 	@Override
@@ -156,33 +167,42 @@ public final class Name
 	}
 
 	public boolean isCompatibleWith(Name other) {
-		if (isAny()) return true;
+		if (any) return true;
 		if (equalTo(other)) return true;
-		if (other.isAny()) return !isPattern();
-		if (!isPattern()) return matches(other.value, value);
-		return matches(value, other.value);
-	}
-
-	private static boolean matches(String pattern, String str) {
-		int i = 0;
-		int j = 0;
-		int len = pattern.length();
-		int strLen = str.length();
-		while (i < len && j < strLen) {
-			char p = pattern.charAt(i++);
-			if (p == WILDCARD) {
-				if (i == len) // end of pattern is wild-card
+		if (other.any) return !isPattern();
+		if (!isPattern()) return other.isPattern() && matches(other.segments, value);
+		return matches(segments, other.value);
+	}
+
+	/**
+	 * A {@link #WILDCARD} matches all characters up to the first occurrence of
+	 * the character that follows it in the pattern. There is no backtracking,
+	 * so {@code foo*bar} does not match {@code foobbar}.
+	 *
+	 * @param segments the parts of a pattern between the wild-cards, the first
+	 *                 is the required prefix
+	 * @param str      the name to match
+	 * @return true, if the name matches the pattern of the segments
+	 */
+	private static boolean matches(String[] segments, String str) {
+		String prefix = segments[0];
+		if (!str.startsWith(prefix))
+			return false;
+		int j = prefix.length();
+		int last = segments.length - 1;
+		for (int i = 1; i <= last; i++) {
+			String segment = segments[i];
+			if (segment.isEmpty()) {
+				if (i == last) // end of pattern is wild-card
 					return true;
-				while (str.charAt(j) != pattern.charAt(i)) // i already forwarded to next
-					j++;
-			} else if (p != str.charAt(j)) {
-				return false;
-			} else {
-				j++;
+				continue;
 			}
+			j = str.indexOf(segment.charAt(0), j);
+			if (j < 0 || !str.startsWith(segment, j))
+				return false;
+			j += segment.length();
 		}
-		return j == strLen && (i == len
-			|| i + 1 == len && pattern.charAt(len - 1) == WILDCARD);
+		return j == str.length();
 	}
 
 }
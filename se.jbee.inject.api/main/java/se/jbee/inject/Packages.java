@@ -90,12 +90,26 @@ public final class Packages
 	private static String packageNameOf(Type<?> packageOf) {
 		return packageOf.isUpperBound()
 			? "-NONE-"
-			: packageNameOf(packageOf.rawType);
+			: PACKAGE_NAMES.get(packageOf.rawType);
 	}
 
+	/**
+	 * Looking up the {@link Package} of a {@link Class} is not free so the
+	 * name used to match against the {@link #roots} is computed once per
+	 * {@link Class}.
+	 */
+	private static final ClassValue<String> PACKAGE_NAMES = new ClassValue<String>() {
+
+		@Override
+		protected String computeValue(Class<?> type) {
+			return packageNameOf(type);
+		}
+	};
+
 	private final String[] roots;
 	private final boolean includingSubpackages;
 	private final int rootDepth;
+	private final boolean all;
 
 	private Packages(String root, boolean includingSubpackages) {
 		this(new String[] { root }, includingSubpackages);
@@ -105,6 +119,7 @@ public final class Packages
 		this.roots = roots;
 		this.includingSubpackages = includingSubpackages;
 		this.rootDepth = rootDepth(roots);
+		this.all = roots.length == 0 && includingSubpackages;
 	}
 
 	public Packages and(Packages further) {
@@ -157,15 +172,16 @@ public final class Packages
 		if (includesAll())
 			return true;
 		final String packageNameOfType = packageNameOf(type);
-		return arrayContains(roots,
-				root -> seqRegionEquals(root, packageNameOfType,
-						includingSubpackages
-							? root.length()
-							: packageNameOfType.length()));
+		for (String root : roots)
+			if (includingSubpackages
+				? packageNameOfType.startsWith(root)
+				: packageNameOfType.equals(root))
+				return true;
+		return false;
 	}
 
 	public boolean includesAll() {
-		return this == ALL || roots.length == 0 && includingSubpackages;
+		return all;
 	}
 
 	@Override
@@ -27,12 +27,18 @@ import static se.jbee.inject.Name.named;
 public interface Scope {
 
 	/**
-	 * @param serialID  ID number of this {@link Resource} with the {@link
-	 *                  Injector} context
+	 * @param serialID  slot number of the {@link Resource} within the {@link
+	 *                  Scope}. The slots of all {@link Resource}s with the
+	 *                  same scope {@link Name} form a dense range from zero to
+	 *                  {@code resources - 1}. A {@link Scope} instance that
+	 *                  serves more than one scope {@link Name} therefore can
+	 *                  not rely on the slot to be unique.
 	 * @param resources the total number of {@link Resource}s in the {@link
-	 *                  Injector} context. This is given to allow optimized
-	 *                  organization of instances within the registry
-	 *                  implementation of a {@link Scope}.
+	 *                  Injector} context that have the same scope {@link
+	 *                  Name}. This is given to allow optimized organization of
+	 *                  instances within the registry implementation of a
+	 *                  {@link Scope} which only needs to have room for this
+	 *                  number of instances.
 	 * @param dep       currently served {@link Dependency}
 	 * @param provider  constructor function yielding new instances if needed.
 	 *                  All {@link Scope}s have to make sure they only ever call
@@ -114,6 +120,44 @@ public interface Scope {
 	 */
 	Name worker = named("@worker");
 
+	/**
+	 * A temporary scope that is linked to the dynamic extent of a request
+	 * call. In contrast to the {@link #worker} scope requests do not need to
+	 * be allocated and deallocated explicitly. Where {@code
+	 * java.lang.ScopedValue} is available requests are also available to
+	 * {@code StructuredTaskScope} subtasks forked within the request. Other
+	 * threads only are part of a request when their work is explicitly
+	 * propagated to them.
+	 *
+	 * @since 8.1
+	 */
+	Name request = named("@request");
+
+	/**
+	 * Reuses a bounded number of instances. An instance is borrowed from the
+	 * pool when first used within a {@link #worker} or {@link #request}
+	 * context and returned to the pool when the context ends.
+	 *
+	 * @since 8.1
+	 */
+	Name pool = named("@pool");
+
+	/**
+	 * Keeps instances per {@link Instance} as long as the garbage collector does
+	 * not need the memory. Collected instances are recreated when needed.
+	 *
+	 * @since 8.1
+	 */
+	Name soft = named("soft");
+
+	/**
+	 * Keeps instances per {@link Instance} as long as they are referenced
+	 * elsewhere. Collected instances are recreated when needed.
+	 *
+	 * @since 8.1
+	 */
+	Name weak = named("weak");
+
 	/**
 	 * A scope that stores one instance per exact dependency. That means it
 	 * considers the {@link Instance} and the {@link Injection} hierarchy of the
@@ -167,6 +211,20 @@ public interface Scope {
 		return Name.named(dir.getAbsolutePath()).in("disk");
 	}
 
+	/**
+	 * Returns the name of a cache scope. Instances in a cache scope can expire,
+	 * be evicted or be refreshed according to the cache policy bound for the
+	 * returned name.
+	 *
+	 * @param name the name of the cache
+	 * @return the name to use when binding the {@link Scope} (and the cache
+	 * policy)
+	 * @since 8.1
+	 */
+	static Name cache(String name) {
+		return Name.named(name).in("cache");
+	}
+
 	/**
 	 * Often called the 'default' or 'prototype'-scope. Asks the {@link
 	 * Provider} once per injection. In other words it is a stateless scope that
@@ -183,6 +241,28 @@ public interface Scope {
 		return provider.provide();
 	}
 
+	/**
+	 * A {@link Scope} whose instances belong to a context that exists outside
+	 * of the {@link Injector}, like a {@link Thread}, a work item or a request.
+	 * <p>
+	 * A child {@link Injector} context uses the {@link #inChild()} view of
+	 * such a {@link Scope} of its parent so that instances of the child are
+	 * bound to the same threads, work items or requests as those of the
+	 * parent.
+	 *
+	 * @since 8.1
+	 */
+	interface ContextBound extends Scope {
+
+		/**
+		 * @return a {@link Scope} that shares the contexts of this {@link
+		 * Scope} but keeps its own instances. The slots of a child's {@link
+		 * Resource}s overlap with those of the parent so they cannot be kept
+		 * in the same place.
+		 */
+		Scope inChild();
+	}
+
 	/**
 	 * SPI for temporary {@link Thread} bound {@link Scope}s.
 	 *
@@ -74,6 +74,14 @@ public final class ScopeLifeCycle implements Serializable {
 	 */
 	public static final ScopeLifeCycle disk = scopeLifeCycle(named("@disk"));
 
+	/**
+	 * A group of scopes whose instances can expire, be evicted or be replaced
+	 * by a refreshed instance at any time. Therefore they can only be injected
+	 * into {@link Scope#injection} directly.
+	 */
+	public static final ScopeLifeCycle cache = scopeLifeCycle(named("@cache"),
+			Scope.injection);
+
 	public static ScopeLifeCycle scopeLifeCycle(Name scope,
 			Name... consistentInScopes) {
 		return new ScopeLifeCycle(scope, consistentInScopes, false, false,
@@ -45,6 +45,12 @@ public final class Target
 	 * used though an interface.
 	 */
 	public final boolean indirect;
+	/**
+	 * Whether or not this {@link Target} {@link #isAny()} is computed once as
+	 * it is checked first for every candidate of a resolution.
+	 */
+	private final boolean any;
+	private final boolean anyInstance;
 
 	private Target(Instances parents, Instance<?> instance, Packages packages,
 			boolean indirect) {
@@ -52,6 +58,8 @@ public final class Target
 		this.instance = instance;
 		this.packages = packages;
 		this.indirect = indirect;
+		this.anyInstance = instance.isAny();
+		this.any = anyInstance && parents.isAny() && packages.includesAll();
 	}
 
 	/**
@@ -95,7 +103,7 @@ public final class Target
 	 * @since 8.1
 	 */
 	public boolean isAny() {
-		return equalTo(ANY);
+		return any;
 	}
 
 	public boolean isUsableFor(Dependency<?> dep) {
@@ -107,7 +115,7 @@ public final class Target
 	 *         assignable with the ones demanded by this target.
 	 */
 	public boolean isUsableInstanceWise(Dependency<?> dep) {
-		return (instance.isAny() || isUsableInstanceWise(dep.target()))
+		return (anyInstance || isUsableInstanceWise(dep.target()))
 				&& isUsableParentWise(dep);
 	}
 
@@ -147,7 +155,7 @@ public final class Target
 	}
 
 	public boolean isUsablePackageWise(Dependency<?> dep) {
-		return this == ANY || packages.contains(dep.target().type());
+		return any || packages.contains(dep.target().type());
 	}
 
 	@Override
@@ -0,0 +1,224 @@
+package se.jbee.inject.bind;
+
+import se.jbee.inject.Extends;
+import se.jbee.inject.InconsistentDeclaration;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableMap;
+
+/**
+ * A {@link BindingIndex} is the result of the compile time analysis done by
+ * the {@code se.jbee.inject.processor} annotation processor. It allows the
+ * bootstrapping to learn about {@link Bundle}s, {@link ModuleWith}s and
+ * annotations present on types and methods without loading, instantiating or
+ * reflecting the classes in question.
+ * <p>
+ * The index is read from all {@link #LOCATION} resources visible to a {@link
+ * ClassLoader}. Each line is one entry with tab separated columns:
+ * <pre>
+ * bundle     [bundle class]     [{@link Extends} target class or empty]
+ * effect     [ModuleWith class] [type annotation class or empty]
+ * type       [class]            [annotation class]
+ * method     [class]            [annotation class] [method name] [parameter classes]
+ * </pre>
+ * Classes not present in the index are still discovered using reflection so
+ * that an index only needs to exist for the parts of an application that
+ * were compiled using the processor.
+ *
+ * @since 8.1
+ */
+public final class BindingIndex {
+
+	public static final String LOCATION = "META-INF/se.jbee.inject/index";
+
+	private static final BindingIndex EMPTY = new BindingIndex();
+
+	private static final Map<ClassLoader, BindingIndex> INDEXES = //
+			Collections.synchronizedMap(new WeakHashMap<>());
+
+	/**
+	 * @param loader the {@link ClassLoader} to read {@link #LOCATION}
+	 *               resources from, can be null
+	 * @return the merged index of all {@link #LOCATION} resources visible to
+	 * the given {@link ClassLoader}
+	 */
+	public static BindingIndex of(ClassLoader loader) {
+		if (loader == null)
+			return EMPTY;
+		return INDEXES.computeIfAbsent(loader, BindingIndex::load);
+	}
+
+	/**
+	 * @return the index of the {@link ClassLoader} used by {@link
+	 * java.util.ServiceLoader} by default
+	 */
+	public static BindingIndex ofContext() {
+		ClassLoader loader = Thread.currentThread().getContextClassLoader();
+		return of(loader != null ? loader : ClassLoader.getSystemClassLoader());
+	}
+
+	private static BindingIndex load(ClassLoader loader) {
+		try {
+			Enumeration<URL> resources = loader.getResources(LOCATION);
+			if (!resources.hasMoreElements())
+				return EMPTY;
+			BindingIndex index = new BindingIndex();
+			while (resources.hasMoreElements())
+				index.read(resources.nextElement());
+			return index;
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * A method annotated with an annotation as recorded in the index.
+	 */
+	public static final class AnnotatedMethod {
+
+		public final String annotation;
+		private final String name;
+		private final String[] parameterTypes;
+
+		AnnotatedMethod(String annotation, String name, String[] parameterTypes) {
+			this.annotation = annotation;
+			this.name = name;
+			this.parameterTypes = parameterTypes;
+		}
+
+		public Method in(Class<?> declaring) {
+			Class<?>[] params = new Class<?>[parameterTypes.length];
+			for (int i = 0; i < params.length; i++)
+				params[i] = classFor(parameterTypes[i], declaring.getClassLoader());
+			try {
+				return declaring.getMethod(name, params);
+			} catch (NoSuchMethodException e) {
+				throw new InconsistentDeclaration(
+						"Index is outdated, method does not exist: " + this);
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "@" + annotation + " " + name + "("
+				+ String.join(",", parameterTypes) + ")";
+		}
+	}
+
+	private final Map<String, String> bundles = new LinkedHashMap<>();
+	private final Map<String, String> effects = new LinkedHashMap<>();
+	private final Map<String, List<String>> typeAnnotations = new HashMap<>();
+	private final Map<String, List<AnnotatedMethod>> methodAnnotations = new HashMap<>();
+
+	private BindingIndex() {
+		// use of
+	}
+
+	private void read(URL resource) throws IOException {
+		try (BufferedReader in = new BufferedReader(
+				new InputStreamReader(resource.openStream(), UTF_8))) {
+			String line;
+			while ((line = in.readLine()) != null)
+				if (!line.isEmpty() && line.charAt(0) != '#')
+					add(line.split("\t", -1));
+		}
+	}
+
+	private void add(String[] entry) {
+		switch (entry[0]) {
+			case "bundle":
+				bundles.put(entry[1], entry[2]);
+				break;
+			case "effect":
+				effects.put(entry[1], entry[2]);
+				break;
+			case "type":
+				typeAnnotations.computeIfAbsent(entry[1],
+						key -> new ArrayList<>()).add(entry[2]);
+				break;
+			case "method":
+				methodAnnotations.computeIfAbsent(entry[1],
+						key -> new ArrayList<>()).add(new AnnotatedMethod(entry[2],
+						entry[3], entry[4].isEmpty()
+							? new String[0]
+							: entry[4].split(",")));
+				typeAnnotations.computeIfAbsent(entry[1],
+						key -> new ArrayList<>());
+				break;
+			default:
+				// unknown entries are ignored for forward compatibility
+		}
+	}
+
+	/**
+	 * @return {@link Bundle} class names mapped to the class name of their
+	 * {@link Extends} target (empty string if not annotated)
+	 */
+	public Map<String, String> bundles() {
+		return unmodifiableMap(bundles);
+	}
+
+	/**
+	 * @return {@link ModuleWith} class names mapped to the name of the type
+	 * annotation they implement (empty string if they are no {@link
+	 * ModuleWith} of {@link Class})
+	 */
+	public Map<String, String> effects() {
+		return unmodifiableMap(effects);
+	}
+
+	/**
+	 * @param type any class
+	 * @return true, if the annotations of the given type and its methods are
+	 * known from the index
+	 */
+	public boolean isIndexed(Class<?> type) {
+		return typeAnnotations.containsKey(type.getName());
+	}
+
+	/**
+	 * @param type an {@link #isIndexed(Class)} class
+	 * @return names of the runtime annotations present on the given class
+	 */
+	public List<String> typeAnnotationsOf(Class<?> type) {
+		return typeAnnotations.getOrDefault(type.getName(), emptyList());
+	}
+
+	/**
+	 * @param type an {@link #isIndexed(Class)} class
+	 * @return the runtime annotations declared on public methods of the given
+	 * class
+	 */
+	public List<AnnotatedMethod> annotatedMethodsOf(Class<?> type) {
+		return methodAnnotations.getOrDefault(type.getName(), emptyList());
+	}
+
+	public static Class<?> classFor(String name, ClassLoader loader) {
+		switch (name) {
+			case "boolean": return boolean.class;
+			case "byte": return byte.class;
+			case "char": return char.class;
+			case "short": return short.class;
+			case "int": return int.class;
+			case "long": return long.class;
+			case "float": return float.class;
+			case "double": return double.class;
+			default:
+				try {
+					return Class.forName(name, false, loader);
+				} catch (ClassNotFoundException e) {
+					throw new InconsistentDeclaration(
+							"Index refers to unknown class: " + name);
+				}
+		}
+	}
+}
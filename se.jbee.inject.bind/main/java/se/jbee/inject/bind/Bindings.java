@@ -7,6 +7,7 @@ package se.jbee.inject.bind;
 
 import se.jbee.inject.*;
 import se.jbee.inject.Annotated.Enhancer;
+import se.jbee.lang.Reflection;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
@@ -14,6 +15,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
 
 import static se.jbee.inject.Name.named;
 import static se.jbee.lang.Type.classType;
@@ -67,25 +69,47 @@ public final class Bindings {
 	}
 
 	public void addAnnotated(Env env, Class<?> annotated) {
-		Annotation[] as = annotated.getAnnotations();
+		BindingIndex index = BindingIndex.of(annotated.getClassLoader());
+		if (index.isIndexed(annotated)) {
+			addIndexed(env, annotated, index);
+			return;
+		}
+		Annotation[] as = Reflection.annotations(annotated);
 		int n = 0;
 		//TODO add a meta annotation to mark annotations that are expected to be defined
 		// if such an annotation is present but no effect defined it is a binding error
 		// should be doable by just defining a module that tries to resolve the annotations from the environment => confirm with a test
 		for (Annotation a : as)
-			if (addsAnnotatedType(env, annotated, a))
+			if (addsAnnotatedType(env, annotated, a.annotationType().getName()))
 				n++;
-		for (Method m : annotated.getMethods())
+		for (Method m : Reflection.methods(annotated))
 			for (Annotation a : m.getDeclaredAnnotations())
-				if (addsAnnotatedMethod(env, m, a))
+				if (addsAnnotatedMethod(env, m, a.annotationType().getName()))
 					n++;
 		if (n == 0)
 			throw InconsistentBinding.noAnnotationModule(annotated);
 	}
 
-	private boolean addsAnnotatedType(Env env, Class<?> annotated, Annotation annotation) {
+	/**
+	 * Same as the reflective part of {@link #addAnnotated(Env, Class)} but
+	 * using the annotations known from the {@link BindingIndex} so only the
+	 * annotated {@link Method}s are looked up.
+	 */
+	private void addIndexed(Env env, Class<?> annotated, BindingIndex index) {
+		int n = 0;
+		for (String annotation : index.typeAnnotationsOf(annotated))
+			if (addsAnnotatedType(env, annotated, annotation))
+				n++;
+		for (BindingIndex.AnnotatedMethod m : index.annotatedMethodsOf(annotated))
+			if (addsAnnotatedMethod(env, m.in(annotated), m.annotation))
+				n++;
+		if (n == 0)
+			throw InconsistentBinding.noAnnotationModule(annotated);
+	}
+
+	private boolean addsAnnotatedType(Env env, Class<?> annotated, String annotation) {
 		ModuleWith<Class<?>> then = env.in(annotated).property(
-				named(annotation.annotationType()).toString(),
+				named(annotation).toString(),
 				ModuleWith.TYPE_ANNOTATION, null);
 		if (then == null)
 			return false;
@@ -93,9 +117,9 @@ public final class Bindings {
 		return true;
 	}
 
-	private boolean addsAnnotatedMethod(Env env, Method annotated, Annotation annotation) {
+	private boolean addsAnnotatedMethod(Env env, Method annotated, String annotation) {
 		ModuleWith<Method> then = env.in(annotated.getDeclaringClass()).property(
-				named(annotation.annotationType()).toString(),
+				named(annotation).toString(),
 				ModuleWith.METHOD_ANNOTATION, null);
 		if (then == null)
 			return false;
@@ -112,7 +136,15 @@ public final class Bindings {
 		return toArray();
 	}
 
+	/**
+	 * Declares the {@link Binding}s of the given {@link Module}s.
+	 *
+	 * If {@link Env#PARALLEL_DECLARATION} is set stateless {@link Module}s
+	 * are declared concurrently into their own {@link Bindings} which are
+	 * added in {@link Module} order afterwards.
+	 */
 	public void declareFrom(Env env, Module... modules) {
+		List<Module> toDeclare = new ArrayList<>(modules.length);
 		Set<Class<?>> declared = new HashSet<>();
 		Set<Class<?>> stateful = new HashSet<>();
 		for (Module m : modules) {
@@ -121,10 +153,41 @@ public final class Bindings {
 			if (hasBeenDeclared && !isClassConceptStateless(ns))
 				stateful.add(ns);
 			if (!hasBeenDeclared || stateful.contains(ns)) {
-				m.declare(this, env);
+				toDeclare.add(m);
 				declared.add(ns);
 			}
 		}
+		if (toDeclare.size() > 1
+			&& env.property(Env.PARALLEL_DECLARATION, false)) {
+			declareInParallel(env, toDeclare);
+		} else {
+			for (Module m : toDeclare)
+				m.declare(this, env);
+		}
+	}
+
+	private void declareInParallel(Env env, List<Module> modules) {
+		Bindings[] buffers = new Bindings[modules.size()];
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[buffers.length];
+		for (int i = 0; i < buffers.length; i++) {
+			Module m = modules.get(i);
+			Bindings buffer = new Bindings(new ArrayList<>());
+			buffers[i] = buffer;
+			if (isClassConceptStateless(m.getClass()))
+				tasks[i] = ForkJoinTask.adapt(() -> m.declare(buffer, env)).fork();
+		}
+		try {
+			// stateful modules might be declared more then once, so they stay on this thread
+			for (int i = 0; i < buffers.length; i++)
+				if (tasks[i] == null)
+					modules.get(i).declare(buffers[i], env);
+		} finally {
+			for (ForkJoinTask<?> task : tasks)
+				if (task != null)
+					task.join();
+		}
+		for (Bindings buffer : buffers)
+			list.addAll(buffer.list);
 	}
 
 	public static <T> Supplier<T> supplyConstant(T constant) {
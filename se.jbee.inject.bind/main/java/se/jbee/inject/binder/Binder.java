@@ -9,6 +9,7 @@ import se.jbee.inject.*;
 import se.jbee.inject.bind.*;
 import se.jbee.inject.binder.spi.*;
 import se.jbee.inject.config.*;
+import se.jbee.lang.Reflection;
 import se.jbee.lang.Type;
 
 import java.lang.annotation.Annotation;
@@ -147,6 +148,36 @@ public class Binder {
 		return on(bind().asPublished().with(env().with(PublishesBy.class, strategy)));
 	}
 
+	/**
+	 * Makes the {@link Constructor}s of types within the current target use
+	 * the {@link New} generated by the {@code se.jbee.inject.processor} where
+	 * it exists. Types without generated {@link New} still use reflection.
+	 * <p>
+	 * To limit this to a part of an application use it with a target like
+	 * {@code inPackageOf(Foo.class).preferGeneratedNew()}.
+	 *
+	 * @see New.Generate
+	 * @since 8.1
+	 */
+	public final void preferGeneratedNew() {
+		bind(New.class).to(New.preferGenerated(Constructor::newInstance));
+	}
+
+	/**
+	 * Types bound to their {@link Constructor} by the returned {@link Binder}
+	 * use the {@link Supplier} generated by the {@code se.jbee.inject.processor}
+	 * where it exists. This avoids reflection when binding as well as when
+	 * creating instances. Types without generated {@link Supplier} are bound
+	 * using reflection as usual.
+	 *
+	 * @see Env#PREFER_GENERATED
+	 * @see New#generatedSupplier(Env, Class)
+	 * @since 8.1
+	 */
+	public final Binder preferGenerated() {
+		return on(bind().with(env().with(Env.PREFER_GENERATED, true)));
+	}
+
 	/**
 	 * Explicitly binds an array type to a specific list of elements.
 	 *
@@ -611,7 +642,7 @@ public class Binder {
 			if (connected != null && connected.length > 0) {
 				Connector connector = context.resolve(connectorName, Connector.class);
 				for (Method m : connected)
-					connector.connect(instance, as, m);
+					connector.connect(instance, as, Reflection.copy(m));
 			}
 			return instance;
 		}
@@ -721,7 +752,7 @@ public class Binder {
 			if (instance != null && !(instance instanceof Hint))
 				return; // if there is an instance don't bind constructor unless it is just a Hint
 			Constructor<?> target = env.property(ConstructsBy.class)
-					.reflect(impl.getDeclaredConstructors(), construction);
+					.reflect(Reflection.declaredConstructors(impl), construction);
 			if (target != null)
 				toConstructor(Scope.auto, target, construction);
 		}
@@ -985,9 +1016,16 @@ public class Binder {
 		public void toConstructor(Class<? extends T> impl, Hint<?>... hints) {
 			if (!isClassConstructable(impl))
 				throw InconsistentDeclaration.notConstructable(impl);
+			Supplier<? extends T> generated = hints.length == 0
+				? New.generatedSupplier(env(), impl)
+				: null;
+			if (generated != null) {
+				expand(BindingType.CONSTRUCTOR, generated);
+				return;
+			}
 			Constructor<? extends T> target = (Constructor<? extends T>)
 					env(ConstructsBy.class) //
-						.reflect(impl.getDeclaredConstructors(), hints);
+						.reflect(Reflection.declaredConstructors(impl), hints);
 			if (target == null)
 				throw InconsistentBinding.generic(
 						"No usable Constructor for type: " + impl);
@@ -1,19 +1,41 @@
 package se.jbee.inject.binder;
 
+import se.jbee.inject.Extends;
+import se.jbee.inject.bind.BindingIndex;
 import se.jbee.inject.bind.Bundle;
 
 import java.util.ServiceLoader;
 
+/**
+ * Installs the {@link Bundle}s provided via {@link ServiceLoader} that pass the
+ * {@link #bootstrap(Class)} filter.
+ * <p>
+ * The {@link Bundle}s are not instantiated to learn about their type. If a
+ * {@link Bundle} is contained in the {@link BindingIndex} its {@link Extends}
+ * target is taken from the index, otherwise it is read from the annotation.
+ */
 public abstract class FilteredServiceLoaderBundles extends BootstrapperBundle {
 
 	@Override
 	protected final void bootstrap() {
-		for (Bundle bundle : ServiceLoader.load(Bundle.class)) {
-			Class<? extends Bundle> bundleId = bundle.getClass();
-			if (bootstrap(bundleId)) {
+		BindingIndex index = BindingIndex.ofContext();
+		ServiceLoader.load(Bundle.class).stream().forEach(provider -> {
+			Class<? extends Bundle> bundleId = provider.type();
+			if (bootstrap(extendsTargetOf(bundleId, index))) {
 				install(bundleId);
 			}
-		}
+		});
+	}
+
+	private static Class<?> extendsTargetOf(Class<? extends Bundle> bundle,
+			BindingIndex index) {
+		String target = index.bundles().get(bundle.getName());
+		if (target != null)
+			return target.isEmpty()
+				? null
+				: BindingIndex.classFor(target, bundle.getClassLoader());
+		Extends ext = bundle.getAnnotation(Extends.class);
+		return ext == null ? null : ext.value();
 	}
 
 	/**
@@ -23,8 +45,10 @@ public abstract class FilteredServiceLoaderBundles extends BootstrapperBundle {
 	 * implementation with different inner state make no sense. Therefore we do
 	 * use inheritance over composition.
 	 *
-	 * @param bundle a {@link Bundle} provided by {@link ServiceLoader}
+	 * @param extendsTarget the {@link Extends#value()} of a {@link Bundle}
+	 *                      provided by {@link ServiceLoader} or {@code null}
+	 *                      if it is not annotated with {@link Extends}
 	 * @return true, if the bundle should be installed, else false
 	 */
-	abstract boolean bootstrap(Class<? extends Bundle> bundle);
+	abstract boolean bootstrap(Class<?> extendsTarget);
 }
@@ -5,6 +5,7 @@ import se.jbee.inject.Descriptor;
 import se.jbee.inject.Hint;
 import se.jbee.inject.InconsistentDeclaration;
 import se.jbee.inject.config.HintsBy;
+import se.jbee.lang.Reflection;
 import se.jbee.lang.Type;
 import se.jbee.lang.Typed;
 
@@ -20,6 +21,10 @@ abstract class ReflectiveDescriptor<M extends AnnotatedElement & Member, T>
 	public final Type<? super T> expectedType;
 	public final Type<T> actualType;
 	public final Object as;
+	/**
+	 * A {@link Reflection#copy(Member)} of the member as it is passed to code
+	 * that might make it accessible.
+	 */
 	public final M target;
 	/**
 	 * The {@link Hint}s that have been manually passed by the user
@@ -37,7 +42,7 @@ abstract class ReflectiveDescriptor<M extends AnnotatedElement & Member, T>
 		this.expectedType = expectedType;
 		this.actualType = actualType;
 		this.as = as;
-		this.target = target;
+		this.target = Reflection.copy(target);
 		this.strategy = strategy;
 		this.explicitHints = explicitHints;
 	}
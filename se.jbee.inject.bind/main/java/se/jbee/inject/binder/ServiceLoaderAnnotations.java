@@ -3,6 +3,7 @@ package se.jbee.inject.binder;
 import se.jbee.inject.Env;
 import se.jbee.inject.Extends;
 import se.jbee.inject.Name;
+import se.jbee.inject.bind.BindingIndex;
 import se.jbee.inject.bind.Module;
 import se.jbee.inject.bind.ModuleWith;
 import se.jbee.lang.Type;
@@ -21,6 +22,10 @@ import static se.jbee.lang.Type.raw;
  * {@link Extends} annotation (use {@link Extends#value()}) or by annotated the
  * implementation class with the target {@link Annotation} itself. In that case
  * that {@link Annotation} must be the only runtime annotation present.
+ * <p>
+ * For {@link ModuleWith}s contained in the {@link BindingIndex} the linked
+ * {@link Annotation} is taken from the index and {@link ModuleWith}s not linked
+ * to a type level {@link Annotation} are not instantiated.
  *
  * @since 8.1
  */
@@ -29,27 +34,46 @@ public class ServiceLoaderAnnotations extends EnvModule {
 	@Override
 	protected void declare() {
 		//TODO localise effect to package
-		for (ModuleWith<?> def : ServiceLoader.load(ModuleWith.class)) {
-			Type<?> genericModuleType = raw(def.getClass()).toSuperType(ModuleWith.class);
+		BindingIndex index = BindingIndex.ofContext();
+		ServiceLoader.load(ModuleWith.class).stream().forEach(provider -> {
+			Class<?> moduleType = provider.type();
+			String indexed = index.effects().get(moduleType.getName());
+			if (indexed != null) {
+				if (!indexed.isEmpty())
+					bind(annotationFor(indexed, moduleType), effectOf(provider));
+				return;
+			}
+			Type<?> genericModuleType = raw(moduleType).toSuperType(ModuleWith.class);
 			if (genericModuleType.parameter(0).rawType == Class.class) {
-				@SuppressWarnings("unchecked")
-				ModuleWith<Class<?>> effect = (ModuleWith<Class<?>>) def;
-				if (def.getClass().isAnnotationPresent(Extends.class)) {
-					Class<?> type = def.getClass().getAnnotation(
+				if (moduleType.isAnnotationPresent(Extends.class)) {
+					Class<?> type = moduleType.getAnnotation(
 							Extends.class).value();
 					if (type.isAnnotation()) {
 						@SuppressWarnings("unchecked")
 						Class<? extends Annotation> target = (Class<? extends Annotation>) type;
-						bind(target, effect);
+						bind(target, effectOf(provider));
 					}
 				} else {
-					Annotation[] annotations = def.getClass().getAnnotations();
+					Annotation[] annotations = moduleType.getAnnotations();
 					if (annotations.length == 1) {
-						bind(annotations[0].annotationType(), effect);
+						bind(annotations[0].annotationType(), effectOf(provider));
 					}
 				}
 			}
-		}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Annotation> annotationFor(String name,
+			Class<?> moduleType) {
+		return (Class<? extends Annotation>) BindingIndex.classFor(name,
+				moduleType.getClassLoader());
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static ModuleWith<Class<?>> effectOf(
+			ServiceLoader.Provider<ModuleWith> provider) {
+		return (ModuleWith<Class<?>>) provider.get();
 	}
 
 	protected final void bind(Class<? extends Annotation> name,
@@ -14,10 +14,7 @@ import se.jbee.inject.bind.Bundle;
 public class ServiceLoaderBundles extends FilteredServiceLoaderBundles {
 
 	@Override
-	boolean bootstrap(Class<? extends Bundle> bundle) {
-		if (!bundle.isAnnotationPresent(Extends.class))
-			return true;
-		Class<?> target = bundle.getAnnotation(Extends.class).value();
-		return target == Injector.class;
+	boolean bootstrap(Class<?> extendsTarget) {
+		return extendsTarget == null || extendsTarget == Injector.class;
 	}
 }
@@ -14,11 +14,8 @@ import se.jbee.inject.bind.Bundle;
 public class ServiceLoaderEnvBundles extends FilteredServiceLoaderBundles {
 
 	@Override
-	boolean bootstrap(Class<? extends Bundle> bundle) {
-		if (!bundle.isAnnotationPresent(Extends.class))
-			return false;
-		Class<?> target = bundle.getAnnotation(Extends.class).value();
-		return target == Env.class;
+	boolean bootstrap(Class<?> extendsTarget) {
+		return extendsTarget == Env.class;
 	}
 
 }
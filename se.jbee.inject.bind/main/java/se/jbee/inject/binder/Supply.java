@@ -13,6 +13,7 @@ import se.jbee.lang.TypeVariable;
 
 import java.lang.reflect.AnnotatedElement;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.UnaryOperator;
 
 import static se.jbee.inject.Dependency.dependency;
@@ -39,10 +40,16 @@ public final class Supply {
 	 * Basically we just resolve the array of the element type (generic of the
 	 * list). Arrays itself have build in support that will (if not redefined by
 	 * a more precise binding) return all known
+	 *
+	 * The bridged collections are unmodifiable views. When the context returns
+	 * the same array again (as it does for arrays of permanent instances) the
+	 * view created for it before is returned again.
 	 */
-	public static final ArrayBridge<List<?>> LIST_BRIDGE = Arrays::asList;
-	public static final ArrayBridge<Set<?>> SET_BRIDGE = //
-			elems -> new HashSet<>(Arrays.asList(elems));
+	public static final ArrayBridge<List<?>> LIST_BRIDGE = new SharedArrayBridge<>(
+			elems -> Collections.unmodifiableList(Arrays.asList(elems)));
+	public static final ArrayBridge<Set<?>> SET_BRIDGE = new SharedArrayBridge<>(
+			elems -> Collections.unmodifiableSet(
+					new LinkedHashSet<>(Arrays.asList(elems))));
 
 	/**
 	 * A {@link Supplier} used as fall-back. Should a required {@link Locator}
@@ -134,6 +141,51 @@ public final class Supply {
 		T bridge(Object[] elems);
 	}
 
+	/**
+	 * Remembers the view bridged for each {@link Instance} so that it can be
+	 * returned as long as the resolved array is the same.
+	 */
+	private static final class SharedArrayBridge<T> implements ArrayBridge<T> {
+
+		private static final int MAX_VIEWS = 256;
+
+		private static final class View<T> {
+
+			final Object[] elems;
+			final T view;
+
+			View(Object[] elems, T view) {
+				this.elems = elems;
+				this.view = view;
+			}
+		}
+
+		private final ArrayBridge<T> bridge;
+		private final Map<Instance<?>, View<T>> views = new ConcurrentHashMap<>();
+
+		SharedArrayBridge(ArrayBridge<T> bridge) {
+			this.bridge = bridge;
+		}
+
+		@Override
+		public T supply(Dependency<? super T> dep, Injector context) {
+			Object[] elems = context.resolve(
+					dep.typed(dep.type().parameter(0).addArrayDimension()));
+			View<T> known = views.get(dep.instance);
+			if (known != null && known.elems == elems)
+				return known.view;
+			T view = bridge(elems);
+			if (known != null || views.size() < MAX_VIEWS)
+				views.put(dep.instance, new View<>(elems, view));
+			return view;
+		}
+
+		@Override
+		public T bridge(Object[] elems) {
+			return bridge.bridge(elems);
+		}
+	}
+
 	/**
 	 * A {@link Supplier} uses multiple different separate suppliers to provide
 	 * the elements of a array of the supplied type.
@@ -174,7 +226,7 @@ public final class Supply {
 			implements Annotated {
 
 		private final Constructs<T> constructs;
-		private New newInstance;
+		private InContext<New> newInstance;
 
 		Construct(Constructs<T> constructs) {
 			this.constructs = constructs;
@@ -189,10 +241,14 @@ public final class Supply {
 		@SuppressWarnings("unchecked")
 		protected T invoke(Object[] args, Injector context) {
 			try {
-				if (newInstance == null)
-					newInstance = context.resolve(dependency(New.class)
-							.injectingInto(constructs.target.getDeclaringClass()));
-				return (T) newInstance.call(constructs.target, args);
+				InContext<New> local = newInstance;
+				if (local == null || local.context != context) {
+					local = new InContext<>(context, context.resolve(
+							dependency(New.class).injectingInto(
+									constructs.target.getDeclaringClass())));
+					newInstance = local;
+				}
+				return (T) local.value.call(constructs.target, args);
 			} catch (Exception e) {
 				throw UnresolvableDependency.SupplyFailed.valueOf(e, constructs.target);
 			}
@@ -212,8 +268,8 @@ public final class Supply {
 	private static final class Produce<T> extends WithArgs<T>
 			implements Annotated {
 
-		private Object instance;
-		private Invoke invoke;
+		private InContext<Object> instance;
+		private InContext<Invoke> invoke;
 		private final Produces<T> produces;
 		private final Class<T> returns;
 		private final Map<java.lang.reflect.TypeVariable<?>, UnaryOperator<Type<?>>> typeVariableResolvers;
@@ -221,7 +277,9 @@ public final class Supply {
 		Produce(Produces<T> produces) {
 			this.produces = produces;
 			this.returns = produces.actualType.rawType;
-			this.instance = produces.isHinted() ? null : produces.as;
+			this.instance = produces.isHinted() || produces.as == null
+				? null
+				: new InContext<>(null, produces.as);
 			this.typeVariableResolvers = produces.isGeneric()
 				? TypeVariable.typeVariables(
 						produces.target.getGenericReturnType())
@@ -235,16 +293,24 @@ public final class Supply {
 
 		@Override
 		protected T invoke(Object[] args, Injector context) {
-			if (instance == null && !produces.isStatic()) {
-				instance = produces.isHinted()
+			InContext<Object> owner = instance;
+			if (!produces.isStatic() && (owner == null
+				|| owner.context != null && owner.context != context)) {
+				owner = new InContext<>(context, produces.isHinted()
 					? produces.getAsHint().resolveIn(context)
-					: context.resolve(produces.target.getDeclaringClass());
+					: context.resolve(produces.target.getDeclaringClass()));
+				instance = owner;
+			}
+			InContext<Invoke> local = invoke;
+			if (local == null || local.context != context) {
+				local = new InContext<>(context, context.resolve(
+						dependency(Invoke.class).injectingInto(
+								produces.target.getDeclaringClass())));
+				invoke = local;
 			}
-			if (invoke == null)
-				invoke = context.resolve(dependency(Invoke.class)
-						.injectingInto(produces.target.getDeclaringClass()));
 			try {
-				return returns.cast(invoke.call(produces.target, instance, args));
+				return returns.cast(local.value.call(produces.target,
+						owner == null ? null : owner.value, args));
 			} catch (Exception e) {
 				throw UnresolvableDependency.SupplyFailed.valueOf(e, produces.target);
 			}
@@ -281,7 +347,7 @@ public final class Supply {
 
 	public abstract static class WithArgs<T> implements Supplier<T> {
 
-		private InjectionSite previous;
+		private InContext<InjectionSite> previous;
 
 		protected abstract T invoke(Object[] args, Injector context);
 
@@ -293,14 +359,34 @@ public final class Supply {
 			// this is important so previous might work as a simple cache but
 			// never causes trouble for this invocation in face of multiple
 			// threads calling
-			InjectionSite local = previous;
-			if (local == null || !local.site.equalTo(dep)) {
-				local = new InjectionSite(context, dep,
-						actualParametersFor(dep, context));
+			InContext<InjectionSite> local = previous;
+			if (local == null || local.context != context
+				|| !local.value.site.equalTo(dep)) {
+				local = new InContext<>(context, new InjectionSite(context, dep,
+						actualParametersFor(dep, context)));
 				previous = local;
 			}
-			Object[] args = local.args(context);
+			Object[] args = local.value.args(context);
 			return invoke(args, context);
 		}
 	}
+
+	/**
+	 * A value resolved from a particular {@link Injector} context. As the same
+	 * {@link Supplier} might be used by multiple contexts (see {@code
+	 * se.jbee.inject.container.ContextTemplate}) values resolved from a
+	 * context must only be reused in that context.
+	 *
+	 * @param <V> type of the resolved value
+	 */
+	private static final class InContext<V> {
+
+		final Injector context;
+		final V value;
+
+		InContext(Injector context, V value) {
+			this.context = context;
+			this.value = value;
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package se.jbee.inject.config;
 
 import se.jbee.inject.Packages;
+import se.jbee.lang.Reflection;
 import se.jbee.lang.Type;
 import se.jbee.lang.Utils;
 
@@ -45,7 +46,7 @@ public interface AccessesBy {
 		return declaredFields(null, includeInherited);
 	}
 	static AccessesBy declaredFields(Predicate<Field> filter, boolean includeInherited) {
-		return fields(Class::getDeclaredFields, filter, includeInherited);
+		return fields(Reflection::declaredFields, filter, includeInherited);
 	}
 
 	static AccessesBy fields(Function<Class<?>, Field[]> pool,
@@ -3,14 +3,16 @@ package se.jbee.inject.config;
 import se.jbee.inject.*;
 import se.jbee.lang.Type;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static java.util.Optional.empty;
-import static java.util.Optional.ofNullable;
 import static se.jbee.inject.Dependency.dependency;
 import static se.jbee.inject.Instance.defaultInstanceOf;
 import static se.jbee.inject.Instance.instance;
 import static se.jbee.inject.Name.named;
+import static se.jbee.inject.Resource.resourceTypeOf;
 import static se.jbee.lang.Type.raw;
 import static se.jbee.lang.Utils.orElse;
 
@@ -26,6 +28,9 @@ import static se.jbee.lang.Utils.orElse;
  * As it is {@link ContextAware} it can be injected into the configured bean
  * already being scoped to the target, that means only the configurations for
  * the target instance are "in scope" or visible.
+ * <p>
+ * If a {@link ConfigSource} is bound its current {@link ConfigSnapshot} takes
+ * precedence over the bound values. This allows to change values at runtime.
  *
  * @since 8.1
  */
@@ -33,17 +38,70 @@ public class Config implements ContextAware<Config>, Extension {
 
 	private final Injector context;
 	private final Instance<?> ns;
+	/**
+	 * Values of {@link ScopeLifeCycle#isPermanent()} {@link Resource}s and
+	 * properties known to be absent never change for a context. Therefore they
+	 * are only resolved once for each {@link Config} instance which (as a
+	 * {@link ContextAware#isTargetProjection()}) is reused for each target.
+	 */
+	private final Map<Dependency<?>, Optional<?>> permanentValues = new ConcurrentHashMap<>();
+	private final Map<Type<?>, Optional<Converter<?, ?>>> converters;
+	/**
+	 * The {@link ConfigSource} or {@code null} if none is bound
+	 */
+	private final ConfigSource source;
+	private final Map<String, Property> properties = new ConcurrentHashMap<>();
+
+	/**
+	 * The {@link ConfigSnapshot} keys of a property of a {@link Config} and
+	 * the value it had in the most recently read {@link ConfigSnapshot}. While
+	 * the snapshot does not change reading the value is a field access.
+	 */
+	private static final class Property {
+
+		final String name;
+		/**
+		 * Most specific first
+		 */
+		final String[] keys;
+		volatile SnapshotValue last;
+
+		Property(String name, String[] keys) {
+			this.name = name;
+			this.keys = keys;
+		}
+	}
+
+	private static final class SnapshotValue {
+
+		final ConfigSnapshot snapshot;
+		final Class<?> type;
+		/**
+		 * {@code null} if the property is not defined in the snapshot
+		 */
+		final Optional<?> value;
+
+		SnapshotValue(ConfigSnapshot snapshot, Class<?> type, Optional<?> value) {
+			this.snapshot = snapshot;
+			this.type = type;
+			this.value = value;
+		}
+	}
 
 	/**
 	 * Called by the {@link Injector} itself when used as an {@link Extension}
 	 */
 	public Config(Injector context) {
-		this(context, null);
+		this(context, null, context.resolveOrNull(ConfigSource.class),
+				new ConcurrentHashMap<>());
 	}
 
-	private Config(Injector context, Instance<?> ns) {
+	private Config(Injector context, Instance<?> ns, ConfigSource source,
+			Map<Type<?>, Optional<Converter<?, ?>>> converters) {
 		this.context = context;
 		this.ns = ns;
+		this.source = source;
+		this.converters = converters;
 	}
 
 	/**
@@ -53,13 +111,18 @@ public class Config implements ContextAware<Config>, Extension {
 	@Override
 	public Config inContext(Dependency<? super Config> context) {
 		if (context.isNotTargeted())
-			return ns == null ? this : new Config(this.context, null);
+			return ns == null ? this : of((Instance<?>) null);
 		Instance<?> target = context.target();
 		if (target.name.isAny())
 			return of(target.type.rawType);
 		return of(target);
 	}
 
+	@Override
+	public boolean isTargetProjection() {
+		return true;
+	}
+
 	public Config of(Class<?> ns) {
 		return of(defaultInstanceOf(raw(ns)));
 	}
@@ -69,15 +132,15 @@ public class Config implements ContextAware<Config>, Extension {
 	}
 
 	public Config of(Instance<?> ns) {
-		return new Config(context, ns);
+		return new Config(context, ns, source, converters);
 	}
 
 	public final class Value<A> {
 
-		private final String property;
+		private final Property property;
 		private final Type<A> from;
 
-		private Value(String property, Type<A> from) {
+		private Value(Property property, Type<A> from) {
 			this.property = property;
 			this.from = from;
 		}
@@ -89,9 +152,7 @@ public class Config implements ContextAware<Config>, Extension {
 		public <B> Optional<B> as(Type<B> type) {
 			if (from.isAssignableTo(type))
 				return (Optional<B>) optionalValue(from, property);
-			Converter<A, B> converter = orElse(null,
-					() -> Config.this.context.resolve(
-							Converter.converterTypeOf(from, type)));
+			Converter<A, B> converter = converter(from, type);
 			if (converter == null)
 				return empty();
 			return Config.this.optionalValue(from, property) //
@@ -99,7 +160,7 @@ public class Config implements ContextAware<Config>, Extension {
 		}
 
 		public Source source() {
-			Dependency<A> dep = toDependency(from, property);
+			Dependency<A> dep = toDependency(from, property.name);
 			Resource<?> r = context.resolve(dep.typed(Resource.resourceTypeOf(dep.type())));
 			return r.source;
 		}
@@ -109,6 +170,19 @@ public class Config implements ContextAware<Config>, Extension {
 		}
 	}
 
+	/**
+	 * {@link Converter}s are assumed to be stateless and permanent. They are
+	 * looked up once and shared by all {@link Config}s of the same context.
+	 */
+	@SuppressWarnings("unchecked")
+	private <A, B> Converter<A, B> converter(Type<A> from, Type<B> to) {
+		Type<Converter<A, B>> converterType = Converter.converterTypeOf(from, to);
+		return (Converter<A, B>) converters.computeIfAbsent(converterType,
+				key -> Optional.ofNullable(orElse(null,
+						() -> context.resolveOrNull(dependency(converterType))))) //
+				.orElse(null);
+	}
+
 	public Value<String> value(String property) {
 		return value(String.class, property);
 	}
@@ -118,7 +192,7 @@ public class Config implements ContextAware<Config>, Extension {
 	}
 
 	public <T> Value<T> value(Type<T> srcType, String property) {
-		return new Value<>(property, srcType);
+		return new Value<>(propertyOf(property), srcType);
 	}
 
 	public <T> Optional<T> optionalValue(Class<T> type, String property) {
@@ -126,8 +200,81 @@ public class Config implements ContextAware<Config>, Extension {
 	}
 
 	public <T> Optional<T> optionalValue(Type<T> type, String property) {
-		return orElse(empty(), () -> ofNullable(
-				context.resolve(toDependency(type, property))));
+		return optionalValue(type, propertyOf(property));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Optional<T> optionalValue(Type<T> type, Property property) {
+		if (source != null && !type.isParameterized()) {
+			Optional<T> value = snapshotValue(type.rawType, property);
+			if (value != null)
+				return value;
+		}
+		Dependency<T> dep = toDependency(type, property.name);
+		Optional<?> known = permanentValues.get(dep);
+		if (known != null)
+			return (Optional<T>) known;
+		if (type.arrayDimensions() > 0)
+			return orElse(empty(), () -> context.tryResolve(dep));
+		return orElse(empty(), () -> resolveValue(dep));
+	}
+
+	private <T> Optional<T> resolveValue(Dependency<T> dep) {
+		Resource<T> resource = context.resolveOrNull(
+				dep.typed(resourceTypeOf(dep.type())));
+		if (resource == null) {
+			permanentValues.put(dep, empty());
+			return empty();
+		}
+		Optional<T> value = Optional.ofNullable(resource.generate(dep));
+		if (resource.lifeCycle.isPermanent())
+			permanentValues.put(dep, value);
+		return value;
+	}
+
+	/**
+	 * The value is converted once per {@link ConfigSnapshot} and type.
+	 *
+	 * @return the value of the property in the current {@link ConfigSnapshot}
+	 * or {@code null} if it is not defined there
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> Optional<T> snapshotValue(Class<T> type, Property property) {
+		ConfigSnapshot snapshot = source.snapshot();
+		SnapshotValue last = property.last;
+		if (last == null || last.snapshot != snapshot || last.type != type) {
+			Optional<?> value = null;
+			for (String key : property.keys) {
+				Optional<T> candidate = snapshot.value(key, type);
+				if (candidate.isPresent()) {
+					value = candidate;
+					break;
+				}
+			}
+			last = new SnapshotValue(snapshot, type, value);
+			property.last = last;
+		}
+		return (Optional<T>) last.value;
+	}
+
+	private Property propertyOf(String property) {
+		return properties.computeIfAbsent(property,
+				p -> new Property(p, keysOf(p)));
+	}
+
+	/**
+	 * @return the {@link ConfigSnapshot} keys for the property, most specific
+	 * first
+	 */
+	private String[] keysOf(String property) {
+		if (ns == null)
+			return new String[] { property };
+		String type = ns.type().rawType.getName() + ".";
+		if (ns.name.isDefault() || ns.name.isAny())
+			return new String[] { type + property, property };
+		return new String[] {
+				ns.type().rawType.getName() + "#" + ns.name + "." + property,
+				type + property, property };
 	}
 
 	private <T> Dependency<T> toDependency(Type<T> type, String property) {
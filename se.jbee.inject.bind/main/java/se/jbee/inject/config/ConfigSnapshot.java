@@ -0,0 +1,125 @@
+package se.jbee.inject.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Optional.empty;
+
+/**
+ * An immutable set of {@link String} properties as loaded by a {@link
+ * ConfigSource} at one point in time.
+ * <p>
+ * Typed values are converted from the {@link String} property once per
+ * snapshot and property type. Further reads of the same property return the
+ * already converted value. A property that cannot be converted to the asked
+ * type is treated as if it would not be present.
+ * <p>
+ * Supported types are {@link String}, the primitives and their wrappers and
+ * {@link Enum}s.
+ *
+ * @since 8.1
+ */
+public final class ConfigSnapshot {
+
+	public static final ConfigSnapshot EMPTY = new ConfigSnapshot(0L, emptyMap());
+
+	/**
+	 * Starts with zero for the {@link #EMPTY} snapshot and increments with each
+	 * swap of the {@link ConfigSource}'s snapshot.
+	 */
+	public final long version;
+	private final Map<String, String> properties;
+	private final Map<Class<?>, Map<String, Optional<?>>> valuesByType = new ConcurrentHashMap<>();
+
+	private ConfigSnapshot(long version, Map<String, String> properties) {
+		this.version = version;
+		this.properties = properties;
+	}
+
+	ConfigSnapshot next(Map<String, String> properties) {
+		return new ConfigSnapshot(version + 1,
+				unmodifiableMap(new HashMap<>(properties)));
+	}
+
+	boolean equalTo(Map<String, String> properties) {
+		return this.properties.equals(properties);
+	}
+
+	public Set<String> keys() {
+		return properties.keySet();
+	}
+
+	public boolean contains(String key) {
+		return properties.containsKey(key);
+	}
+
+	/**
+	 * @return the value of the property or {@code null} if it is not defined
+	 */
+	public String get(String key) {
+		return properties.get(key);
+	}
+
+	/**
+	 * @return true, if the property is defined differently in the given
+	 * snapshot (this includes being defined in one but not the other)
+	 */
+	public boolean isChanged(String key, ConfigSnapshot other) {
+		String value = get(key);
+		return value == null ? other.contains(key) : !value.equals(other.get(key));
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T> Optional<T> value(String key, Class<T> type) {
+		Map<String, Optional<?>> values = valuesByType.computeIfAbsent(type,
+				t -> new ConcurrentHashMap<>());
+		Optional<?> value = values.get(key);
+		if (value == null) {
+			value = convert(properties.get(key), type);
+			values.put(key, value);
+		}
+		return (Optional<T>) value;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Optional<?> convert(String value, Class<?> type) {
+		if (value == null)
+			return empty();
+		try {
+			if (type == String.class)
+				return Optional.of(value);
+			if (type == boolean.class || type == Boolean.class)
+				return Optional.of(Boolean.valueOf(value.trim()));
+			if (type == int.class || type == Integer.class)
+				return Optional.of(Integer.valueOf(value.trim()));
+			if (type == long.class || type == Long.class)
+				return Optional.of(Long.valueOf(value.trim()));
+			if (type == double.class || type == Double.class)
+				return Optional.of(Double.valueOf(value.trim()));
+			if (type == float.class || type == Float.class)
+				return Optional.of(Float.valueOf(value.trim()));
+			if (type == short.class || type == Short.class)
+				return Optional.of(Short.valueOf(value.trim()));
+			if (type == byte.class || type == Byte.class)
+				return Optional.of(Byte.valueOf(value.trim()));
+			if ((type == char.class || type == Character.class)
+				&& value.length() == 1)
+				return Optional.of(value.charAt(0));
+			if (type.isEnum())
+				return Optional.of(Enum.valueOf((Class) type, value.trim()));
+		} catch (IllegalArgumentException e) {
+			// not a valid value for the type, treated as absent
+		}
+		return empty();
+	}
+
+	@Override
+	public String toString() {
+		return "v" + version + properties;
+	}
+}
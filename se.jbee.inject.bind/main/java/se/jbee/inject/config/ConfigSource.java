@@ -0,0 +1,226 @@
+package se.jbee.inject.config;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * A reloadable source of {@link Config} properties.
+ * <p>
+ * The properties are held in an immutable {@link ConfigSnapshot} that is
+ * swapped atomically when the source is {@link #update(Map)}d or {@link
+ * #reload()}ed. Readers therefore always see a consistent set of properties.
+ * When the set of properties changed all {@link Listener}s are notified.
+ * <p>
+ * When a {@link ConfigSource} is bound the {@link Config} looks up properties
+ * in its current {@link ConfigSnapshot} first. Only if the snapshot does not
+ * contain the property the bound values are used. Keys are the property name
+ * prefixed by the name-space {@link Class#getName()} and a dot, for example
+ * {@code com.example.Service.timeout}, or the plain property name for
+ * properties that apply to any name-space. For named name-spaces the name is
+ * added after a hash, as in {@code com.example.Service#main.timeout}.
+ *
+ * @since 8.1
+ */
+public final class ConfigSource implements Closeable {
+
+	/**
+	 * Called after the {@link ConfigSnapshot} of a {@link ConfigSource} was
+	 * swapped.
+	 */
+	@FunctionalInterface
+	public interface Listener {
+
+		void onChange(ConfigSnapshot before, ConfigSnapshot after);
+	}
+
+	/**
+	 * Loads the current set of properties, for example from a file.
+	 */
+	@FunctionalInterface
+	public interface Loader {
+
+		Map<String, String> load() throws IOException;
+	}
+
+	public static ConfigSource of(Map<String, String> properties) {
+		ConfigSource source = new ConfigSource(() -> properties);
+		source.update(properties);
+		return source;
+	}
+
+	/**
+	 * @param loader used to load the initial and all reloaded properties
+	 * @throws IOException in case the initial load failed
+	 */
+	public static ConfigSource of(Loader loader) throws IOException {
+		ConfigSource source = new ConfigSource(loader);
+		source.reload();
+		return source;
+	}
+
+	/**
+	 * @param file a {@link Properties} file, it does not need to exist (yet)
+	 * @return a source that {@link #reload()}s from the given file
+	 * @throws IOException in case the file exists but could not be read
+	 */
+	public static ConfigSource ofFile(Path file) throws IOException {
+		return of(() -> loadProperties(file));
+	}
+
+	/**
+	 * Same as {@link #ofFile(Path)} but the file is watched using a {@link
+	 * WatchService} so that the source reloads whenever the file is created or
+	 * modified. Watching ends when the source is {@link #close()}d.
+	 */
+	public static ConfigSource watching(Path file) throws IOException {
+		ConfigSource source = ofFile(file);
+		source.watch(file);
+		return source;
+	}
+
+	private final Loader loader;
+	private final AtomicReference<ConfigSnapshot> snapshot = new AtomicReference<>(
+			ConfigSnapshot.EMPTY);
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+	private volatile WatchService watcher;
+
+	private ConfigSource(Loader loader) {
+		this.loader = loader;
+	}
+
+	/**
+	 * @return the current snapshot, this is a plain field access
+	 */
+	public ConfigSnapshot snapshot() {
+		return snapshot.get();
+	}
+
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeListener(Listener listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Loads the properties from the {@link Loader} and swaps the snapshot if
+	 * they changed.
+	 *
+	 * @return true, if the snapshot was swapped
+	 * @throws IOException in case the properties could not be loaded, the
+	 *                     current snapshot remains unchanged
+	 */
+	public boolean reload() throws IOException {
+		return update(loader.load());
+	}
+
+	/**
+	 * Swaps the snapshot to the given properties unless they are equal to the
+	 * current ones.
+	 *
+	 * @return true, if the snapshot was swapped
+	 */
+	public boolean update(Map<String, String> properties) {
+		ConfigSnapshot before;
+		ConfigSnapshot after;
+		do {
+			before = snapshot.get();
+			if (before.equalTo(properties))
+				return false;
+			after = before.next(properties);
+		} while (!snapshot.compareAndSet(before, after));
+		notifyListeners(before, after);
+		return true;
+	}
+
+	/**
+	 * All {@link Listener}s are notified even if one of them fails. The first
+	 * failure is rethrown afterwards.
+	 */
+	private void notifyListeners(ConfigSnapshot before, ConfigSnapshot after) {
+		RuntimeException failure = null;
+		for (Listener l : listeners) {
+			try {
+				l.onChange(before, after);
+			} catch (RuntimeException e) {
+				if (failure == null)
+					failure = e;
+			}
+		}
+		if (failure != null)
+			throw failure;
+	}
+
+	private synchronized void watch(Path file) throws IOException {
+		if (watcher != null)
+			return;
+		Path dir = file.toAbsolutePath().getParent();
+		WatchService service = dir.getFileSystem().newWatchService();
+		dir.register(service, ENTRY_CREATE, ENTRY_MODIFY);
+		watcher = service;
+		Thread daemon = new Thread(() -> watchLoop(service, file.getFileName()),
+				getClass().getSimpleName() + ":" + file);
+		daemon.setDaemon(true);
+		daemon.start();
+	}
+
+	private void watchLoop(WatchService service, Path filename) {
+		try {
+			while (true) {
+				WatchKey key = service.take();
+				boolean modified = false;
+				for (WatchEvent<?> event : key.pollEvents())
+					modified |= event.kind() == OVERFLOW
+						|| filename.equals(event.context());
+				if (modified)
+					reloadQuietly();
+				if (!key.reset())
+					return;
+			}
+		} catch (ClosedWatchServiceException e) {
+			// closed, done watching
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void reloadQuietly() {
+		try {
+			reload();
+		} catch (IOException | RuntimeException e) {
+			// file might be written right now, keep current snapshot until next event
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		WatchService service = watcher;
+		if (service != null)
+			service.close();
+	}
+
+	private static Map<String, String> loadProperties(Path file)
+			throws IOException {
+		Map<String, String> res = new HashMap<>();
+		if (!Files.exists(file))
+			return res;
+		Properties properties = new Properties();
+		try (InputStream in = Files.newInputStream(file)) {
+			properties.load(in);
+		}
+		for (String key : properties.stringPropertyNames())
+			res.put(key, properties.getProperty(key));
+		return res;
+	}
+}
@@ -0,0 +1,80 @@
+package se.jbee.inject.config;
+
+import se.jbee.inject.Env;
+import se.jbee.inject.Supplier;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * A {@link New} that delegates to the {@link New} generated for a type by the
+ * {@code se.jbee.inject.processor} when it exists.
+ * <p>
+ * A generated {@link New} throws {@link NoSuchMethodException} for {@link
+ * Constructor}s it does not cover which are then called using the fallback.
+ * <p>
+ * The generated class is named like the binary name of the type plus {@link
+ * #SUFFIX}. As {@code $} is reserved for generated names this cannot collide
+ * with names of other types.
+ *
+ * @since 8.1
+ */
+final class GeneratedNew implements New {
+
+	static final String SUFFIX = "$$New";
+
+	private static final New NONE = new New() {
+
+		@Override
+		public <T> T call(Constructor<T> target, Object[] args)
+				throws NoSuchMethodException {
+			throw new NoSuchMethodException(target.toString());
+		}
+	};
+
+	private static final ClassValue<New> GENERATED = new ClassValue<>() {
+
+		@Override
+		protected New computeValue(Class<?> type) {
+			try {
+				Class<?> generated = Class.forName(generatedNameOf(type), true,
+						type.getClassLoader());
+				return (New) generated.getConstructor().newInstance();
+			} catch (ReflectiveOperationException | ClassCastException e) {
+				return NONE;
+			}
+		}
+	};
+
+	static String generatedNameOf(Class<?> type) {
+		return type.getName() + SUFFIX;
+	}
+
+	@SuppressWarnings("unchecked")
+	static <T> Supplier<T> supplierOf(Env env, Class<T> type) {
+		if (!env.property(Env.PREFER_GENERATED, false)
+			|| env.property(ConstructsBy.class, null) != ConstructsBy.OPTIMISTIC
+			|| env.property(HintsBy.class, null) != HintsBy.AUTO)
+			return null;
+		New generated = GENERATED.get(type);
+		return generated instanceof Supplier ? (Supplier<T>) generated : null;
+	}
+
+	private final New fallback;
+
+	GeneratedNew(New fallback) {
+		this.fallback = fallback;
+	}
+
+	@Override
+	public <T> T call(Constructor<T> target, Object[] args) throws Exception {
+		New generated = GENERATED.get(target.getDeclaringClass());
+		if (generated != NONE) {
+			try {
+				return generated.call(target, args);
+			} catch (NoSuchMethodException e) {
+				// not covered by generated code
+			}
+		}
+		return fallback.call(target, args);
+	}
+}
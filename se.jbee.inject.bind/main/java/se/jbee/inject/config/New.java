@@ -1,5 +1,10 @@
 package se.jbee.inject.config;
 
+import se.jbee.inject.Env;
+import se.jbee.inject.Hint;
+import se.jbee.inject.Supplier;
+
+import java.lang.annotation.*;
 import java.lang.reflect.Constructor;
 
 /**
@@ -15,6 +20,10 @@ import java.lang.reflect.Constructor;
  * Alternatively the implementation of {@link New} could use {@link
  * java.lang.reflect.AccessibleObject#setAccessible(boolean)} which with java
  * module system will require to open the module accordingly.
+ * <p>
+ * To avoid reflection when creating instances the {@code se.jbee.inject.processor}
+ * can generate a {@link New} implementation for a type (see {@link Generate}).
+ * These are used by binding {@link #preferGenerated(New)}.
  */
 @FunctionalInterface
 public interface New {
@@ -38,4 +47,52 @@ public interface New {
 	 * @see Constructor#newInstance(Object...)
 	 */
 	<T> T call(Constructor<T> target, Object[] args) throws Exception;
+
+	/**
+	 * @param fallback used for types without a generated {@link New} or for
+	 *                 {@link Constructor}s not covered by it
+	 * @return a {@link New} that uses the generated {@link New} of the {@link
+	 * Constructor#getDeclaringClass()} when it exists
+	 * @see Generate
+	 */
+	static New preferGenerated(New fallback) {
+		return new GeneratedNew(fallback);
+	}
+
+	/**
+	 * A generated {@link New} is also a {@link Supplier} for its type when the
+	 * {@code se.jbee.inject.processor} could determine the {@link Constructor}
+	 * the default {@link ConstructsBy#OPTIMISTIC} strategy picks. It creates
+	 * instances with that {@link Constructor} using {@link Hint}s that are
+	 * equivalent to those of the default {@link HintsBy#AUTO} strategy.
+	 *
+	 * @param env  the {@link Env} used to bind the type
+	 * @param type the type to construct
+	 * @return the generated {@link Supplier} for the type or {@code null} if
+	 * there is none, the {@link Env#PREFER_GENERATED} property is not set or
+	 * the {@link Env} uses other than the default strategies
+	 * @since 8.1
+	 */
+	static <T> Supplier<T> generatedSupplier(Env env, Class<T> type) {
+		return GeneratedNew.supplierOf(env, type);
+	}
+
+	/**
+	 * Marks a type for which the {@code se.jbee.inject.processor} should
+	 * generate a {@link New} implementation that calls the non-private
+	 * constructors of the type directly.
+	 * <p>
+	 * The generated class is named like the binary name of the annotated type
+	 * plus {@code $$New} and placed in the same package. Where possible it
+	 * also is the {@link Supplier} for the type used with {@link
+	 * Env#PREFER_GENERATED} (see {@link #generatedSupplier(Env, Class)}).
+	 *
+	 * @since 8.1
+	 */
+	@Documented
+	@Retention(RetentionPolicy.CLASS)
+	@Target(ElementType.TYPE)
+	@interface Generate {
+
+	}
 }
@@ -54,6 +54,11 @@ public final class Plugins implements ContextAware<Plugins>, Extension {
 		return targeting(context.target().type.rawType);
 	}
 
+	@Override
+	public boolean isTargetProjection() {
+		return true;
+	}
+
 	public Plugins targeting(Class<?> target) {
 		return new Plugins(context, target);
 	}
@@ -6,6 +6,7 @@
 package se.jbee.inject.config;
 
 import se.jbee.inject.Packages;
+import se.jbee.lang.Reflection;
 import se.jbee.lang.Typed;
 import se.jbee.lang.Utils;
 
@@ -53,7 +54,7 @@ public interface ProducesBy {
 
 	static ProducesBy declaredMethods(Predicate<Method> filter,
 			boolean includeInherited) {
-		return methods(Class::getDeclaredMethods, filter, includeInherited);
+		return methods(Reflection::declaredMethods, filter, includeInherited);
 	}
 
 	static ProducesBy methods(Function<Class<?>, Method[]> pool,
@@ -5,6 +5,7 @@
  */
 package se.jbee.inject.bootstrap;
 
+import se.jbee.inject.Dependency;
 import se.jbee.inject.Env;
 import se.jbee.inject.InconsistentDeclaration;
 import se.jbee.inject.Injector;
@@ -15,8 +16,10 @@ import se.jbee.inject.binder.ServiceLoaderBundles;
 import se.jbee.inject.binder.ServiceLoaderEnvBundles;
 import se.jbee.inject.config.Edition;
 import se.jbee.inject.config.New;
-import se.jbee.inject.container.Container;
+import se.jbee.inject.container.ContextTemplate;
+import se.jbee.inject.defaults.ChildDefaultsBundle;
 import se.jbee.inject.defaults.DefaultEnv;
+import se.jbee.inject.defaults.DefaultFeature;
 import se.jbee.inject.defaults.DefaultsBundle;
 import se.jbee.lang.Lazy;
 
@@ -102,8 +105,7 @@ public final class Bootstrap {
 	@SafeVarargs
 	public static Injector injector(Env env, Bindings bindings,
 			Class<? extends Bundle>... roots) {
-		BuiltinBootstrapper boots = new BuiltinBootstrapper(env);
-		return injector(env, bindings, boots.modulesOf(boots.bundleAll(roots)));
+		return template(env, bindings, roots).injector();
 	}
 
 	public static Injector injector(Class<? extends Bundle> root) {
@@ -121,10 +123,50 @@ public final class Bootstrap {
 
 	private static Injector injector(Env env, Bindings bindings,
 			Module[] modules) {
-		return Container.injector(
-				env.property(BindingConsolidation.class) //
-						.consolidate(env,
-								(bindings.declaredFrom(env, modules))));
+		return template(env, bindings, modules).injector();
+	}
+
+	/**
+	 * Bootstraps the given root {@link Bundle} once so that any number of
+	 * {@link Injector} contexts with the same structure can be created from
+	 * the returned {@link ContextTemplate}.
+	 */
+	public static ContextTemplate template(Env env,
+			Class<? extends Bundle> root) {
+		return template(env, newBindings(), modules(env).installedModules(root));
+	}
+
+	@SafeVarargs
+	public static ContextTemplate template(Env env, Bindings bindings,
+			Class<? extends Bundle>... roots) {
+		BuiltinBootstrapper boots = new BuiltinBootstrapper(env);
+		return template(env, bindings, boots.modulesOf(boots.bundleAll(roots)));
+	}
+
+	/**
+	 * Bootstraps the given root {@link Bundle}s for child contexts. Instead of
+	 * the {@link DefaultsBundle} only the {@link DefaultFeature}s {@link
+	 * DefaultFeature#INSTALLED_IN_CHILD_CONTEXT} are installed. All other
+	 * {@link Dependency}s are resolved in the parent given when creating a
+	 * child context using {@link ContextTemplate#injector(Injector)}.
+	 *
+	 * @since 8.1
+	 */
+	@SafeVarargs
+	public static ContextTemplate childTemplate(Env env,
+			Class<? extends Bundle>... roots) {
+		BuiltinBootstrapper boots = new BuiltinBootstrapper(env, true);
+		return template(env, newBindings(), boots.modulesOf(boots.bundleAll(
+				arrayPrepend(ChildDefaultsBundle.class, roots))));
+	}
+
+	private static ContextTemplate template(Env env, Bindings bindings,
+			Module[] modules) {
+		Binding<?>[] consolidated = env.property(BindingConsolidation.class) //
+				.consolidate(env, bindings.declaredFrom(env, modules));
+		return env.property(Env.LAZY_RESOURCES, false)
+			? ContextTemplate.lazyTemplate(consolidated)
+			: ContextTemplate.template(consolidated);
 	}
 
 	public static ModuleBootstrapper modules(Env env) {
@@ -149,15 +191,21 @@ public final class Bootstrap {
 		private final LinkedList<Class<? extends Bundle>> stack = new LinkedList<>();
 		private final Env env;
 		private final Edition edition;
+		private final boolean child;
 
 		BuiltinBootstrapper(Env env) {
+			this(env, false);
+		}
+
+		BuiltinBootstrapper(Env env, boolean child) {
 			this.env = env;
 			this.edition = env.property(Edition.class, Edition.FULL);
+			this.child = child;
 		}
 
 		@Override
 		public void installDefaults() {
-			install(DefaultsBundle.class);
+			install(child ? ChildDefaultsBundle.class : DefaultsBundle.class);
 		}
 
 		@Override
@@ -3,13 +3,13 @@ package se.jbee.inject.defaults;
 import se.jbee.inject.*;
 import se.jbee.inject.binder.BinderModule;
 
+import se.jbee.lang.Lazy;
+
 import java.lang.annotation.Annotation;
-import java.lang.reflect.AnnotatedElement;
 import java.util.*;
 
 import static java.util.Collections.unmodifiableList;
 import static se.jbee.inject.Instance.anyOf;
-import static se.jbee.inject.Name.named;
 import static se.jbee.lang.Type.raw;
 
 /**
@@ -24,17 +24,15 @@ import static se.jbee.lang.Type.raw;
  * instances using {@link Injector#annotatedWith(Class)}. This will only work if
  * this module is installed.
  *
+ * The {@link Resource}s are looked up using the {@link Annotated.Index} of the
+ * {@link Injector} context. Meta-annotations are considered as well.
+ *
  * @since 8.1
  */
 final class AnnotatedWithModule extends BinderModule {
 
-	@SuppressWarnings("rawtypes")
-	private static final Instance<Map> CACHE = Instance.instance(
-			named("annotation-cache"), raw(Map.class));
-
 	@Override
 	protected void declare() {
-		asDefault().bind(CACHE).to(new HashMap<>());
 		asDefault() //
 				.per(Scope.dependencyType) //
 				.bind(anyOf(
@@ -45,24 +43,20 @@ final class AnnotatedWithModule extends BinderModule {
 	@SuppressWarnings("unchecked")
 	private static <T> AnnotatedWith<?> annotatedWith(Dependency<?> dep,
 			Injector context) {
-		Map<Class<?>, List<AnnotatedWith.AnnotatedInstance<?>>> cache = //
-				context.resolve(CACHE);
-		return () -> {
-			Class<?> annotationType = dep.type().parameter(0).rawType;
-			return cache.computeIfAbsent(annotationType, key -> {
-				List<AnnotatedWith.AnnotatedInstance<?>> annotated = new ArrayList<>();
-				for (Resource<T> r : context.resolve(Resource[].class)) {
-					AnnotatedElement element = r.annotations.element();
-					if (element.isAnnotationPresent(
-							(Class<? extends Annotation>) key)) {
-						annotated.add(new AnnotatedWith.AnnotatedInstance<>(
-								() -> context.resolve(
-										r.signature.toDependency()),
-								r.signature.type(), element));
-					}
-				}
-				return unmodifiableList(annotated);
-			});
-		};
+		Class<? extends Annotation> annotationType = //
+				(Class<? extends Annotation>) dep.type().parameter(0).rawType;
+		Lazy<List<AnnotatedWith.AnnotatedInstance<?>>> instances = new Lazy<>();
+		return () -> instances.get(() -> {
+			List<AnnotatedWith.AnnotatedInstance<?>> annotated = new ArrayList<>();
+			for (Resource<?> r : context.resolve(Annotated.Index.class) //
+					.annotatedWith(annotationType)) {
+				Resource<T> resource = (Resource<T>) r;
+				annotated.add(new AnnotatedWith.AnnotatedInstance<>(
+						() -> context.resolve(resource.signature.toDependency()),
+						resource.signature.type(),
+						resource.annotations.element()));
+			}
+			return unmodifiableList(annotated);
+		});
 	}
 }
@@ -0,0 +1,23 @@
+package se.jbee.inject.defaults;
+
+import se.jbee.inject.Injector;
+import se.jbee.inject.bind.Bundle;
+import se.jbee.inject.binder.BootstrapperBundle;
+
+/**
+ * A {@link Bundle} that installs the {@link DefaultFeature}s {@link
+ * DefaultFeature#INSTALLED_IN_CHILD_CONTEXT} and the {@link DefaultScopes}
+ * a child needs of its own. It is used instead of the {@link DefaultsBundle}
+ * for child {@link Injector} contexts which use the defaults of their parent
+ * context.
+ *
+ * @since 8.1
+ */
+public final class ChildDefaultsBundle extends BootstrapperBundle {
+
+	@Override
+	protected void bootstrap() {
+		install(DefaultFeature.INSTALLED_IN_CHILD_CONTEXT);
+		install(new DefaultScopes(true));
+	}
+}
@@ -58,7 +58,7 @@ public class DefaultEnv extends SimpleModule {
 		bind(ProducesBy.class).to(impl -> null);
 		bind(NamesBy.class).to(obj -> Name.DEFAULT);
 		bind(ScopesBy.class).to(ScopesBy.AUTO);
-		bind(HintsBy.class).to(((param, context) -> null));
+		bind(HintsBy.class).to(HintsBy.AUTO);
 		bind(PublishesBy.class).to(PublishesBy.PROTECTIVE);
 
 		// reflection
@@ -74,6 +74,12 @@ public class DefaultEnv extends SimpleModule {
 		// verification is off
 		bind(Env.USE_VERIFICATION, boolean.class).to(false);
 
+		// modules are declared sequentially
+		bind(Env.PARALLEL_DECLARATION, boolean.class).to(false);
+
+		// all resources are created up front
+		bind(Env.LAZY_RESOURCES, boolean.class).to(false);
+
 		// extras
 		bind(Plugins.class).toFactory(Plugins::new);
 		bind(Annotated.Enhancer.class).to(Annotated.SOURCE);
@@ -14,15 +14,16 @@ import se.jbee.inject.binder.BinderModule;
 import se.jbee.inject.binder.Supply;
 import se.jbee.inject.bootstrap.Bootstrap;
 import se.jbee.inject.config.*;
+import se.jbee.inject.container.ContextTemplate;
 import se.jbee.lang.Lazy;
 import se.jbee.lang.Type;
 import se.jbee.lang.Utils;
 
-import java.lang.reflect.Array;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.logging.Logger;
 
@@ -111,6 +112,13 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 			.filter(e -> e.installedByDefault) //
 			.toArray(DefaultFeature[]::new);
 
+	/**
+	 * The features installed in a child context that otherwise uses the
+	 * features of its parent.
+	 */
+	public static final DefaultFeature[] INSTALLED_IN_CHILD_CONTEXT = {
+			SUB_CONTEXT };
+
 	public final boolean installedByDefault;
 
 	DefaultFeature(boolean installedByDefault) {
@@ -176,7 +184,7 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 
 		@Override
 		protected void declare() {
-			per(Scope.dependency)//
+			per(Scope.injection)//
 					.starbind(List.class) //
 					.toSupplier(Supply.LIST_BRIDGE);
 		}
@@ -187,7 +195,7 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 
 		@Override
 		protected void declare() {
-			per(Scope.dependency)//
+			per(Scope.injection)//
 					.starbind(Set.class) //
 					.toSupplier(Supply.SET_BRIDGE);
 		}
@@ -199,7 +207,7 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 		@Override
 		protected void declare() {
 			asDefault() //
-					.per(Scope.dependency) //
+					.per(Scope.injection) //
 					.starbind(Collection.class) //
 					.toParametrized(List.class);
 		}
@@ -219,7 +227,7 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 		<T> Optional<T> optional(Dependency<? super Optional<T>> dep, Injector context) {
 			try {
 				return Optional.ofNullable(
-						(T) context.resolve(dep.onTypeParameter().uninject()));
+						(T) context.resolveOrNull(dep.onTypeParameter().uninject()));
 			} catch (UnresolvableDependency e) {
 				return Optional.empty();
 			}
@@ -239,10 +247,19 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 	private static final class SubContextModule extends BinderModule
 			implements se.jbee.inject.Supplier<Injector>, Injector {
 
+		/**
+		 * Sub-contexts with the same root {@link Bundle}s only differ in state
+		 * so they are created from the same {@link ContextTemplate}. Each is a
+		 * child of the context it is resolved from.
+		 */
+		private final Map<List<Class<?>>, ContextTemplate> templates = new ConcurrentHashMap<>();
+
 		@Override
 		protected void declare() {
+			Env env = env().in(null);
 			asDefault().bind(functionTypeOf(Class[].class, Injector.class)) //
-					.to(roots -> createSubContextFromRootBundles(env().in(null), roots));
+					.toSupplier((dep, context) -> roots //
+							-> createSubContextFromRootBundles(context, env, roots));
 			asDefault() //
 					.per(Scope.dependencyInstance) //
 					.starbind(Injector.class) //
@@ -250,8 +267,11 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 		}
 
 		@SuppressWarnings({"rawtypes", "unchecked"})
-		private Injector createSubContextFromRootBundles(Env env, Class[] roots) {
-			return Bootstrap.injector(env, Bindings.newBindings(), roots);
+		private Injector createSubContextFromRootBundles(Injector parent,
+				Env env, Class[] roots) {
+			return templates.computeIfAbsent(Arrays.asList(roots),
+					key -> Bootstrap.childTemplate(env, roots)) //
+					.injector(parent);
 		}
 
 		@Override
@@ -260,7 +280,7 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 				Injector context) throws UnresolvableDependency {
 			@SuppressWarnings("unchecked")
 			Class<? extends Bundle>[] bundles = (Class<? extends Bundle>[]) //
-			context.resolve(Plugins.class).forPoint(Injector.class,
+			new Plugins(context).forPoint(Injector.class,
 					dep.instance.name.toString());
 			if (bundles.length == 0)
 				return this; // this module acts as an Injector that directly fails to resolve any Dependency
@@ -292,7 +312,7 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 				Dependency<E> elementDep = (Dependency<E>) dep.typed(targetType.baseType());
 				return new ObtainableCollection<>(context, elementDep);
 			}
-			return new ObtainableInstance<>(() -> context.resolve(targetDep));
+			return new ObtainableInstance<>(context, targetDep);
 		}
 
 		static final class ObtainableCollection<T, E> implements Obtainable<T> {
@@ -329,17 +349,19 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 
 		static final class ObtainableInstance<T> implements Obtainable<T> {
 
-			private final Provider<T> resolver;
+			private final Injector context;
+			private final Dependency<T> dep;
 			private final Lazy<T> value = new Lazy<>();
 			private UnresolvableDependency caught;
 
-			ObtainableInstance(Provider<T> resolver) {
-				this.resolver = resolver;
+			ObtainableInstance(Injector context, Dependency<T> dep) {
+				this.context = context;
+				this.dep = dep;
 			}
 
 			private T resolve() {
 				try {
-					return resolver.provide();
+					return context.resolveOrNull(dep);
 				} catch (UnresolvableDependency e) {
 					caught = e;
 					return null;
@@ -358,8 +380,24 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 				T res = obtain();
 				if (res != null)
 					return res;
+				if (caught == null)
+					caught = absence();
 				throw exceptionTransformer.apply(caught);
 			}
+
+			/**
+			 * The exception describing the absence is only created when it is
+			 * asked for.
+			 */
+			private UnresolvableDependency absence() {
+				try {
+					context.resolve(dep);
+					return new UnresolvableDependency.ResourceResolutionFailed(
+							"Resolved to null", dep);
+				} catch (UnresolvableDependency e) {
+					return e;
+				}
+			}
 		}
 	}
 
@@ -434,42 +472,51 @@ public enum DefaultFeature implements Dependent<DefaultFeature> {
 					.toSupplier(PrimitiveArraysModule::booleans);
 		}
 
-		private static <T> T copyToPrimitiveArray(Object[] src, T dest) {
-			for (int i = 0; i < src.length; i++)
-				Array.set(dest, i, src[i]);
-			return dest;
-		}
-
 		private static int[] ints(Dependency<? super int[]> dep,
 				Injector context) {
 			Integer[] wrappers = context.resolve(
 					dep.typed(raw(Integer[].class)));
-			return copyToPrimitiveArray(wrappers, new int[wrappers.length]);
+			int[] res = new int[wrappers.length];
+			for (int i = 0; i < res.length; i++)
+				res[i] = wrappers[i];
+			return res;
 		}
 
-		public static long[] longs(Dependency<? super long[]> dep,
+		private static long[] longs(Dependency<? super long[]> dep,
 				Injector context) {
 			Long[] wrappers = context.resolve(dep.typed(raw(Long[].class)));
-			return copyToPrimitiveArray(wrappers, new long[wrappers.length]);
+			long[] res = new long[wrappers.length];
+			for (int i = 0; i < res.length; i++)
+				res[i] = wrappers[i];
+			return res;
 		}
 
-		public static float[] floats(Dependency<? super float[]> dep,
+		private static float[] floats(Dependency<? super float[]> dep,
 				Injector context) {
 			Float[] wrappers = context.resolve(dep.typed(raw(Float[].class)));
-			return copyToPrimitiveArray(wrappers, new float[wrappers.length]);
+			float[] res = new float[wrappers.length];
+			for (int i = 0; i < res.length; i++)
+				res[i] = wrappers[i];
+			return res;
 		}
 
-		public static double[] doubles(Dependency<? super double[]> dep,
+		private static double[] doubles(Dependency<? super double[]> dep,
 				Injector context) {
 			Double[] wrappers = context.resolve(dep.typed(raw(Double[].class)));
-			return copyToPrimitiveArray(wrappers, new double[wrappers.length]);
+			double[] res = new double[wrappers.length];
+			for (int i = 0; i < res.length; i++)
+				res[i] = wrappers[i];
+			return res;
 		}
 
-		public static boolean[] booleans(Dependency<? super boolean[]> dep,
+		private static boolean[] booleans(Dependency<? super boolean[]> dep,
 				Injector context) {
 			Boolean[] wrappers = context.resolve(
 					dep.typed(raw(Boolean[].class)));
-			return copyToPrimitiveArray(wrappers, new boolean[wrappers.length]);
+			boolean[] res = new boolean[wrappers.length];
+			for (int i = 0; i < res.length; i++)
+				res[i] = wrappers[i];
+			return res;
 		}
 	}
 }
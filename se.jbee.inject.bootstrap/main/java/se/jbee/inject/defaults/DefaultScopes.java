@@ -5,15 +5,31 @@ import se.jbee.inject.bind.Bind;
 import se.jbee.inject.binder.BinderModule;
 import se.jbee.inject.scope.*;
 
+import static se.jbee.inject.Dependency.dependency;
 import static se.jbee.inject.ScopeLifeCycle.singleton;
 import static se.jbee.inject.ScopeLifeCycle.unstable;
 
 /**
  * Binds implementations for the standard {@link Scope}s declared as
  * {@link Name} in the {@link Scope} class.
+ * <p>
+ * In a child context the {@link Scope#thread}, {@link Scope#worker} and {@link
+ * Scope#request} {@link Scope}s are not bound. The child uses views of its
+ * parent's {@link Scope.ContextBound} {@link Scope}s instead so that both
+ * share the same threads, work items and requests.
  */
 public final class DefaultScopes extends BinderModule {
 
+	private final boolean inChild;
+
+	public DefaultScopes() {
+		this(false);
+	}
+
+	DefaultScopes(boolean inChild) {
+		this.inChild = inChild;
+	}
+
 	@Override
 	protected Bind init(Bind bind) {
 		return bind.asDefault();
@@ -38,22 +54,67 @@ public final class DefaultScopes extends BinderModule {
 		bindLifeCycle(unstable.derive(Scope.worker) //
 				.canBeInjectedInto(Scope.worker) //
 				.canBeInjectedInto(Scope.injection)); //
+		bindLifeCycle(unstable.derive(Scope.request) //
+				.canBeInjectedInto(Scope.request) //
+				.canBeInjectedInto(Scope.injection)); //
+		bindLifeCycle(unstable.derive(Scope.pool) //
+				.canBeInjectedInto(Scope.worker) //
+				.canBeInjectedInto(Scope.request) //
+				.canBeInjectedInto(Scope.injection)); //
+		bindLifeCycle(unstable.derive(Scope.soft) //
+				.canBeInjectedInto(Scope.injection));
+		bindLifeCycle(unstable.derive(Scope.weak) //
+				.canBeInjectedInto(Scope.injection));
+		bindLifeCycle(ScopeLifeCycle.cache);
 
 		bindScope(Scope.injection).to(Scope.INJECTION);
 		bindScope(Scope.application).to(ApplicationScope.class);
-		bindScope(Scope.thread).to(ThreadScope.class);
 		bindScope(Scope.jvm).to(TypeDependentScope.JVM);
-		bindScope(Scope.worker).to(WorkerScope.class);
-		per(Scope.worker).bind(
-				Scope.Controller.forScope(Scope.worker)).toGenerator(
-						gen -> null); // dummy generator as the scope will supply
+		if (!inChild) {
+			bindScope(Scope.thread).to(ThreadScope.class);
+			bindScope(Scope.worker).to(WorkerScope.class);
+			bindScope(Scope.request).to(RequestScope.class);
+			// dummy supplier as the scope will supply
+			// (a generator would bypass the scope)
+			per(Scope.worker).bind(
+					Scope.Controller.forScope(Scope.worker)).toSupplier(
+							(dep, context) -> null);
+		}
+		bindScope(Scope.pool).toSupplier(DefaultScopes::createPoolScope);
+		bind(Scope.pool, PoolPolicy.class).to(PoolPolicy.DEFAULT);
 
 		bindScope(Scope.dependency).toProvider(TypeDependentScope::perHierarchicalInstanceSignature);
 		bindScope(Scope.dependencyInstance).toProvider(TypeDependentScope::perInstanceSignature);
 		bindScope(Scope.dependencyType).toProvider(TypeDependentScope::perTypeSignature);
 		bindScope(Scope.targetInstance).toProvider(TypeDependentScope::perTargetInstanceSignature);
+		bindScope(Scope.soft).toProvider(() -> ReferenceScope.softly(TypeDependentScope::instanceSignature));
+		bindScope(Scope.weak).toProvider(() -> ReferenceScope.weakly(TypeDependentScope::instanceSignature));
+
+		// one cache per name, policy is bound with the name of the cache
+		bindScope(Name.ANY.in("cache")).toSupplier((dep, context) -> //
+				new CacheScope(context.resolve(dep.instance.name, CachePolicy.class)));
+		bind(Name.ANY.in("cache"), CachePolicy.class).to(CachePolicy.DEFAULT);
 
 
 	}
 
+	/**
+	 * Pooled instances are borrowed by the contexts of the {@link
+	 * Scope#worker} or {@link Scope#request} scope.
+	 */
+	private static Scope createPoolScope(Dependency<? super Scope> dep,
+			Injector context) {
+		return new PoolScope(type -> context.resolve(
+				dependency(PoolPolicy.class).named(Scope.pool).injectingInto(type)),
+				temporaryScope(context, Scope.worker),
+				temporaryScope(context, Scope.request));
+	}
+
+	private static TemporaryScope temporaryScope(Injector context, Name name) {
+		Scope scope = context.resolve(name, Scope.class);
+		if (!(scope instanceof TemporaryScope))
+			throw new InconsistentDeclaration(
+					"Pooling requires a temporary scope but got: " + scope);
+		return (TemporaryScope) scope;
+	}
 }
@@ -9,7 +9,9 @@ import se.jbee.inject.*;
 import se.jbee.inject.bind.*;
 import se.jbee.inject.binder.*;
 import se.jbee.inject.config.ConstructsBy;
+import se.jbee.inject.config.New;
 import se.jbee.inject.config.PublishesBy;
+import se.jbee.lang.Reflection;
 import se.jbee.lang.Type;
 
 import java.lang.reflect.Constructor;
@@ -135,8 +137,10 @@ public final class DefaultValueBinders {
 			Instance<?> ref, Binding<T> item, Bindings dest) {
 		Type<?> refType = ref.type();
 		if (isClassBanal(refType.rawType) && refType.isAssignableTo(item.type())) {
+			if (expandGenerated(env, refType.rawType, item, dest))
+				return;
 			Constructor<?> target = env.property(ConstructsBy.class) //
-					.reflect(refType.rawType.getDeclaredConstructors());
+					.reflect(Reflection.declaredConstructors(refType.rawType));
 			if (target != null) {
 				dest.addExpanded(env, item, constructs(refType, target, env));
 				return;
@@ -194,10 +198,23 @@ public final class DefaultValueBinders {
 
 	private static <T> void expandConstructs(Env env, Class<? extends T> ref,
 			Binding<T> item, Bindings dest) {
+		if (expandGenerated(env, ref, item, dest))
+			return;
 		Constructor<?> c = env.property(ConstructsBy.class) //
-				.reflect(ref.getDeclaredConstructors());
+				.reflect(Reflection.declaredConstructors(ref));
 		if (c != null)
 			dest.addExpanded(env, item,
 					constructs(raw(c.getDeclaringClass()), c, env));
 	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> boolean expandGenerated(Env env, Class<?> ref,
+			Binding<T> item, Bindings dest) {
+		Supplier<? extends T> generated = (Supplier<? extends T>) New.generatedSupplier(
+				env, ref);
+		if (generated == null)
+			return false;
+		dest.addExpanded(env, item.complete(CONSTRUCTOR, generated));
+		return true;
+	}
 }
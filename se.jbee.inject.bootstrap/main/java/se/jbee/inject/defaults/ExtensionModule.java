@@ -5,6 +5,7 @@ import se.jbee.inject.binder.BinderModule;
 import se.jbee.inject.binder.Supply;
 import se.jbee.inject.config.ConstructsBy;
 import se.jbee.inject.config.Extension;
+import se.jbee.lang.Reflection;
 import se.jbee.lang.Type;
 
 import java.lang.reflect.Constructor;
@@ -41,7 +42,7 @@ class ExtensionModule extends BinderModule {
 		Env env = context.resolve(Env.class).in(expectedType.rawType);
 		ConstructsBy constructsBy = env.property(ConstructsBy.class);
 		Constructor<?> ext = constructsBy.reflect(
-				expectedType.rawType.getDeclaredConstructors());
+				Reflection.declaredConstructors(expectedType.rawType));
 		return (T) Supply.byConstruction(constructs(expectedType, ext, env)) //
 				.supply((Dependency) dep, context);
 	}
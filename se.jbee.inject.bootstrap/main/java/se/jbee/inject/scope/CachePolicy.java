@@ -0,0 +1,149 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.Dependency;
+import se.jbee.inject.Scope;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * An immutable description of how a {@link CacheScope} manages its entries.
+ * <p>
+ * The policy for a particular {@link Scope#cache(String)} is changed by
+ * binding it with the name of the cache scope, for example
+ * <pre>
+ * bind(Scope.cache("templates"), CachePolicy.class).to(CachePolicy.DEFAULT
+ *     .expireAfterWrite(Duration.ofMinutes(5)).maximumSize(100));
+ * </pre>
+ *
+ * @since 8.1
+ */
+public final class CachePolicy {
+
+	/**
+	 * Keeps entries per {@link TypeDependentScope#instanceSignature(Dependency)}
+	 * without any expiry, size limit or refresh.
+	 */
+	public static final CachePolicy DEFAULT = new CachePolicy(0L, 0L, 0L,
+			Integer.MAX_VALUE, ForkJoinPool.commonPool(), System::nanoTime,
+			TypeDependentScope::instanceSignature);
+
+	final long expireAfterWriteNanos;
+	final long expireAfterAccessNanos;
+	final long refreshAfterWriteNanos;
+	final int maximumSize;
+	final Executor refreshExecutor;
+	final LongSupplier ticker;
+	final Function<Dependency<?>, String> entryKey;
+
+	private CachePolicy(long expireAfterWriteNanos, long expireAfterAccessNanos,
+			long refreshAfterWriteNanos, int maximumSize,
+			Executor refreshExecutor, LongSupplier ticker,
+			Function<Dependency<?>, String> entryKey) {
+		if (maximumSize <= 0)
+			throw new IllegalArgumentException(
+					"Maximum size must be positive but was: " + maximumSize);
+		this.expireAfterWriteNanos = expireAfterWriteNanos;
+		this.expireAfterAccessNanos = expireAfterAccessNanos;
+		this.refreshAfterWriteNanos = refreshAfterWriteNanos;
+		this.maximumSize = maximumSize;
+		this.refreshExecutor = refreshExecutor;
+		this.ticker = ticker;
+		this.entryKey = entryKey;
+	}
+
+	/**
+	 * @param duration time after which an entry expires once it was created
+	 *                 or refreshed
+	 * @return a new {@link CachePolicy} with the given expiry
+	 */
+	public CachePolicy expireAfterWrite(Duration duration) {
+		return new CachePolicy(duration.toNanos(), expireAfterAccessNanos,
+				refreshAfterWriteNanos, maximumSize, refreshExecutor, ticker,
+				entryKey);
+	}
+
+	/**
+	 * @param duration time after which an entry expires once it was last
+	 *                 created, refreshed or accessed
+	 * @return a new {@link CachePolicy} with the given expiry
+	 */
+	public CachePolicy expireAfterAccess(Duration duration) {
+		return new CachePolicy(expireAfterWriteNanos, duration.toNanos(),
+				refreshAfterWriteNanos, maximumSize, refreshExecutor, ticker,
+				entryKey);
+	}
+
+	/**
+	 * When an entry is accessed after the given duration since it was created
+	 * or refreshed the current instance is returned while a fresh instance is
+	 * created in the background using the {@link #refreshOn(Executor)}.
+	 *
+	 * @param duration time after which an entry is refreshed on access
+	 * @return a new {@link CachePolicy} with the given refresh
+	 */
+	public CachePolicy refreshAfterWrite(Duration duration) {
+		return new CachePolicy(expireAfterWriteNanos, expireAfterAccessNanos,
+				duration.toNanos(), maximumSize, refreshExecutor, ticker,
+				entryKey);
+	}
+
+	/**
+	 * When the cache would grow beyond the given size the entry that is used
+	 * least frequently is evicted. A new entry that is used less frequently
+	 * than the entry it would replace is not kept.
+	 *
+	 * @param size maximum number of entries kept
+	 * @return a new {@link CachePolicy} with the given size limit
+	 */
+	public CachePolicy maximumSize(int size) {
+		return new CachePolicy(expireAfterWriteNanos, expireAfterAccessNanos,
+				refreshAfterWriteNanos, size, refreshExecutor, ticker, entryKey);
+	}
+
+	/**
+	 * @param executor used to create refreshed instances
+	 * @return a new {@link CachePolicy} with the given refresh executor
+	 */
+	public CachePolicy refreshOn(Executor executor) {
+		return new CachePolicy(expireAfterWriteNanos, expireAfterAccessNanos,
+				refreshAfterWriteNanos, maximumSize, executor, ticker, entryKey);
+	}
+
+	/**
+	 * @param ticker source of the current time in nanoseconds
+	 * @return a new {@link CachePolicy} with the given time source
+	 */
+	public CachePolicy ticker(LongSupplier ticker) {
+		return new CachePolicy(expireAfterWriteNanos, expireAfterAccessNanos,
+				refreshAfterWriteNanos, maximumSize, refreshExecutor, ticker,
+				entryKey);
+	}
+
+	/**
+	 * @param entryKey derives the key of the entry from the served {@link
+	 *                 Dependency}, see {@link TypeDependentScope} for common
+	 *                 key functions
+	 * @return a new {@link CachePolicy} with the given key function
+	 */
+	public CachePolicy keyedBy(Function<Dependency<?>, String> entryKey) {
+		return new CachePolicy(expireAfterWriteNanos, expireAfterAccessNanos,
+				refreshAfterWriteNanos, maximumSize, refreshExecutor, ticker,
+				entryKey);
+	}
+
+	boolean isBounded() {
+		return maximumSize < Integer.MAX_VALUE;
+	}
+
+	@Override
+	public String toString() {
+		return "expireAfterWrite=" + expireAfterWriteNanos + "ns"
+			+ ", expireAfterAccess=" + expireAfterAccessNanos + "ns"
+			+ ", refreshAfterWrite=" + refreshAfterWriteNanos + "ns"
+			+ ", maximumSize=" + maximumSize;
+	}
+}
@@ -0,0 +1,497 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.*;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link Scope} for instances that are expensive to create but can be
+ * recreated when needed, like compiled templates or results of remote
+ * lookups. How long entries are kept is determined by the {@link
+ * CachePolicy} bound for the {@link Scope#cache(String)} name.
+ * <p>
+ * Entries are kept per {@link Resource} slot and the key the {@link
+ * CachePolicy} derives from the served {@link Dependency}. When a maximum size
+ * is set the access frequency of keys is tracked in a compact lock-free
+ * sketch. Misses and the first hits of an entry are always counted, later
+ * hits are sampled. On overflow a small random sample of the entries is
+ * looked at and the least frequently used of them is evicted unless the new
+ * entry is used even less frequently in which case it is not kept. Expired
+ * entries in the sample are always evicted first. The cost of an eviction
+ * therefore does not depend on the size of the cache.
+ * <p>
+ * Expired entries are removed when they are accessed. Entries that are not
+ * accessed again are removed by sweeps that happen after a number of new
+ * entries proportional to the size of the cache was added.
+ * <p>
+ * Looking up an existing entry does not lock. Creating an entry only locks the
+ * entry so that its {@link Provider} is asked once. In contrast to a {@link
+ * ConcurrentHashMap#computeIfAbsent(Object, java.util.function.Function)}
+ * this allows to create other entries of the same cache while creating an
+ * entry.
+ *
+ * @since 8.1
+ */
+public final class CacheScope implements Scope {
+
+	/**
+	 * @param context the {@link Injector} to use
+	 * @param cache   a {@link Scope#cache(String)} name
+	 * @return the {@link CacheScope} of the given cache name
+	 */
+	public static CacheScope of(Injector context, Name cache) {
+		return (CacheScope) context.resolve(cache, Scope.class);
+	}
+
+	/**
+	 * A snapshot of the statistics of a {@link CacheScope}.
+	 */
+	public static final class Stats {
+
+		public final long hits;
+		public final long misses;
+		public final long evictions;
+		public final long expirations;
+		public final long refreshes;
+		public final int size;
+
+		Stats(long hits, long misses, long evictions, long expirations,
+				long refreshes, int size) {
+			this.hits = hits;
+			this.misses = misses;
+			this.evictions = evictions;
+			this.expirations = expirations;
+			this.refreshes = refreshes;
+			this.size = size;
+		}
+
+		public double hitRate() {
+			long requests = hits + misses;
+			return requests == 0 ? 1d : (double) hits / requests;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hits + ", misses=" + misses + ", evictions="
+				+ evictions + ", expirations=" + expirations + ", refreshes="
+				+ refreshes + ", size=" + size;
+		}
+	}
+
+	private static final class Entry {
+
+		final int slot;
+		final String key;
+		final int hash;
+		final AtomicBoolean refreshing = new AtomicBoolean();
+		volatile Object value;
+		volatile long written;
+		volatile long accessed;
+		/**
+		 * Index in the {@link #sampled} table or -1 if not in the table
+		 */
+		volatile int position = -1;
+		/**
+		 * Number of hits, not synchronised as it only is used to sample which
+		 * hits are counted in the {@link FrequencySketch}.
+		 */
+		int hits;
+
+		Entry(int slot, String key) {
+			this.slot = slot;
+			this.key = key;
+			this.hash = hashOf(slot, key);
+		}
+	}
+
+	/**
+	 * Hits of an entry up to this number are all counted in the {@link
+	 * FrequencySketch}. This covers the range of a 4 bit counter.
+	 */
+	private static final int COUNTED_HITS = 16;
+
+	/**
+	 * Of the hits after the {@link #COUNTED_HITS} only one in 16 is counted.
+	 */
+	private static final int SAMPLED_HITS_MASK = 15;
+
+	/**
+	 * Minimum number of new entries between two sweeps of expired entries
+	 */
+	private static final int MIN_SWEEP_INTERVAL = 64;
+
+	/**
+	 * Number of entries compared to find a victim for eviction
+	 */
+	private static final int EVICTION_SAMPLES = 8;
+
+	/**
+	 * Upper limit for the size of the {@link #sampled} table
+	 */
+	private static final int MAX_SAMPLED = 1 << 25;
+
+	private final CachePolicy policy;
+	private final boolean expiring;
+	/**
+	 * The entries of each {@link Resource} slot by key
+	 */
+	private final AtomicReference<AtomicReferenceArray<Map<String, Entry>>> slots = new AtomicReference<>();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicInteger addedSinceSweep = new AtomicInteger();
+	private final FrequencySketch frequencies;
+	/**
+	 * All entries of a bounded cache at random positions so that a random
+	 * sample can be taken in constant time. The table is at least twice as
+	 * large as the maximum size so that free positions are found quickly.
+	 */
+	private final AtomicReferenceArray<Entry> sampled;
+	private final Object sweepLock = new Object();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder expirations = new LongAdder();
+	private final LongAdder refreshes = new LongAdder();
+
+	public CacheScope(CachePolicy policy) {
+		this.policy = policy;
+		this.expiring = policy.expireAfterWriteNanos > 0
+			|| policy.expireAfterAccessNanos > 0;
+		this.frequencies = policy.isBounded()
+			? new FrequencySketch(policy.maximumSize)
+			: null;
+		this.sampled = policy.isBounded()
+			? new AtomicReferenceArray<>(Integer.highestOneBit(
+					Math.max(8, Math.min(policy.maximumSize, MAX_SAMPLED / 2))
+						* 2 - 1) * 2)
+			: null;
+	}
+
+	public Stats stats() {
+		return new Stats(hits.sum(), misses.sum(), evictions.sum(),
+				expirations.sum(), refreshes.sum(), size.get());
+	}
+
+	/**
+	 * Removes all entries. Statistics are not affected.
+	 */
+	public void invalidateAll() {
+		AtomicReferenceArray<Map<String, Entry>> all = slots.get();
+		if (all == null)
+			return;
+		for (int i = 0; i < all.length(); i++) {
+			Map<String, Entry> slot = all.get(i);
+			if (slot != null)
+				for (Entry e : slot.values())
+					remove(e);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T provide(int serialID, int resources, Dependency<? super T> dep,
+			Provider<T> provider) throws UnresolvableDependency {
+		Map<String, Entry> slot = slotOf(serialID, resources);
+		String key = policy.entryKey.apply(dep);
+		long now = policy.ticker.getAsLong();
+		Entry e = slot.get(key);
+		if (e != null) {
+			Object value = e.value;
+			if (value != null) {
+				if (!isExpired(e, now)) {
+					hits.increment();
+					e.accessed = now;
+					if (frequencies != null) {
+						int n = e.hits++;
+						if (n < COUNTED_HITS || (n & SAMPLED_HITS_MASK) == 0)
+							frequencies.increment(e.hash);
+					}
+					if (isRefreshDue(e, now))
+						refresh(e, provider);
+					return (T) value;
+				}
+				if (remove(e))
+					expirations.increment();
+				e = null;
+			}
+		}
+		boolean added = false;
+		if (e == null) {
+			Entry created = new Entry(serialID, key);
+			e = slot.putIfAbsent(key, created);
+			if (e == null) {
+				e = created;
+				added = true;
+				size.incrementAndGet();
+			}
+		}
+		if (frequencies != null)
+			frequencies.increment(e.hash);
+		T value;
+		synchronized (e) {
+			if (e.value != null && !isExpired(e, now)) {
+				hits.increment();
+				e.accessed = now;
+				return (T) e.value;
+			}
+			if (e.value != null)
+				expirations.increment();
+			misses.increment();
+			value = provider.provide();
+			e.written = now;
+			e.accessed = now;
+			e.value = value;
+		}
+		if (added) {
+			if (sampled != null && !addSampled(e) && remove(e))
+				evictions.increment(); // no space to sample it, do not keep it
+			if (size.get() > policy.maximumSize)
+				evict(e, now);
+			if (expiring && addedSinceSweep.incrementAndGet() >= Math.max(
+					MIN_SWEEP_INTERVAL, size.get()))
+				sweep(now);
+		}
+		return value;
+	}
+
+	private Map<String, Entry> slotOf(int serialID, int resources) {
+		AtomicReferenceArray<Map<String, Entry>> all = slots.updateAndGet(
+				objs -> objs != null ? objs : new AtomicReferenceArray<>(resources));
+		Map<String, Entry> slot = all.get(serialID);
+		if (slot != null)
+			return slot;
+		all.compareAndSet(serialID, null, new ConcurrentHashMap<>());
+		return all.get(serialID);
+	}
+
+	private boolean remove(Entry e) {
+		boolean removed = slots.get().get(e.slot).remove(e.key, e);
+		if (removed)
+			size.decrementAndGet();
+		removeSampled(e);
+		return removed;
+	}
+
+	/**
+	 * @return true, if the entry got a position in the {@link #sampled}
+	 * table, false if the table is full
+	 */
+	private boolean addSampled(Entry e) {
+		int mask = sampled.length() - 1;
+		int i = ThreadLocalRandom.current().nextInt() & mask;
+		for (int probes = 0; probes <= mask; probes++) {
+			if (sampled.get(i) == null) {
+				e.position = i;
+				if (sampled.compareAndSet(i, null, e))
+					return true;
+			}
+			i = (i + 1) & mask;
+		}
+		e.position = -1;
+		return false;
+	}
+
+	private void removeSampled(Entry e) {
+		int i = e.position;
+		if (sampled != null && i >= 0)
+			sampled.compareAndSet(i, e, null);
+	}
+
+	private static int hashOf(int slot, String key) {
+		return 31 * slot + key.hashCode();
+	}
+
+	private boolean isExpired(Entry e, long now) {
+		return policy.expireAfterWriteNanos > 0
+			&& now - e.written >= policy.expireAfterWriteNanos
+			|| policy.expireAfterAccessNanos > 0
+				&& now - e.accessed >= policy.expireAfterAccessNanos;
+	}
+
+	private boolean isRefreshDue(Entry e, long now) {
+		return policy.refreshAfterWriteNanos > 0
+			&& now - e.written >= policy.refreshAfterWriteNanos;
+	}
+
+	private <T> void refresh(Entry e, Provider<T> provider) {
+		if (!e.refreshing.compareAndSet(false, true))
+			return;
+		try {
+			policy.refreshExecutor.execute(() -> {
+				try {
+					T value = provider.provide();
+					synchronized (e) {
+						e.value = value;
+						e.written = policy.ticker.getAsLong();
+					}
+					refreshes.increment();
+				} catch (RuntimeException ex) {
+					// keep the current value, next access after refresh time tries again
+				} finally {
+					e.refreshing.set(false);
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			e.refreshing.set(false);
+		}
+	}
+
+	/**
+	 * Removes all expired entries. This is linear in the size of the cache but
+	 * only happens after a number of new entries proportional to the size was
+	 * added.
+	 */
+	private void sweep(long now) {
+		synchronized (sweepLock) {
+			addedSinceSweep.set(0);
+			AtomicReferenceArray<Map<String, Entry>> all = slots.get();
+			for (int i = 0; i < all.length(); i++) {
+				Map<String, Entry> slot = all.get(i);
+				if (slot != null)
+					for (Entry e : slot.values())
+						if (e.value != null && isExpired(e, now) && remove(e))
+							expirations.increment();
+			}
+		}
+	}
+
+	/**
+	 * Compares a random sample of {@link #EVICTION_SAMPLES} entries with the
+	 * candidate and removes the least frequently used (or an expired one)
+	 * until the cache is no longer over its maximum size. Threads evicting at
+	 * the same time do not block each other.
+	 */
+	private void evict(Entry candidate, long now) {
+		for (int round = 0; round < EVICTION_SAMPLES
+			&& size.get() > policy.maximumSize; round++) {
+			Entry victim = null;
+			int victimFrequency = Integer.MAX_VALUE;
+			boolean expired = false;
+			int mask = sampled.length() - 1;
+			int i = ThreadLocalRandom.current().nextInt() & mask;
+			int found = 0;
+			for (int probes = 0; probes <= mask && found < EVICTION_SAMPLES; probes++) {
+				Entry e = sampled.get(i);
+				i = (i + 1) & mask;
+				if (e == null || e == candidate)
+					continue;
+				found++;
+				if (e.value != null && isExpired(e, now)) {
+					victim = e;
+					expired = true;
+					break;
+				}
+				int frequency = frequencies.frequency(e.hash);
+				if (frequency < victimFrequency
+					|| frequency == victimFrequency && victim != null
+						&& e.accessed < victim.accessed) {
+					victim = e;
+					victimFrequency = frequency;
+				}
+			}
+			if (victim == null)
+				victim = candidate;
+			else if (!expired
+				&& frequencies.frequency(candidate.hash) < victimFrequency)
+				victim = candidate;
+			if (remove(victim)) {
+				if (expired)
+					expirations.increment();
+				else
+					evictions.increment();
+			}
+			if (victim == candidate)
+				return;
+		}
+	}
+
+	/**
+	 * A count-min sketch of 4 bit counters that estimates how often a key was
+	 * accessed. All counters are halved periodically so that the estimates
+	 * follow changes in the access pattern.
+	 * <p>
+	 * The counters are packed 16 to a {@code long} and updated using
+	 * compare-and-set so that threads counting different keys do not contend
+	 * on a lock. Counters that reached their maximum are not written again.
+	 */
+	private static final class FrequencySketch {
+
+		private static final int[] SEEDS = { 0x97cb3127, 0xb8d5e9b3,
+				0x3a8f05c5, 0xc2b2ae35 };
+
+		private static final long HALF_MASK = 0x7777_7777_7777_7777L;
+
+		private final AtomicLongArray counters;
+		private final int mask;
+		private final int sampleSize;
+		private final AtomicInteger additions = new AtomicInteger();
+
+		FrequencySketch(int maximumSize) {
+			int width = Integer.highestOneBit(
+					Math.max(16, Math.min(maximumSize, 1 << 20)) * 2 - 1) * 2;
+			this.counters = new AtomicLongArray(width * SEEDS.length / 16);
+			this.mask = width - 1;
+			this.sampleSize = 10 * Math.min(maximumSize, 1 << 20);
+		}
+
+		void increment(int hash) {
+			boolean added = false;
+			for (int i = 0; i < SEEDS.length; i++)
+				added |= incrementAt(indexOf(hash, i));
+			if (added && additions.incrementAndGet() == sampleSize)
+				reset();
+		}
+
+		private boolean incrementAt(int index) {
+			int i = index >>> 4;
+			int shift = (index & 15) << 2;
+			long cur = counters.get(i);
+			while (((cur >>> shift) & 15L) < 15L) {
+				long witness = counters.compareAndExchange(i, cur,
+						cur + (1L << shift));
+				if (witness == cur)
+					return true;
+				cur = witness;
+			}
+			return false;
+		}
+
+		int frequency(int hash) {
+			int frequency = 15;
+			for (int i = 0; i < SEEDS.length; i++) {
+				int index = indexOf(hash, i);
+				frequency = Math.min(frequency, (int) ((counters.get(
+						index >>> 4) >>> ((index & 15) << 2)) & 15L));
+			}
+			return frequency;
+		}
+
+		private int indexOf(int hash, int row) {
+			int h = (hash ^ (hash >>> 16)) * SEEDS[row];
+			return row * (mask + 1) + ((h ^ (h >>> 16)) & mask);
+		}
+
+		/**
+		 * Only the thread that reached the sample size resets. Concurrent
+		 * increments might be halved or not which does not matter for an
+		 * estimate.
+		 */
+		private void reset() {
+			for (int i = 0; i < counters.length(); i++) {
+				long cur = counters.get(i);
+				while (!counters.compareAndSet(i, cur, (cur >>> 1) & HALF_MASK))
+					cur = counters.get(i);
+			}
+			additions.addAndGet(-sampleSize / 2);
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.Scope;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * An immutable description of how a {@link PoolScope} manages the pool of a
+ * particular type.
+ * <p>
+ * The policy is changed by binding it with the {@link Scope#pool} name. To
+ * change it for a particular type only the binding is made targeting that
+ * type, for example
+ * <pre>
+ * injectingInto(MessageDigest.class).bind(Scope.pool, PoolPolicy.class)
+ *     .to(PoolPolicy.DEFAULT.maximumSize(8).validateBy(
+ *         digest -> { ((MessageDigest) digest).reset(); return true; }));
+ * </pre>
+ *
+ * @since 8.1
+ */
+public final class PoolPolicy {
+
+	/**
+	 * At most 64 instances in use, waits up to 5 seconds when all are in use,
+	 * evicts instances idle for more than one minute and accepts all returned
+	 * instances.
+	 */
+	public static final PoolPolicy DEFAULT = new PoolPolicy(64,
+			Duration.ofSeconds(5).toNanos(), Duration.ofMinutes(1).toNanos(),
+			obj -> true, System::nanoTime);
+
+	final int maximumSize;
+	final long maxWaitNanos;
+	final long maxIdleNanos;
+	final Predicate<Object> validation;
+	final LongSupplier ticker;
+
+	private PoolPolicy(int maximumSize, long maxWaitNanos, long maxIdleNanos,
+			Predicate<Object> validation, LongSupplier ticker) {
+		if (maximumSize <= 0)
+			throw new IllegalArgumentException(
+					"Maximum size must be positive but was: " + maximumSize);
+		this.maximumSize = maximumSize;
+		this.maxWaitNanos = maxWaitNanos;
+		this.maxIdleNanos = maxIdleNanos;
+		this.validation = validation;
+		this.ticker = ticker;
+	}
+
+	/**
+	 * @param size maximum number of instances borrowed at the same time which
+	 *             also is the maximum number of idle instances kept
+	 * @return a new {@link PoolPolicy} with the given size
+	 */
+	public PoolPolicy maximumSize(int size) {
+		return new PoolPolicy(size, maxWaitNanos, maxIdleNanos, validation,
+				ticker);
+	}
+
+	/**
+	 * @param duration maximum time to wait for an instance when all are
+	 *                 borrowed before the resolution fails
+	 * @return a new {@link PoolPolicy} with the given wait time
+	 */
+	public PoolPolicy maxWait(Duration duration) {
+		return new PoolPolicy(maximumSize, duration.toNanos(), maxIdleNanos,
+				validation, ticker);
+	}
+
+	/**
+	 * @param duration time after which an idle instance is evicted from the
+	 *                 pool
+	 * @return a new {@link PoolPolicy} with the given idle time
+	 */
+	public PoolPolicy maxIdle(Duration duration) {
+		return new PoolPolicy(maximumSize, maxWaitNanos, duration.toNanos(),
+				validation, ticker);
+	}
+
+	/**
+	 * @param validation is called with each instance returned to the pool. It
+	 *                   can reset the instance. Instances it does not accept
+	 *                   are dropped.
+	 * @return a new {@link PoolPolicy} with the given validation
+	 */
+	public PoolPolicy validateBy(Predicate<Object> validation) {
+		return new PoolPolicy(maximumSize, maxWaitNanos, maxIdleNanos,
+				validation, ticker);
+	}
+
+	/**
+	 * @param ticker source of the current time in nanoseconds
+	 * @return a new {@link PoolPolicy} with the given time source
+	 */
+	public PoolPolicy ticker(LongSupplier ticker) {
+		return new PoolPolicy(maximumSize, maxWaitNanos, maxIdleNanos,
+				validation, ticker);
+	}
+
+	@Override
+	public String toString() {
+		return "maximumSize=" + maximumSize + ", maxWait=" + maxWaitNanos
+			+ "ns, maxIdle=" + maxIdleNanos + "ns";
+	}
+}
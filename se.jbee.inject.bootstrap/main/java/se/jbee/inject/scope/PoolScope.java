@@ -0,0 +1,284 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.*;
+import se.jbee.lang.Type;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A {@link Scope} that reuses a bounded number of instances across the
+ * contexts of {@link TemporaryScope}s like the {@link WorkerScope} or {@link
+ * RequestScope}.
+ * <p>
+ * An instance is borrowed from the pool when it is first resolved within a
+ * context. Within the same context the borrowed instance is used. When the
+ * context ends, for example on {@link Controller#deallocate()}, the instance
+ * is validated and returned to the pool.
+ * <p>
+ * This is meant for instances that are expensive to create and unsafe to
+ * share between concurrent work, like parsers, {@code MessageDigest}s or
+ * buffers.
+ * <p>
+ * There is a pool per {@link Resource}. How it is managed is determined by
+ * the {@link PoolPolicy} for the type of the {@link Resource}.
+ *
+ * @since 8.1
+ */
+public final class PoolScope implements Scope {
+
+	/**
+	 * A snapshot of the statistics of a {@link PoolScope}.
+	 */
+	public static final class Stats {
+
+		public final long borrowed;
+		public final long created;
+		public final long returned;
+		public final long dropped;
+		public final long evicted;
+
+		Stats(long borrowed, long created, long returned, long dropped,
+				long evicted) {
+			this.borrowed = borrowed;
+			this.created = created;
+			this.returned = returned;
+			this.dropped = dropped;
+			this.evicted = evicted;
+		}
+
+		@Override
+		public String toString() {
+			return "borrowed=" + borrowed + ", created=" + created
+				+ ", returned=" + returned + ", dropped=" + dropped
+				+ ", evicted=" + evicted;
+		}
+	}
+
+	private static final class Idle {
+
+		final Object obj;
+		final long since;
+
+		Idle(Object obj, long since) {
+			this.obj = obj;
+			this.since = since;
+		}
+	}
+
+	/**
+	 * The pool of a single {@link Resource}. Permits of the {@link #inUse}
+	 * {@link Semaphore} are held by borrowed instances.
+	 */
+	private final class Pool {
+
+		final PoolPolicy policy;
+		final Semaphore inUse;
+		/**
+		 * Most recently returned instances are first
+		 */
+		final Deque<Idle> idle = new ConcurrentLinkedDeque<>();
+		/**
+		 * The number of {@link #idle} instances as {@link Deque#size()} is
+		 * linear for a {@link ConcurrentLinkedDeque}.
+		 */
+		final AtomicInteger idleCount = new AtomicInteger();
+
+		Pool(PoolPolicy policy) {
+			this.policy = policy;
+			this.inUse = new Semaphore(policy.maximumSize);
+		}
+
+		<T> T borrow(Dependency<? super T> dep, Provider<T> provider) {
+			try {
+				if (!inUse.tryAcquire(policy.maxWaitNanos, TimeUnit.NANOSECONDS))
+					throw new UnresolvableDependency.SupplyFailed("Scope error",
+							new IllegalStateException(
+									"Pool exhausted for " + dep));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new UnresolvableDependency.SupplyFailed("Scope error", e);
+			}
+			try {
+				evictIdle();
+				borrowed.increment();
+				Idle reused = idle.pollFirst();
+				if (reused != null) {
+					idleCount.decrementAndGet();
+					@SuppressWarnings("unchecked")
+					T obj = (T) reused.obj;
+					return obj;
+				}
+				T obj = provider.provide();
+				created.increment();
+				return obj;
+			} catch (RuntimeException e) {
+				inUse.release();
+				throw e;
+			}
+		}
+
+		void giveBack(Object obj) {
+			try {
+				if (policy.validation.test(obj)) {
+					idle.offerFirst(new Idle(obj, policy.ticker.getAsLong()));
+					idleCount.incrementAndGet();
+					returned.increment();
+				} else {
+					dropped.increment();
+				}
+			} catch (RuntimeException e) {
+				dropped.increment();
+			} finally {
+				inUse.release();
+			}
+			evictIdle();
+		}
+
+		/**
+		 * Least recently returned instances are last so eviction can stop at
+		 * the first instance that is not idle for too long.
+		 */
+		private void evictIdle() {
+			long now = policy.ticker.getAsLong();
+			Idle oldest;
+			while ((oldest = idle.peekLast()) != null
+				&& (now - oldest.since >= policy.maxIdleNanos
+					|| idleCount.get() > policy.maximumSize))
+				if (idle.removeLastOccurrence(oldest)) {
+					idleCount.decrementAndGet();
+					evicted.increment();
+				}
+		}
+	}
+
+	/**
+	 * The instances borrowed within a context by {@link Resource} slot.
+	 */
+	private static final class Borrowed {
+
+		final AtomicReferenceArray<Object> objs;
+		volatile boolean ended;
+
+		Borrowed(int resources) {
+			this.objs = new AtomicReferenceArray<>(resources);
+		}
+	}
+
+	private final Function<Type<?>, PoolPolicy> policies;
+	private final TemporaryScope[] contexts;
+	private final AtomicReference<AtomicReferenceArray<Pool>> pools = new AtomicReference<>();
+	private final Map<Object, Borrowed> borrowedByContext = new ConcurrentHashMap<>();
+
+	private final LongAdder borrowed = new LongAdder();
+	private final LongAdder created = new LongAdder();
+	private final LongAdder returned = new LongAdder();
+	private final LongAdder dropped = new LongAdder();
+	private final LongAdder evicted = new LongAdder();
+
+	/**
+	 * @param policies the {@link PoolPolicy} to use for a type
+	 * @param contexts the {@link TemporaryScope}s whose contexts borrow
+	 *                 instances, the first with an active context is used
+	 */
+	public PoolScope(Function<Type<?>, PoolPolicy> policies,
+			TemporaryScope... contexts) {
+		this.policies = policies;
+		this.contexts = contexts;
+	}
+
+	public Stats stats() {
+		return new Stats(borrowed.sum(), created.sum(), returned.sum(),
+				dropped.sum(), evicted.sum());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T provide(int serialID, int resources, Dependency<? super T> dep,
+			Provider<T> provider) throws UnresolvableDependency {
+		TemporaryScope scope = null;
+		Object context = null;
+		for (int i = 0; i < contexts.length && context == null; i++) {
+			scope = contexts[i];
+			context = scope.currentContext();
+		}
+		if (context == null)
+			throw new UnresolvableDependency.SupplyFailed("Scope error",
+					new IllegalStateException(
+							"Pooled instances can only be used within a worker or request context"));
+		Borrowed inContext = borrowedByContext.get(context);
+		if (inContext == null)
+			inContext = borrowedIn(scope, context, resources);
+		Object obj = inContext.objs.get(serialID);
+		if (obj != null)
+			return (T) obj;
+		if (inContext.ended)
+			throw contextEnded(dep);
+		Pool pool = poolOf(serialID, resources, dep);
+		T res = pool.borrow(dep, provider);
+		if (!inContext.objs.compareAndSet(serialID, null, res)) {
+			// another thread sharing the context was faster
+			pool.giveBack(res);
+			return (T) inContext.objs.get(serialID);
+		}
+		if (inContext.ended) {
+			// the context ended while borrowing, unless giveBackAll already did
+			if (inContext.objs.compareAndSet(serialID, res, null))
+				pool.giveBack(res);
+			throw contextEnded(dep);
+		}
+		return res;
+	}
+
+	private static UnresolvableDependency.SupplyFailed contextEnded(
+			Dependency<?> dep) {
+		return new UnresolvableDependency.SupplyFailed("Scope error",
+				new IllegalStateException(
+						"Pooled instances cannot be borrowed after the context ended: "
+							+ dep));
+	}
+
+	/**
+	 * Should the context already have ended when registering the exit action
+	 * the {@link Borrowed} is ended right away.
+	 */
+	private Borrowed borrowedIn(TemporaryScope scope, Object context,
+			int resources) {
+		Borrowed created = new Borrowed(resources);
+		Borrowed before = borrowedByContext.putIfAbsent(context, created);
+		if (before != null)
+			return before;
+		scope.onExit(context, () -> giveBackAll(context, created));
+		return created;
+	}
+
+	private void giveBackAll(Object context, Borrowed inContext) {
+		inContext.ended = true;
+		borrowedByContext.remove(context, inContext);
+		AtomicReferenceArray<Pool> all = pools.get();
+		for (int i = 0; i < inContext.objs.length(); i++) {
+			Object obj = inContext.objs.getAndSet(i, null);
+			if (obj != null)
+				all.get(i).giveBack(obj);
+		}
+	}
+
+	private Pool poolOf(int serialID, int resources, Dependency<?> dep) {
+		AtomicReferenceArray<Pool> all = pools.updateAndGet(
+				arr -> arr != null ? arr : new AtomicReferenceArray<>(resources));
+		Pool pool = all.get(serialID);
+		if (pool != null)
+			return pool;
+		all.compareAndSet(serialID, null, new Pool(policies.apply(dep.type())));
+		return all.get(serialID);
+	}
+}
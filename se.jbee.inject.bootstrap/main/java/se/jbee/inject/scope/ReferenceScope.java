@@ -0,0 +1,280 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.*;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A {@link Scope} that only keeps instances as long as the garbage collector
+ * does not need the memory ({@link SoftReference}s) or as long as they are
+ * referenced elsewhere ({@link WeakReference}s). Once collected an instance
+ * is recreated the next time it is needed.
+ * <p>
+ * This is meant for large instances that are cheap to recreate, like lookup
+ * tables derived from a type, that otherwise would pin the heap when kept in
+ * a scope like {@link Scope#application}.
+ * <p>
+ * Instances are kept per {@link Resource} and the key derived from the
+ * served {@link Dependency}. With {@link TypeDependentScope#typeSignature(
+ * Dependency)} there is an instance per type, with {@link
+ * TypeDependentScope#instanceSignature(Dependency)} there is one per name and
+ * type.
+ *
+ * @since 8.1
+ */
+public final class ReferenceScope implements Scope {
+
+	public enum Strength {
+		/**
+		 * Instances are collected when memory is needed
+		 */
+		SOFT,
+		/**
+		 * Instances are collected when they are not referenced elsewhere
+		 */
+		WEAK
+	}
+
+	public static Scope softly(Function<Dependency<?>, String> entryKey) {
+		return new ReferenceScope(Strength.SOFT, entryKey);
+	}
+
+	public static Scope weakly(Function<Dependency<?>, String> entryKey) {
+		return new ReferenceScope(Strength.WEAK, entryKey);
+	}
+
+	/**
+	 * A snapshot of the statistics of a {@link ReferenceScope}.
+	 */
+	public static final class Stats {
+
+		public final long hits;
+		/**
+		 * Number of instances created for a key for the first time
+		 */
+		public final long creations;
+		/**
+		 * Number of instances created for a key after the previous instance
+		 * was collected
+		 */
+		public final long recreations;
+		/**
+		 * Number of instances the garbage collector has collected so far
+		 */
+		public final long collections;
+
+		Stats(long hits, long creations, long recreations, long collections) {
+			this.hits = hits;
+			this.creations = creations;
+			this.recreations = recreations;
+			this.collections = collections;
+		}
+
+		@Override
+		public String toString() {
+			return "hits=" + hits + ", creations=" + creations
+				+ ", recreations=" + recreations + ", collections="
+				+ collections;
+		}
+	}
+
+	private static final class Entry {
+
+		volatile Reference<Object> ref;
+	}
+
+	/**
+	 * The {@link Entry}s of a {@link Resource} by the key derived from the
+	 * served {@link Dependency}.
+	 */
+	private static final class Slot {
+
+		/**
+		 * Limits the number of keys remembered as collected in case keys are
+		 * not a static set.
+		 */
+		static final int MAX_COLLECTED_KEYS = 1024;
+
+		final Map<String, Entry> entries = new ConcurrentHashMap<>();
+		/**
+		 * Keys whose {@link Entry} was removed after its instance was
+		 * collected so that a later creation is known to be a recreation.
+		 */
+		private final Set<String> collectedKeys = Collections.newSetFromMap(
+				new LinkedHashMap<String, Boolean>() {
+
+					@Override
+					protected boolean removeEldestEntry(
+							Map.Entry<String, Boolean> eldest) {
+						return size() > MAX_COLLECTED_KEYS;
+					}
+				});
+
+		void collected(String key, Entry e) {
+			if (entries.remove(key, e)) {
+				synchronized (collectedKeys) {
+					collectedKeys.add(key);
+				}
+			}
+		}
+
+		boolean wasCollected(String key) {
+			synchronized (collectedKeys) {
+				return collectedKeys.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * The link from a collected instance's {@link Reference} back to the
+	 * {@link Entry} that held it.
+	 */
+	private interface Collectable {
+
+		void expunge();
+	}
+
+	private static final class SoftEntryReference extends SoftReference<Object>
+			implements Collectable {
+
+		private final Slot slot;
+		private final String key;
+		private final Entry entry;
+
+		SoftEntryReference(Object value, ReferenceQueue<Object> queue, Slot slot,
+				String key, Entry entry) {
+			super(value, queue);
+			this.slot = slot;
+			this.key = key;
+			this.entry = entry;
+		}
+
+		@Override
+		public void expunge() {
+			if (entry.ref == this)
+				slot.collected(key, entry);
+		}
+	}
+
+	private static final class WeakEntryReference extends WeakReference<Object>
+			implements Collectable {
+
+		private final Slot slot;
+		private final String key;
+		private final Entry entry;
+
+		WeakEntryReference(Object value, ReferenceQueue<Object> queue, Slot slot,
+				String key, Entry entry) {
+			super(value, queue);
+			this.slot = slot;
+			this.key = key;
+			this.entry = entry;
+		}
+
+		@Override
+		public void expunge() {
+			if (entry.ref == this)
+				slot.collected(key, entry);
+		}
+	}
+
+	private final Strength strength;
+	private final Function<Dependency<?>, String> entryKey;
+	/**
+	 * The {@link Slot}s by the dense serial ID of their {@link Resource}
+	 * within this {@link Scope}.
+	 */
+	private final AtomicReference<AtomicReferenceArray<Slot>> slots = new AtomicReference<>();
+	private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder creations = new LongAdder();
+	private final LongAdder recreations = new LongAdder();
+	private final LongAdder collections = new LongAdder();
+
+	public ReferenceScope(Strength strength,
+			Function<Dependency<?>, String> entryKey) {
+		this.strength = strength;
+		this.entryKey = entryKey;
+	}
+
+	public Stats stats() {
+		expungeCollected();
+		return new Stats(hits.sum(), creations.sum(), recreations.sum(),
+				collections.sum());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T provide(int serialID, int resources, Dependency<? super T> dep,
+			Provider<T> provider) throws UnresolvableDependency {
+		expungeCollected();
+		Slot slot = slot(serialID, resources);
+		String key = entryKey.apply(dep);
+		Entry e = slot.entries.get(key);
+		if (e != null) {
+			Reference<Object> ref = e.ref;
+			Object value = ref == null ? null : ref.get();
+			if (value != null) {
+				hits.increment();
+				return (T) value;
+			}
+		} else {
+			e = slot.entries.computeIfAbsent(key, k -> new Entry());
+		}
+		synchronized (e) {
+			Reference<Object> ref = e.ref;
+			Object value = ref == null ? null : ref.get();
+			if (value != null) {
+				hits.increment();
+				return (T) value;
+			}
+			T created = provider.provide();
+			if (ref == null && !slot.wasCollected(key)) {
+				creations.increment();
+			} else {
+				recreations.increment();
+			}
+			e.ref = strength == Strength.SOFT
+				? new SoftEntryReference(created, collected, slot, key, e)
+				: new WeakEntryReference(created, collected, slot, key, e);
+			return created;
+		}
+	}
+
+	private Slot slot(int serialID, int resources) {
+		AtomicReferenceArray<Slot> local = slots.updateAndGet(
+				arr -> arr != null ? arr : new AtomicReferenceArray<>(resources));
+		Slot slot = local.get(serialID);
+		if (slot != null)
+			return slot;
+		local.compareAndSet(serialID, null, new Slot());
+		return local.get(serialID);
+	}
+
+	/**
+	 * Removes the {@link Entry}s of collected instances. Their keys are
+	 * remembered (up to a limit) so that a later creation for the same key is
+	 * known to be a recreation.
+	 */
+	private void expungeCollected() {
+		Reference<?> ref = collected.poll();
+		while (ref != null) {
+			collections.increment();
+			((Collectable) ref).expunge();
+			ref = collected.poll();
+		}
+	}
+}
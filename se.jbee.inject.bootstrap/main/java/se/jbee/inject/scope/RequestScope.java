@@ -0,0 +1,379 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link Scope} that is linked to the dynamic extent of a {@link
+ * #call(Callable)} or {@link #run(Runnable)}. Each call is a new request with
+ * fresh instances.
+ * <p>
+ * The request is made available to code running within the call using one of
+ * two modes:
+ * <ul>
+ * <li><b>{@code ScopedValue}</b>: Used by default when running on a JVM that
+ * has {@code java.lang.ScopedValue}. The request is bound to a scoped value
+ * which makes it available to {@code StructuredTaskScope} subtasks forked
+ * within the request but not to other threads started within the request.</li>
+ * <li><b>{@link ThreadLocal}</b>: Used on JVMs without {@code
+ * java.lang.ScopedValue} or when created using {@link #usingThreadLocal()}.
+ * The request is only available to the thread calling the request. It is
+ * never inherited by other threads as these might be pooled threads that
+ * outlive the request.</li>
+ * </ul>
+ * In both modes work done by other threads only is part of a request when it
+ * is explicitly wrapped using {@link #propagate(Runnable)} or {@link
+ * #propagate(Callable)}.
+ * <p>
+ * In contrast to the {@link WorkerScope} there is no explicit allocation and
+ * deallocation. The state of a request is only referenced for the duration
+ * of the call (and by propagated tasks) so it cannot leak when threads are
+ * abandoned. Once a request has ended its instances can no longer be used.
+ * Looking up the current request is a single scoped value or thread local
+ * access.
+ * <p>
+ * Child contexts use an {@link #inChild()} view of their parent's {@link
+ * RequestScope}. A request begun using either of them is a request for both.
+ *
+ * @since 8.1
+ */
+public final class RequestScope implements TemporaryScope, Scope.ContextBound {
+
+	/**
+	 * @param context the {@link Injector} to use
+	 * @return the {@link Scope#request} {@link Scope} of the given context
+	 */
+	public static RequestScope of(Injector context) {
+		return (RequestScope) context.resolve(Scope.request, Scope.class);
+	}
+
+	/**
+	 * @return a {@link RequestScope} that always uses the {@link ThreadLocal}
+	 * mode even if {@code java.lang.ScopedValue} is available
+	 */
+	public static RequestScope usingThreadLocal() {
+		return new RequestScope(new ThreadLocalCarrier());
+	}
+
+	private static final class RequestState {
+
+		final AtomicReference<AtomicReferenceArray<Object>> instances = new AtomicReference<>();
+		final ConcurrentMap<RequestScope, AtomicReferenceArray<Object>> childInstances = new ConcurrentHashMap<>();
+		private List<Runnable> exits = new ArrayList<>();
+		private volatile boolean ended;
+
+		boolean isEnded() {
+			return ended;
+		}
+
+		void onExit(Runnable action) {
+			synchronized (this) {
+				if (exits != null) {
+					exits.add(action);
+					return;
+				}
+			}
+			action.run();
+		}
+
+		void end() {
+			List<Runnable> actions;
+			synchronized (this) {
+				ended = true;
+				actions = exits;
+				exits = null;
+			}
+			for (Runnable action : actions)
+				action.run();
+		}
+	}
+
+	/**
+	 * Abstraction of the mechanism used to make the {@link RequestState}
+	 * available during a request.
+	 */
+	private interface Carrier {
+
+		RequestState current();
+
+		<T> T call(RequestState state, Callable<T> request) throws Exception;
+	}
+
+	private final Carrier carrier;
+	private final boolean child;
+
+	/**
+	 * Creates a {@link RequestScope} that uses the {@code ScopedValue} mode
+	 * where available and the {@link ThreadLocal} mode otherwise.
+	 */
+	public RequestScope() {
+		this(ScopedValueCarrier.isAvailable()
+			? new ScopedValueCarrier()
+			: new ThreadLocalCarrier());
+	}
+
+	private RequestScope(Carrier carrier) {
+		this(carrier, false);
+	}
+
+	private RequestScope(Carrier carrier, boolean child) {
+		this.carrier = carrier;
+		this.child = child;
+	}
+
+	/**
+	 * Runs the given request with fresh instances for all {@link Resource}s
+	 * in this {@link Scope}.
+	 *
+	 * @param request the work to do within the request scope
+	 * @param <T>     type of the request result
+	 * @return the result of the request
+	 * @throws Exception when the request throws an exception
+	 */
+	public <T> T call(Callable<T> request) throws Exception {
+		RequestState state = new RequestState();
+		try {
+			return carrier.call(state, request);
+		} finally {
+			state.end();
+		}
+	}
+
+	/**
+	 * Same as {@link #call(Callable)} for requests without result.
+	 */
+	public void run(Runnable request) {
+		try {
+			call(() -> {
+				request.run();
+				return null;
+			});
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Makes the current request available to the given task when it is run
+	 * by another thread. The task does not extend the request. Should it
+	 * use request scoped instances after the request has ended this fails.
+	 *
+	 * @param task the work to run as part of the current request
+	 * @param <T>  type of the task result
+	 * @return a task that runs the given task within the current request
+	 * @throws IllegalStateException when called outside of a request
+	 */
+	public <T> Callable<T> propagate(Callable<T> task) {
+		RequestState state = carrier.current();
+		if (state == null)
+			throw new IllegalStateException(
+					"Only tasks created within a request can be propagated");
+		return () -> carrier.call(state, task);
+	}
+
+	/**
+	 * Same as {@link #propagate(Callable)} for tasks without result.
+	 */
+	public Runnable propagate(Runnable task) {
+		Callable<Object> propagated = propagate(() -> {
+			task.run();
+			return null;
+		});
+		return () -> {
+			try {
+				propagated.call();
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IllegalStateException(e);
+			}
+		};
+	}
+
+	/**
+	 * @return true, if the current thread is within a request
+	 */
+	public boolean isActive() {
+		return carrier.current() != null;
+	}
+
+	/**
+	 * @return true, if requests are bound using {@code java.lang.ScopedValue}
+	 */
+	public boolean isScopedValueBased() {
+		return carrier instanceof ScopedValueCarrier;
+	}
+
+	@Override
+	public Object currentContext() {
+		return carrier.current();
+	}
+
+	@Override
+	public void onExit(Object context, Runnable action) {
+		((RequestState) context).onExit(action);
+	}
+
+	@Override
+	public Scope inChild() {
+		return new RequestScope(carrier, true);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T> T provide(int serialID, int resources, Dependency<? super T> dep,
+			Provider<T> provider) throws UnresolvableDependency {
+		RequestState state = carrier.current();
+		if (state == null)
+			throw new UnresolvableDependency.SupplyFailed("Scope error",
+					new IllegalStateException(
+							"Request scope is only available within a request"));
+		if (state.isEnded())
+			throw new UnresolvableDependency.SupplyFailed("Scope error",
+					new IllegalStateException(
+							"Request scope is no longer available after the request ended"));
+		AtomicReferenceArray<Object> instances = child
+			? state.childInstances.computeIfAbsent(this,
+					key -> new AtomicReferenceArray<>(resources))
+			: state.instances.updateAndGet(objs -> objs != null
+				? objs
+				: new AtomicReferenceArray<>(resources));
+		return (T) instances.updateAndGet(serialID,
+				obj -> obj != null ? obj : provider.provide());
+	}
+
+	private static final class ThreadLocalCarrier implements Carrier {
+
+		private final ThreadLocal<RequestState> current = new ThreadLocal<>();
+
+		@Override
+		public RequestState current() {
+			return current.get();
+		}
+
+		@Override
+		public <T> T call(RequestState state, Callable<T> request)
+				throws Exception {
+			RequestState outer = current.get();
+			current.set(state);
+			try {
+				return request.call();
+			} finally {
+				if (outer == null) {
+					current.remove();
+				} else {
+					current.set(outer);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Uses {@code java.lang.ScopedValue} via {@link MethodHandle}s as it is
+	 * not available in all supported JDK versions. Only methods that did not
+	 * change between JDK versions are used.
+	 */
+	private static final class ScopedValueCarrier implements Carrier {
+
+		private static final MethodHandle NEW_INSTANCE;
+		private static final MethodHandle WHERE;
+		private static final MethodHandle RUN;
+		private static final MethodHandle IS_BOUND;
+		private static final MethodHandle GET;
+
+		static {
+			MethodHandle newInstance = null;
+			MethodHandle where = null;
+			MethodHandle run = null;
+			MethodHandle isBound = null;
+			MethodHandle get = null;
+			try {
+				Class<?> scopedValue = Class.forName("java.lang.ScopedValue");
+				Class<?> carrier = Class.forName("java.lang.ScopedValue$Carrier");
+				MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+				newInstance = lookup.findStatic(scopedValue, "newInstance",
+						MethodType.methodType(scopedValue));
+				where = lookup.findStatic(scopedValue, "where",
+						MethodType.methodType(carrier, scopedValue, Object.class));
+				run = lookup.findVirtual(carrier, "run",
+						MethodType.methodType(void.class, Runnable.class));
+				isBound = lookup.findVirtual(scopedValue, "isBound",
+						MethodType.methodType(boolean.class));
+				get = lookup.findVirtual(scopedValue, "get",
+						MethodType.methodType(Object.class));
+				// probe: preview APIs might be present but not enabled
+				Object probe = newInstance.invoke();
+				run.invoke(where.invoke(probe, Boolean.TRUE), (Runnable) () -> {});
+			} catch (Throwable e) {
+				newInstance = null;
+			}
+			NEW_INSTANCE = newInstance;
+			WHERE = where;
+			RUN = run;
+			IS_BOUND = isBound;
+			GET = get;
+		}
+
+		static boolean isAvailable() {
+			return NEW_INSTANCE != null;
+		}
+
+		private final Object key;
+
+		ScopedValueCarrier() {
+			try {
+				this.key = NEW_INSTANCE.invoke();
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		public RequestState current() {
+			try {
+				return (boolean) IS_BOUND.invoke(key)
+					? (RequestState) GET.invoke(key)
+					: null;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> T call(RequestState state, Callable<T> request)
+				throws Exception {
+			Object[] result = new Object[1];
+			Exception[] failure = new Exception[1];
+			Runnable op = () -> {
+				try {
+					result[0] = request.call();
+				} catch (Exception e) {
+					failure[0] = e;
+				}
+			};
+			try {
+				RUN.invoke(WHERE.invoke(key, state), op);
+			} catch (RuntimeException | Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new IllegalStateException(e);
+			}
+			if (failure[0] != null)
+				throw failure[0];
+			return (T) result[0];
+		}
+	}
+}
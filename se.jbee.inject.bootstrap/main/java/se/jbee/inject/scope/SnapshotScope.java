@@ -15,6 +15,10 @@ import se.jbee.inject.UnresolvableDependency;
  * considered as the synchronous-repository will deliver a consistent image of
  * the world as long as it exists.
  *
+ * As the slots passed to {@link #provide(int, int, Dependency, Provider)} are
+ * only unique within the snapshot scope both repositories should be
+ * dedicated to the snapshot scope.
+ *
  * @author Jan Bernitt (jan@jbee.se)
  */
 public final class SnapshotScope implements Scope {
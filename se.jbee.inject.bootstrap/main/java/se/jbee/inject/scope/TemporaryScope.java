@@ -0,0 +1,30 @@
+package se.jbee.inject.scope;
+
+import se.jbee.inject.Scope;
+
+/**
+ * A {@link Scope} whose instances only exist during a context that begins and
+ * ends while the application runs, like a work item or request.
+ * <p>
+ * Other {@link Scope}s can use this to tie instances to the context, for
+ * example to return borrowed instances to a pool when the context ends.
+ *
+ * @since 8.1
+ */
+public interface TemporaryScope extends Scope {
+
+	/**
+	 * @return the context active for the current {@link Thread} or {@code
+	 * null} if no context is active. Contexts are compared by identity.
+	 */
+	Object currentContext();
+
+	/**
+	 * Registers an action to run when the given context ends. Should the
+	 * context already have ended the action is run immediately.
+	 *
+	 * @param context a context as returned by {@link #currentContext()}
+	 * @param action  the action to run once
+	 */
+	void onExit(Object context, Runnable action);
+}
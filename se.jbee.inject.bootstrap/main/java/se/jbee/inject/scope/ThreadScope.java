@@ -5,8 +5,10 @@ import se.jbee.inject.*;
 /**
  * Asks the {@link Provider} once per thread per {@link Resource} which is
  * understand commonly as a usual 'per-thread' singleton.
+ *
+ * Each thread only has room for the {@link Resource}s in this scope.
  */
-public final class ThreadScope implements Scope {
+public final class ThreadScope implements Scope.ContextBound {
 
 	private final ThreadLocal<Object[]> instances = new ThreadLocal<>();
 
@@ -26,4 +28,13 @@ public final class ThreadScope implements Scope {
 		}
 		return (T) res;
 	}
+
+	/**
+	 * As the context of this scope is the current {@link Thread} itself a
+	 * child only needs room of its own.
+	 */
+	@Override
+	public Scope inChild() {
+		return new ThreadScope();
+	}
 }
@@ -5,28 +5,75 @@ import se.jbee.inject.Provider;
 import se.jbee.inject.Scope;
 import se.jbee.inject.UnresolvableDependency;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * A {@link Scope} that is linked to the current {@link Thread} using the
  * {@link Controller}.
+ * <p>
+ * Child contexts use an {@link #inChild()} view of their parent's {@link
+ * WorkerScope}. A work item allocated using the parent's {@link Controller}
+ * is a work item for both.
  */
-public final class WorkerScope implements Scope {
+public final class WorkerScope implements TemporaryScope, Scope.ContextBound {
 
 	//TODO cleanup that checks if thread is alive => general feature to allow hook in for cleanup without needed to explicitly work with scheduler
 	// also to cleanup on JVM shutdown
 
+	/**
+	 * The state is shared by all {@link Thread}s the context was transferred
+	 * to. It ends when the last of them deallocated it.
+	 */
 	private static final class WorkerState {
-		final AtomicReferenceArray<Object> instances;
+		final AtomicReference<AtomicReferenceArray<Object>> instances = new AtomicReference<>();
+		final ConcurrentMap<WorkerScope, AtomicReferenceArray<Object>> childInstances = new ConcurrentHashMap<>();
+		private int holders;
+		private List<Runnable> exits = new ArrayList<>();
 
-		WorkerState(AtomicReferenceArray<Object> instances) {
-			this.instances = instances;
+		synchronized void hold() {
+			holders++;
+		}
+
+		void release() {
+			List<Runnable> ended;
+			synchronized (this) {
+				if (--holders > 0 || exits == null)
+					return;
+				ended = exits;
+				exits = null;
+			}
+			for (Runnable action : ended)
+				action.run();
+		}
+
+		void onExit(Runnable action) {
+			synchronized (this) {
+				if (exits != null) {
+					exits.add(action);
+					return;
+				}
+			}
+			action.run();
 		}
 	}
 
-	private final ConcurrentMap<Thread, WorkerState> states = new ConcurrentHashMap<>();
+	private final ConcurrentMap<Thread, WorkerState> states;
+	private final boolean child;
+
+	public WorkerScope() {
+		this(new ConcurrentHashMap<>(), false);
+	}
+
+	private WorkerScope(ConcurrentMap<Thread, WorkerState> states,
+			boolean child) {
+		this.states = states;
+		this.child = child;
+	}
 
 	@SuppressWarnings("unchecked")
 	@Override
@@ -34,17 +81,38 @@ public final class WorkerScope implements Scope {
 			Provider<T> provider) throws UnresolvableDependency {
 		Thread target = Thread.currentThread();
 		if (dep.type().rawType == Controller.class) {
-			return (T) new WorkerScopeController(resources, target, states);
+			return (T) new WorkerScopeController(target, states);
 		}
 		WorkerState state = states.get(target);
 		if (state == null) {
 			throw new UnresolvableDependency.SupplyFailed("Scope error",
 					contextNotAllocated("Context"));
 		}
-		return (T) state.instances.updateAndGet(serialID,
+		AtomicReferenceArray<Object> instances = child
+			? state.childInstances.computeIfAbsent(this,
+					key -> new AtomicReferenceArray<>(resources))
+			: state.instances.updateAndGet(objs -> objs != null
+				? objs
+				: new AtomicReferenceArray<>(resources));
+		return (T) instances.updateAndGet(serialID,
 				value -> value != null ? value : provider.provide());
 	}
 
+	@Override
+	public Object currentContext() {
+		return states.get(Thread.currentThread());
+	}
+
+	@Override
+	public void onExit(Object context, Runnable action) {
+		((WorkerState) context).onExit(action);
+	}
+
+	@Override
+	public Scope inChild() {
+		return new WorkerScope(states, true);
+	}
+
 	static IllegalStateException contextNotAllocated(String context) {
 		return new IllegalStateException(context + " was not allocated using "
 			+ Controller.class.getSimpleName());
@@ -52,14 +120,12 @@ public final class WorkerScope implements Scope {
 
 	private static final class WorkerScopeController implements Controller {
 
-		final int generators;
 		final Thread src;
 		final ConcurrentMap<Thread, WorkerState> workerStates;
 		private volatile WorkerState srcWorkerState;
 
-		WorkerScopeController(int generators, Thread src,
+		WorkerScopeController(Thread src,
 				ConcurrentMap<Thread, WorkerState> states) {
-			this.generators = generators;
 			this.src = src;
 			this.workerStates = states;
 			this.srcWorkerState = states.get(src);
@@ -73,23 +139,25 @@ public final class WorkerScope implements Scope {
 			if (before != null) {
 				throw new IllegalStateException("Context was not deallocated.");
 			}
+			state.hold();
 		}
 
 		private WorkerState getOrCreateState(Thread target) {
 			if (src == target) {
-				srcWorkerState = new WorkerState(
-						new AtomicReferenceArray<>(generators));
+				srcWorkerState = new WorkerState();
 				return srcWorkerState;
 			}
 			WorkerState state = srcWorkerState;
 			if (state == null)
 				throw contextNotAllocated("Transfer context");
-			return new WorkerState(state.instances);
+			return state;
 		}
 
 		@Override
 		public void deallocate() {
-			workerStates.remove(Thread.currentThread());
+			WorkerState state = workerStates.remove(Thread.currentThread());
+			if (state != null)
+				state.release();
 		}
 
 	}
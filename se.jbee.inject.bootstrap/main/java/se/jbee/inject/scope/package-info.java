@@ -20,12 +20,23 @@
  * <li>{@link se.jbee.inject.scope.WorkerScope}: Base implementation for
  * {@link java.lang.Thread} pool based scopes like a request scope in an HTTP
  * server.</li>
+ * <li>{@link se.jbee.inject.scope.RequestScope}: A scope per request call that
+ * uses a {@code java.lang.ScopedValue} where available.</li>
  * <li>{@link se.jbee.inject.scope.DiskScope}: {@link java.io.File} based scope
  * for {@link java.io.Serializable} values in a particular directory.</li>
  * <li>{@link se.jbee.inject.scope.TypeDependentScope}: Implementation for
  * singletons per resolved {@link java.lang.Class}, {@link se.jbee.lang.Type},
  * {@link se.jbee.inject.Instance} or full
  * {@link se.jbee.inject.Dependency}.</li>
+ * <li>{@link se.jbee.inject.scope.PoolScope}: Reuses a bounded number of
+ * instances that are borrowed during a worker or request context.</li>
+ * <li>{@link se.jbee.inject.scope.ReferenceScope}: Keeps instances using
+ * {@link java.lang.ref.SoftReference}s or {@link java.lang.ref.WeakReference}s
+ * and recreates them once collected.</li>
+ * <li>{@link se.jbee.inject.scope.CacheScope}: A scope per
+ * {@link se.jbee.inject.Scope#cache(String)} name whose instances expire, are
+ * evicted or refreshed as described by its
+ * {@link se.jbee.inject.scope.CachePolicy}.</li>
  * <li>{@link se.jbee.inject.scope.SnapshotScope}: A utility
  * {@link se.jbee.inject.Scope} that allows to create effective snapshots of
  * other {@link se.jbee.inject.Scope} that change asynchronously or concurrently
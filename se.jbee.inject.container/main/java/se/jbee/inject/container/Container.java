@@ -10,13 +10,9 @@ import se.jbee.inject.UnresolvableDependency.ResourceResolutionFailed;
 import se.jbee.lang.Type;
 
 import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
-import static java.lang.System.identityHashCode;
 import static se.jbee.inject.Dependency.dependency;
 import static se.jbee.inject.Instance.instance;
 import static se.jbee.inject.Resource.resourcesTypeOf;
@@ -26,27 +22,90 @@ import static se.jbee.lang.Utils.*;
 /**
  * The default {@link Injector} implementation that is based on
  * {@link Resources} created from {@link ResourceDescriptor}s.
+ * <p>
+ * Arrays of all instances of a type are resolved once when all of the
+ * instances are permanent and the same array is returned each time. Such
+ * arrays must not be modified.
  *
  * @see Resources for bootstrapping of the {@link Injector} context
+ * @see ContextTemplate for creating many structurally identical contexts
  * @see LiftResources for instance initialisation
  */
 public final class Container implements Injector, Env {
 
 	public static Injector injector(ResourceDescriptor<?>... descriptors) {
-		return new Container(descriptors).getBuiltUp();
+		return ContextTemplate.template(descriptors).injector();
 	}
 
+	/**
+	 * Same as {@link #injector(ResourceDescriptor[])} except that {@link
+	 * Resource}s are only created on first lookup of their raw type unless
+	 * they are eager, generic or a {@link ScopeLifeCycle}.
+	 * <p>
+	 * This is useful for very large contexts where most {@link Resource}s
+	 * are never used in a particular process. {@link Verifier}s of lazily
+	 * created {@link Resource}s run when they are created.
+	 */
+	public static Injector lazyInjector(ResourceDescriptor<?>... descriptors) {
+		return ContextTemplate.lazyTemplate(descriptors).injector();
+	}
+
+	/**
+	 * Creates a child context that only consists of the {@link Resource}s
+	 * created from the given {@link ResourceDescriptor}s. Any {@link
+	 * Dependency} that does not match one of them is resolved in the parent
+	 * context. This shares the parent's {@link Resource}s and instances with
+	 * the child. Instances created by the parent's {@link Resource}s are
+	 * always created in the parent context.
+	 * <p>
+	 * For arrays the child's elements come first followed by those of the
+	 * parent.
+	 * <p>
+	 * A child uses the {@link Scope}s bound in the child. A {@link Scope} not
+	 * bound in the child is used from the parent if it is a {@link
+	 * Scope.ContextBound} {@link Scope}. The child then uses its {@link
+	 * Scope.ContextBound#inChild()} view so that {@link Resource}s of the
+	 * child and the parent do not share {@link Scope} slots but still share
+	 * the thread, work item or request. All other {@link Scope}s (and all
+	 * {@link ScopeLifeCycle}s) used by the child must be bound in the child.
+	 *
+	 * @param parent the context to fall back to
+	 * @since 8.1
+	 */
+	public static Injector childInjector(Injector parent,
+			ResourceDescriptor<?>... descriptors) {
+		return ContextTemplate.template(descriptors).injector(parent);
+	}
+
+	private static final int MAX_PERMANENT_ARRAYS = 256;
+
+	private final Injector parent;
 	private final Resources resources;
 	private final LiftResources liftResources;
 	private final Observer observer;
 	private final Injector builtUp;
+	/**
+	 * Arrays of elements that all are {@link ScopeLifeCycle#isPermanent()} by
+	 * the array {@link Instance} of the {@link Dependency}. Only arrays whose
+	 * elements do not depend on the injection hierarchy are kept. These never
+	 * change so they are only resolved once and shared by all callers.
+	 */
+	private final Map<Instance<?>, Object[]> permanentArrays = new ConcurrentHashMap<>();
+	/**
+	 * The {@link Scope.ContextBound#inChild()} views of the parent's {@link
+	 * Scope}s used by this child context.
+	 */
+	private final Map<Name, Scope> parentScopes = new ConcurrentHashMap<>();
 
-	private Container(ResourceDescriptor<?>... descriptors) {
+	Container(ContextTemplate template, Injector parent) {
+		this.parent = parent;
 		this.resources = new Resources(this::supplyInContext,
-				scope -> resolve(scope, Scope.class), descriptors);
+				parent == null
+					? scope -> resolve(scope, Scope.class)
+					: this::resolveOwnScope, template);
 		this.liftResources = new LiftResources(
-				orElse((t, arr) -> arr,
-						() -> resolve(Lift.Sequencer.class)),
+				resolveOrElse(dependency(Lift.Sequencer.class),
+						(t, arr) -> arr),
 				resolve(resourcesTypeOf(Lift.liftTypeOf(Type.WILDCARD))));
 		this.observer = resolvePostConstructObserver();
 		this.builtUp = liftResources.lift(this);
@@ -54,7 +113,21 @@ public final class Container implements Injector, Env {
 		resources.initEager();
 	}
 
-	private Injector getBuiltUp() {
+	private Scope resolveOwnScope(Name scope) {
+		Dependency<Scope> dep = dependency(instance(scope, raw(Scope.class)));
+		Resource<Scope> match = mostQualifiedMatchFor(dep);
+		if (match != null)
+			return match.generate(dep);
+		return parentScopes.computeIfAbsent(scope, name -> {
+			Scope inParent = parent.resolveOrElse(dep, null);
+			if (!(inParent instanceof Scope.ContextBound))
+				throw new InconsistentDeclaration("Scope `" + name
+					+ "` is used but not bound in child context.");
+			return ((Scope.ContextBound) inParent).inChild();
+		});
+	}
+
+	Injector getBuiltUp() {
 		return builtUp == null ? this : builtUp;
 	}
 
@@ -66,18 +139,46 @@ public final class Container implements Injector, Env {
 	@Override
 	public <T> T property(Name qualifier, Type<T> property, Class<?> ns) {
 		try {
-			Dependency<T> global = dependency(instance(qualifier, property));
-			if (ns == null)
-				return resolve(global);
-			return resolve(global.injectingInto(ns));
+			return resolve(propertyDependency(qualifier, property, ns));
 		} catch (UnresolvableDependency e) {
 			throw new InconsistentDeclaration(e);
 		}
 	}
 
-	@SuppressWarnings({ "unchecked", "ChainOfInstanceofChecks" })
+	@Override
+	public <T> T property(Name qualifier, Type<T> property, Class<?> ns,
+			T defaultValue) {
+		try {
+			return resolveOrElse(propertyDependency(qualifier, property, ns),
+					defaultValue);
+		} catch (UnresolvableDependency e) {
+			return defaultValue;
+		}
+	}
+
+	private static <T> Dependency<T> propertyDependency(Name qualifier,
+			Type<T> property, Class<?> ns) {
+		Dependency<T> global = dependency(instance(qualifier, property));
+		return ns == null ? global : global.injectingInto(ns);
+	}
+
 	@Override
 	public <T> T resolve(Dependency<T> dep) {
+		return resolve(dep, true, null);
+	}
+
+	/**
+	 * Absence is detected without creating (and catching) an {@link
+	 * UnresolvableDependency}. Only a {@link Resource} that fails to
+	 * generate the instance still throws.
+	 */
+	@Override
+	public <T> T resolveOrElse(Dependency<T> dep, T fallback) {
+		return resolve(dep, false, fallback);
+	}
+
+	@SuppressWarnings({ "unchecked", "ChainOfInstanceofChecks" })
+	private <T> T resolve(Dependency<T> dep, boolean required, T fallback) {
 		final Type<T> type = dep.type();
 		final Class<T> rawType = type.rawType;
 		if (rawType == Injector.class
@@ -85,12 +186,18 @@ public final class Container implements Injector, Env {
 			return (T) builtUp;
 		if (rawType == Env.class && dep.instance.name.equalTo(Name.AS))
 			return (T) this;
-		return resolveFromResource(dep, type, rawType);
+		if (rawType == Annotated.Index.class)
+			return (T) resources;
+		return resolveFromResource(dep, type, rawType, required, fallback);
 	}
 
+	/**
+	 * @param required when true absence is reported by throwing, otherwise
+	 *                 the fallback is returned
+	 */
 	@SuppressWarnings("unchecked")
 	private <T> T resolveFromResource(Dependency<T> dep, final Type<T> type,
-			final Class<T> rawType) {
+			final Class<T> rawType, boolean required, T fallback) {
 		boolean isResourceResolution = rawType == Resource.class
 			|| rawType == Generator.class;
 		if (isResourceResolution) {
@@ -102,29 +209,74 @@ public final class Container implements Injector, Env {
 			if (match != null)
 				return match.generate(dep);
 		}
-		if (type.arrayDimensions() == 1)
-			return resolveArray(dep, type.baseType());
+		if (type.arrayDimensions() == 1) {
+			boolean primitive = rawType.getComponentType().isPrimitive();
+			if (parent == null)
+				return primitive && !required
+					? fallback
+					: resolveArray(dep, type.baseType());
+			if (!primitive)
+				return resolveArrayInParent(dep,
+						resolveArray(dep, type.baseType()));
+		}
+		Resource<?> match = isResourceResolution
+			? resolveFromUpperBound(dep.onTypeParameter(), required)
+			: resolveFromUpperBound(dep, required);
+		if (match == null) {
+			if (parent == null)
+				return fallback;
+			return required
+				? parent.resolve(dep)
+				: parent.resolveOrElse(dep, fallback);
+		}
 		if (isResourceResolution)
-			return (T) resolveFromUpperBound(dep.onTypeParameter());
-		return (T) resolveFromUpperBound(dep) //
-				.generate((Dependency<Object>) dep);
+			return (T) match;
+		return (T) match.generate((Dependency<Object>) dep);
 	}
 
 	/**
 	 * There is no direct match for the required type but there might be a
 	 * wild-card binding, that is a binding capable of producing all sub-types
 	 * of a certain super-type.
+	 *
+	 * @return the match or null if there is none but a parent context to
+	 * continue with or the match is not required
 	 */
-	private <T> Resource<?> resolveFromUpperBound(Dependency<T> dep) {
+	private <T> Resource<?> resolveFromUpperBound(Dependency<T> dep,
+			boolean required) {
 		Type<T> type = dep.type();
 		Resource<?> match = arrayFindFirst(resources.forType(Type.WILDCARD),
 				r -> type.isAssignableTo(r.type())
 						&& r.signature.instance.name.isCompatibleWith(dep.instance.name));
-		if (match != null)
+		if (match != null || parent != null || !required)
 			return match;
 		throw noResourceFor(dep);
 	}
 
+	/**
+	 * @return the elements of the child context followed by those of the
+	 * parent context that are not already contained
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T resolveArrayInParent(Dependency<T> dep, T own) {
+		Object[] fromChild = (Object[]) own;
+		Object[] fromParent = (Object[]) parent.resolve(dep);
+		if (fromParent.length == 0)
+			return own;
+		if (fromChild.length == 0)
+			return (T) fromParent;
+		Set<Object> identities = Collections.newSetFromMap(
+				new IdentityHashMap<>());
+		identities.addAll(Arrays.asList(fromChild));
+		Object[] res = Arrays.copyOf(fromChild,
+				fromChild.length + fromParent.length);
+		int n = fromChild.length;
+		for (Object e : fromParent)
+			if (identities.add(e))
+				res[n++] = e;
+		return (T) Arrays.copyOf(res, n);
+	}
+
 	private <T> Resource<T> mostQualifiedMatchFor(Dependency<T> dep) {
 		if (dep.type().equalTo(Type.WILDCARD) && dep.instance.name.isAny())
 			throwAmbiguousDependency(dep);
@@ -159,21 +311,73 @@ public final class Container implements Injector, Env {
 			throw new ResourceResolutionFailed(
 					"Primitive arrays cannot be used to inject all instances of the wrapper type. Use the wrapper array instead.",
 					dep);
-		Set<Integer> identities = new HashSet<>();
+		Object[] permanent = permanentArrays.get(dep.instance);
+		if (permanent != null)
+			return (T) permanent;
+		Dependency<E> elemDep = dep.typed(elemType);
+		List<Resource<? extends E>> elemResources = new ArrayList<>();
+		boolean targeted = false;
 		if (!elemType.isUpperBound()) {
-			List<E> elements = new ArrayList<>();
-			Resource<E>[] elemResources = resources.forType(elemType);
-			if (elemResources != null)
-				addAllMatching(elements, identities, dep, elemType,
-						elemResources);
-			return toArray(elements, elemType);
+			targeted = addAllUsable(elemResources, elemDep,
+					resources.forType(elemType));
+		} else {
+			for (Class<?> rawType : resources.rawTypes())
+				if (Type.raw(rawType).isAssignableTo(elemType))
+					targeted |= addAllUsable(elemResources, elemDep,
+							(Resource<? extends E>[]) resources.forRawType(rawType));
+		}
+		E[] elements = newArray(rawElemType, elemResources.size());
+		// small arrays are scanned, larger use an identity set, neither boxes
+		Set<Object> identities = elements.length <= 16
+			? null
+			: Collections.newSetFromMap(new IdentityHashMap<>());
+		boolean allPermanent = true;
+		int n = 0;
+		for (Resource<? extends E> elemResource : elemResources) {
+			allPermanent &= elemResource.lifeCycle.isPermanent();
+			E instance = elemResource.generate(elemDep);
+			if (identities != null
+				? identities.add(instance)
+				: !arrayContainsIdentical(elements, n, instance))
+				elements[n++] = instance;
 		}
-		List<E> elements = new ArrayList<>();
-		for (Entry<Class<?>, Resource<?>[]> e : resources.entrySet())
-			if (Type.raw(e.getKey()).isAssignableTo(elemType))
-				addAllMatching(elements, identities, dep, elemType,
-						(Resource<? extends E>[]) e.getValue());
-		return toArray(elements, elemType);
+		if (n < elements.length)
+			elements = Arrays.copyOf(elements, n);
+		if (!allPermanent || targeted
+			|| permanentArrays.size() >= MAX_PERMANENT_ARRAYS)
+			return (T) elements;
+		Object[] known = permanentArrays.putIfAbsent(dep.instance, elements);
+		return (T) (known != null ? known : elements);
+	}
+
+	/**
+	 * @return true, if any of the candidates is only usable for some injection
+	 * hierarchies
+	 */
+	private static <E> boolean addAllUsable(List<Resource<? extends E>> res,
+			Dependency<E> elemDep, Resource<? extends E>[] candidates) {
+		boolean targeted = false;
+		if (candidates != null)
+			for (Resource<? extends E> candidate : candidates) {
+				targeted |= !candidate.signature.target.isAny();
+				if (candidate.signature.isUsableFor(elemDep))
+					res.add(candidate);
+			}
+		return targeted;
+	}
+
+	private static boolean arrayContainsIdentical(Object[] arr, int length,
+			Object e) {
+		for (int i = 0; i < length; i++)
+			if (arr[i] == e)
+				return true;
+		return false;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T, E> T toArray(List<? extends E> elements,
+			Type<E> elementType) {
+		return (T) arrayOf(elements, elementType.rawType);
 	}
 
 	@SuppressWarnings({"unchecked"})
@@ -193,10 +397,10 @@ public final class Container implements Injector, Env {
 	private <T> Resource<T>[] resolveArrayElementResourcesForUpperBoundType(
 			Type<T> generatedType, Dependency<T> dep) {
 		List<Resource<?>> res = new ArrayList<>();
-		for (Entry<Class<?>, Resource<?>[]> e : resources.entrySet())
-			if (raw(e.getKey()).isAssignableTo(generatedType))
+		for (Class<?> rawType : resources.rawTypes())
+			if (raw(rawType).isAssignableTo(generatedType))
 				addCompatibleResources(res, dep,
-						(Resource<? extends T>[]) e.getValue());
+						(Resource<? extends T>[]) resources.forRawType(rawType));
 		return toArray(res, raw(Resource.class));
 	}
 
@@ -207,25 +411,6 @@ public final class Container implements Injector, Env {
 				res.add(candidate);
 	}
 
-	private static <E, T> void addAllMatching(List<E> elements,
-			Set<Integer> identities, Dependency<T> dep, Type<E> elementType,
-			Resource<? extends E>[] elementResources) {
-		Dependency<E> elemDep = dep.typed(elementType);
-		for (Resource<? extends E> elemResource : elementResources) {
-			if (elemResource.signature.isUsableFor(elemDep)) {
-				E instance = elemResource.generate(elemDep);
-				if (identities.add(identityHashCode(instance)))
-					elements.add(instance);
-			}
-		}
-	}
-
-	@SuppressWarnings("unchecked")
-	private static <T, E> T toArray(List<? extends E> elements,
-			Type<E> elementType) {
-		return (T) arrayOf(elements, elementType.rawType);
-	}
-
 	/**
 	 * Can be called by a {@link Generator} to create an instance from a
 	 * {@link Supplier} and have {@link Lift}s applied for it as well as
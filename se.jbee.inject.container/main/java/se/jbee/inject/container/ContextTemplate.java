@@ -0,0 +1,332 @@
+package se.jbee.inject.container;
+
+import se.jbee.inject.*;
+import se.jbee.inject.UnresolvableDependency.ResourceResolutionFailed;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.Map.Entry;
+
+import static se.jbee.inject.Name.named;
+
+/**
+ * A {@link ContextTemplate} captures the structure of an {@link Injector}
+ * context that is independent of the state of a particular context: the
+ * {@link ScopeLifeCycle} of each {@link ResourceDescriptor}, the order of the
+ * {@link Resource}s within each raw type group and the {@link
+ * Annotated.Index}.
+ * <p>
+ * Each {@link Injector} created from the same {@link ContextTemplate} has its
+ * own {@link Resource}s, {@link Scope} instances and singletons but skips
+ * bootstrapping, consolidation and sorting. This makes it cheap to create many
+ * structurally identical contexts, for example one per tenant.
+ * <p>
+ * The {@link ResourceDescriptor}s and thereby their {@link Supplier}s are
+ * shared by all contexts created from the same {@link ContextTemplate}.
+ * Instances bound as constants therefore are also shared.
+ *
+ * @since 8.1
+ */
+public final class ContextTemplate {
+
+	/**
+	 * @param descriptors the list of {@link ResourceDescriptor}s that {@link
+	 *                    Resource}s are created for. Note that this list must
+	 *                    be sorted already from the most qualified to the
+	 *                    least qualified for each raw type. The order of the
+	 *                    raw type groups is irrelevant.
+	 * @return a template for {@link Injector}s as created by {@link
+	 * Container#injector(ResourceDescriptor[])}
+	 */
+	public static ContextTemplate template(
+			ResourceDescriptor<?>... descriptors) {
+		return new ContextTemplate(false, descriptors);
+	}
+
+	/**
+	 * Same as {@link #template(ResourceDescriptor[])} except that the created
+	 * {@link Injector}s are lazy.
+	 *
+	 * @see Container#lazyInjector(ResourceDescriptor[])
+	 */
+	public static ContextTemplate lazyTemplate(
+			ResourceDescriptor<?>... descriptors) {
+		return new ContextTemplate(true, descriptors);
+	}
+
+	final boolean lazy;
+	final ResourceDescriptor<?>[] descriptors;
+	final ScopeLifeCycle[] lifeCycles;
+	/**
+	 * Serial IDs of each raw type group in the order of the sorted {@link
+	 * Resource}s.
+	 */
+	final Map<Class<?>, int[]> serialIDsByRawType;
+	final Map<Class<?>, int[]> serialIDsByAnnotation;
+	/**
+	 * {@link Resource}s with user defined {@link AnnotatedElement}s can't be
+	 * indexed as they might only answer {@link AnnotatedElement#getAnnotation(Class)}
+	 * so they are checked for each query.
+	 */
+	final int[] customAnnotatedSerialIDs;
+	/**
+	 * The dense slot number of each {@link Resource} among all {@link
+	 * Resource}s of the same scope as passed to {@link Scope#provide(int, int,
+	 * Dependency, Provider)}.
+	 */
+	final int[] scopeSlots;
+	/**
+	 * The number of slots of the scope of each {@link Resource}
+	 */
+	final int[] scopeSlotCounts;
+	/**
+	 * The {@link ScopeLifeCycle} value of each {@link ScopeLifeCycle} {@link
+	 * Resource} at its serial ID index, all other indexes are {@code null}.
+	 * These are resolved once for the template and then shared by all
+	 * contexts just like the {@link #lifeCycles}.
+	 */
+	final ScopeLifeCycle[] lifeCycleValues;
+
+	private ContextTemplate(boolean lazy, ResourceDescriptor<?>[] descriptors) {
+		this.lazy = lazy;
+		this.descriptors = descriptors;
+		this.lifeCycles = new ScopeLifeCycle[descriptors.length];
+		this.lifeCycleValues = new ScopeLifeCycle[descriptors.length];
+		resolveLifeCycles();
+		this.scopeSlots = new int[descriptors.length];
+		this.scopeSlotCounts = new int[descriptors.length];
+		assignScopeSlots();
+		this.serialIDsByRawType = createSerialIDsByRawType();
+		List<Integer> customAnnotated = new ArrayList<>();
+		this.serialIDsByAnnotation = createSerialIDsByAnnotation(descriptors,
+				customAnnotated);
+		this.customAnnotatedSerialIDs = customAnnotated.stream() //
+				.mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * @return a new {@link Injector} context with fresh {@link Scope}s
+	 */
+	public Injector injector() {
+		return new Container(this, null).getBuiltUp();
+	}
+
+	/**
+	 * @param parent the context to resolve all {@link Dependency}s in that
+	 *               are not matched by the {@link Resource}s of this template
+	 * @return a new child {@link Injector} context of the given parent
+	 * @see Container#childInjector(Injector, ResourceDescriptor[])
+	 */
+	public Injector injector(Injector parent) {
+		return new Container(this, parent).getBuiltUp();
+	}
+
+	/**
+	 * @return number of {@link Resource}s in each context created from this
+	 * template
+	 */
+	public int size() {
+		return descriptors.length;
+	}
+
+	/**
+	 * Resolves the {@link ScopeLifeCycle} of every {@link ResourceDescriptor}
+	 * using a bootstrapping context that is only able to resolve the {@link
+	 * ScopeLifeCycle}s themselves.
+	 */
+	private void resolveLifeCycles() {
+		Map<Name, ScopeLifeCycle> lifeCycleByScope = new HashMap<>();
+		Map<Name, Resource<ScopeLifeCycle>> lifeCycleResourceByScope = new HashMap<>();
+		Injector bootstrappingContext = createBootstrappingContext(
+				lifeCycleResourceByScope, lifeCycleByScope);
+		// create ScopeLifeCycle resources
+		for (int i = 0; i < descriptors.length; i++) {
+			ResourceDescriptor<?> descriptor = descriptors[i];
+			if (descriptor.signature.type().rawType == ScopeLifeCycle.class) {
+				Resource<?> r = createLifeCycleResource(i, descriptor,
+						bootstrappingContext);
+				lifeCycles[i] = r.lifeCycle;
+				@SuppressWarnings("unchecked")
+				Resource<ScopeLifeCycle> r2 = (Resource<ScopeLifeCycle>) r;
+				lifeCycleResourceByScope.put(r.signature.instance.name, r2);
+			}
+		}
+		// make sure all required ScopeLifeCycle are known
+		for (Entry<Name, Resource<ScopeLifeCycle>> e : lifeCycleResourceByScope.entrySet()) {
+			if (!lifeCycleByScope.containsKey(e.getKey())) {
+				Resource<ScopeLifeCycle> val = e.getValue();
+				lifeCycleByScope.put(e.getKey(),
+						val.generate(val.signature.toDependency()));
+			}
+		}
+		// resolve life-cycles of rest of resources
+		for (int i = 0; i < descriptors.length; i++)
+			if (lifeCycles[i] == null)
+				lifeCycles[i] = lifeCycleOf(descriptors[i], lifeCycleByScope);
+			else
+				lifeCycleValues[i] = lifeCycleByScope.get(
+						descriptors[i].signature.instance.name);
+	}
+
+	private static Injector createBootstrappingContext(
+			Map<Name, Resource<ScopeLifeCycle>> lifeCycleResourceByScope,
+			Map<Name, ScopeLifeCycle> lifeCycleByScope) {
+		return new Injector() {
+
+			@SuppressWarnings({ "unchecked", "ChainOfInstanceofChecks" })
+			@Override
+			public <E> E resolve(Dependency<E> dep)
+					throws UnresolvableDependency {
+				Class<E> rawType = dep.type().rawType;
+				if (rawType == Injector.class)
+					return (E) this;
+				if (rawType == ScopeLifeCycle.class) {
+					Name scope = dep.instance.name;
+					if (!lifeCycleResourceByScope.containsKey(scope))
+						throw noResourceFor(dep);
+					Dependency<ScopeLifeCycle> scopeDep = (Dependency<ScopeLifeCycle>) dep;
+					return (E) lifeCycleByScope.computeIfAbsent(scope,
+							name -> lifeCycleResourceByScope.get(
+									name).generator.generate(scopeDep));
+				}
+				throw noResourceFor(dep);
+			}
+
+			private ResourceResolutionFailed noResourceFor(Dependency<?> dep) {
+				return new ResourceResolutionFailed("During bootstrapping only ",
+						dep, lifeCycleResourceByScope.values().toArray(
+								Resource[]::new));
+			}
+		};
+	}
+
+	private static ScopeLifeCycle lifeCycleOf(ResourceDescriptor<?> descriptor,
+			Map<Name, ScopeLifeCycle> lifeCycleByScope) {
+		Name scope = descriptor.scope;
+		ScopeLifeCycle lifeCycle = lifeCycleByScope.get(scope);
+		if (lifeCycle == null && scope.isNamespaced()) {
+			ScopeLifeCycle group = lifeCycleByScope.get( //
+					named("@"+ scope.namespace()));
+			if (group != null)
+				lifeCycle = group.derive(scope);
+		}
+		if (lifeCycle == null && scope == Scope.container)
+			lifeCycle = ScopeLifeCycle.container; // default
+		if (lifeCycle == null)
+			throw new InconsistentDeclaration("Scope `" + scope
+				+ "` is used but not defined for: " + descriptor);
+		return lifeCycle;
+	}
+
+	private static <T> Resource<T> createLifeCycleResource(int serialID,
+			ResourceDescriptor<T> descriptor, Injector bootstrappingContext) {
+		return new Resource<>(serialID, descriptor.source,
+				ScopeLifeCycle.container, descriptor.signature,
+				descriptor.annotations, descriptor.verifier,
+					resource -> (dependency ->	descriptor.supplier
+							.supply(dependency, bootstrappingContext)));
+	}
+
+	private void assignScopeSlots() {
+		Map<Name, int[]> counts = new HashMap<>();
+		for (int i = 0; i < lifeCycles.length; i++)
+			scopeSlots[i] = counts.computeIfAbsent(lifeCycles[i].scope,
+					key -> new int[1])[0]++;
+		for (int i = 0; i < lifeCycles.length; i++)
+			scopeSlotCounts[i] = counts.get(lifeCycles[i].scope)[0];
+	}
+
+	/**
+	 * The order within a group is computed by sorting {@link Resource}s
+	 * without {@link Generator} as the order only depends on their {@link
+	 * Source} and {@link Locator}.
+	 */
+	private Map<Class<?>, int[]> createSerialIDsByRawType() {
+		Map<Class<?>, List<Resource<?>>> byRawType = new IdentityHashMap<>();
+		for (int i = 0; i < descriptors.length; i++)
+			byRawType.computeIfAbsent(descriptors[i].signature.type().rawType,
+					key -> new ArrayList<>()).add(createUnsupplied(i,
+					descriptors[i]));
+		Map<Class<?>, int[]> res = new IdentityHashMap<>(byRawType.size());
+		for (Entry<Class<?>, List<Resource<?>>> e : byRawType.entrySet()) {
+			List<Resource<?>> group = e.getValue();
+			Collections.sort(group);
+			res.put(e.getKey(), group.stream() //
+					.mapToInt(r -> r.serialID).toArray());
+		}
+		return res;
+	}
+
+	private <T> Resource<T> createUnsupplied(int serialID,
+			ResourceDescriptor<T> descriptor) {
+		return new Resource<>(serialID, descriptor.source,
+				lifeCycles[serialID], descriptor.signature,
+				descriptor.annotations, descriptor.verifier, resource -> null);
+	}
+
+	private static Map<Class<?>, int[]> createSerialIDsByAnnotation(
+			ResourceDescriptor<?>[] descriptors, List<Integer> customAnnotated) {
+		Map<Class<?>, List<Integer>> byAnnotation = new IdentityHashMap<>();
+		Map<Class<?>, Set<Class<?>>> metaAnnotations = new IdentityHashMap<>();
+		for (int i = 0; i < descriptors.length; i++) {
+			AnnotatedElement element = descriptors[i].annotations.element();
+			if (element == Annotated.NOT_ANNOTATED)
+				continue;
+			if (!isReflectionElement(element)) {
+				customAnnotated.add(i);
+				continue;
+			}
+			Set<Class<?>> present = Collections.newSetFromMap(
+					new IdentityHashMap<>());
+			for (Annotation a : element.getAnnotations())
+				present.addAll(annotationTypesOf(a.annotationType(),
+						metaAnnotations));
+			for (Class<?> type : present)
+				byAnnotation.computeIfAbsent(type,
+						key -> new ArrayList<>()).add(i);
+		}
+		Map<Class<?>, int[]> res = new IdentityHashMap<>(byAnnotation.size());
+		for (Entry<Class<?>, List<Integer>> e : byAnnotation.entrySet())
+			res.put(e.getKey(), e.getValue().stream() //
+					.mapToInt(Integer::intValue).toArray());
+		return res;
+	}
+
+	private static boolean isReflectionElement(AnnotatedElement element) {
+		return element instanceof AccessibleObject
+			|| element instanceof Class || element instanceof Parameter;
+	}
+
+	/**
+	 * @return the given annotation type and all its (transitive)
+	 * meta-annotations types except those of the {@code java.lang.annotation}
+	 * package that are present on any annotation type
+	 */
+	static Set<Class<?>> annotationTypesOf(Class<?> annotationType,
+			Map<Class<?>, Set<Class<?>>> cache) {
+		Set<Class<?>> types = cache.get(annotationType);
+		if (types != null)
+			return types;
+		types = Collections.newSetFromMap(new IdentityHashMap<>());
+		Deque<Class<?>> todo = new ArrayDeque<>();
+		todo.add(annotationType);
+		while (!todo.isEmpty()) {
+			Class<?> type = todo.poll();
+			if (types.add(type))
+				for (Annotation meta : type.getAnnotations()) {
+					Class<?> metaType = meta.annotationType();
+					if (!isLanguageAnnotation(metaType))
+						todo.add(metaType);
+				}
+		}
+		cache.put(annotationType, types);
+		return types;
+	}
+
+	static boolean isLanguageAnnotation(Class<?> annotationType) {
+		return annotationType.getName().startsWith("java.lang.annotation.");
+	}
+}
@@ -1,16 +1,18 @@
 package se.jbee.inject.container;
 
 import se.jbee.inject.*;
-import se.jbee.inject.UnresolvableDependency.ResourceResolutionFailed;
 import se.jbee.lang.Lazy;
 import se.jbee.lang.Type;
 
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 
-import static java.util.Arrays.copyOfRange;
-import static se.jbee.inject.Name.named;
+import static se.jbee.inject.container.ContextTemplate.isLanguageAnnotation;
 
 /**
  * A set of {@link Resources} encapsulates the state and bootstrapping of
@@ -22,48 +24,136 @@ import static se.jbee.inject.Name.named;
  * that the context can do further processing. This backwards link is supplied
  * as the {@link SupplyContext}.
  *
+ * The {@link Resources} also are the {@link Annotated.Index} of the context.
+ * It is computed once by the {@link ContextTemplate} and immutable from then
+ * on.
+ *
+ * In lazy mode only the {@link Resource}s of raw types that have eager, generic
+ * or {@link ScopeLifeCycle} {@link Resource}s are created up front. All other
+ * groups of {@link Resource}s with the same raw type are created, sorted and
+ * verified on first lookup of that raw type.
+ *
  * @since 8.1
  */
-final class Resources {
-
-	private final int resourceCount;
+final class Resources implements Annotated.Index {
+
+	private static final Resource<?>[] NO_RESOURCES = new Resource<?>[0];
+
+	private final boolean lazy;
+	private final SupplyContext context;
+	private final Function<Name, Scope> scopes;
+	private final ResourceDescriptor<?>[] descriptors;
+	private final ScopeLifeCycle[] lifeCycles;
+	private final ScopeLifeCycle[] lifeCycleValues;
+	private final int[] scopeSlots;
+	private final int[] scopeSlotCounts;
+	private final Map<Class<?>, int[]> serialIDsByRawType;
 	private final Map<Class<?>, Resource<?>[]> resourcesByType;
-	private final Resource<?>[] sortedResources;
+	/**
+	 * The same {@link Resource}s as in {@link #resourcesByType} by their
+	 * {@link Resource#serialID}. In lazy mode a group is added once it is
+	 * created.
+	 */
+	private final AtomicReferenceArray<Resource<?>> resourcesBySerialID;
 	private final Resource<?>[] genericResources;
+	private final Resource<?>[] eagerResources;
+	private final Map<Class<?>, int[]> serialIDsByAnnotation;
+	private final int[] customAnnotatedSerialIDs;
+	private volatile Injector verifyingContext;
 
 	/**
-	 * Creates a set of grouped {@link Resource} from {@link
-	 * ResourceDescriptor}s.
+	 * Creates a set of grouped {@link Resource} from the {@link
+	 * ResourceDescriptor}s of a {@link ContextTemplate}.
 	 *
-	 * @param context     backlink to the internals of the {@link Injector}
-	 *                    context this resources is created for which is
-	 *                    provided by the {@link Injector} implementation
-	 * @param scopes      function to lookup (yield) {@link Scope} by {@link
-	 *                    Name} (also provided by the created {@link Injector}
-	 *                    context)
-	 * @param descriptors the list of {@link ResourceDescriptor}s that {@link
-	 *                    Resource}s are created for. Note that this list must
-	 *                    be sorted already from the most qualified to the least
-	 *                    qualified for each raw type. The order of the raw type
-	 *                    groups is irrelevant.
+	 * @param context  backlink to the internals of the {@link Injector}
+	 *                 context this resources is created for which is provided
+	 *                 by the {@link Injector} implementation
+	 * @param scopes   function to lookup (yield) {@link Scope} by {@link Name}
+	 *                 (also provided by the created {@link Injector} context)
+	 * @param template the structure shared with all other {@link Resources}
+	 *                 created from the same {@link ContextTemplate}
 	 */
 	Resources(SupplyContext context, Function<Name, Scope> scopes,
-			ResourceDescriptor<?>... descriptors) {
-		this.resourceCount = descriptors.length;
-		this.sortedResources = createResources(context, scopes, descriptors);
-		this.resourcesByType = createResourcesByRawType(sortedResources);
+			ContextTemplate template) {
+		this.lazy = template.lazy;
+		this.context = context;
+		this.scopes = scopes;
+		this.descriptors = template.descriptors;
+		this.lifeCycles = template.lifeCycles;
+		this.scopeSlots = template.scopeSlots;
+		this.scopeSlotCounts = template.scopeSlotCounts;
+		this.serialIDsByRawType = template.serialIDsByRawType;
+		this.serialIDsByAnnotation = template.serialIDsByAnnotation;
+		this.customAnnotatedSerialIDs = template.customAnnotatedSerialIDs;
+		this.lifeCycleValues = template.lifeCycleValues;
+		this.resourcesByType = lazy
+			? new ConcurrentHashMap<>()
+			: new IdentityHashMap<>(serialIDsByRawType.size());
+		this.resourcesBySerialID = new AtomicReferenceArray<>(descriptors.length);
+		for (Entry<Class<?>, int[]> e : serialIDsByRawType.entrySet())
+			if (!lazy || isNeededUpFront(e.getKey(), e.getValue()))
+				resourcesByType.put(e.getKey(),
+						indexed(createGroup(e.getValue())));
 		this.genericResources = selectGenericResources(resourcesByType);
+		this.eagerResources = selectEagerResources(resourcesByType);
 	}
 
 	@SuppressWarnings("unchecked")
 	public <T> Resource<T>[] forType(Type<T> type) {
 		if (type.equalTo(Type.WILDCARD))
 			return (Resource<T>[]) genericResources;
-		return (Resource<T>[]) resourcesByType.get(type.rawType);
+		return (Resource<T>[]) forRawType(type.rawType);
 	}
 
-	public Set<Entry<Class<?>, Resource<?>[]>> entrySet() {
-		return resourcesByType.entrySet();
+	public Resource<?>[] forRawType(Class<?> rawType) {
+		Resource<?>[] res = resourcesByType.get(rawType);
+		return res != null || !lazy ? res : materialise(rawType);
+	}
+
+	/**
+	 * @return all raw types there are {@link Resource}s for, independent of
+	 * whether they have been created yet
+	 */
+	public Set<Class<?>> rawTypes() {
+		return serialIDsByRawType.keySet();
+	}
+
+	@Override
+	public Resource<?>[] annotatedWith(Class<? extends Annotation> type) {
+		int[] indexed = serialIDsByAnnotation.get(type);
+		int[] serialIDs = indexed == null ? new int[0] : indexed;
+		if (customAnnotatedSerialIDs.length > 0) {
+			int n = serialIDs.length;
+			serialIDs = Arrays.copyOf(serialIDs,
+					n + customAnnotatedSerialIDs.length);
+			for (int serialID : customAnnotatedSerialIDs)
+				if (isAnnotatedWith(descriptors[serialID].annotations.element(), type))
+					serialIDs[n++] = serialID;
+			serialIDs = Arrays.copyOf(serialIDs, n);
+			Arrays.sort(serialIDs);
+		}
+		Resource<?>[] res = new Resource<?>[serialIDs.length];
+		for (int i = 0; i < res.length; i++)
+			res[i] = resourceOf(serialIDs[i]);
+		return res;
+	}
+
+	private Resource<?> resourceOf(int serialID) {
+		Resource<?> res = resourcesBySerialID.get(serialID);
+		if (res != null)
+			return res;
+		// in lazy mode the group might not be created yet
+		indexed(forRawType(descriptors[serialID].signature.type().rawType));
+		res = resourcesBySerialID.get(serialID);
+		if (res == null)
+			throw new IllegalStateException("Unknown resource #" + serialID);
+		return res;
+	}
+
+	private Resource<?>[] indexed(Resource<?>[] group) {
+		for (Resource<?> r : group)
+			resourcesBySerialID.set(r.serialID, r);
+		return group;
 	}
 
 	@Override
@@ -73,6 +163,10 @@ final class Resources {
 			toString(b, e.getKey().toString(), e.getValue());
 		if (genericResources != null)
 			toString(b, "? extends *", genericResources);
+		int pending = serialIDsByRawType.size() - resourcesByType.size();
+		if (pending > 0)
+			b.append("  (").append(pending).append(
+					" raw types not yet created)\n");
 		return b.toString();
 	}
 
@@ -94,10 +188,58 @@ final class Resources {
 	}
 
 	public void initEager() {
-		for (Resource<?> eager : sortedResources)
+		for (Resource<?> eager : eagerResources)
 			eager.init();
 	}
 
+	/**
+	 * Verifies all {@link Resource}s created so far. In lazy mode {@link
+	 * Resource}s created later are verified when they are created.
+	 */
+	public void verifyIn(Injector context) {
+		verifyingContext = context;
+		List<Resource<?>> created = new ArrayList<>();
+		for (Resource<?>[] group : resourcesByType.values())
+			created.addAll(Arrays.asList(group));
+		created.sort(Comparator.comparingInt(r -> r.serialID));
+		for (Resource<?> r : created)
+			r.verifier.verifyIn(context);
+	}
+
+	private Resource<?>[] materialise(Class<?> rawType) {
+		int[] serialIDs = serialIDsByRawType.get(rawType);
+		if (serialIDs == null)
+			return null;
+		Resource<?>[] group = createGroup(serialIDs);
+		// verification might resolve so it must not be done within computeIfAbsent
+		Resource<?>[] existing = resourcesByType.putIfAbsent(rawType, group);
+		if (existing != null)
+			return existing;
+		indexed(group);
+		Injector verifying = verifyingContext;
+		if (verifying != null)
+			for (Resource<?> r : group)
+				r.verifier.verifyIn(verifying);
+		return group;
+	}
+
+	private boolean isNeededUpFront(Class<?> rawType, int[] serialIDs) {
+		if (rawType == ScopeLifeCycle.class)
+			return true;
+		for (int serialID : serialIDs)
+			if (lifeCycles[serialID].isEager()
+				|| descriptors[serialID].signature.type().isUpperBound())
+				return true;
+		return false;
+	}
+
+	private Resource<?>[] createGroup(int[] serialIDs) {
+		Resource<?>[] group = new Resource<?>[serialIDs.length];
+		for (int i = 0; i < group.length; i++)
+			group[i] = createResource(serialIDs[i], descriptors[serialIDs[i]]);
+		return group;
+	}
+
 	private static Resource<?>[] selectGenericResources(
 			Map<Class<?>, Resource<?>[]> byRawType) {
 		List<Resource<?>> res = new ArrayList<>();
@@ -111,155 +253,64 @@ final class Resources {
 		return res.isEmpty() ? null : res.toArray(Resource[]::new);
 	}
 
-	private Resource<?>[] createResources(SupplyContext context,
-			Function<Name, Scope> scopes, ResourceDescriptor<?>[] descriptors) {
-		Resource<?>[] res = new Resource<?>[descriptors.length];
-
-		Map<Name, Resource<ScopeLifeCycle>> lifeCycleResourceByScope = new HashMap<>();
-		Map<Name, ScopeLifeCycle> lifeCycleByScope = new HashMap<>();
-		Injector bootstrappingContext = createBootstrappingContext(
-				lifeCycleResourceByScope, lifeCycleByScope);
-		// create ScopeLifeCycle resources
-		for (int i = 0; i < descriptors.length; i++) {
-			ResourceDescriptor<?> descriptor = descriptors[i];
-			if (descriptor.signature.type().rawType == ScopeLifeCycle.class) {
-				Resource<?> r = createLifeCycleResource(i, descriptor,
-						bootstrappingContext);
-				res[i] = r;
-				@SuppressWarnings("unchecked")
-				Resource<ScopeLifeCycle> r2 = (Resource<ScopeLifeCycle>) r;
-				lifeCycleResourceByScope.put(r.signature.instance.name, r2);
-			}
-		}
-		// make sure all required ScopeLifeCycle are known
-		for (Entry<Name, Resource<ScopeLifeCycle>> e : lifeCycleResourceByScope.entrySet()) {
-			if (!lifeCycleByScope.containsKey(e.getKey())) {
-				Resource<ScopeLifeCycle> val = e.getValue();
-				lifeCycleByScope.put(e.getKey(),
-						val.generate(val.signature.toDependency()));
-			}
-		}
-		// create rest of resources
-		for (int i = 0; i < descriptors.length; i++)
-			if (res[i] == null)
-				res[i] = createResource(context, scopes, i, descriptors[i],
-						lifeCycleByScope);
-		return res;
-	}
-
-	private static Injector createBootstrappingContext(
-			Map<Name, Resource<ScopeLifeCycle>> lifeCycleResourceByScope,
-			Map<Name, ScopeLifeCycle> lifeCycleByScope) {
-		return new Injector() {
-
-			@SuppressWarnings({ "unchecked", "ChainOfInstanceofChecks" })
-			@Override
-			public <E> E resolve(Dependency<E> dep)
-					throws UnresolvableDependency {
-				Class<E> rawType = dep.type().rawType;
-				if (rawType == Injector.class)
-					return (E) this;
-				if (rawType == ScopeLifeCycle.class) {
-					Name scope = dep.instance.name;
-					if (!lifeCycleResourceByScope.containsKey(scope))
-						throw noResourceFor(dep);
-					Dependency<ScopeLifeCycle> scopeDep = (Dependency<ScopeLifeCycle>) dep;
-					return (E) lifeCycleByScope.computeIfAbsent(scope,
-							name -> lifeCycleResourceByScope.get(
-									name).generator.generate(scopeDep));
-				}
-				throw noResourceFor(dep);
-			}
-
-			private ResourceResolutionFailed noResourceFor(Dependency<?> dep) {
-				return new ResourceResolutionFailed("During bootstrapping only ",
-						dep, lifeCycleResourceByScope.values().toArray(
-								Resource[]::new));
-			}
-		};
+	private static Resource<?>[] selectEagerResources(
+			Map<Class<?>, Resource<?>[]> byRawType) {
+		List<Resource<?>> res = new ArrayList<>();
+		for (Resource<?>[] forType : byRawType.values())
+			for (Resource<?> resource : forType)
+				if (resource.lifeCycle.isEager())
+					res.add(resource);
+		res.sort(Comparator.comparingInt(r -> r.serialID));
+		return res.toArray(NO_RESOURCES);
 	}
 
-	private static Map<Class<?>, Resource<?>[]> createResourcesByRawType(
-			Resource<?>[] resources) {
-		Arrays.sort(resources);
-		Map<Class<?>, Resource<?>[]> byRawType = new IdentityHashMap<>(
-				resources.length);
-		if (resources.length == 0)
-			return byRawType;
-		Class<?> lastRawType = resources[0].type().rawType;
-		int start = 0;
-		for (int i = 0; i < resources.length; i++) {
-			Class<?> rawType = resources[i].type().rawType;
-			if (rawType != lastRawType) {
-				byRawType.put(lastRawType, copyOfRange(resources, start, i));
-				start = i;
-			}
-			lastRawType = rawType;
-		}
-		byRawType.put(lastRawType,
-				copyOfRange(resources, start, resources.length));
-		return byRawType;
+	private static boolean isAnnotatedWith(AnnotatedElement element,
+			Class<? extends Annotation> type) {
+		if (element.isAnnotationPresent(type))
+			return true;
+		for (Annotation a : element.getAnnotations())
+			if (!isLanguageAnnotation(a.annotationType())
+				&& ContextTemplate.annotationTypesOf(a.annotationType(),
+					new IdentityHashMap<>()).contains(type))
+				return true;
+		return false;
 	}
 
-	private <T> Resource<T> createResource(SupplyContext context,
-			Function<Name, Scope> scopes, int serialID,
-			ResourceDescriptor<T> descriptor,
-			Map<Name, ScopeLifeCycle> lifeCycleByScope) {
+	private <T> Resource<T> createResource(int serialID,
+			ResourceDescriptor<T> descriptor) {
 		// NB. using the function is a way to allow both Resource and Generator implementation to be initialised with a final reference of each other
 		Function<Resource<T>, Generator<T>> generatorFactory = //
-				resource -> createGenerator(context, scopes, resource,
-						descriptor.supplier);
-		Name scope = descriptor.scope;
-		ScopeLifeCycle lifeCycle = lifeCycleByScope.get(scope);
-		if (lifeCycle == null && scope.isNamespaced()) {
-			ScopeLifeCycle group = lifeCycleByScope.get( //
-					named("@"+ scope.namespace()));
-			if (group != null)
-				lifeCycle = group.derive(scope);
-		}
-		if (lifeCycle == null && scope == Scope.container)
-			lifeCycle = ScopeLifeCycle.container; // default
-		if (lifeCycle == null)
-			throw new InconsistentDeclaration("Scope `" + scope
-				+ "` is used but not defined for: " + descriptor);
-		return new Resource<>(serialID, descriptor.source, lifeCycle,
+				resource -> createGenerator(resource, descriptor.supplier);
+		return new Resource<>(serialID, descriptor.source, lifeCycles[serialID],
 				descriptor.signature, descriptor.annotations,
 				descriptor.verifier, generatorFactory);
 	}
 
-	private static <T> Resource<T> createLifeCycleResource(int serialID,
-			ResourceDescriptor<T> descriptor, Injector bootstrappingContext) {
-		return new Resource<>(serialID, descriptor.source,
-				ScopeLifeCycle.container, descriptor.signature,
-				descriptor.annotations, descriptor.verifier,
-					resource -> (dependency ->	descriptor.supplier
-							.supply(dependency, bootstrappingContext)));
-	}
-
 	@SuppressWarnings("unchecked")
-	private <T> Generator<T> createGenerator(SupplyContext context,
-			Function<Name, Scope> scopes, Resource<T> resource,
+	private <T> Generator<T> createGenerator(Resource<T> resource,
 			Supplier<? extends T> supplier) {
+		ScopeLifeCycle lifeCycle = lifeCycleValues[resource.serialID];
+		if (lifeCycle != null) // already resolved by the template
+			return dep -> (T) lifeCycle;
 		if (supplier.isGenerator())
 			return (Generator<T>) supplier.asGenerator();
 		Name scope = resource.lifeCycle.scope;
 		Generator<T> inContext = dep -> context.supplyInContext(dep, supplier,
 				resource);
+		if (Scope.class.isAssignableFrom(resource.type().rawType)
+			&& resource.signature.instance.name.isPattern())
+			return new ScopeFamilyGenerator<>(inContext, resource);
 		if (Scope.class.isAssignableFrom(resource.type().rawType)
 			|| Scope.container.equalTo(scope))
 			return new LazySingletonGenerator<>(inContext, resource);
 		if (Scope.reference.equalTo(scope))
 			return new ReferenceGenerator<>(inContext, resource);
 		// default is a scoped generator...
-		return new LazyScopedGenerator<>(inContext, resource, resourceCount,
+		return new LazyScopedGenerator<>(inContext, resource,
+				scopeSlots[resource.serialID], scopeSlotCounts[resource.serialID],
 				() -> scopes.apply(resource.lifeCycle.scope));
 	}
 
-	public void verifyIn(Injector context) {
-		for (Resource<?> r : sortedResources)
-			r.verifier.verifyIn(context);
-	}
-
 	/**
 	 * This {@link Generator} represents the {@link Scope#container} where the
 	 * {@link LazySingletonGenerator#value} field holds the singleton value.
@@ -304,6 +355,35 @@ final class Resources {
 		}
 	}
 
+	/**
+	 * A {@link Scope} bound for a {@link Name} pattern, like all names in a
+	 * namespace, is a family of {@link Scope}s. Each actual {@link Name} gets
+	 * its own {@link LazySingletonGenerator} so that e.g. each {@link
+	 * Scope#disk(java.io.File)} or {@link Scope#cache(String)} has its own
+	 * {@link Scope} instance.
+	 *
+	 * @param <T> Type of the {@link Scope}
+	 */
+	private static final class ScopeFamilyGenerator<T> implements Generator<T> {
+
+		private final Generator<T> inContext;
+		private final Resource<T> resource;
+		private final Map<Name, LazySingletonGenerator<T>> members = new ConcurrentHashMap<>();
+
+		ScopeFamilyGenerator(Generator<T> inContext, Resource<T> resource) {
+			this.inContext = inContext;
+			this.resource = resource;
+		}
+
+		@Override
+		public T generate(Dependency<? super T> dep)
+				throws UnresolvableDependency {
+			return members.computeIfAbsent(dep.instance.name,
+					name -> new LazySingletonGenerator<>(inContext, resource)) //
+					.generate(dep);
+		}
+	}
+
 	/**
 	 * Special {@link Generator} for forward referencing {@link Resource}s.
 	 * These are created with {@link Scope#reference}.
@@ -340,14 +420,17 @@ final class Resources {
 		private final Generator<T> inContext;
 		private final Lazy<Scope> scope = new Lazy<>();
 		private final Resource<T> resource;
-		private final int resources;
+		private final int slot;
+		private final int slots;
 		private final java.util.function.Supplier<Scope> scopeProvider;
+		private volatile Projections<T> projections;
 
 		LazyScopedGenerator(Generator<T> inContext, Resource<T> resource,
-				int resources, java.util.function.Supplier<Scope> scope) {
+				int slot, int slots, java.util.function.Supplier<Scope> scope) {
 			this.resource = resource;
 			this.inContext = inContext;
-			this.resources = resources;
+			this.slot = slot;
+			this.slots = slots;
 			this.scopeProvider = scope;
 		}
 
@@ -356,6 +439,35 @@ final class Resources {
 			dep.ensureNoIllegalDirectAccessOf(resource.signature);
 			final Dependency<? super T> injected = dep.injectingInto(
 					resource.signature, resource.lifeCycle);
+			T res = provideInScope(injected);
+			if (res instanceof ContextAware) {
+				@SuppressWarnings("unchecked")
+				ContextAware<T> contextAware = (ContextAware<T>) res;
+				return contextAware.isTargetProjection()
+					? projectionOf(contextAware, dep)
+					: contextAware.inContext(dep);
+			}
+			return res;
+		}
+
+		private T projectionOf(ContextAware<T> contextAware,
+				Dependency<? super T> dep) {
+			Projections<T> local = projections;
+			if (local == null || local.source != contextAware) {
+				local = new Projections<>(contextAware);
+				projections = local;
+			}
+			Object target = dep.isNotTargeted() ? Projections.UNTARGETED : dep.target();
+			T res = local.byTarget.get(target);
+			if (res != null)
+				return res;
+			res = contextAware.inContext(dep);
+			if (res != null && local.byTarget.size() < Projections.MAX_TARGETS)
+				local.byTarget.putIfAbsent(target, res);
+			return res;
+		}
+
+		private T provideInScope(Dependency<? super T> injected) {
 			/*
 			 * This cache makes sure that within one thread even if the provider
 			 * (createInScope) is called multiple times (which can occur because
@@ -371,15 +483,35 @@ final class Resources {
 					cache[0] = inContext.generate(injected);
 				return (T) cache[0];
 			};
-			T res = scope.get(scopeProvider) //
-					.provide(resource.serialID,	resources, injected, createInScope);
-			if (res instanceof ContextAware) {
-				@SuppressWarnings("unchecked")
-				ContextAware<T> contextAware = (ContextAware<T>) res;
-				return contextAware.inContext(dep);
-			}
-			return res;
+			return scope.get(scopeProvider) //
+					.provide(slot, slots, injected, createInScope);
 		}
 
 	}
+
+	/**
+	 * The {@link ContextAware#inContext(Dependency)} results of a {@link
+	 * ContextAware#isTargetProjection()} instance by the target {@link
+	 * Instance}. Should the scope yield another instance the projections are
+	 * replaced as they belong to the instance they were projected from.
+	 *
+	 * @param <T> Type of the projected value
+	 */
+	private static final class Projections<T> {
+
+		static final Object UNTARGETED = new Object();
+
+		/**
+		 * Limits the number of remembered projections in case the targets are
+		 * not a static set.
+		 */
+		static final int MAX_TARGETS = 1024;
+
+		final ContextAware<T> source;
+		final Map<Object, T> byTarget = new ConcurrentHashMap<>();
+
+		Projections(ContextAware<T> source) {
+			this.source = source;
+		}
+	}
 }
@@ -0,0 +1,248 @@
+package se.jbee.inject.convert;
+
+import se.jbee.inject.Converter;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Resource;
+import se.jbee.lang.Type;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static se.jbee.inject.Resource.resourcesTypeOf;
+import static se.jbee.lang.Type.raw;
+
+/**
+ * A {@link Conversions} is the graph of all {@link Converter}s bound in an
+ * {@link Injector} context where each {@link Converter} is an edge from its
+ * input to its output type.
+ * <p>
+ * A {@link Converter} between two types that are not directly connected is
+ * found as the shortest path through the graph. The {@link Converter}s on the
+ * path are fused into a single {@link Converter} that calls them in sequence.
+ * <p>
+ * Found {@link Converter}s are cached per pair of input and output {@link
+ * Type}. Lookups with the same {@link Type} instances are answered from an
+ * identity keyed cache, others from a cache using {@link Type#equalTo(Type)}.
+ * As {@link Type}s are not interned the identity keyed cache is limited in
+ * size.
+ * <p>
+ * A {@link ConverterModule} binds one {@link Conversions} per context that is
+ * shared by all {@link ConvertTo}s of that context.
+ *
+ * @since 8.1
+ */
+public final class Conversions {
+
+	static final int MAX_IDENTITY_ENTRIES = 512;
+
+	/**
+	 * A {@link Converter} bound in the context, {@link #by} is resolved on first
+	 * use.
+	 */
+	private static final class Edge {
+
+		final Type<?> in;
+		final Type<?> out;
+		final Resource<?> resource;
+		private volatile Converter<?, ?> by;
+
+		Edge(Type<?> in, Type<?> out, Resource<?> resource) {
+			this.in = in;
+			this.out = out;
+			this.resource = resource;
+		}
+
+		Converter<?, ?> by() {
+			Converter<?, ?> res = by;
+			if (res == null) {
+				res = (Converter<?, ?>) resource.generate();
+				by = res;
+			}
+			return res;
+		}
+	}
+
+	/**
+	 * The result of a lookup, {@link #by} is null if no conversion exists.
+	 */
+	private static final class Path {
+
+		final Type<?> in;
+		final Type<?> out;
+		final Converter<?, ?> by;
+
+		Path(Type<?> in, Type<?> out, Converter<?, ?> by) {
+			this.in = in;
+			this.out = out;
+			this.by = by;
+		}
+	}
+
+	/**
+	 * A {@link Converter} that applies a chain of {@link Converter}s without
+	 * wrapping each link.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static final class Fused implements Converter<Object, Object> {
+
+		private final Converter[] chain;
+
+		Fused(Converter[] chain) {
+			this.chain = chain;
+		}
+
+		static Converter<?, ?> of(Converter[] chain) {
+			if (chain.length == 1)
+				return chain[0];
+			List<Converter> flat = new ArrayList<>(chain.length);
+			for (Converter c : chain)
+				if (c instanceof Fused) {
+					flat.addAll(Arrays.asList(((Fused) c).chain));
+				} else {
+					flat.add(c);
+				}
+			return new Fused(flat.toArray(new Converter[0]));
+		}
+
+		@Override
+		public Object convert(Object input) {
+			Object value = input;
+			for (Converter c : chain)
+				value = c.convert(value);
+			return value;
+		}
+	}
+
+	private final Edge[] edges;
+	private final Map<Type<?>, Map<Type<?>, Path>> byEquality = new ConcurrentHashMap<>();
+	private volatile Map<Type<?>, Map<Type<?>, Path>> byIdentity = new IdentityHashMap<>();
+	private volatile int identityEntries;
+
+	public Conversions(Injector context) {
+		Resource<?>[] converters = context.resolve(
+				resourcesTypeOf(raw(Converter.class).parameterizedAsUpperBounds()));
+		this.edges = new Edge[converters.length];
+		for (int i = 0; i < converters.length; i++) {
+			Resource<?> r = converters[i];
+			Type<?> converterType = r.type().toSuperType(Converter.class);
+			edges[i] = new Edge(converterType.parameter(0),
+					converterType.parameter(1), r);
+		}
+	}
+
+	/**
+	 * @param in  input type of the conversion
+	 * @param out output type of the conversion
+	 * @return a {@link Converter} from in to out or null if no chain of bound
+	 * {@link Converter}s exists that leads from in to out
+	 */
+	@SuppressWarnings("unchecked")
+	public <A, B> Converter<A, B> find(Type<A> in, Type<B> out) {
+		Map<Type<?>, Path> fromIn = byIdentity.get(in);
+		Path path = fromIn == null ? null : fromIn.get(out);
+		if (path == null) {
+			Map<Type<?>, Path> paths = byEquality.computeIfAbsent(in,
+					k -> new ConcurrentHashMap<>());
+			path = paths.get(out);
+			if (path == null) {
+				// resolving the converters on the path might call find again
+				// so the path must not be computed within the map update
+				Path found = new Path(in, out, shortestPath(in, out));
+				path = paths.putIfAbsent(out, found);
+				if (path == null)
+					path = found;
+			}
+			rememberIdentity(in, out, path);
+		}
+		return (Converter<A, B>) path.by;
+	}
+
+	/**
+	 * @param chain the {@link Converter}s to apply in sequence, the first
+	 *              converts the input, the last produces the output
+	 * @return a {@link Converter} that calls the given ones in sequence without
+	 * wrapping each link
+	 */
+	@SuppressWarnings("rawtypes")
+	static Converter<?, ?> fuse(Converter... chain) {
+		return Fused.of(chain);
+	}
+
+	/**
+	 * @see #find(Type, Type)
+	 * @throws UnsupportedOperationException in case no conversion exists
+	 */
+	public <A, B> Converter<A, B> from(Type<A> in, Type<B> out) {
+		Converter<A, B> res = find(in, out);
+		if (res == null)
+			throw new UnsupportedOperationException(
+					"Conversion from " + in + " to " + out + " not available");
+		return res;
+	}
+
+	private void rememberIdentity(Type<?> in, Type<?> out, Path path) {
+		if (identityEntries >= MAX_IDENTITY_ENTRIES)
+			return;
+		synchronized (this) {
+			if (identityEntries >= MAX_IDENTITY_ENTRIES)
+				return;
+			Map<Type<?>, Map<Type<?>, Path>> copy = new IdentityHashMap<>(
+					byIdentity);
+			Map<Type<?>, Path> fromIn = new IdentityHashMap<>(
+					copy.getOrDefault(in, Collections.emptyMap()));
+			if (fromIn.put(out, path) == null)
+				identityEntries++;
+			copy.put(in, fromIn);
+			byIdentity = copy;
+		}
+	}
+
+	/**
+	 * Breadth first search from in to out.
+	 */
+	@SuppressWarnings("rawtypes")
+	private Converter<?, ?> shortestPath(Type<?> in, Type<?> out) {
+		List<Type<?>> visited = new ArrayList<>();
+		Map<Edge, Edge> previous = new IdentityHashMap<>();
+		Deque<Edge> queue = new ArrayDeque<>();
+		visited.add(in);
+		for (Edge e : edges)
+			if (in.isAssignableTo(e.in)) {
+				previous.put(e, null);
+				queue.add(e);
+			}
+		while (!queue.isEmpty()) {
+			Edge e = queue.poll();
+			if (e.out.isAssignableTo(out)) {
+				Deque<Converter> chain = new ArrayDeque<>();
+				for (Edge link = e; link != null; link = previous.get(link))
+					chain.addFirst(link.by());
+				return Fused.of(chain.toArray(new Converter[0]));
+			}
+			if (isVisited(visited, e.out))
+				continue;
+			visited.add(e.out);
+			for (Edge next : edges)
+				if (!previous.containsKey(next) && e.out.isAssignableTo(next.in)) {
+					previous.put(next, e);
+					queue.add(next);
+				}
+		}
+		return null;
+	}
+
+	private static boolean isVisited(List<Type<?>> visited, Type<?> type) {
+		for (Type<?> t : visited)
+			if (t.equalTo(type))
+				return true;
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder str = new StringBuilder();
+		for (Edge e : edges)
+			str.append(e.in).append(" -> ").append(e.out).append('\n');
+		return str.toString();
+	}
+}
@@ -4,13 +4,18 @@ import se.jbee.inject.Converter;
 import se.jbee.inject.Injector;
 import se.jbee.inject.Instance;
 import se.jbee.inject.Name;
+import se.jbee.lang.Lazy;
 import se.jbee.lang.Type;
 
 import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+import static java.util.Arrays.copyOfRange;
 import static se.jbee.inject.Instance.defaultInstanceOf;
 import static se.jbee.lang.Type.raw;
 
@@ -19,7 +24,10 @@ import static se.jbee.lang.Type.raw;
  * output type from different input types.
  * <p>
  * It makes use of {@link Converter} chains to allow for as many input types
- * based on the know type conversions.
+ * based on the know type conversions. Chains are declared explicitly using
+ * {@link Converts} annotations. Input types without such a chain are connected
+ * to the tail {@link Converter} using the shortest chain of bound {@link
+ * Converter}s found by {@link Conversions}.
  *
  * @param <B> output type of the conversion
  */
@@ -38,16 +46,50 @@ public final class ConvertTo<B> {
 	}
 
 	private final Type<B> out;
+	private final Type<?> directInputType;
+	private final Converter<?, B> tail;
 	private final Map<Type<?>, Converter<?, B>> ins = new LinkedHashMap<>();
+	private final Map<Type<?>, Converter<?, B>> discovered = new ConcurrentHashMap<>();
+	/**
+	 * The {@link Converter}s by input {@link Type} instance, answers repeated
+	 * lookups with the same {@link Type} without computing its hash.
+	 */
+	private volatile Map<Type<?>, Converter<?, B>> byIdentity = new IdentityHashMap<>();
+	private volatile int identityEntries;
+	private final Lazy<Conversions> conversions = new Lazy<>();
+	private final Supplier<Conversions> conversionsProvider;
+
+	/**
+	 * Uses the {@link Conversions} bound in the context (by {@link
+	 * ConverterModule}) or creates one if none is bound.
+	 */
+	public ConvertTo(Converter<?, B> tail, Injector context) {
+		this(tail, context, () -> {
+			Conversions bound = context.resolveOrNull(Conversions.class);
+			return bound != null ? bound : new Conversions(context);
+		});
+	}
 
+	/**
+	 * @param conversions the graph of bound {@link Converter}s to use for
+	 *                    input types that have no {@link Converts} chain
+	 * @since 8.1
+	 */
+	public ConvertTo(Converter<?, B> tail, Injector context,
+			Conversions conversions) {
+		this(tail, context, () -> conversions);
+	}
 
 	@SuppressWarnings({"rawtypes", "unchecked"})
-	public ConvertTo(Converter<?, B> tail, Injector context) {
+	private ConvertTo(Converter<?, B> tail, Injector context,
+			Supplier<Conversions> conversions) {
 		Class<? extends Converter> tailType = tail.getClass();
 		Type<?> converterType = raw(
 				tailType).toSuperType(Converter.class);
-		Type<?> directInputType = converterType.parameter(0);
+		this.directInputType = converterType.parameter(0);
 		this.out = (Type) converterType.parameter(1);
+		this.tail = tail;
+		this.conversionsProvider = conversions;
 		ins.put(directInputType, tail);
 		initAnnotatedChains(tailType, directInputType, context);
 	}
@@ -67,14 +109,14 @@ public final class ConvertTo<B> {
 						converts.value());
 				Deque<Link<?, ?>> converterChain = converterChain(chain,
 						directInputType, context);
+				Converter<?, ?>[] fused = new Converter[converterChain.size() + 1];
+				int head = fused.length - 1;
+				fused[head] = ins.get(directInputType);
 				Link<?, ?> tail = converterChain.pollLast();
-				Converter<?, B> chainBuilder = ins.get(
-						directInputType);
 				while (tail != null) {
-					@SuppressWarnings("rawtypes")
-					Converter converter = tail.by;
-					chainBuilder = chainBuilder.upon(converter);
-					ins.put(tail.in, chainBuilder);
+					fused[--head] = tail.by;
+					ins.put(tail.in, (Converter<?, B>) Conversions.fuse(
+							copyOfRange(fused, head, fused.length)));
 					tail = converterChain.pollLast();
 				}
 			}
@@ -118,13 +160,45 @@ public final class ConvertTo<B> {
 		return chainInstances;
 	}
 
+	@SuppressWarnings("unchecked")
 	public <A> Converter<A, B> from(Type<A> in) {
-		@SuppressWarnings("unchecked")
+		Converter<A, B> res = (Converter<A, B>) byIdentity.get(in);
+		if (res != null)
+			return res;
+		res = fromEqual(in);
+		rememberIdentity(in, res);
+		return res;
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private <A> Converter<A, B> fromEqual(Type<A> in) {
 		Converter<A, B> res = (Converter<A, B>) ins.get(in);
-		if (res == null)
+		if (res != null)
+			return res;
+		res = (Converter<A, B>) discovered.get(in);
+		if (res != null)
+			return res;
+		Converter head = conversions.get(conversionsProvider).find(in,
+				directInputType);
+		if (head == null)
 			throw new UnsupportedOperationException(
-					"Conversion from " + in + "not available");
-		return res;
+					"Conversion from " + in + " not available");
+		res = (Converter<A, B>) Conversions.fuse(head, tail);
+		Converter<?, B> known = discovered.putIfAbsent(in, res);
+		return known != null ? (Converter<A, B>) known : res;
+	}
+
+	private void rememberIdentity(Type<?> in, Converter<?, B> converter) {
+		if (identityEntries >= Conversions.MAX_IDENTITY_ENTRIES)
+			return;
+		synchronized (this) {
+			if (identityEntries >= Conversions.MAX_IDENTITY_ENTRIES)
+				return;
+			Map<Type<?>, Converter<?, B>> copy = new IdentityHashMap<>(byIdentity);
+			if (copy.put(in, converter) == null)
+				identityEntries++;
+			byIdentity = copy;
+		}
 	}
 
 	@Override
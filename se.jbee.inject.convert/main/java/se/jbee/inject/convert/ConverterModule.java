@@ -27,6 +27,23 @@ import static se.jbee.lang.Type.classType;
  */
 public abstract class ConverterModule extends BinderModule {
 
+	protected ConverterModule() {
+		super(ConverterBaseModule.class);
+	}
+
+	/**
+	 * Binds the {@link Conversions} of the context that is shared by all
+	 * {@link ConvertTo}s so that the graph of bound {@link Converter}s is
+	 * only built once.
+	 */
+	public static final class ConverterBaseModule extends BinderModule {
+
+		@Override
+		protected void declare() {
+			asDefault().bind(Conversions.class).toConstructor();
+		}
+	}
+
 	@SuppressWarnings("rawtypes")
 	private static final Type<Converter> ANY_CONVERTER_TYPE = classType(
 			Converter.class);
@@ -0,0 +1,368 @@
+package se.jbee.inject.disk;
+
+import se.jbee.lang.Type;
+
+import java.io.*;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A {@link DiskCodec} that writes the instance fields of records and simple
+ * beans in declaration order without any meta-data except for a fingerprint
+ * of the field layout.
+ * <p>
+ * Supported field types are primitives and their wrappers, {@link String}s,
+ * {@link Enum}s, arrays of supported types and other records or simple beans.
+ * A simple bean is a non-abstract class with a no-args constructor. Records
+ * are created using their canonical constructor. Instances are written for
+ * their exact type, subtypes are rejected. Types may be recursive but the
+ * encoded object graph must not contain cycles, those are rejected with an
+ * {@link InvalidObjectException}.
+ * <p>
+ * Data written for a different field layout is rejected with an {@link
+ * InvalidClassException}. The fingerprint includes the layouts of all nested
+ * types.
+ *
+ * @since 8.1
+ */
+final class BinaryCodec implements DiskCodec {
+
+	/**
+	 * The field layout of a record or simple bean class.
+	 */
+	private static final class Layout {
+
+		final Field[] fields;
+		final Constructor<?> constructor;
+		final boolean isRecord;
+		final int fingerprint;
+
+		Layout(Class<?> type) {
+			List<Field> instanceFields = new ArrayList<>();
+			for (Class<?> c = type; c != Object.class && c != null; c = c.getSuperclass()) {
+				if ("java.lang.Record".equals(c.getName()))
+					break;
+				for (Field f : c.getDeclaredFields())
+					if ((f.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0)
+						instanceFields.add(f);
+			}
+			this.fields = instanceFields.toArray(new Field[0]);
+			this.isRecord = type.getSuperclass() != null
+				&& "java.lang.Record".equals(type.getSuperclass().getName());
+			int hash = type.getName().hashCode();
+			Class<?>[] types = new Class<?>[fields.length];
+			for (int i = 0; i < fields.length; i++) {
+				Field f = fields[i];
+				types[i] = f.getType();
+				if (!isSupported(f.getType()))
+					throw new IllegalArgumentException("Unsupported field: " + f);
+				f.setAccessible(true);
+				hash = 31 * hash + f.getName().hashCode();
+				hash = 31 * hash + f.getType().getName().hashCode();
+			}
+			this.fingerprint = hash;
+			try {
+				this.constructor = isRecord
+					? type.getDeclaredConstructor(types)
+					: type.getDeclaredConstructor();
+				constructor.setAccessible(true);
+			} catch (NoSuchMethodException e) {
+				throw new IllegalArgumentException("No usable constructor: " + type, e);
+			}
+		}
+	}
+
+	private static final ClassValue<Object> LAYOUTS = new ClassValue<Object>() {
+		@Override
+		protected Object computeValue(Class<?> type) {
+			if (type.isInterface() || Modifier.isAbstract(type.getModifiers())
+				|| type.isArray() || type.isPrimitive() || type.isEnum())
+				return new IllegalArgumentException("Not a record or simple bean: " + type);
+			try {
+				return new Layout(type);
+			} catch (RuntimeException e) {
+				return e;
+			}
+		}
+	};
+
+	/**
+	 * The {@link Layout#fingerprint} of a type with the fingerprints of all
+	 * types used by its fields (transitively) folded in.
+	 */
+	private static final ClassValue<Integer> FINGERPRINTS = new ClassValue<Integer>() {
+		@Override
+		protected Integer computeValue(Class<?> type) {
+			return fingerprint(type, new HashSet<>());
+		}
+	};
+
+	/**
+	 * Whether the type and all types used by its fields (transitively) have a
+	 * {@link Layout}.
+	 */
+	private static final ClassValue<Boolean> SUPPORTED = new ClassValue<Boolean>() {
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			return hasLayouts(type, new HashSet<>());
+		}
+	};
+
+	private static boolean hasLayouts(Class<?> type, Set<Class<?>> checked) {
+		if (!checked.add(type))
+			return true; // recursive types are fine, the type is checked already
+		Object layout = LAYOUTS.get(type);
+		if (!(layout instanceof Layout))
+			return false;
+		for (Field f : ((Layout) layout).fields) {
+			Class<?> fieldType = f.getType();
+			while (fieldType.isArray())
+				fieldType = fieldType.getComponentType();
+			if (!isValue(fieldType) && !hasLayouts(fieldType, checked))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @param path the types currently folded in, a recursive type only adds
+	 *             its name when it is used again within its own layout
+	 */
+	private static int fingerprint(Class<?> type, Set<Class<?>> path) {
+		Object layout = LAYOUTS.get(type);
+		if (!(layout instanceof Layout) || !path.add(type))
+			return type.getName().hashCode();
+		int hash = ((Layout) layout).fingerprint;
+		for (Field f : ((Layout) layout).fields) {
+			Class<?> fieldType = f.getType();
+			while (fieldType.isArray())
+				fieldType = fieldType.getComponentType();
+			if (!isValue(fieldType))
+				hash = 31 * hash + fingerprint(fieldType, path);
+		}
+		path.remove(type);
+		return hash;
+	}
+
+	private static Layout layout(Class<?> type) throws IOException {
+		Object layout = LAYOUTS.get(type);
+		if (layout instanceof Layout)
+			return (Layout) layout;
+		throw new InvalidClassException(type.getName(),
+				((Exception) layout).getMessage());
+	}
+
+	private static boolean isSupported(Class<?> type) {
+		if (isValue(type))
+			return true;
+		if (type.isArray())
+			return isSupported(type.getComponentType());
+		// nested types are checked by supports as they might be recursive
+		return type != Object.class && !type.isInterface()
+			&& !Modifier.isAbstract(type.getModifiers());
+	}
+
+	private static boolean isValue(Class<?> type) {
+		return type.isPrimitive() || type == String.class || type.isEnum()
+			|| isWrapper(type);
+	}
+
+	private static boolean isWrapper(Class<?> type) {
+		return type == Integer.class || type == Long.class
+			|| type == Boolean.class || type == Double.class
+			|| type == Float.class || type == Short.class
+			|| type == Byte.class || type == Character.class;
+	}
+
+	@Override
+	public boolean supports(Type<?> type) {
+		return SUPPORTED.get(type.rawType);
+	}
+
+	@Override
+	public void encode(Type<?> type, Object obj, OutputStream out)
+			throws IOException {
+		if (obj.getClass() != type.rawType)
+			throw new InvalidClassException(type.rawType.getName(),
+					"Instance is a subtype: " + obj.getClass().getName());
+		DataOutputStream data = new DataOutputStream(
+				new BufferedOutputStream(out));
+		Layout layout = layout(type.rawType);
+		data.writeInt(FINGERPRINTS.get(type.rawType));
+		Set<Object> path = Collections.newSetFromMap(new IdentityHashMap<>());
+		path.add(obj);
+		writeFields(layout, obj, data, path);
+		data.flush();
+	}
+
+	@Override
+	public Object decode(Type<?> type, InputStream in) throws IOException {
+		DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+		Layout layout = layout(type.rawType);
+		if (data.readInt() != FINGERPRINTS.get(type.rawType))
+			throw new InvalidClassException(type.rawType.getName(),
+					"Field layout changed");
+		return readFields(layout, data);
+	}
+
+	/**
+	 * @param path the instances currently written, used to detect cycles
+	 */
+	private static void writeFields(Layout layout, Object obj, DataOutput out,
+			Set<Object> path) throws IOException {
+		try {
+			for (Field f : layout.fields)
+				writeValue(f.getType(), f.get(obj), out, path);
+		} catch (IllegalAccessException e) {
+			throw new InvalidClassException(e.getMessage());
+		}
+	}
+
+	private static Object readFields(Layout layout, DataInput in)
+			throws IOException {
+		Field[] fields = layout.fields;
+		try {
+			if (layout.isRecord) {
+				Object[] args = new Object[fields.length];
+				for (int i = 0; i < fields.length; i++)
+					args[i] = readValue(fields[i].getType(), in);
+				return layout.constructor.newInstance(args);
+			}
+			Object obj = layout.constructor.newInstance();
+			for (Field f : fields)
+				f.set(obj, readValue(f.getType(), in));
+			return obj;
+		} catch (ReflectiveOperationException e) {
+			throw new InvalidClassException(e.getMessage());
+		}
+	}
+
+	private static void writeValue(Class<?> type, Object value, DataOutput out,
+			Set<Object> path) throws IOException {
+		if (type.isPrimitive()) {
+			writePrimitive(type, value, out);
+			return;
+		}
+		if (value == null) {
+			out.writeByte(0);
+			return;
+		}
+		out.writeByte(1);
+		if (isWrapper(type)) {
+			writePrimitive(value.getClass(), value, out);
+		} else if (type == String.class) {
+			writeString((String) value, out);
+		} else if (type.isEnum()) {
+			writeString(((Enum<?>) value).name(), out);
+		} else if (type.isArray()) {
+			int len = Array.getLength(value);
+			out.writeInt(len);
+			Class<?> elemType = type.getComponentType();
+			for (int i = 0; i < len; i++)
+				writeValue(elemType, Array.get(value, i), out, path);
+		} else {
+			if (value.getClass() != type)
+				throw new InvalidClassException(type.getName(),
+						"Field value is a subtype: " + value.getClass().getName());
+			if (!path.add(value))
+				throw new InvalidObjectException(
+						"Cyclic object graph at: " + type.getName());
+			writeFields(layout(type), value, out, path);
+			path.remove(value);
+		}
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Object readValue(Class<?> type, DataInput in)
+			throws IOException {
+		if (type.isPrimitive())
+			return readPrimitive(type, in);
+		if (in.readByte() == 0)
+			return null;
+		if (isWrapper(type))
+			return readPrimitive(type, in);
+		if (type == String.class)
+			return readString(in);
+		if (type.isEnum()) {
+			String name = readString(in);
+			try {
+				return Enum.valueOf((Class) type, name);
+			} catch (IllegalArgumentException e) {
+				throw new InvalidClassException(type.getName(),
+						"Unknown constant: " + name);
+			}
+		}
+		if (type.isArray()) {
+			int len = in.readInt();
+			Class<?> elemType = type.getComponentType();
+			Object arr = Array.newInstance(elemType, len);
+			for (int i = 0; i < len; i++)
+				Array.set(arr, i, readValue(elemType, in));
+			return arr;
+		}
+		return readFields(layout(type), in);
+	}
+
+	private static void writePrimitive(Class<?> type, Object value,
+			DataOutput out) throws IOException {
+		if (type == int.class || type == Integer.class) {
+			out.writeInt((Integer) value);
+		} else if (type == long.class || type == Long.class) {
+			out.writeLong((Long) value);
+		} else if (type == boolean.class || type == Boolean.class) {
+			out.writeBoolean((Boolean) value);
+		} else if (type == double.class || type == Double.class) {
+			out.writeDouble((Double) value);
+		} else if (type == float.class || type == Float.class) {
+			out.writeFloat((Float) value);
+		} else if (type == short.class || type == Short.class) {
+			out.writeShort((Short) value);
+		} else if (type == byte.class || type == Byte.class) {
+			out.writeByte((Byte) value);
+		} else {
+			out.writeChar((Character) value);
+		}
+	}
+
+	private static Object readPrimitive(Class<?> type, DataInput in)
+			throws IOException {
+		if (type == int.class || type == Integer.class)
+			return in.readInt();
+		if (type == long.class || type == Long.class)
+			return in.readLong();
+		if (type == boolean.class || type == Boolean.class)
+			return in.readBoolean();
+		if (type == double.class || type == Double.class)
+			return in.readDouble();
+		if (type == float.class || type == Float.class)
+			return in.readFloat();
+		if (type == short.class || type == Short.class)
+			return in.readShort();
+		if (type == byte.class || type == Byte.class)
+			return in.readByte();
+		return in.readChar();
+	}
+
+	private static void writeString(String value, DataOutput out)
+			throws IOException {
+		byte[] bytes = value.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
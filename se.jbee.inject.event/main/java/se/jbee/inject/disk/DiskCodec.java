@@ -0,0 +1,118 @@
+package se.jbee.inject.disk;
+
+import se.jbee.lang.Type;
+
+import java.io.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import static se.jbee.lang.Type.raw;
+
+/**
+ * A {@link DiskCodec} translates between the instances kept in a {@link
+ * DiskScope} and their binary form on disk.
+ * <p>
+ * The {@link DiskCodec} used for a particular type is resolved from the {@link
+ * se.jbee.inject.Injector} context by the {@link DiskScopeModule} using the
+ * {@link se.jbee.inject.Scope#disk(File)} name of the scope and the stored
+ * type as target. This allows to bind a {@link DiskCodec} per disk scope name
+ * or per type.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @since 8.1
+ */
+public interface DiskCodec {
+
+	/**
+	 * @param type the type of instances to store
+	 * @return true, if this {@link DiskCodec} is able to encode and decode
+	 * instances of the given type, else false
+	 */
+	boolean supports(Type<?> type);
+
+	/**
+	 * @param type the type of the instance as it will be passed to {@link
+	 *             #decode(Type, InputStream)}
+	 * @param obj  the instance to write, never null
+	 * @param out  the target to write to, may be closed by the {@link
+	 *             DiskCodec}
+	 */
+	void encode(Type<?> type, Object obj, OutputStream out) throws IOException;
+
+	/**
+	 * @param type the expected type of the instance
+	 * @param in   the source to read from, may be closed by the {@link
+	 *             DiskCodec}
+	 * @return the instance read
+	 * @throws InvalidClassException in case the data was written for a
+	 *                               different (version of) the expected type
+	 */
+	Object decode(Type<?> type, InputStream in) throws IOException;
+
+	/**
+	 * Uses Java's built in serialisation. Limited to {@link Serializable}
+	 * types.
+	 */
+	DiskCodec SERIALIZATION = new DiskCodec() {
+
+		@Override
+		public boolean supports(Type<?> type) {
+			return type.isAssignableTo(raw(Serializable.class));
+		}
+
+		@Override
+		public void encode(Type<?> type, Object obj, OutputStream out)
+				throws IOException {
+			ObjectOutputStream objOut = new ObjectOutputStream(out);
+			objOut.writeObject(obj);
+			objOut.flush();
+		}
+
+		@Override
+		public Object decode(Type<?> type, InputStream in) throws IOException {
+			try {
+				return new ObjectInputStream(in).readObject();
+			} catch (ClassNotFoundException e) {
+				throw new InvalidClassException(e.getMessage());
+			}
+		}
+	};
+
+	/**
+	 * A compact field by field binary encoding for records and simple beans.
+	 *
+	 * @see BinaryCodec
+	 */
+	DiskCodec BINARY = new BinaryCodec();
+
+	/**
+	 * @param codec the {@link DiskCodec} producing the uncompressed form
+	 * @return a {@link DiskCodec} that compresses the binary form of the given
+	 * {@link DiskCodec} using the deflate algorithm
+	 */
+	static DiskCodec compressed(DiskCodec codec) {
+		return new DiskCodec() {
+
+			@Override
+			public boolean supports(Type<?> type) {
+				return codec.supports(type);
+			}
+
+			@Override
+			public void encode(Type<?> type, Object obj, OutputStream out)
+					throws IOException {
+				try (DeflaterOutputStream zipOut = new DeflaterOutputStream(out)) {
+					codec.encode(type, obj, zipOut);
+				}
+			}
+
+			@Override
+			public Object decode(Type<?> type, InputStream in) throws IOException {
+				try (InflaterInputStream zipIn = new InflaterInputStream(in)) {
+					return codec.decode(type, zipIn);
+				}
+			}
+		};
+	}
+}
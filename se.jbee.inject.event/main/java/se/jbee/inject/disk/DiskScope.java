@@ -3,9 +3,11 @@ package se.jbee.inject.disk;
 import se.jbee.inject.*;
 import se.jbee.inject.event.On;
 import se.jbee.inject.schedule.Scheduled;
+import se.jbee.lang.Type;
 
 import java.io.*;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
@@ -13,10 +15,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
-
-import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
-import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
-import static se.jbee.lang.Type.raw;
+import java.util.zip.CRC32;
 
 /**
  * The {@link DiskScope} is a {@link Scope} that persists objects on disk.
@@ -26,10 +25,17 @@ import static se.jbee.lang.Type.raw;
  * automatically bound to an instance of the {@link DiskScope} if the defaults
  * are in place.
  *
- * {@link DiskScope}s are limited to {@link Serializable} types.
+ * How instances are written to and read from disk is determined by the
+ * {@link DiskCodec} for the instance type. By default this uses Java
+ * serialisation and thereby is limited to {@link Serializable} types.
+ *
+ * Where the binary form is kept is determined by the {@link DiskStore} of the
+ * scope. By default this is a file per entry.
  *
- * This implementation is not heavily optimised. It does the job and illustrates
- * the principle.
+ * Entries are only written when they changed. Changes are either signalled
+ * explicitly using {@link #markDirty(Object)} or detected by comparing the
+ * size and checksum of the serialised form with the one last written (see
+ * {@link #syncToDisk(DiskEntry)}).
  *
  * @since 8.1
  */
@@ -37,17 +43,30 @@ public final class DiskScope implements Scope, Closeable, Scheduled.Aware {
 
 	public static final class DiskEntry implements Serializable {
 
-		final Serializable obj;
-		final long asOfLastModified;
-		final File file;
-		final File tmpFile;
+		final Object obj;
+		final transient Type<?> type;
+		final transient DiskCodec codec;
+		final transient DiskStore store;
+		final String key;
 		final AtomicBoolean syncing = new AtomicBoolean();
+		/**
+		 * Set when the {@link #obj} should be written on next sync even if its
+		 * serialised form did not appear to change.
+		 */
+		volatile boolean dirty;
+		/*
+		 * state of the last successful write, guarded by syncing
+		 */
+		int syncedLength = -1;
+		long syncedChecksum;
 
-		DiskEntry(Serializable obj, long asOfLastModified, File file) {
+		DiskEntry(Object obj, Type<?> type, DiskCodec codec, DiskStore store,
+				String key) {
 			this.obj = obj;
-			this.asOfLastModified = asOfLastModified;
-			this.file = file;
-			this.tmpFile = new File(file.getAbsoluteFile() + ".tmp");
+			this.type = type;
+			this.codec = codec;
+			this.store = store;
+			this.key = key;
 		}
 	}
 
@@ -55,82 +74,208 @@ public final class DiskScope implements Scope, Closeable, Scheduled.Aware {
 	 * NB. {@link ConcurrentHashMap} does not allow updates while updating.
 	 */
 	private final Map<String, DiskEntry> entriesByName = new ConcurrentSkipListMap<>();
-	private final File rootDir;
+	/**
+	 * The same entries as in {@link #entriesByName} by their {@link DiskEntry#obj}
+	 */
+	private final Map<Object, DiskEntry> entriesByObj = new IdentityHashMap<>();
+	private final DiskStore store;
 	private final Function<Dependency<?>, String> dep2name;
 	private final Consumer<DiskEntry> disk;
+	private final Function<Type<?>, DiskCodec> codecs;
+	private final Map<Type<?>, DiskCodec> codecsByType = new ConcurrentHashMap<>();
 
 	public DiskScope(File rootDir, Function<Dependency<?>, String> dep2name,
 			Consumer<DiskEntry> disk) {
-		this.rootDir = rootDir;
+		this(DiskStore.files(rootDir), dep2name, disk,
+				type -> DiskCodec.SERIALIZATION);
+	}
+
+	/**
+	 * @param store  the backend to store entries in
+	 * @param codecs resolves the {@link DiskCodec} to use for a type, is
+	 *               called once per type
+	 * @since 8.1
+	 */
+	public DiskScope(DiskStore store, Function<Dependency<?>, String> dep2name,
+			Consumer<DiskEntry> disk, Function<Type<?>, DiskCodec> codecs) {
+		this.store = store;
 		this.dep2name = dep2name;
 		this.disk = disk;
+		this.codecs = codecs;
 	}
 
 	@SuppressWarnings("unchecked")
 	@Override
 	public <T> T provide(int serialID, int resources, Dependency<? super T> dep,
 			Provider<T> provider) throws UnresolvableDependency {
-		if (!dep.type().isAssignableTo(raw(Serializable.class)))
+		Type<?> type = dep.type();
+		DiskCodec codec = codecsByType.computeIfAbsent(type, codecs);
+		if (!codec.supports(type))
 			throw new UnresolvableDependency.SupplyFailed(
-					"Any disk type has to be serializable", null);
+					"Disk codec does not support type: " + type, null);
 		return (T) entriesByName.compute(dep2name.apply(dep),
-				(key, value) -> loadFromFile(key, value, provider)).obj;
+				(key, value) -> load(key, value, type, codec, provider)).obj;
 	}
 
-	private <T> DiskEntry loadFromFile(String filename, DiskEntry value,
-			Provider<T> provider) {
-		File file = new File(rootDir,
-				filename.replace('.', '_').replaceAll("[*@]", "_") + ".bin");
-		final long lastModified = file.lastModified();
-		if (value != null && value.asOfLastModified == lastModified)
-			return value; // still valid
-		if (file.exists()) {
-			try (ObjectInputStream in = new ObjectInputStream(
-					new BufferedInputStream(new FileInputStream(file)))) {
-				return new DiskEntry((Serializable) in.readObject(),
-						lastModified, file);
-			} catch (Exception e) {
-				throw new UnresolvableDependency.SupplyFailed(
-						"Failed to load object", e);
+	/**
+	 * Marks the entry holding the given instance so that it is written on the
+	 * next sync independent of whether a change could be detected.
+	 *
+	 * @param obj an instance provided by this {@link DiskScope}
+	 * @return true, if the instance was found, else false
+	 */
+	public boolean markDirty(Object obj) {
+		DiskEntry e;
+		synchronized (entriesByObj) {
+			e = entriesByObj.get(obj);
+		}
+		if (e == null)
+			return false;
+		e.dirty = true;
+		return true;
+	}
+
+	private <T> DiskEntry load(String key, DiskEntry value, Type<?> type,
+			DiskCodec codec, Provider<T> provider) {
+		if (value != null && (value.syncing.get() || !store.isModified(key)))
+			return value; // still valid (or we are writing it)
+		try {
+			ByteBuffer data = store.read(key);
+			if (data != null) {
+				int length = data.remaining();
+				CRC32 crc = new CRC32();
+				crc.update(data.duplicate());
+				DiskEntry entry = new DiskEntry(
+						codec.decode(type, new BufferInput(data)), type, codec,
+						store, key);
+				// what was loaded is what is on disk, no need to write it again
+				entry.syncedLength = length;
+				entry.syncedChecksum = crc.getValue();
+				return index(value, entry);
 			}
+		} catch (InvalidClassException e) {
+			// written for another version of the type: start over
+		} catch (Exception e) {
+			throw new UnresolvableDependency.SupplyFailed(
+					"Failed to load object", e);
 		}
-		Serializable res = (Serializable) provider.provide();
-		DiskEntry entry = new DiskEntry(res, lastModified, file);
-		if (dirReady())
-			disk.accept(entry);
-		return entry;
+		DiskEntry entry = new DiskEntry(provider.provide(), type, codec, store,
+				key);
+		disk.accept(entry);
+		return index(value, entry);
 	}
 
-	private boolean dirReady() {
-		return rootDir.exists() || rootDir.mkdirs();
+	private DiskEntry index(DiskEntry replaced, DiskEntry entry) {
+		synchronized (entriesByObj) {
+			if (replaced != null)
+				entriesByObj.remove(replaced.obj);
+			entriesByObj.put(entry.obj, entry);
+		}
+		return entry;
 	}
 
 	@On(On.Shutdown.class)
 	@Override
 	public void close() {
 		syncToDisk();
+		try {
+			if (disk instanceof Closeable) {
+				((Closeable) disk).close();
+			} else if (disk instanceof Flushable) {
+				((Flushable) disk).flush();
+			}
+			store.close();
+		} catch (IOException e) {
+			// too bad...
+		}
 	}
 
 	@Scheduled(every = 1, unit = TimeUnit.MINUTES, by = "syncTime")
 	public void syncToDisk() {
-		if (!dirReady())
-			return;
 		for (DiskEntry e : entriesByName.values())
 			disk.accept(e);
+		try {
+			store.compact();
+		} catch (IOException e) {
+			// try again next time
+		}
 	}
 
+	/**
+	 * Writes the given {@link DiskEntry} to its {@link DiskStore} unless the
+	 * serialised form did not change since the last write and the entry was
+	 * not marked {@link DiskEntry#dirty}.
+	 *
+	 * @param entry the entry to write
+	 */
 	public static void syncToDisk(DiskEntry entry) {
 		if (!entry.syncing.compareAndSet(false, true))
 			return; // already doing it...
-		try (ObjectOutputStream out = new ObjectOutputStream(
-				new FileOutputStream(entry.tmpFile))) {
-			out.writeObject(entry.obj);
-			Files.move(entry.tmpFile.toPath(), entry.file.toPath(),
-					REPLACE_EXISTING, ATOMIC_MOVE);
+		boolean dirty = entry.dirty;
+		entry.dirty = false;
+		try {
+			Bytes bytes = new Bytes();
+			entry.codec.encode(entry.type, entry.obj, bytes);
+			CRC32 crc = new CRC32();
+			crc.update(bytes.buffer());
+			long checksum = crc.getValue();
+			if (!dirty && bytes.size() == entry.syncedLength
+				&& checksum == entry.syncedChecksum)
+				return; // unchanged
+			entry.store.write(entry.key, bytes.buffer());
+			entry.syncedLength = bytes.size();
+			entry.syncedChecksum = checksum;
 		} catch (Exception e) {
+			if (dirty)
+				entry.dirty = true;
 			// too bad...
 		} finally {
 			entry.syncing.set(false);
 		}
 	}
+
+	/**
+	 * Gives access to the written bytes without copying them.
+	 */
+	private static final class Bytes extends ByteArrayOutputStream {
+
+		Bytes() {
+			super(512);
+		}
+
+		ByteBuffer buffer() {
+			return ByteBuffer.wrap(buf, 0, count);
+		}
+	}
+
+	/**
+	 * Reads from a {@link ByteBuffer} without copying it.
+	 */
+	private static final class BufferInput extends InputStream {
+
+		private final ByteBuffer buf;
+
+		BufferInput(ByteBuffer buf) {
+			this.buf = buf;
+		}
+
+		@Override
+		public int read() {
+			return buf.hasRemaining() ? buf.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) {
+			if (!buf.hasRemaining())
+				return -1;
+			int n = Math.min(len, buf.remaining());
+			buf.get(b, off, n);
+			return n;
+		}
+
+		@Override
+		public int available() {
+			return buf.remaining();
+		}
+	}
 }
@@ -8,8 +8,27 @@ import se.jbee.inject.scope.TypeDependentScope;
 
 import java.io.File;
 
+import static se.jbee.inject.Dependency.dependency;
 import static se.jbee.lang.Cast.consumerTypeOf;
 
+/**
+ * Binds the {@link DiskScope} for any {@link Scope#disk(File)} name.
+ * <p>
+ * The {@link DiskCodec} used by a {@link DiskScope} can be changed by binding
+ * it with the name of the disk scope, for example
+ * <pre>
+ * bind(Scope.disk(dir), DiskCodec.class).to(DiskCodec.BINARY);
+ * </pre>
+ * To change it for a particular type only the binding is made targeting that
+ * type using {@code injectingInto(MyState.class)}.
+ * <p>
+ * Likewise the {@link DiskStore} of a {@link DiskScope} can be changed by
+ * binding it with the name of the disk scope, for example to keep all entries
+ * in a single log file
+ * <pre>
+ * bind(Scope.disk(dir), DiskStore.class).toProvider(() -> DiskStore.log(file));
+ * </pre>
+ */
 @Installs(bundles = SchedulerModule.class)
 public final class DiskScopeModule extends BinderModule {
 
@@ -20,8 +39,20 @@ public final class DiskScopeModule extends BinderModule {
 				.toSupplier(DiskScopeModule::createDiskScope);
 
 		// usually when we save to disk we actually want to do that
-		asDefault().bind(consumerTypeOf(DiskScope.DiskEntry.class)) //
-				.to(DiskScope::syncToDisk);
+		// but in the background and in batches
+		// each scope has its own writer as it closes it when it is closed
+		asDefault().per(Scope.injection) //
+				.bind(consumerTypeOf(DiskScope.DiskEntry.class)) //
+				.to(DiskWriter.class);
+
+		asDefault().bind(Name.ANY, DiskCodec.class) //
+				.to(DiskCodec.SERIALIZATION);
+
+		// one store per disk scope name
+		asDefault().per(Scope.dependencyInstance) //
+				.bind(Name.ANY.in("disk"), DiskStore.class) //
+				.toSupplier((dep, context) -> DiskStore.files(
+						new File(dep.instance.name.withoutNamespace())));
 
 		//TODO pick up "On" events
 	}
@@ -33,8 +64,11 @@ public final class DiskScopeModule extends BinderModule {
 	 * particular {@link DiskScope} for that directory.
 	 */
 	private static Scope createDiskScope(Dependency<? super Scope> dep, Injector context) {
-		return new DiskScope(new File(dep.instance.name.withoutNamespace()),
+		Name scope = dep.instance.name;
+		return new DiskScope(context.resolve(scope, DiskStore.class),
 				TypeDependentScope::instanceSignature, context.resolve(
-				consumerTypeOf(DiskScope.DiskEntry.class)));
+				consumerTypeOf(DiskScope.DiskEntry.class)),
+				type -> context.resolve(dependency(DiskCodec.class) //
+						.named(scope).injectingInto(type)));
 	}
 }
@@ -0,0 +1,78 @@
+package se.jbee.inject.disk;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DiskStore} is the backend of a {@link DiskScope} that keeps the
+ * binary form of the scope's entries by key.
+ * <p>
+ * The {@link DiskStore} used by a {@link DiskScope} is resolved from the
+ * {@link se.jbee.inject.Injector} context by the {@link DiskScopeModule} using
+ * the {@link se.jbee.inject.Scope#disk(File)} name of the scope. By default
+ * this is a {@link #files(File)} store for the scope's directory.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @since 8.1
+ */
+public interface DiskStore extends Closeable, Flushable {
+
+	/**
+	 * @param key the entry key
+	 * @return the data stored for the key or null if no such entry exists. The
+	 * returned buffer must not be modified.
+	 */
+	ByteBuffer read(String key) throws IOException;
+
+	/**
+	 * @param key  the entry key
+	 * @param data the data to store for the key
+	 */
+	void write(String key, ByteBuffer data) throws IOException;
+
+	/**
+	 * @param key the entry key
+	 * @return true, if the entry might have been modified by others than this
+	 * store since it was last read or written by it, else false
+	 */
+	boolean isModified(String key);
+
+	/**
+	 * Makes the data written so far durable. The {@link DiskWriter} calls this
+	 * after each batch of writes.
+	 */
+	@Override
+	default void flush() throws IOException {
+		// nothing to do by default
+	}
+
+	/**
+	 * Called periodically to give the store a chance to reorganise its data
+	 * and make sure it is durable.
+	 */
+	default void compact() throws IOException {
+		// nothing to do by default
+	}
+
+	/**
+	 * @param dir the root directory of the store
+	 * @return a {@link DiskStore} that uses a file per entry within the given
+	 * directory
+	 */
+	static DiskStore files(File dir) {
+		return new FileDiskStore(dir);
+	}
+
+	/**
+	 * @param file the log file
+	 * @return a {@link DiskStore} that keeps all entries in a single append
+	 * only log file
+	 */
+	static DiskStore log(File file) {
+		return new LogDiskStore(file);
+	}
+}
@@ -0,0 +1,108 @@
+package se.jbee.inject.disk;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * The default {@link Consumer} of {@link DiskScope.DiskEntry}s.
+ *
+ * Entries are queued and written in batches by a single background daemon
+ * {@link Thread} using {@link DiskScope#syncToDisk(DiskScope.DiskEntry)}.
+ * An entry that is queued multiple times before the batch is written is only
+ * written once. After each batch the {@link DiskStore}s written to are
+ * {@link DiskStore#flush()}ed.
+ *
+ * A {@link DiskScope} closes its {@link DiskWriter} when it is closed. This
+ * writes all queued entries and stops the background {@link Thread}. Entries
+ * accepted after that are written directly by the calling {@link Thread}.
+ *
+ * @since 8.1
+ */
+public final class DiskWriter
+		implements Consumer<DiskScope.DiskEntry>, Flushable, Closeable {
+
+	private final Map<DiskScope.DiskEntry, Boolean> pending = new ConcurrentHashMap<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(
+			task -> {
+				Thread t = new Thread(task, "disk-writer");
+				t.setDaemon(true);
+				return t;
+			});
+	private volatile boolean closed;
+
+	@Override
+	public void accept(DiskScope.DiskEntry entry) {
+		if (closed) {
+			DiskScope.syncToDisk(entry);
+			return;
+		}
+		pending.put(entry, Boolean.TRUE);
+		if (scheduled.compareAndSet(false, true)) {
+			try {
+				executor.execute(this::writeBatch);
+			} catch (RejectedExecutionException e) {
+				writeBatch(); // closed concurrently
+			}
+		}
+	}
+
+	private void writeBatch() {
+		scheduled.set(false);
+		Set<DiskStore> stores = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (DiskScope.DiskEntry e : pending.keySet()) {
+			pending.remove(e);
+			DiskScope.syncToDisk(e);
+			stores.add(e.store);
+		}
+		for (DiskStore store : stores) {
+			try {
+				store.flush();
+			} catch (IOException e) {
+				// try again with the next batch
+			}
+		}
+	}
+
+	/**
+	 * Blocks until all entries queued before this call are written.
+	 */
+	@Override
+	public void flush() throws InterruptedIOException {
+		try {
+			executor.submit(this::writeBatch).get();
+		} catch (RejectedExecutionException e) {
+			writeBatch(); // closed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		} catch (ExecutionException e) {
+			// writing failures are ignored by syncToDisk already
+		}
+	}
+
+	/**
+	 * Writes all queued entries and stops the background {@link Thread}.
+	 */
+	@Override
+	public void close() throws InterruptedIOException {
+		closed = true;
+		executor.shutdown();
+		flush();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package se.jbee.inject.disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * A {@link DiskStore} that uses a {@code .bin} file per entry. Files are
+ * written to a {@code .tmp} file first which is then moved atomically.
+ * <p>
+ * Whether a file was modified on disk is tracked using a {@link WatchService}
+ * on the root directory so that {@link #isModified(String)} does not need to
+ * query the file system. Should the {@link WatchService} not be available each
+ * check compares the file's last modified time.
+ *
+ * @since 8.1
+ */
+final class FileDiskStore implements DiskStore {
+
+	private static final class Slot {
+
+		final File file;
+		final File tmpFile;
+		/**
+		 * The last modified time of the {@link #file} as of the last time it was
+		 * read or written by the store.
+		 */
+		volatile long asOfLastModified;
+		/**
+		 * Set when the {@link #file} might have been modified on disk since
+		 * {@link #asOfLastModified}.
+		 */
+		volatile boolean stale;
+		/**
+		 * Set while the store moves a new version in place. Events for the
+		 * {@link #file} are caused by the store itself during that time.
+		 */
+		volatile boolean writing;
+
+		Slot(File file) {
+			this.file = file;
+			this.tmpFile = new File(file.getAbsoluteFile() + ".tmp");
+			this.asOfLastModified = -1L;
+		}
+	}
+
+	private final File rootDir;
+	private final Map<String, Slot> slotsByKey = new ConcurrentHashMap<>();
+	/**
+	 * The same {@link Slot}s as in {@link #slotsByKey} by the name of their
+	 * {@link Slot#file}. Keys that map to the same file share the {@link Slot}.
+	 */
+	private final Map<String, Slot> slotsByFilename = new ConcurrentHashMap<>();
+	private volatile WatchService watcher;
+	private volatile boolean watching;
+
+	FileDiskStore(File rootDir) {
+		this.rootDir = rootDir;
+	}
+
+	private Slot slot(String key) {
+		return slotsByKey.computeIfAbsent(key, k -> slotsByFilename.computeIfAbsent(
+				k.replace('.', '_').replaceAll("[*@]", "_") + ".bin",
+				filename -> new Slot(new File(rootDir, filename))));
+	}
+
+	@Override
+	public ByteBuffer read(String key) throws IOException {
+		dirReady();
+		Slot slot = slot(key);
+		slot.stale = false;
+		slot.asOfLastModified = slot.file.lastModified();
+		if (!slot.file.exists())
+			return null;
+		try (FileChannel in = FileChannel.open(slot.file.toPath(), READ)) {
+			long size = in.size();
+			if (size > Integer.MAX_VALUE)
+				throw new IOException("File too large: " + slot.file);
+			ByteBuffer buf = ByteBuffer.allocate((int) size);
+			while (buf.hasRemaining() && in.read(buf) >= 0) {
+				// read all
+			}
+			buf.flip();
+			return buf;
+		}
+	}
+
+	@Override
+	public void write(String key, ByteBuffer data) throws IOException {
+		if (!dirReady())
+			throw new IOException("Directory not available: " + rootDir);
+		Slot slot = slot(key);
+		try (FileChannel out = FileChannel.open(slot.tmpFile.toPath(), WRITE,
+				CREATE, TRUNCATE_EXISTING)) {
+			while (data.hasRemaining())
+				out.write(data);
+		}
+		// a rename keeps the last modified time so it is known before the move
+		slot.writing = true;
+		try {
+			slot.asOfLastModified = slot.tmpFile.lastModified();
+			Files.move(slot.tmpFile.toPath(), slot.file.toPath(),
+					REPLACE_EXISTING, ATOMIC_MOVE);
+		} finally {
+			slot.writing = false;
+		}
+	}
+
+	@Override
+	public boolean isModified(String key) {
+		pollModifications();
+		Slot slot = slotsByKey.get(key);
+		if (slot == null)
+			return true;
+		if (watching && !slot.stale)
+			return false;
+		if (slot.file.lastModified() != slot.asOfLastModified)
+			return true;
+		slot.stale = false;
+		return false;
+	}
+
+	private boolean dirReady() {
+		boolean ready = rootDir.exists() || rootDir.mkdirs();
+		if (ready && watcher == null)
+			startWatching();
+		return ready;
+	}
+
+	private synchronized void startWatching() {
+		if (watcher != null)
+			return;
+		try {
+			WatchService service = rootDir.toPath().getFileSystem().newWatchService();
+			rootDir.toPath().register(service, ENTRY_CREATE, ENTRY_MODIFY,
+					ENTRY_DELETE);
+			watcher = service;
+			// entries known before might have changed unnoticed
+			slotsByKey.values().forEach(s -> s.stale = true);
+			watching = true;
+		} catch (IOException | UnsupportedOperationException e) {
+			// no watching, fall back to checking files each time
+		}
+	}
+
+	/**
+	 * Marks {@link Slot}s as {@link Slot#stale} whose file was modified by
+	 * others than this store. This does not block and is cheap when there are
+	 * no pending events.
+	 */
+	private void pollModifications() {
+		WatchService service = watcher;
+		if (service == null)
+			return;
+		try {
+			WatchKey key = service.poll();
+			while (key != null) {
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == OVERFLOW) {
+						slotsByKey.values().forEach(s -> s.stale = true);
+					} else {
+						markStale(((Path) event.context()).toString());
+					}
+				}
+				if (!key.reset()) {
+					watching = false;
+					slotsByKey.values().forEach(s -> s.stale = true);
+				}
+				key = service.poll();
+			}
+		} catch (ClosedWatchServiceException e) {
+			watching = false;
+		}
+	}
+
+	private void markStale(String filename) {
+		Slot s = slotsByFilename.get(filename);
+		if (s != null && !s.writing
+			&& s.file.lastModified() != s.asOfLastModified)
+			s.stale = true;
+	}
+
+	@Override
+	public void close() throws IOException {
+		WatchService service = watcher;
+		if (service != null) {
+			watching = false;
+			service.close();
+		}
+	}
+}
@@ -0,0 +1,297 @@
+package se.jbee.inject.disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * A {@link DiskStore} that keeps all entries in a single append only log
+ * file.
+ * <p>
+ * Each write appends a record of the form
+ * <pre>
+ * [key length:int][data length:int][key:UTF-8][data][CRC32 of key and data:int]
+ * </pre>
+ * An in-memory index maps each key to the position of the data of its latest
+ * record. Reads return a view on the memory-mapped file without copying.
+ * <p>
+ * When opened the log is replayed to rebuild the index. Replay stops at the
+ * first incomplete or corrupt record, which is what a crash during a write
+ * leaves behind, and the log is truncated there.
+ * <p>
+ * Records superseded by later writes are removed by {@link #compact()} once
+ * they make up more than half of the log.
+ * <p>
+ * The file is mapped with spare capacity that doubles whenever the log
+ * outgrows it so that it is remapped only a few times during its life. A
+ * mapping that was replaced is not unmapped explicitly as views returned by
+ * {@link #read(String)} might still use it. It is released once it is no
+ * longer referenced. The spare capacity is cut off when the store is closed.
+ * <p>
+ * Writes only become durable when the store is {@link #flush()}ed,
+ * {@link #compact()}ed or closed. The {@link DiskWriter} flushes after each
+ * batch of writes. When entries are written directly, writes acknowledged
+ * since then can be lost on a crash.
+ * <p>
+ * The log file is only created by the first write.
+ * <p>
+ * As the log is mapped as a whole it is limited to {@link #MAX_LOG_BYTES}
+ * (2GB). Writes that would grow it beyond fail with an {@link IOException}
+ * unless {@link #compact()}ing it first makes enough room.
+ *
+ * @since 8.1
+ */
+final class LogDiskStore implements DiskStore {
+
+	private static final int HEADER_BYTES = 8;
+	private static final int TRAILER_BYTES = 4;
+	private static final long MIN_COMPACTION_BYTES = 64 * 1024;
+	private static final long MIN_MAPPED_BYTES = 1024 * 1024;
+	/**
+	 * The largest {@link MappedByteBuffer} possible.
+	 */
+	static final long MAX_LOG_BYTES = Integer.MAX_VALUE;
+
+	private static final class Slot {
+
+		final long offset;
+		final int length;
+
+		Slot(long offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		long recordBytes(String key) {
+			return LogDiskStore.recordBytes(key.getBytes(UTF_8).length, length);
+		}
+	}
+
+	static long recordBytes(int keyLength, int length) {
+		return (long) HEADER_BYTES + keyLength + length + TRAILER_BYTES;
+	}
+
+	private final Path file;
+	private final Map<String, Slot> index = new HashMap<>();
+	private FileChannel channel;
+	private MappedByteBuffer mapped;
+	/**
+	 * The position after the last record, the file might be larger as it
+	 * includes the spare capacity of the {@link #mapped} buffer
+	 */
+	private long end;
+	private long garbageBytes;
+
+	LogDiskStore(File file) {
+		this.file = file.toPath();
+	}
+
+	@Override
+	public synchronized ByteBuffer read(String key) throws IOException {
+		if (!openIfExists())
+			return null;
+		Slot slot = index.get(key);
+		if (slot == null)
+			return null;
+		ByteBuffer view = mapped.duplicate();
+		view.position((int) slot.offset).limit((int) slot.offset + slot.length);
+		return view.slice();
+	}
+
+	@Override
+	public synchronized void write(String key, ByteBuffer data)
+			throws IOException {
+		if (key.isEmpty())
+			throw new IllegalArgumentException("Key must not be empty");
+		open();
+		long recordBytes = recordBytes(key.getBytes(UTF_8).length,
+				data.remaining());
+		if (end + recordBytes > MAX_LOG_BYTES && garbageBytes > 0)
+			compact(true);
+		if (end + recordBytes > MAX_LOG_BYTES)
+			throw new IOException("Log file " + file
+				+ " would grow beyond the limit of " + MAX_LOG_BYTES
+				+ " bytes that can be memory mapped. Use another store for "
+				+ "the scope, for example DiskStore.files(dir).");
+		Slot before = index.put(key, append(channel, end, key, data));
+		end += recordBytes;
+		if (before != null)
+			garbageBytes += before.recordBytes(key);
+		if (end > mapped.capacity())
+			map();
+	}
+
+	@Override
+	public boolean isModified(String key) {
+		return false; // the log is only ever written by this store
+	}
+
+	@Override
+	public synchronized void flush() throws IOException {
+		if (channel != null)
+			channel.force(false);
+	}
+
+	@Override
+	public synchronized void compact() throws IOException {
+		if (openIfExists())
+			compact(false);
+	}
+
+	private void compact(boolean always) throws IOException {
+		open();
+		if (!always && (garbageBytes < MIN_COMPACTION_BYTES
+			|| garbageBytes * 2 < end)) {
+			channel.force(false);
+			return;
+		}
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+		Map<String, Slot> compacted = new HashMap<>();
+		long size = 0L;
+		try (FileChannel out = FileChannel.open(tmp, READ, WRITE, CREATE,
+				TRUNCATE_EXISTING)) {
+			for (Map.Entry<String, Slot> e : index.entrySet()) {
+				String key = e.getKey();
+				compacted.put(key, append(out, size, key, read(key)));
+				size += e.getValue().recordBytes(key);
+			}
+			out.force(false);
+		}
+		channel.close();
+		Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+		index.clear();
+		index.putAll(compacted);
+		garbageBytes = 0L;
+		end = size;
+		channel = FileChannel.open(file, READ, WRITE);
+		map();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (channel == null)
+			return;
+		mapped = null;
+		channel.truncate(end); // cut off spare capacity
+		channel.force(false);
+		channel.close();
+		channel = null;
+		index.clear();
+	}
+
+	/**
+	 * Maps the log with spare capacity for further records. This extends the
+	 * file with zeros which are not mistaken for records as keys are never
+	 * empty.
+	 */
+	private void map() throws IOException {
+		long capacity = MIN_MAPPED_BYTES;
+		while (capacity < end)
+			capacity *= 2;
+		mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+				Math.min(capacity, MAX_LOG_BYTES));
+	}
+
+	private static Slot append(FileChannel out, long start, String key,
+			ByteBuffer data) throws IOException {
+		byte[] keyBytes = key.getBytes(UTF_8);
+		ByteBuffer content = data.duplicate();
+		int length = content.remaining();
+		CRC32 crc = new CRC32();
+		crc.update(keyBytes);
+		crc.update(content.duplicate());
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES) //
+				.putInt(keyBytes.length).putInt(length);
+		header.flip();
+		ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES) //
+				.putInt((int) crc.getValue());
+		trailer.flip();
+		out.position(start);
+		ByteBuffer[] record = { header, ByteBuffer.wrap(keyBytes), content, trailer };
+		while (trailer.hasRemaining())
+			out.write(record);
+		return new Slot(start + HEADER_BYTES + keyBytes.length, length);
+	}
+
+	/**
+	 * Opens the log file unless it does not exist yet.
+	 *
+	 * @return true, if the log file is open, false if it does not exist
+	 */
+	private boolean openIfExists() throws IOException {
+		if (channel == null && !Files.exists(file))
+			return false;
+		open();
+		return true;
+	}
+
+	/**
+	 * Opens the log file and replays it to rebuild the {@link #index}.
+	 */
+	private void open() throws IOException {
+		if (channel != null)
+			return;
+		Path dir = file.toAbsolutePath().getParent();
+		if (dir != null)
+			Files.createDirectories(dir);
+		channel = FileChannel.open(file, READ, WRITE, CREATE);
+		long size = channel.size();
+		if (size > MAX_LOG_BYTES) {
+			channel.close();
+			channel = null;
+			throw new IOException("Log file " + file + " is larger than the "
+				+ "limit of " + MAX_LOG_BYTES + " bytes that can be memory mapped");
+		}
+		end = replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+		if (end < size)
+			channel.truncate(end); // incomplete record or spare capacity
+		map();
+	}
+
+	/**
+	 * @return the position after the last valid record
+	 */
+	private long replay(ByteBuffer log) {
+		int pos = 0;
+		int size = log.capacity();
+		CRC32 crc = new CRC32();
+		while (size - pos >= HEADER_BYTES + TRAILER_BYTES) {
+			int keyLength = log.getInt(pos);
+			int length = log.getInt(pos + 4);
+			if (keyLength <= 0 || length < 0)
+				break; // zeros of spare capacity or garbage
+			long recordBytes = recordBytes(keyLength, length);
+			if (recordBytes > size - pos)
+				break;
+			int keyStart = pos + HEADER_BYTES;
+			ByteBuffer keyAndData = log.duplicate();
+			keyAndData.position(keyStart).limit(keyStart + keyLength + length);
+			crc.reset();
+			crc.update(keyAndData);
+			if ((int) crc.getValue() != log.getInt(keyStart + keyLength + length))
+				break;
+			byte[] keyBytes = new byte[keyLength];
+			ByteBuffer key = log.duplicate();
+			key.position(keyStart);
+			key.get(keyBytes);
+			String k = new String(keyBytes, UTF_8);
+			Slot before = index.put(k, new Slot(keyStart + keyLength, length));
+			if (before != null)
+				garbageBytes += before.recordBytes(k);
+			pos += (int) recordBytes;
+		}
+		return pos;
+	}
+}
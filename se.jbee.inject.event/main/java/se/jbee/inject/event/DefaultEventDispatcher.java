@@ -1,14 +1,268 @@
 package se.jbee.inject.event;
 
+import se.jbee.inject.Env;
+import se.jbee.inject.Injector;
 import se.jbee.inject.config.Connector;
+import se.jbee.inject.config.HintsBy;
 import se.jbee.lang.Type;
 
+import java.io.Closeable;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
-public class DefaultEventDispatcher implements Connector {
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.unmodifiableMap;
+import static se.jbee.inject.Dependency.dependency;
+import static se.jbee.inject.event.EventDispatch.eventDispatchTypeOf;
+import static se.jbee.inject.event.EventTrigger.eventTriggerTypeOf;
+import static se.jbee.lang.Type.actualParameterType;
+import static se.jbee.lang.Type.raw;
+
+/**
+ * Connects {@link On} annotated methods (or any other method connected as
+ * event receiver) as {@link EventHandler}s and dispatches published events to
+ * them.
+ * <p>
+ * Each event type receivers are connected for is assigned to one of a fixed
+ * number of {@link EventRing}s. A published event is put into the rings of
+ * all event types it is assignable to, so that receivers of a super-type also
+ * receive the events of its sub-types. All events of the same type use the
+ * same ring so that they are handled in the order they were published by a
+ * single consumer {@link Thread}. Events of different types are handled in
+ * parallel by the consumers of different rings.
+ * <p>
+ * Events returned by {@link EventHandler}s are published again. For {@link
+ * On.DispatchType#SEQUENTIAL} this happens after all handlers selected by the
+ * {@link EventDispatch} have handled the current event, for {@link
+ * On.DispatchType#INTERLEAVED} directly when the handler returned.
+ * <p>
+ * Exceptions thrown by {@link EventHandler}s are passed to the {@link
+ * EventRecovery} if one is bound, otherwise they are ignored.
+ *
+ * @since 8.1
+ */
+public class DefaultEventDispatcher
+		implements Connector, EventDispatcher, Closeable {
+
+	private static final int RING_CAPACITY = 1024;
+
+	private static final EventRecovery.Controller CONTROLLER = new EventRecovery.Controller() {};
+
+	/**
+	 * The {@link EventHandler}s and {@link EventDispatch} for one type of
+	 * event.
+	 */
+	private static final class Channel<T> {
+
+		final Type<T> type;
+		final EventDispatch<T> dispatch;
+		final EventRing ring;
+		/**
+		 * Replaced with a copy for each connected {@link EventHandler}
+		 */
+		volatile Map<EventTarget, EventHandler<? super T>> handlers = emptyMap();
+
+		Channel(Type<T> type, EventDispatch<T> dispatch, EventRing ring) {
+			this.type = type;
+			this.dispatch = dispatch;
+			this.ring = ring;
+		}
+
+		synchronized void connect(EventHandler<? super T> handler) {
+			Map<EventTarget, EventHandler<? super T>> connected = new LinkedHashMap<>(
+					handlers);
+			connected.put(handler.target, handler);
+			handlers = unmodifiableMap(connected);
+		}
+	}
+
+	/**
+	 * The {@link EventDispatcher} used by {@link EventDispatch}es called by
+	 * the consumer of a {@link EventRing}. Events returned by {@link
+	 * On.DispatchType#SEQUENTIAL} handlers are held back until the dispatch of
+	 * the current event is complete.
+	 */
+	private final class Dispatching implements EventDispatcher {
+
+		private final ArrayDeque<Object> sequential = new ArrayDeque<>();
+
+		@Override
+		public <T> void handle(Event<T> event, EventHandler<? super T> handler) {
+			List<?> returned;
+			try {
+				returned = handler.handle(event);
+			} catch (Exception ex) {
+				if (recovery != null)
+					recovery.recover(ex, event, handler, CONTROLLER);
+				return;
+			}
+			if (returned.isEmpty())
+				return;
+			if (handler.proceed == On.DispatchType.INTERLEAVED) {
+				for (Object e : returned)
+					publish(e);
+			} else {
+				sequential.addAll(returned);
+			}
+		}
+
+		@Override
+		public void publish(Object event) {
+			DefaultEventDispatcher.this.publish(event);
+		}
+
+		void dispatch(Channel<?> channel, Event<?> event) {
+			dispatchNow(channel, event, this);
+			Object next = sequential.poll();
+			while (next != null) {
+				publish(next);
+				next = sequential.poll();
+			}
+		}
+	}
+
+	private final Injector context;
+	private final HintsBy hintsBy;
+	private final EventRecovery recovery;
+	private final EventRing[] rings;
+	private final AtomicInteger channelCount = new AtomicInteger();
+	private final Map<Class<?>, Channel<?>> channels = new ConcurrentHashMap<>();
+	/**
+	 * The {@link Channel}s an event is published to by the type of the event.
+	 * Replaced when a {@link Channel} is added.
+	 */
+	private volatile Map<Class<?>, Channel<?>[]> channelsByEvent = new ConcurrentHashMap<>();
+	private final Set<Class<?>> triggered = ConcurrentHashMap.newKeySet();
+
+	public DefaultEventDispatcher(Injector context) {
+		this.context = context;
+		this.hintsBy = context.resolve(Env.class) //
+				.in(DefaultEventDispatcher.class) //
+				.property(HintsBy.class);
+		this.recovery = context.resolveOrNull(EventRecovery.class);
+		this.rings = new EventRing[Math.max(1,
+				Math.min(4, Runtime.getRuntime().availableProcessors() / 2))];
+		for (int i = 0; i < rings.length; i++) {
+			Dispatching dispatching = new Dispatching();
+			rings[i] = new EventRing(getClass().getSimpleName() + "-" + i,
+					RING_CAPACITY, (channel, e) -> dispatching.dispatch(
+							(Channel<?>) channel, (Event<?>) e));
+		}
+	}
 
 	@Override
 	public void connect(Object instance, Type<?> as, Method connected) {
+		On on = connected.getAnnotation(On.class);
+		On.DispatchType proceed = on == null
+			? On.DispatchType.SEQUENTIAL
+			: on.proceed();
+		EventTarget target = new EventTarget(instance, as, connected);
+		if (on != null) {
+			for (Class<?> event : on.value())
+				connect(raw(event), target, proceed);
+		} else if (connected.getParameterCount() > 0) {
+			connect(actualParameterType(connected.getParameters()[0], as),
+					target, proceed);
+		}
+	}
 
+	private <T> void connect(Type<T> event, EventTarget target,
+			On.DispatchType proceed) {
+		channel(event).connect(new EventHandler<>(target, event, proceed,
+				context, hintsBy));
+		if (triggered.add(event.rawType))
+			activateTrigger(event);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> Channel<T> channel(Type<T> event) {
+		Channel<T> channel = (Channel<T>) channels.get(event.rawType);
+		if (channel != null)
+			return channel;
+		synchronized (channels) {
+			channel = (Channel<T>) channels.get(event.rawType);
+			if (channel == null) {
+				channel = new Channel<>(event, dispatchFor(event),
+						rings[channelCount.getAndIncrement() % rings.length]);
+				channels.put(event.rawType, channel);
+				channelsByEvent = new ConcurrentHashMap<>();
+			}
+			return channel;
+		}
+	}
+
+	private Channel<?>[] channelsFor(Class<?> event) {
+		return channelsByEvent.computeIfAbsent(event,
+				key -> channels.values().stream() //
+						.filter(c -> c.type.rawType.isAssignableFrom(key)) //
+						.toArray(Channel<?>[]::new));
+	}
+
+	private <T> EventDispatch<T> dispatchFor(Type<T> event) {
+		EventDispatch<T> dispatch = context.resolveOrNull(
+				dependency(eventDispatchTypeOf(event)));
+		return dispatch != null ? dispatch : EventDispatch.multicast();
+	}
+
+	/**
+	 * Events triggered by a {@link EventTrigger} are handled before the
+	 * trigger continues.
+	 */
+	private <T> void activateTrigger(Type<T> event) {
+		EventTrigger<T> trigger = context.resolveOrNull(
+				dependency(eventTriggerTypeOf(event)));
+		if (trigger != null)
+			trigger.activate(this::publishAndAwait);
+	}
+
+	@Override
+	public <T> void handle(Event<T> event, EventHandler<? super T> handler) {
+		new Dispatching().handle(event, handler);
+	}
+
+	@Override
+	public void publish(Object event) {
+		publish(event, false);
+	}
+
+	private void publishAndAwait(Object event) {
+		publish(event, true);
+	}
+
+	private void publish(Object event, boolean await) {
+		Channel<?>[] receiving = channelsFor(event.getClass());
+		if (receiving.length == 0)
+			return; // no one is listening
+		Event<?> e = new Event<>(event);
+		for (Channel<?> channel : receiving) {
+			long seq = channel.ring.publish(channel, e);
+			if (seq >= 0 && await)
+				channel.ring.awaitConsumed(seq);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> void dispatchNow(Channel<T> channel, Event<?> event,
+			EventDispatcher dispatcher) {
+		channel.dispatch.dispatch((Event<T>) event, channel.handlers, dispatcher);
+	}
+
+	/**
+	 * Stops the consumer {@link Thread}s after they handled all events
+	 * published so far. Events published afterwards are not handled.
+	 * <p>
+	 * Consumers without events park until an event is published so that
+	 * idle rings do not use CPU time while the dispatcher is not closed.
+	 */
+	@Override
+	public void close() {
+		for (EventRing ring : rings)
+			ring.stop();
 	}
 }
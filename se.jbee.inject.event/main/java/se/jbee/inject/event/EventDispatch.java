@@ -1,17 +1,43 @@
 package se.jbee.inject.event;
 
+import se.jbee.lang.Type;
+
 import java.util.Map;
 
 /**
  * The {@link EventDispatch} calls zero, one or more {@link
  * EventHandler}s that according to their strategy should handle the dispatched
  * {@link Event}.
+ * <p>
+ * A {@link EventDispatch} for a particular event type is bound as {@link
+ * #eventDispatchTypeOf(Class)}. If none is bound the {@link #multicast()} is
+ * used.
  *
  * @param <T> type of the raw event dispatched
  */
 @FunctionalInterface
 public interface EventDispatch<T> {
 
+	static <T> Type<EventDispatch<T>> eventDispatchTypeOf(Class<T> event) {
+		return eventDispatchTypeOf(Type.raw(event));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	static <T> Type<EventDispatch<T>> eventDispatchTypeOf(Type<T> event) {
+		return (Type) Type.raw(EventDispatch.class).parameterized(event);
+	}
+
+	/**
+	 * @return A {@link EventDispatch} that has each of the {@link
+	 * EventHandler}s handle the event in the order they were connected
+	 */
+	static <T> EventDispatch<T> multicast() {
+		return (event, handlers, dispatcher) -> {
+			for (EventHandler<? super T> handler : handlers.values())
+				dispatcher.handle(event, handler);
+		};
+	}
+
 	/**
 	 * Selects the {@link EventHandler}(s) to use to {@link
 	 * EventHandler#handle(Event)} the event.
@@ -1,6 +1,27 @@
 package se.jbee.inject.event;
 
+/**
+ * Publishes events to their connected {@link EventHandler}s.
+ *
+ * @since 8.1
+ */
 public interface EventDispatcher {
 
+	/**
+	 * Has the given {@link EventHandler} handle the {@link Event}. This is
+	 * called by {@link EventDispatch}es for each {@link EventHandler} they
+	 * selected.
+	 */
 	<T> void handle(Event<T> event, EventHandler<? super T> handler);
+
+	/**
+	 * Publishes the event to all {@link EventHandler}s connected to receive
+	 * events of the event's {@link Class}. Events without any receivers are
+	 * ignored.
+	 * <p>
+	 * Events are handled asynchronously in the order they were published.
+	 *
+	 * @param event the raw event object
+	 */
+	void publish(Object event);
 }
@@ -1,11 +1,182 @@
 package se.jbee.inject.event;
 
+import se.jbee.inject.Hint;
+import se.jbee.inject.InjectionSite;
+import se.jbee.inject.Injector;
+import se.jbee.inject.config.HintsBy;
+import se.jbee.inject.config.Invoke;
+import se.jbee.lang.Type;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.Collection;
 import java.util.List;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static se.jbee.inject.Dependency.dependency;
+import static se.jbee.lang.Type.actualReturnType;
+
+/**
+ * Calls the {@link EventTarget} {@link Method} to handle an {@link Event}.
+ * <p>
+ * The {@link Method} is called through a {@link MethodHandle} bound to the
+ * target instance. When the event is the only parameter no further arguments
+ * are needed so that the call does not allocate. Other parameters are
+ * injected using an {@link InjectionSite} that is computed once.
+ * <p>
+ * Should the {@link Method} not be accessible by a {@link MethodHandle} the
+ * {@link Invoke} bound for the declaring class is used.
+ *
+ * @param <T> type of the handled events
+ *
+ * @since 8.1
+ */
 public final class EventHandler<T> {
 
-	public List<?> handle(Event<? extends T> event) {
-		//TODO
-		return null;
+	private static final MethodType NO_ARGS = MethodType.methodType(Object.class);
+	private static final MethodType EVENT_ARG = MethodType.methodType(
+			Object.class, Object.class);
+	private static final MethodType SPREAD_ARGS = MethodType.methodType(
+			Object.class, Object[].class);
+
+	public final EventTarget target;
+	public final Type<T> event;
+	public final On.DispatchType proceed;
+
+	private final Injector context;
+	/**
+	 * Only used if there are parameters besides the event
+	 */
+	private final InjectionSite site;
+	private final int eventIndex;
+	private final int arity;
+	/**
+	 * Or {@code null} if the {@link #invoke} is used
+	 */
+	private final MethodHandle handle;
+	private final Invoke invoke;
+
+	EventHandler(EventTarget target, Type<T> event, On.DispatchType proceed,
+			Injector context, HintsBy hintsBy) {
+		this.target = target;
+		this.event = event;
+		this.proceed = proceed;
+		this.context = context;
+		Method method = target.method;
+		Hint<T> eventArg = Hint.constantNull(event);
+		Hint<?>[] actualParameters = hintsBy.applyTo(context, method,
+				target.as, eventArg);
+		this.eventIndex = indexOfNullConstant(actualParameters);
+		this.arity = actualParameters.length;
+		this.site = isEventOnly() || arity == 0
+			? null
+			: new InjectionSite(context, dependency(
+					actualReturnType(method, target.as)).injectingInto(target.as),
+					actualParameters);
+		this.invoke = context.resolve(dependency(Invoke.class) //
+				.injectingInto(method.getDeclaringClass()));
+		this.handle = methodHandle(target, arity, isEventOnly());
+	}
+
+	/**
+	 * {@link Hint#equals(Object)} considers a constant {@code null} equal to
+	 * any reference so the placeholder for the event is found by its kind.
+	 */
+	private static int indexOfNullConstant(Hint<?>[] actualParameters) {
+		for (int i = 0; i < actualParameters.length; i++)
+			if (actualParameters[i].isConstant()
+				&& actualParameters[i].value == null)
+				return i;
+		return -1;
+	}
+
+	private boolean isEventOnly() {
+		return arity == 1 && eventIndex == 0;
+	}
+
+	private static MethodHandle methodHandle(EventTarget target, int arity,
+			boolean eventOnly) {
+		Method method = target.method;
+		EventHandler.class.getModule().addReads(
+				method.getDeclaringClass().getModule());
+		try {
+			MethodHandle mh = MethodHandles.lookup().unreflect(method);
+			if (!Modifier.isStatic(method.getModifiers()))
+				mh = mh.bindTo(target.instance);
+			if (arity == 0)
+				return mh.asType(NO_ARGS);
+			if (eventOnly)
+				return mh.asType(EVENT_ARG);
+			return mh.asSpreader(Object[].class, arity).asType(SPREAD_ARGS);
+		} catch (IllegalAccessException | RuntimeException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * @return the events returned by the {@link EventTarget} {@link Method},
+	 * these are all elements if it returned a {@link Collection} or an array,
+	 * the object itself otherwise or none when it returned {@code null} or
+	 * {@code void}.
+	 */
+	public List<?> handle(Event<? extends T> event) throws Exception {
+		return returned(call(event.type));
+	}
+
+	private Object call(Object event) throws Exception {
+		try {
+			if (handle == null)
+				return invoke.call(target.method, target.instance, args(event));
+			if (arity == 0)
+				return (Object) handle.invokeExact();
+			if (site == null)
+				return (Object) handle.invokeExact(event);
+			return (Object) handle.invokeExact(args(event));
+		} catch (InvocationTargetException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception)
+				throw (Exception) cause;
+			throw e;
+		} catch (Exception | Error e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new UndeclaredThrowableException(e);
+		}
+	}
+
+	private Object[] args(Object event) {
+		if (arity == 0)
+			return new Object[0];
+		if (site == null)
+			return new Object[] { event };
+		// must be a copy, the site might return the same array each time
+		Object[] args = site.args(context).clone();
+		if (eventIndex >= 0)
+			args[eventIndex] = event;
+		return args;
+	}
+
+	private static List<?> returned(Object res) {
+		if (res == null)
+			return emptyList();
+		if (res instanceof List)
+			return (List<?>) res;
+		if (res instanceof Collection)
+			return asList(((Collection<?>) res).toArray());
+		if (res instanceof Object[])
+			return asList((Object[]) res);
+		return singletonList(res);
+	}
+
+	@Override
+	public String toString() {
+		return target + " on " + event + " " + proceed;
 	}
 }
@@ -22,8 +22,11 @@ public abstract class EventModule extends BinderModule {
 		@Override
 		protected void declare() {
 			// have the dispatcher receive "event" type method connections
+			construct(DefaultEventDispatcher.class);
 			asDefault().bind(ConnectorBinder.EVENT_CONNECTOR, Connector.class)
 					.to(DefaultEventDispatcher.class);
+			asDefault().bind(EventDispatcher.class) //
+					.to(DefaultEventDispatcher.class);
 
 			// connect On
 			receiveIn(On.Aware.class, On.class);
@@ -0,0 +1,235 @@
+package se.jbee.inject.event;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * A bounded ring buffer of events with multiple producers and a single
+ * consumer {@link Thread}.
+ * <p>
+ * The slots are allocated once. Producers claim a sequence number, write the
+ * target and event to the slot of that sequence and mark it as published. The
+ * consumer takes all events published in sequence since its last batch and
+ * hands them to the {@link BiConsumer} one by one in the order they were
+ * claimed. A consumer that has nothing to do parks until an event is
+ * published.
+ * <p>
+ * When the ring is full producers wait for the consumer, except if they are
+ * the consumer of a ring themselves. Those would risk waiting for each other.
+ * Their events are added to an unbounded overflow queue instead that the
+ * consumer of the ring drains when all events in the ring are consumed.
+ *
+ * @since 8.1
+ */
+final class EventRing {
+
+	private static final int SPINS = 100;
+	private static final int YIELDS = 200;
+	private static final long PARK_NANOS = 1_000_000L;
+
+	/**
+	 * All consumers use this type of {@link Thread} so that they can be
+	 * recognised.
+	 */
+	private static final class ConsumerThread extends Thread {
+
+		ConsumerThread(Runnable target, String name) {
+			super(target, name);
+		}
+	}
+
+	private final String name;
+	private final Object[] slots;
+	private final Object[] targets;
+	private final AtomicLongArray published;
+	private final int mask;
+	private final BiConsumer<Object, Object> consumer;
+	private final Queue<Object[]> overflow = new ConcurrentLinkedQueue<>();
+	private final AtomicLong claimed = new AtomicLong(-1L);
+	private volatile long consumed = -1L;
+	private volatile boolean parked;
+	private volatile boolean stopped;
+	private volatile Thread thread;
+
+	/**
+	 * @param capacity is rounded up to the next power of two
+	 * @param consumer called for each target and event by the consumer {@link
+	 * Thread}
+	 */
+	EventRing(String name, int capacity, BiConsumer<Object, Object> consumer) {
+		int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		this.name = name;
+		this.slots = new Object[size];
+		this.targets = new Object[size];
+		this.published = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			published.set(i, -1L);
+		this.mask = size - 1;
+		this.consumer = consumer;
+	}
+
+	static boolean isConsumerThread() {
+		return Thread.currentThread() instanceof ConsumerThread;
+	}
+
+	/**
+	 * @return the sequence number of the published event or -1 if the event
+	 * was not published because the ring was {@link #stop()}ped. If the event
+	 * was added to the overflow queue the sequence number of the most recently
+	 * claimed slot is returned.
+	 */
+	long publish(Object target, Object event) {
+		if (thread == null)
+			start();
+		if (stopped)
+			return -1L;
+		boolean consumerThread = isConsumerThread();
+		// once overflowing the consumer threads keep using the overflow until it is drained to keep their order
+		long seq = consumerThread && !overflow.isEmpty() ? -1L : tryClaim();
+		if (seq < 0 && consumerThread) {
+			overflow.add(new Object[] { target, event });
+			if (parked)
+				LockSupport.unpark(thread);
+			return claimed.get();
+		}
+		int idle = 0;
+		while (seq < 0) {
+			if (stopped)
+				return -1L;
+			idle = idle(idle);
+			seq = tryClaim();
+		}
+		int i = (int) seq & mask;
+		targets[i] = target;
+		slots[i] = event;
+		published.set(i, seq);
+		if (parked)
+			LockSupport.unpark(thread);
+		return seq;
+	}
+
+	private long tryClaim() {
+		long current;
+		long next;
+		do {
+			current = claimed.get();
+			next = current + 1;
+			if (next - slots.length > consumed)
+				return -1L;
+		} while (!claimed.compareAndSet(current, next));
+		return next;
+	}
+
+	/**
+	 * Waits until the event with the given sequence number has been consumed.
+	 * Consumer threads do not wait.
+	 */
+	void awaitConsumed(long seq) {
+		while (consumed < seq && !stopped && !isConsumerThread())
+			LockSupport.parkNanos(this, PARK_NANOS / 10);
+	}
+
+	private synchronized void start() {
+		if (thread != null)
+			return;
+		Thread t = new ConsumerThread(this::consume, name);
+		t.setDaemon(true);
+		thread = t;
+		t.start();
+	}
+
+	/**
+	 * Stops the consumer after all events published so far have been consumed.
+	 */
+	void stop() {
+		stopped = true;
+		Thread t = thread;
+		if (t != null)
+			LockSupport.unpark(t);
+	}
+
+	private void consume() {
+		long next = consumed + 1;
+		int idle = 0;
+		while (true) {
+			long available = highestPublished(next);
+			if (available >= next) {
+				idle = 0;
+				for (long seq = next; seq <= available; seq++) {
+					int i = (int) seq & mask;
+					Object target = targets[i];
+					Object event = slots[i];
+					targets[i] = null;
+					slots[i] = null;
+					accept(target, event);
+				}
+				consumed = available;
+				next = available + 1;
+			} else if (drainOverflow()) {
+				// overflowed events were published after those in the ring
+				idle = 0;
+			} else {
+				if (stopped && claimed.get() < next)
+					return; // all claimed events are consumed
+				idle = idleOrPark(idle, next);
+			}
+		}
+	}
+
+	private boolean drainOverflow() {
+		Object[] overflowed = overflow.poll();
+		if (overflowed == null)
+			return false;
+		while (overflowed != null) {
+			accept(overflowed[0], overflowed[1]);
+			overflowed = overflow.poll();
+		}
+		return true;
+	}
+
+	private void accept(Object target, Object event) {
+		try {
+			consumer.accept(target, event);
+		} catch (RuntimeException e) {
+			// the consumer has to survive whatever happens
+		}
+	}
+
+	private long highestPublished(long from) {
+		long limit = claimed.get();
+		long seq = from;
+		while (seq <= limit && published.get((int) seq & mask) == seq)
+			seq++;
+		return seq - 1;
+	}
+
+	private static int idle(int idle) {
+		if (idle < SPINS) {
+			Thread.onSpinWait();
+		} else if (idle < SPINS + YIELDS) {
+			Thread.yield();
+		} else {
+			LockSupport.parkNanos(PARK_NANOS / 10);
+		}
+		return idle + 1;
+	}
+
+	private int idleOrPark(int idle, long next) {
+		if (idle < SPINS + YIELDS)
+			return idle(idle);
+		parked = true;
+		if (highestPublished(next) < next && overflow.isEmpty() && !stopped)
+			LockSupport.park(this);
+		parked = false;
+		return idle;
+	}
+
+	@Override
+	public String toString() {
+		return name + "[" + (consumed + 1) + ".." + claimed.get() + "]";
+	}
+}
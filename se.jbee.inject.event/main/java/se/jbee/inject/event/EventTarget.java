@@ -1,4 +1,44 @@
 package se.jbee.inject.event;
 
+import se.jbee.lang.Type;
+
+import java.lang.reflect.Method;
+
+/**
+ * The receiving {@link Method} of a particular instance that is connected to
+ * receive events.
+ *
+ * @since 8.1
+ */
 public final class EventTarget {
+
+	public final Object instance;
+	public final Type<?> as;
+	public final Method method;
+
+	public EventTarget(Object instance, Type<?> as, Method method) {
+		this.instance = instance;
+		this.as = as;
+		this.method = method;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof EventTarget && equalTo((EventTarget) obj);
+	}
+
+	public boolean equalTo(EventTarget other) {
+		return instance == other.instance && method.equals(other.method);
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(instance) ^ method.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return method.getDeclaringClass().getSimpleName() + "#"
+			+ method.getName() + "@" + System.identityHashCode(instance);
+	}
 }
@@ -3,6 +3,8 @@ package se.jbee.inject.schedule;
 import se.jbee.inject.*;
 import se.jbee.inject.binder.BinderModule;
 import se.jbee.inject.config.Config;
+import se.jbee.inject.config.ConfigSnapshot;
+import se.jbee.inject.config.ConfigSource;
 import se.jbee.inject.config.Connector;
 import se.jbee.inject.config.HintsBy;
 import se.jbee.inject.config.Invoke;
@@ -70,7 +72,8 @@ public final class SchedulerModule extends BinderModule {
 		long intervalMillis = scheduled.unit().toMillis(scheduled.every());
 		String property = scheduled.by();
 		if (!property.isEmpty()) {
-			intervalMillis = context.resolve(dependency(Config.class).injectingInto(as))
+			intervalMillis = context.resolve(dependency(Config.class) //
+					.injectingInto(target.getDeclaringClass()))
 					.longValue(property, intervalMillis);
 		}
 		//TODO use start from annotation
@@ -78,11 +81,19 @@ public final class SchedulerModule extends BinderModule {
 				LocalDateTime.now(), scheduled.maxFails());
 	}
 
+	/**
+	 * Schedules {@link Schedule}s using the {@link ScheduledExecutor}.
+	 * <p>
+	 * When a {@link ConfigSource} is bound the interval of {@link Scheduled}
+	 * methods that are configured {@link Scheduled#by()} a property is updated
+	 * whenever the {@link ConfigSource} changes.
+	 */
 	public static class DefaultScheduler implements Consumer<Schedule> {
 
 		private final Injector context;
 		private final HintsBy hintsBy;
 		private final ScheduledExecutor executor;
+		private final ConfigSource source;
 
 		public DefaultScheduler(Injector context, ScheduledExecutor executor) {
 			this.context = context;
@@ -90,18 +101,74 @@ public final class SchedulerModule extends BinderModule {
 			this.hintsBy = context.resolve(Env.class)
 					.in(DefaultScheduler.class)
 					.property(HintsBy.class);
+			this.source = context.resolveOrNull(ConfigSource.class);
 		}
 
 		@Override
 		public void accept(Schedule schedule) {
+			Scheduled scheduled = schedule.scheduled.getAnnotation(Scheduled.class);
+			if (source != null && scheduled != null && !scheduled.by().isEmpty()) {
+				Rescheduling rescheduling = new Rescheduling(schedule);
+				source.addListener(rescheduling);
+				rescheduling.start();
+			} else {
+				schedule(schedule, () -> {});
+			}
+		}
+
+		/**
+		 * @param onCancel called when the task cancels its own schedule
+		 */
+		private AtomicReference<Future<?>> schedule(Schedule schedule,
+				Runnable onCancel) {
 			AtomicReference<Future<?>> cancellation = new AtomicReference<>();
-			cancellation.set(executor.executeInSchedule(createTask(schedule, cancellation),
+			cancellation.set(executor.executeInSchedule(createTask(schedule, cancellation, onCancel),
 					schedule.delayNow().toMillis(),
 					schedule.interval.toMillis(),
 					TimeUnit.MILLISECONDS));
+			return cancellation;
 		}
 
-		private Runnable createTask(Schedule schedule, AtomicReference<Future<?>> cancellation) {
+		/**
+		 * Cancels and schedules again when the configured interval changed.
+		 * It stops listening as soon as the schedule is cancelled.
+		 */
+		private final class Rescheduling implements ConfigSource.Listener {
+
+			private Schedule current;
+			private AtomicReference<Future<?>> cancellation;
+
+			Rescheduling(Schedule current) {
+				this.current = current;
+			}
+
+			synchronized void start() {
+				cancellation = schedule(current, this::cancelled);
+			}
+
+			private void cancelled() {
+				source.removeListener(this);
+			}
+
+			@Override
+			public synchronized void onChange(ConfigSnapshot before,
+					ConfigSnapshot after) {
+				if (cancellation.get().isCancelled()) {
+					cancelled();
+					return;
+				}
+				Schedule changed = annotated(current.instance, current.as,
+						current.scheduled, context);
+				if (changed.interval.equals(current.interval))
+					return;
+				cancellation.get().cancel(false);
+				current = changed;
+				cancellation = schedule(changed, this::cancelled);
+			}
+		}
+
+		private Runnable createTask(Schedule schedule,
+				AtomicReference<Future<?>> cancellation, Runnable onCancel) {
 			Method target = schedule.scheduled;
 			Type<?> objType = actualInstanceType(schedule.instance, schedule.as);
 			Dependency<?> dep = dependency(
@@ -113,20 +180,25 @@ public final class SchedulerModule extends BinderModule {
 					.injectingInto(target.getDeclaringClass()));
 			AtomicInteger consecutiveFailedRuns = new AtomicInteger();
 			return () -> {
-				if (cancellation.get().isCancelled())
+				if (cancellation.get().isCancelled()) {
+					onCancel.run();
 					throw new CancellationException(
 							"Schedule is cancelled: " + schedule);
+				}
 				try {
 					invoke.call(target, schedule.instance, site.args(context));
 					consecutiveFailedRuns.set(0);
 				} catch (InterruptedException ex) {
 					cancellation.get().cancel(true);
+					onCancel.run();
 					Thread.currentThread().interrupt();
 				} catch (Exception ex) {
 					//TODO also emit event?
 					if (schedule.cancelAfterFailedRuns() && consecutiveFailedRuns
-							.incrementAndGet() >= schedule.cancelAfterConsecutiveFailedRuns)
+							.incrementAndGet() >= schedule.cancelAfterConsecutiveFailedRuns) {
 						cancellation.get().cancel(true);
+						onCancel.run();
+					}
 					throw new RuntimeException(ex);
 				}
 			};
@@ -0,0 +1,18 @@
+/**
+ * Contains the annotation processors that create the {@code
+ * se.jbee.inject.bind.BindingIndex} and generated {@code
+ * se.jbee.inject.config.New} implementations at compile time.
+ * <p>
+ * It is used on the processor path only and does not need to be present at
+ * runtime.
+ */
+module se.jbee.inject.processor {
+
+	requires java.compiler;
+
+	exports se.jbee.inject.processor;
+
+	provides javax.annotation.processing.Processor
+			with se.jbee.inject.processor.BindingIndexProcessor,
+				se.jbee.inject.processor.NewProcessor;
+}
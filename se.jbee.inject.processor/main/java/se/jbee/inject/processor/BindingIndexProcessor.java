@@ -0,0 +1,293 @@
+package se.jbee.inject.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.element.ModuleElement.Directive;
+import javax.lang.model.element.ModuleElement.DirectiveKind;
+import javax.lang.model.element.ModuleElement.ProvidesDirective;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileManager.Location;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.*;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Writes the {@code se.jbee.inject.bind.BindingIndex} for the compiled
+ * classes so that bootstrapping does not need to reflect on them.
+ * <p>
+ * {@code Bundle} and {@code ModuleWith} service providers are taken from the
+ * {@code provides} directives of compiled modules and from {@code
+ * META-INF/services} files found in the class output or the source path.
+ * <p>
+ * The processor works on names only. It neither depends on the runtime
+ * modules nor does it claim any annotations.
+ *
+ * @since 8.1
+ */
+@SupportedAnnotationTypes("*")
+public final class BindingIndexProcessor extends AbstractProcessor {
+
+	/**
+	 * Same as {@code se.jbee.inject.bind.BindingIndex#LOCATION}
+	 */
+	static final String LOCATION = "META-INF/se.jbee.inject/index";
+
+	private static final String BUNDLE = "se.jbee.inject.bind.Bundle";
+	private static final String MODULE_WITH = "se.jbee.inject.bind.ModuleWith";
+	private static final String EXTENDS = "se.jbee.inject.Extends";
+
+	private final Set<String> entries = new LinkedHashSet<>();
+	private final Set<String> scannedModules = new HashSet<>();
+	private boolean servicesScanned;
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment round) {
+		if (round.processingOver()) {
+			write();
+			return false;
+		}
+		Elements elements = processingEnv.getElementUtils();
+		for (Element e : round.getRootElements()) {
+			if (e instanceof TypeElement)
+				indexType((TypeElement) e);
+			ModuleElement module = elements.getModuleOf(e);
+			if (module != null && !module.isUnnamed()
+				&& scannedModules.add(module.getQualifiedName().toString()))
+				indexProviders(module);
+		}
+		if (!servicesScanned) {
+			servicesScanned = true;
+			indexServiceFiles(BUNDLE);
+			indexServiceFiles(MODULE_WITH);
+		}
+		return false;
+	}
+
+	private void indexType(TypeElement type) {
+		Elements elements = processingEnv.getElementUtils();
+		String name = binaryName(type);
+		for (AnnotationMirror a : elements.getAllAnnotationMirrors(type))
+			if (isRuntime(a))
+				entries.add("type\t" + name + "\t" + annotationName(a));
+		for (Element member : elements.getAllMembers(type))
+			if (member.getKind() == ElementKind.METHOD
+				&& member.getModifiers().contains(Modifier.PUBLIC)
+				&& !isDeclaredByJDK(member))
+				for (AnnotationMirror a : member.getAnnotationMirrors())
+					if (isRuntime(a))
+						entries.add("method\t" + name + "\t" + annotationName(a)
+							+ "\t" + member.getSimpleName() + "\t"
+							+ parameterTypes((ExecutableElement) member));
+		for (Element nested : type.getEnclosedElements())
+			if (nested instanceof TypeElement)
+				indexType((TypeElement) nested);
+	}
+
+	/**
+	 * Methods inherited from JDK types only carry JDK internal annotations
+	 * which never have an effect.
+	 */
+	private static boolean isDeclaredByJDK(Element member) {
+		String declaring = ((TypeElement) member.getEnclosingElement()) //
+				.getQualifiedName().toString();
+		return declaring.startsWith("java.") || declaring.startsWith("jdk.");
+	}
+
+	private void indexProviders(ModuleElement module) {
+		for (Directive d : module.getDirectives())
+			if (d.getKind() == DirectiveKind.PROVIDES) {
+				ProvidesDirective provides = (ProvidesDirective) d;
+				String service = provides.getService().getQualifiedName().toString();
+				for (TypeElement impl : provides.getImplementations())
+					indexProvider(service, impl);
+			}
+	}
+
+	private void indexServiceFiles(String service) {
+		Elements elements = processingEnv.getElementUtils();
+		for (String provider : serviceFileEntries(service)) {
+			TypeElement impl = elements.getTypeElement(provider.replace('$', '.'));
+			if (impl != null)
+				indexProvider(service, impl);
+		}
+	}
+
+	private Set<String> serviceFileEntries(String service) {
+		Set<String> res = new LinkedHashSet<>();
+		Filer filer = processingEnv.getFiler();
+		for (Location location : new Location[] { StandardLocation.CLASS_OUTPUT,
+				StandardLocation.SOURCE_PATH }) {
+			try {
+				FileObject file = filer.getResource(location, "",
+						"META-INF/services/" + service);
+				try (BufferedReader in = new BufferedReader(
+						new InputStreamReader(file.openInputStream(), UTF_8))) {
+					String line;
+					while ((line = in.readLine()) != null) {
+						int comment = line.indexOf('#');
+						String name = (comment < 0 ? line : line.substring(0, comment)).trim();
+						if (!name.isEmpty())
+							res.add(name);
+					}
+				}
+			} catch (IOException | IllegalArgumentException e) {
+				// no such file or location
+			}
+		}
+		return res;
+	}
+
+	private void indexProvider(String service, TypeElement impl) {
+		if (BUNDLE.equals(service)) {
+			TypeMirror target = extendsTarget(impl);
+			entries.add("bundle\t" + binaryName(impl) + "\t"
+				+ (target == null ? "" : className(target)));
+		} else if (MODULE_WITH.equals(service)) {
+			entries.add("effect\t" + binaryName(impl) + "\t"
+				+ typeAnnotationImplementedBy(impl));
+		}
+	}
+
+	/**
+	 * Mirrors what {@code ServiceLoaderAnnotations} does by reflection.
+	 */
+	private String typeAnnotationImplementedBy(TypeElement impl) {
+		if (!isModuleWithOfClass(impl.asType()))
+			return "";
+		TypeMirror target = extendsTarget(impl);
+		if (target != null) {
+			Element targetElement = processingEnv.getTypeUtils().asElement(target);
+			return targetElement != null
+				&& targetElement.getKind() == ElementKind.ANNOTATION_TYPE
+					? className(target)
+					: "";
+		}
+		List<AnnotationMirror> present = new ArrayList<>();
+		for (AnnotationMirror a : processingEnv.getElementUtils() //
+				.getAllAnnotationMirrors(impl))
+			if (isRuntime(a))
+				present.add(a);
+		return present.size() == 1 ? annotationName(present.get(0)) : "";
+	}
+
+	private boolean isModuleWithOfClass(TypeMirror type) {
+		Types types = processingEnv.getTypeUtils();
+		Deque<TypeMirror> todo = new ArrayDeque<>();
+		todo.add(type);
+		while (!todo.isEmpty()) {
+			TypeMirror t = todo.poll();
+			if (t.getKind() != TypeKind.DECLARED)
+				continue;
+			DeclaredType declared = (DeclaredType) t;
+			TypeElement element = (TypeElement) declared.asElement();
+			if (element.getQualifiedName().contentEquals(MODULE_WITH)) {
+				List<? extends TypeMirror> args = declared.getTypeArguments();
+				return args.size() == 1
+					&& className(types.erasure(args.get(0))).equals("java.lang.Class");
+			}
+			todo.addAll(types.directSupertypes(t));
+		}
+		return false;
+	}
+
+	private static TypeMirror extendsTarget(TypeElement type) {
+		for (AnnotationMirror a : type.getAnnotationMirrors())
+			if (((TypeElement) a.getAnnotationType().asElement()) //
+					.getQualifiedName().contentEquals(EXTENDS))
+				for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : a.getElementValues().entrySet())
+					if (e.getKey().getSimpleName().contentEquals("value"))
+						return (TypeMirror) e.getValue().getValue();
+		return null;
+	}
+
+	private static boolean isRuntime(AnnotationMirror a) {
+		Retention retention = a.getAnnotationType().asElement() //
+				.getAnnotation(Retention.class);
+		return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+	}
+
+	private String annotationName(AnnotationMirror a) {
+		return binaryName((TypeElement) a.getAnnotationType().asElement());
+	}
+
+	private String binaryName(TypeElement type) {
+		return processingEnv.getElementUtils().getBinaryName(type).toString();
+	}
+
+	private String parameterTypes(ExecutableElement method) {
+		StringBuilder b = new StringBuilder();
+		for (VariableElement param : method.getParameters()) {
+			if (b.length() > 0)
+				b.append(',');
+			b.append(className(param.asType()));
+		}
+		return b.toString();
+	}
+
+	/**
+	 * @return the name as returned by {@link Class#getName()}
+	 */
+	private String className(TypeMirror type) {
+		TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+		if (erased.getKind().isPrimitive())
+			return erased.toString();
+		if (erased.getKind() == TypeKind.ARRAY)
+			return "[" + descriptor(((ArrayType) erased).getComponentType());
+		return binaryName((TypeElement) ((DeclaredType) erased).asElement());
+	}
+
+	private String descriptor(TypeMirror type) {
+		TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+		switch (erased.getKind()) {
+			case BOOLEAN: return "Z";
+			case BYTE: return "B";
+			case CHAR: return "C";
+			case SHORT: return "S";
+			case INT: return "I";
+			case LONG: return "J";
+			case FLOAT: return "F";
+			case DOUBLE: return "D";
+			case ARRAY: return "[" + descriptor(((ArrayType) erased).getComponentType());
+			default: return "L" + className(erased) + ";";
+		}
+	}
+
+	private void write() {
+		if (entries.isEmpty())
+			return;
+		try {
+			FileObject index = processingEnv.getFiler().createResource(
+					StandardLocation.CLASS_OUTPUT, "", LOCATION);
+			try (Writer out = new OutputStreamWriter(index.openOutputStream(),
+					UTF_8)) {
+				out.write("# generated by " + getClass().getName() + "\n");
+				for (String entry : entries)
+					out.write(entry + "\n");
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Failed to write " + LOCATION + ": " + e.getMessage());
+		}
+	}
+}
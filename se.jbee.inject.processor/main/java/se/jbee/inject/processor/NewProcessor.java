@@ -0,0 +1,380 @@
+package se.jbee.inject.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@code se.jbee.inject.config.New} implementation for each type
+ * annotated with {@code se.jbee.inject.config.New.Generate} or located in one
+ * of the packages given by the {@value #PACKAGES} option (comma separated
+ * package prefixes).
+ * <p>
+ * The generated {@code New} calls the non-private constructors of the type
+ * directly instead of using reflection. It is used at runtime when {@code
+ * se.jbee.inject.config.New#preferGenerated(New)} is bound.
+ * <p>
+ * When the constructor picked by the default {@code
+ * se.jbee.inject.config.ConstructsBy#OPTIMISTIC} strategy can be determined
+ * at compile time the generated class also is a {@code se.jbee.inject.Supplier}
+ * for the type. It calls that constructor using the {@code se.jbee.inject.Hint}s
+ * the default {@code se.jbee.inject.config.HintsBy#AUTO} strategy would use
+ * which are created once when the class is loaded. This is not possible for
+ * generic types, when the picked constructor is private or when multiple
+ * constructors are equally suitable.
+ * <p>
+ * The generated class is named like the binary name of the type plus {@value
+ * #SUFFIX}. As {@code $} is reserved for generated names this cannot collide
+ * with names of other types.
+ *
+ * @since 8.1
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(NewProcessor.PACKAGES)
+public final class NewProcessor extends AbstractProcessor {
+
+	/**
+	 * Option to generate {@code New}s for all suitable types in the listed
+	 * packages without annotating them, for example types that are only bound
+	 * by auto-binding.
+	 */
+	public static final String PACKAGES = "se.jbee.inject.processor.new.packages";
+
+	/**
+	 * Same as {@code se.jbee.inject.config.GeneratedNew#SUFFIX}
+	 */
+	static final String SUFFIX = "$$New";
+
+	private static final String GENERATE = "se.jbee.inject.config.New.Generate";
+
+	private final Set<String> generated = new HashSet<>();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment round) {
+		if (round.processingOver())
+			return false;
+		List<String> packages = packages();
+		for (TypeElement type : ElementFilter.typesIn(round.getRootElements()))
+			process(type, packages);
+		return false;
+	}
+
+	private List<String> packages() {
+		String option = processingEnv.getOptions().get(PACKAGES);
+		List<String> res = new ArrayList<>();
+		if (option != null)
+			for (String pkg : option.split(","))
+				if (!pkg.trim().isEmpty())
+					res.add(pkg.trim());
+		return res;
+	}
+
+	private void process(TypeElement type, List<String> packages) {
+		if (generated.contains(type.getQualifiedName().toString()))
+			return;
+		boolean annotated = isAnnotatedGenerate(type);
+		if (annotated || isInPackages(type, packages)) {
+			if (isConstructable(type)) {
+				generate(type);
+			} else if (annotated) {
+				processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+						"No New can be generated for a type that is abstract, private or a non-static inner class",
+						type);
+			}
+		}
+		for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements()))
+			process(nested, packages);
+	}
+
+	private static boolean isAnnotatedGenerate(TypeElement type) {
+		for (AnnotationMirror a : type.getAnnotationMirrors())
+			if (((TypeElement) a.getAnnotationType().asElement()) //
+					.getQualifiedName().contentEquals(GENERATE))
+				return true;
+		return false;
+	}
+
+	private boolean isInPackages(TypeElement type, List<String> packages) {
+		if (packages.isEmpty())
+			return false;
+		String pkg = processingEnv.getElementUtils().getPackageOf(type) //
+				.getQualifiedName().toString();
+		for (String prefix : packages)
+			if (pkg.equals(prefix) || pkg.startsWith(prefix + "."))
+				return true;
+		return false;
+	}
+
+	private static boolean isConstructable(TypeElement type) {
+		if (type.getKind() != ElementKind.CLASS
+			|| type.getModifiers().contains(Modifier.ABSTRACT))
+			return false;
+		Element e = type;
+		while (e instanceof TypeElement) {
+			if (e.getModifiers().contains(Modifier.PRIVATE))
+				return false;
+			if (e.getEnclosingElement() instanceof TypeElement
+				&& !e.getModifiers().contains(Modifier.STATIC))
+				return false;
+			e = e.getEnclosingElement();
+		}
+		return true;
+	}
+
+	private void generate(TypeElement type) {
+		String pkg = processingEnv.getElementUtils().getPackageOf(type) //
+				.getQualifiedName().toString();
+		String binaryName = processingEnv.getElementUtils() //
+				.getBinaryName(type).toString();
+		String simpleName = (pkg.isEmpty()
+			? binaryName
+			: binaryName.substring(pkg.length() + 1)) + SUFFIX;
+		String name = pkg.isEmpty() ? simpleName : pkg + "." + simpleName;
+		if (!generated.add(name))
+			return;
+		try (Writer out = processingEnv.getFiler() //
+				.createSourceFile(name, type).openWriter()) {
+			out.write(source(pkg, simpleName, type));
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Failed to write " + name + ": " + e.getMessage(), type);
+		}
+	}
+
+	private String source(String pkg, String simpleName, TypeElement type) {
+		List<ExecutableElement> all = ElementFilter.constructorsIn(
+				type.getEnclosedElements());
+		Map<Integer, List<ExecutableElement>> byCount = new TreeMap<>();
+		Map<Integer, Integer> allByCount = new HashMap<>();
+		for (ExecutableElement c : all) {
+			int count = c.getParameters().size();
+			allByCount.merge(count, 1, Integer::sum);
+			if (!c.getModifiers().contains(Modifier.PRIVATE))
+				byCount.computeIfAbsent(count, key -> new ArrayList<>()).add(c);
+		}
+		String typeName = sourceName(type.asType());
+		ExecutableElement picked = optimisticConstructor(type, all);
+		List<String> hints = picked == null ? null : hints(picked);
+		StringBuilder src = new StringBuilder();
+		if (!pkg.isEmpty())
+			src.append("package ").append(pkg).append(";\n\n");
+		src.append("/**\n * Generated by ").append(getClass().getName()) //
+				.append(" for {@link ").append(typeName).append("}.\n */\n");
+		src.append("public final class ").append(simpleName);
+		if (hints != null)
+			src.append(" extends se.jbee.inject.binder.Supply.WithArgs<") //
+					.append(typeName).append(">");
+		src.append(" implements se.jbee.inject.config.New {\n\n");
+		if (hints != null)
+			appendSupplier(src, typeName, picked, hints);
+		src.append("\t@Override\n\t@SuppressWarnings({ \"unchecked\", \"rawtypes\" })\n");
+		src.append("\tpublic <T> T call(java.lang.reflect.Constructor<T> target, Object[] args)\n");
+		src.append("\t\t\tthrows Exception {\n");
+		src.append("\t\tswitch (target.getParameterCount()) {\n");
+		for (Map.Entry<Integer, List<ExecutableElement>> e : byCount.entrySet()) {
+			src.append("\t\t\tcase ").append(e.getKey()).append(":\n");
+			boolean unique = allByCount.get(e.getKey()) == 1;
+			for (ExecutableElement c : e.getValue()) {
+				String create = "return (T) new " + typeName + "(" + arguments(c) + ");\n";
+				if (unique) {
+					src.append("\t\t\t\t").append(create);
+				} else {
+					src.append("\t\t\t\tif (java.util.Arrays.equals(target.getParameterTypes(), new Class<?>[] {") //
+							.append(parameterClasses(c)).append(" }))\n");
+					src.append("\t\t\t\t\t").append(create);
+				}
+			}
+			if (!unique)
+				src.append("\t\t\t\tbreak;\n");
+		}
+		src.append("\t\t}\n");
+		src.append("\t\tthrow new NoSuchMethodException(target.toString());\n");
+		src.append("\t}\n}\n");
+		return src.toString();
+	}
+
+	private void appendSupplier(StringBuilder src, String typeName,
+			ExecutableElement constructor, List<String> hints) {
+		src.append("\tprivate static final se.jbee.inject.Hint<?>[] HINTS = {");
+		for (int i = 0; i < hints.size(); i++)
+			src.append(i == 0 ? "\n" : ",\n").append("\t\t\tse.jbee.inject.Hint.relativeReferenceTo(") //
+					.append(hints.get(i)).append(")");
+		src.append(" };\n\n");
+		src.append("\t@Override\n");
+		src.append("\tprotected ").append(typeName) //
+				.append(" invoke(Object[] args, se.jbee.inject.Injector context) {\n");
+		src.append("\t\treturn new ").append(typeName).append("(") //
+				.append(arguments(constructor)).append(");\n\t}\n\n");
+		src.append("\t@Override\n");
+		src.append("\tprotected se.jbee.inject.Hint<?>[] actualParametersFor(\n");
+		src.append("\t\t\tse.jbee.inject.Dependency<? super ").append(typeName) //
+				.append("> dep, se.jbee.inject.Injector context) {\n");
+		src.append("\t\treturn HINTS.clone();\n\t}\n\n");
+	}
+
+	/**
+	 * Mirrors the {@code ConstructsBy#OPTIMISTIC} strategy: the most visible
+	 * and out of those the one with most parameters that does not have a
+	 * parameter of the type itself.
+	 *
+	 * @return the picked constructor or null if it is not unique, private or
+	 * the type is generic
+	 */
+	private ExecutableElement optimisticConstructor(TypeElement type,
+			List<ExecutableElement> constructors) {
+		if (!type.getTypeParameters().isEmpty())
+			return null;
+		Types types = processingEnv.getTypeUtils();
+		ExecutableElement picked = null;
+		boolean unique = true;
+		for (ExecutableElement c : constructors) {
+			if (isRecursive(types, type, c))
+				continue;
+			int cmp = picked == null ? 1 : compareOptimistic(c, picked);
+			if (cmp > 0) {
+				picked = c;
+				unique = true;
+			} else if (cmp == 0) {
+				unique = false;
+			}
+		}
+		if (picked == null || !unique
+			|| picked.getModifiers().contains(Modifier.PRIVATE))
+			return null;
+		return picked;
+	}
+
+	private static boolean isRecursive(Types types, TypeElement type,
+			ExecutableElement constructor) {
+		for (VariableElement param : constructor.getParameters())
+			if (types.isSameType(types.erasure(param.asType()),
+					types.erasure(type.asType())))
+				return true;
+		return false;
+	}
+
+	private static int compareOptimistic(ExecutableElement a,
+			ExecutableElement b) {
+		int cmp = Integer.compare(visibility(a), visibility(b));
+		return cmp != 0
+			? cmp
+			: Integer.compare(a.getParameters().size(), b.getParameters().size());
+	}
+
+	private static int visibility(Element e) {
+		Set<Modifier> modifiers = e.getModifiers();
+		if (modifiers.contains(Modifier.PUBLIC))
+			return 3;
+		if (modifiers.contains(Modifier.PROTECTED))
+			return 2;
+		return modifiers.contains(Modifier.PRIVATE) ? 0 : 1;
+	}
+
+	/**
+	 * @return source code of the {@code se.jbee.lang.Type} of each parameter
+	 * or null if any of them cannot be expressed that way
+	 */
+	private List<String> hints(ExecutableElement constructor) {
+		List<String> res = new ArrayList<>();
+		for (VariableElement param : constructor.getParameters()) {
+			String type = typeSource(param.asType());
+			if (type == null)
+				return null;
+			res.add(type);
+		}
+		return res;
+	}
+
+	private String typeSource(TypeMirror type) {
+		switch (type.getKind()) {
+			case ARRAY:
+				String component = typeSource(
+						((ArrayType) type).getComponentType());
+				return component == null ? null : component + ".addArrayDimension()";
+			case DECLARED:
+				StringBuilder src = new StringBuilder("se.jbee.lang.Type.raw(") //
+						.append(sourceName(type)).append(".class)");
+				List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+				if (args.isEmpty())
+					return src.toString();
+				src.append(".parameterized(");
+				for (int i = 0; i < args.size(); i++) {
+					String arg = typeSource(args.get(i));
+					if (arg == null)
+						return null;
+					src.append(i == 0 ? "" : ", ").append(arg);
+				}
+				return src.append(")").toString();
+			case WILDCARD:
+				WildcardType wildcard = (WildcardType) type;
+				if (wildcard.getSuperBound() != null)
+					return null;
+				if (wildcard.getExtendsBound() == null)
+					return "se.jbee.lang.Type.WILDCARD";
+				String bound = typeSource(wildcard.getExtendsBound());
+				return bound == null ? null : bound + ".asUpperBound()";
+			default:
+				return type.getKind().isPrimitive()
+					? "se.jbee.lang.Type.raw(" + type + ".class)"
+					: null;
+		}
+	}
+
+	private String arguments(ExecutableElement constructor) {
+		StringBuilder b = new StringBuilder();
+		List<? extends VariableElement> params = constructor.getParameters();
+		for (int i = 0; i < params.size(); i++) {
+			if (i > 0)
+				b.append(", ");
+			b.append('(').append(castName(params.get(i).asType())) //
+					.append(") args[").append(i).append(']');
+		}
+		return b.toString();
+	}
+
+	private String parameterClasses(ExecutableElement constructor) {
+		StringBuilder b = new StringBuilder();
+		for (VariableElement param : constructor.getParameters()) {
+			if (b.length() > 0)
+				b.append(',');
+			b.append(' ').append(sourceName(param.asType())).append(".class");
+		}
+		return b.toString();
+	}
+
+	private String castName(TypeMirror type) {
+		Types types = processingEnv.getTypeUtils();
+		if (type.getKind().isPrimitive())
+			return sourceName(types.boxedClass(types.getPrimitiveType(
+					type.getKind())).asType());
+		return sourceName(type);
+	}
+
+	private String sourceName(TypeMirror type) {
+		TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+		if (erased.getKind() == TypeKind.DECLARED)
+			return ((TypeElement) processingEnv.getTypeUtils() //
+					.asElement(erased)).getQualifiedName().toString();
+		return erased.toString();
+	}
+}
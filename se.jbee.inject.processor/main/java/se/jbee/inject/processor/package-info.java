@@ -0,0 +1,5 @@
+/**
+ * Contains annotation processors that move work from bootstrapping to compile
+ * time.
+ */
+package se.jbee.inject.processor;
@@ -0,0 +1,152 @@
+package se.jbee.lang;
+
+import java.lang.annotation.Annotation;
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+
+/**
+ * A cache for the {@link Class} members and annotations used during
+ * bootstrapping.
+ * <p>
+ * Each call to {@link Class#getDeclaredMethods()} and alike creates fresh
+ * copies of the members. This does not only copy arrays, the copies also have
+ * to compute their generic types, parameters and annotations again as the JDK
+ * caches these per member object. Using the members from this cache means
+ * the same member objects are used in all bootstraps of the same JVM.
+ * <p>
+ * The returned arrays are copies that can be modified by the caller. The
+ * members within are shared and must only be read. A member that is handed to
+ * code that might change its state, like {@link
+ * java.lang.reflect.AccessibleObject#setAccessible(boolean)}, has to be a
+ * {@link #copy(Member)}.
+ * <p>
+ * The cached members are only softly referenced so that they do not keep
+ * their {@link Class} (and its {@link ClassLoader}) alive.
+ *
+ * @since 8.1
+ */
+public final class Reflection {
+
+	private Reflection() {
+		throw new UnsupportedOperationException("util");
+	}
+
+	private static final ClassValue<SoftReference<Members>> MEMBERS = new ClassValue<SoftReference<Members>>() {
+
+		@Override
+		protected SoftReference<Members> computeValue(Class<?> type) {
+			return new SoftReference<>(new Members());
+		}
+	};
+
+	private static Members members(Class<?> type) {
+		Members res = MEMBERS.get(type).get();
+		if (res != null)
+			return res;
+		MEMBERS.remove(type);
+		res = MEMBERS.get(type).get();
+		return res != null ? res : new Members();
+	}
+
+	/**
+	 * The members of a single {@link Class}. Each kind is reflected on first
+	 * use. Should two threads do so at the same time both compute the same
+	 * result and one of them wins.
+	 */
+	private static final class Members {
+
+		volatile Constructor<?>[] declaredConstructors;
+		volatile Method[] declaredMethods;
+		volatile Field[] declaredFields;
+		volatile Method[] methods;
+		volatile Annotation[] annotations;
+	}
+
+	public static Constructor<?>[] declaredConstructors(Class<?> type) {
+		Members members = members(type);
+		Constructor<?>[] res = members.declaredConstructors;
+		if (res == null) {
+			res = type.getDeclaredConstructors();
+			members.declaredConstructors = res;
+		}
+		return res.clone();
+	}
+
+	public static Method[] declaredMethods(Class<?> type) {
+		Members members = members(type);
+		Method[] res = members.declaredMethods;
+		if (res == null) {
+			res = type.getDeclaredMethods();
+			members.declaredMethods = res;
+		}
+		return res.clone();
+	}
+
+	public static Field[] declaredFields(Class<?> type) {
+		Members members = members(type);
+		Field[] res = members.declaredFields;
+		if (res == null) {
+			res = type.getDeclaredFields();
+			members.declaredFields = res;
+		}
+		return res.clone();
+	}
+
+	/**
+	 * @see Class#getMethods()
+	 */
+	public static Method[] methods(Class<?> type) {
+		Members members = members(type);
+		Method[] res = members.methods;
+		if (res == null) {
+			res = type.getMethods();
+			members.methods = res;
+		}
+		return res.clone();
+	}
+
+	/**
+	 * @see Class#getAnnotations()
+	 */
+	public static Annotation[] annotations(Class<?> type) {
+		Members members = members(type);
+		Annotation[] res = members.annotations;
+		if (res == null) {
+			res = type.getAnnotations();
+			members.annotations = res;
+		}
+		return res.clone();
+	}
+
+	/**
+	 * @param member a (shared) member as returned by this class
+	 * @return a copy of the member that is not shared with anyone else
+	 */
+	@SuppressWarnings("unchecked")
+	public static <M extends Member> M copy(M member) {
+		Class<?> type = member.getDeclaringClass();
+		try {
+			if (member instanceof Constructor)
+				return (M) type.getDeclaredConstructor(
+						((Constructor<?>) member).getParameterTypes());
+			if (member instanceof Field)
+				return (M) type.getDeclaredField(member.getName());
+			if (member instanceof Method) {
+				Method copy = type.getDeclaredMethod(member.getName(),
+						((Method) member).getParameterTypes());
+				if (copy.equals(member))
+					return (M) copy;
+				// a bridge method with same name and parameters
+				for (Method m : type.getDeclaredMethods())
+					if (m.equals(member))
+						return (M) m;
+			}
+		} catch (NoSuchMethodException | NoSuchFieldException e) {
+			throw new IllegalArgumentException("Not a declared member: " + member, e);
+		}
+		throw new IllegalArgumentException("Not a declared member: " + member);
+	}
+}
@@ -273,10 +273,10 @@ public final class Utils {
 			return false;
 		if (cls == Object.class)
 			return true;
-		for (Field f : cls.getDeclaredFields())
+		for (Field f : Reflection.declaredFields(cls))
 			if (!Modifier.isStatic(f.getModifiers()))
 				return false;
-		for (Constructor<?> c : cls.getDeclaredConstructors())
+		for (Constructor<?> c : Reflection.declaredConstructors(cls))
 			// maybe arguments are passed to super-type so we check it too
 			if (c.getParameterCount() > 0)
 				return isClassConceptStateless(cls.getSuperclass());
@@ -291,11 +291,15 @@ public final class Utils {
 	public static boolean isClassBanal(Class<?> cls) {
 		return !cls.isInterface() && !isAbstract(cls.getModifiers())
 			&& !cls.isEnum() && !cls.isAnnotation() && !cls.isArray()
-			&& cls.getDeclaredConstructors().length == 1
-			&& cls.getDeclaredConstructors()[0].getParameterCount() == 0
+			&& isDefaultConstructorOnly(cls)
 			&& isClassConceptStateless(cls);
 	}
 
+	private static boolean isDefaultConstructorOnly(Class<?> cls) {
+		Constructor<?>[] cs = Reflection.declaredConstructors(cls);
+		return cs.length == 1 && cs[0].getParameterCount() == 0;
+	}
+
 	public static boolean isLambda(Object obj) {
 		return obj != null && obj.getClass().getName().contains("$$Lambda$");
 	}
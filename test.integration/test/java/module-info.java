@@ -1,6 +1,7 @@
 open module test.integration {
 
 	requires java.logging;
+	requires java.compiler;
 	requires org.junit.jupiter;
 	requires static org.junit.platform.console; // <- launches test modules
 	requires static org.junit.platform.jfr; // <- flight-recording support
@@ -14,6 +15,7 @@ open module test.integration {
 	requires se.jbee.inject.action;
 	requires se.jbee.inject.event;
 	requires se.jbee.inject.contract;
+	requires se.jbee.inject.processor;
 
 	requires test.examples; // <- module under test
 }
@@ -91,4 +91,11 @@ class TestName {
 	void infixIsNotCompatibleWithPrefixWhenInsertStartsWithSuffix() {
 		assertFalse(named("foo*bar").isCompatibleWith(named("foobbar")));
 	}
+
+	@Test
+	void multipleWildcardsMatchSegmentsInOrder() {
+		assertTrue(named("a*b*c").isCompatibleWith(named("axxbyyc")));
+		assertFalse(named("a*b*c").isCompatibleWith(named("axxcyyb")));
+		assertFalse(named("foo*z").isCompatibleWith(named("foobar")));
+	}
 }
@@ -122,4 +122,11 @@ class TestPackages {
 	void thatParentOfDefaultPackageIsDefaultPackage() {
 		assertEquals(Packages.DEFAULT, Packages.DEFAULT.parents());
 	}
+
+	@Test
+	void thatPackageDoesNotContainTypesOfItsParentPackage() {
+		Packages javaUtilConcurrent = packageOf(ConcurrentMap.class);
+		assertFalse(javaUtilConcurrent.contains(raw(List.class)));
+		assertTrue(javaUtilConcurrent.contains(raw(ConcurrentMap.class)));
+	}
 }
@@ -0,0 +1,67 @@
+package test.integration.api;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.lang.Reflection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestReflection {
+
+	static final class Hidden {
+
+		private Hidden() {
+		}
+
+		private int hidden() {
+			return 42;
+		}
+	}
+
+	@Test
+	void membersAreSharedButArraysAreCopies() {
+		Constructor<?>[] a = Reflection.declaredConstructors(ArrayList.class);
+		Constructor<?>[] b = Reflection.declaredConstructors(ArrayList.class);
+		assertNotSame(a, b);
+		assertEquals(ArrayList.class.getDeclaredConstructors().length, a.length);
+		for (int i = 0; i < a.length; i++)
+			assertSame(a[i], b[i]);
+	}
+
+	@Test
+	void modifyingReturnedArraysDoesNotAffectCache() {
+		Method[] methods = Reflection.declaredMethods(ArrayList.class);
+		Method first = methods[0];
+		methods[0] = null;
+		assertSame(first, Reflection.declaredMethods(ArrayList.class)[0]);
+	}
+
+	@Test
+	void annotationsAreSameAsClassAnnotations() {
+		assertArrayEquals(Deprecated.class.getAnnotations(),
+				Reflection.annotations(Deprecated.class));
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	void copiesCanBeMadeAccessibleWithoutAffectingSharedMembers() {
+		Constructor<?> shared = Reflection.declaredConstructors(Hidden.class)[0];
+		Constructor<?> copy = Reflection.copy(shared);
+		assertNotSame(shared, copy);
+		assertEquals(shared, copy);
+		copy.setAccessible(true);
+		assertFalse(shared.isAccessible());
+		assertFalse(Reflection.declaredConstructors(Hidden.class)[0].isAccessible());
+	}
+
+	@Test
+	void methodsAreCopiedExactly() throws NoSuchMethodException {
+		Method shared = Hidden.class.getDeclaredMethod("hidden");
+		Method copy = Reflection.copy(shared);
+		assertNotSame(shared, copy);
+		assertEquals(shared, copy);
+	}
+}
@@ -109,6 +109,28 @@ class TestBasicCollectionBinds {
 				listTypeOf(listTypeOf(String.class)));
 	}
 
+	@Test
+	void arraysOfPermanentElementsAreResolvedOnce() {
+		assertSame(injector.resolve(Integer[].class),
+				injector.resolve(Integer[].class));
+	}
+
+	@Test
+	void bridgedCollectionsOfPermanentElementsAreShared() {
+		assertSame(injector.resolve(listTypeOf(String.class)),
+				injector.resolve(listTypeOf(String.class)));
+		assertSame(injector.resolve(setTypeOf(String.class)),
+				injector.resolve(setTypeOf(String.class)));
+	}
+
+	@Test
+	void bridgedCollectionsAreUnmodifiable() {
+		List<String> list = injector.resolve(listTypeOf(String.class));
+		assertThrows(UnsupportedOperationException.class, () -> list.add("x"));
+		Set<String> set = injector.resolve(setTypeOf(String.class));
+		assertThrows(UnsupportedOperationException.class, () -> set.add("x"));
+	}
+
 	@Test
 	void collectionIsAvailableWhenJustListIsInstalled() {
 		Injector injector = Bootstrap.injector(JustListFeatureBundle.class);
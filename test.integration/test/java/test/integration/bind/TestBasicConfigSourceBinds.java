@@ -0,0 +1,145 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.binder.BinderModuleWith;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.config.Config;
+import se.jbee.inject.config.ConfigSnapshot;
+import se.jbee.inject.config.ConfigSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.inject.Name.named;
+
+/**
+ * When a {@link ConfigSource} is bound the {@link Config} reads values from its
+ * current {@link ConfigSnapshot} before it falls back to bound configuration
+ * values. As the snapshot can be swapped at runtime configuration can change
+ * without creating a new {@link Injector} context.
+ */
+class TestBasicConfigSourceBinds {
+
+	public static final class Bean {
+
+		final Config config;
+
+		public Bean(Config config) {
+			this.config = config;
+		}
+	}
+
+	private static final class TestBasicConfigSourceBindsModule
+			extends BinderModuleWith<ConfigSource> {
+
+		@Override
+		protected void declare(ConfigSource source) {
+			bind(ConfigSource.class).to(source);
+			bind(Bean.class).toConstructor();
+			configure().bind(named("timeout"), long.class).to(100L);
+			configure(Bean.class).bind(named("limit"), int.class).to(7);
+		}
+	}
+
+	private final Map<String, String> properties = new HashMap<>();
+	private final ConfigSource source = ConfigSource.of(properties);
+	private final Injector context = Bootstrap.injector(
+			Bootstrap.DEFAULT_ENV.with(ConfigSource.class, source),
+			TestBasicConfigSourceBindsModule.class);
+
+	@Test
+	void boundValuesAreUsedWhenSnapshotDoesNotContainProperty() {
+		Config config = context.resolve(Bean.class).config;
+		assertEquals(100L, config.longValue("timeout"));
+		assertEquals(7, config.intValue("limit"));
+	}
+
+	@Test
+	void snapshotValuesTakePrecedenceOverBoundValues() {
+		source.update(singletonMap("timeout", "250"));
+		assertEquals(250L, context.resolve(Config.class).longValue("timeout"));
+	}
+
+	@Test
+	void swappedSnapshotIsVisibleToAlreadyInjectedConfig() {
+		Config config = context.resolve(Bean.class).config;
+		assertEquals(7, config.intValue("limit"));
+		source.update(singletonMap(Bean.class.getName() + ".limit", "9"));
+		assertEquals(9, config.intValue("limit"));
+		source.update(singletonMap("limit", "11"));
+		assertEquals(11, config.intValue("limit"));
+		source.update(new HashMap<>());
+		assertEquals(7, config.intValue("limit"));
+	}
+
+	@Test
+	void namespacedPropertiesDoNotApplyToOtherNamespaces() {
+		source.update(singletonMap(Bean.class.getName() + ".timeout", "5"));
+		assertEquals(5L, context.resolve(Bean.class).config.longValue("timeout"));
+		assertEquals(100L, context.resolve(Config.class).longValue("timeout"));
+	}
+
+	@Test
+	void propertiesAreConvertedToEnumsAndWrappers() {
+		Map<String, String> props = new HashMap<>();
+		props.put("unit", "HOURS");
+		props.put("enabled", "true");
+		source.update(props);
+		Config config = context.resolve(Config.class);
+		assertSame(TimeUnit.HOURS, config.enumValue("unit", TimeUnit.SECONDS));
+		assertTrue(config.booleanValue("enabled"));
+		assertEquals(Boolean.TRUE,
+				config.optionalValue(Boolean.class, "enabled").orElse(null));
+	}
+
+	@Test
+	void invalidPropertiesFallBackToBoundValues() {
+		source.update(singletonMap("timeout", "soon"));
+		assertEquals(100L, context.resolve(Config.class).longValue("timeout"));
+	}
+
+	@Test
+	void typedValuesAreConvertedOncePerSnapshot() {
+		source.update(singletonMap("big", "123456789"));
+		ConfigSnapshot snapshot = source.snapshot();
+		assertSame(snapshot.value("big", Long.class).get(),
+				snapshot.value("big", Long.class).get());
+	}
+
+	@Test
+	void listenersAreNotifiedOnChangeOnly() {
+		List<ConfigSnapshot> changes = new ArrayList<>();
+		source.addListener((before, after) -> changes.add(after));
+		assertTrue(source.update(singletonMap("a", "1")));
+		assertFalse(source.update(singletonMap("a", "1")));
+		assertTrue(source.update(singletonMap("a", "2")));
+		assertEquals(2, changes.size());
+		assertEquals("2", changes.get(1).get("a"));
+		assertEquals(changes.get(0).version + 1, changes.get(1).version);
+		assertTrue(changes.get(0).isChanged("a", changes.get(1)));
+	}
+
+	@Test
+	void propertiesFileSourceReloadsChangedFile() throws IOException {
+		Path file = Files.createTempFile("config", ".properties");
+		try (ConfigSource fileSource = ConfigSource.ofFile(file)) {
+			assertFalse(fileSource.snapshot().contains("timeout"));
+			Files.write(file, "timeout=42\n".getBytes());
+			assertTrue(fileSource.reload());
+			assertEquals(42L,
+					fileSource.snapshot().value("timeout", long.class).get());
+			assertFalse(fileSource.reload());
+		} finally {
+			Files.delete(file);
+		}
+	}
+}
@@ -2,6 +2,7 @@ package test.integration.bind;
 
 import org.junit.jupiter.api.Test;
 import se.jbee.inject.Injector;
+import se.jbee.inject.Scope;
 import se.jbee.inject.Source;
 import se.jbee.inject.binder.BinderModule;
 import se.jbee.inject.bootstrap.Bootstrap;
@@ -10,6 +11,7 @@ import se.jbee.inject.config.Config;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static se.jbee.inject.Converter.converterTypeOf;
@@ -39,12 +41,27 @@ class TestBasicConfigurationBinds {
 		}
 	}
 
+	public static final class Worker {
+
+		final Config config;
+
+		public Worker(Config config) {
+			this.config = config;
+		}
+	}
+
+	static final AtomicInteger counter = new AtomicInteger();
+
 	private static final class TestBasicConfigurationBindsModule
 			extends BinderModule {
 
 		@Override
 		protected void declare() {
 			bind(Bean.class).toConstructor();
+			per(Scope.injection).bind(Worker.class).toConstructor();
+			per(Scope.injection).configure().bind(named("count"),
+					int.class).toSupplier(
+							(dep, context) -> counter.incrementAndGet());
 			configure().bind(named("foo"), String.class).to("bar");
 			configure().bind(named("foo"), int.class).to(13);
 			TargetedBinder beanConfig = configure(Bean.class);
@@ -104,4 +121,19 @@ class TestBasicConfigurationBinds {
 		assertNotNull(source);
 		assertSame(TestBasicConfigurationBindsModule.class, source.ident);
 	}
+
+	@Test
+	void configurationIsReusedForSameTarget() {
+		Worker a = injector.resolve(Worker.class);
+		Worker b = injector.resolve(Worker.class);
+		assertNotSame(a, b);
+		assertSame(a.config, b.config);
+		assertEquals("bar", a.config.stringValue("foo"));
+	}
+
+	@Test
+	void nonPermanentValuesAreResolvedOnEachRead() {
+		int first = config.intValue("count");
+		assertEquals(first + 1, config.intValue("count"));
+	}
 }
@@ -65,6 +65,24 @@ class TestBasicMultiModuleSetupBinds {
 				forType(Double.class, bindings));
 	}
 
+	@Test
+	void parallelDeclarationYieldsSameBindingsAsSequential() {
+		Binding<?>[] sequential = Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+						.with(Env.BIND_BINDINGS, true),
+				TestBasicMultiModuleSetupBindsBundle.class) //
+				.resolve(Binding[].class);
+		Injector context = Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+						.with(Env.BIND_BINDINGS, true) //
+						.with(Env.PARALLEL_DECLARATION, true),
+				TestBasicMultiModuleSetupBindsBundle.class);
+		Binding<?>[] parallel = context.resolve(Binding[].class);
+
+		assertEquals(sequential.length, parallel.length);
+		for (int i = 0; i < sequential.length; i++)
+			assertEquals(sequential[i].toString(), parallel[i].toString());
+		assertEquals(2.0, context.resolve(Double.class));
+	}
+
 	static void assertBinding(Class<? extends Module> module, int no,
 			DeclarationType type, Binding<?> binding) {
 		assertNotNull(binding);
@@ -0,0 +1,74 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.UnresolvableDependency;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.inject.Dependency.dependency;
+
+/**
+ * {@link Injector#tryResolve(Class)}, {@link Injector#resolveOrNull(Class)}
+ * and {@link Injector#resolveOrElse(se.jbee.inject.Dependency, Object)} report
+ * the absence of a matching {@link se.jbee.inject.Resource} by their result
+ * instead of throwing an {@link UnresolvableDependency}.
+ */
+class TestBasicTryResolveBinds {
+
+	public static final class Failing {
+
+		public Failing(Float missing) {
+			// never created
+		}
+	}
+
+	private static final class TestBasicTryResolveBindsModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			bind(String.class).to("foo");
+			bind(Failing.class).toConstructor();
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestBasicTryResolveBindsModule.class);
+
+	@Test
+	void boundInstancesAreResolved() {
+		assertEquals(Optional.of("foo"), context.tryResolve(String.class));
+		assertEquals("foo", context.resolveOrNull(String.class));
+		assertEquals("foo",
+				context.resolveOrElse(dependency(String.class), "bar"));
+	}
+
+	@Test
+	void absentInstancesAreReportedByResult() {
+		assertEquals(Optional.empty(), context.tryResolve(Long.class));
+		assertNull(context.resolveOrNull(Long.class));
+		assertEquals(42L, context.resolveOrElse(dependency(Long.class), 42L));
+		assertNull(context.resolveOrNull(int[].class));
+	}
+
+	@Test
+	void arraysAreNeverAbsent() {
+		assertArrayEquals(new Long[0], context.resolveOrNull(Long[].class));
+	}
+
+	@Test
+	void boundInstancesThatFailToResolveStillThrow() {
+		assertThrows(UnresolvableDependency.class,
+				() -> context.resolveOrNull(Failing.class));
+	}
+
+	@Test
+	void absentPropertiesResultInDefaultValue() {
+		assertEquals("default", context.asEnv().property("missing",
+				String.class, "default"));
+	}
+}
@@ -3,10 +3,13 @@ package test.integration.bind;
 import org.junit.jupiter.api.Test;
 import se.jbee.inject.Env;
 import se.jbee.inject.Injector;
+import se.jbee.inject.Scope;
 import se.jbee.inject.UnresolvableDependency;
 import se.jbee.inject.bind.Bundle;
 import se.jbee.inject.binder.BinderModule;
 import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.container.Container;
+import se.jbee.inject.scope.RequestScope;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static se.jbee.inject.Name.DEFAULT;
@@ -19,6 +22,9 @@ import static se.jbee.inject.Name.DEFAULT;
  * This form of {@link Injector} nesting is not limited to any depth. In this
  * example the first level is the "foo" sub-context, the second level is the
  * "bar" sub-context defined in "foo".
+ *
+ * Sub-contexts are child contexts that resolve everything they do not bind
+ * themselves in their parent context.
  */
 class TestExampleInjectorSubContextBinds {
 
@@ -28,6 +34,30 @@ class TestExampleInjectorSubContextBinds {
 		protected void declare() {
 			installIn("foo", SubContextModule1.class);
 			installIn("foo", SubContextModule3.class);
+			construct(Shared.class);
+			per(Scope.request).construct(Trip.class);
+			bind(String.class).to("root");
+		}
+	}
+
+	public static final class Shared {
+
+	}
+
+	public static final class Trip {
+
+	}
+
+	public static final class Visit {
+
+	}
+
+	public static final class Local {
+
+		final Shared shared;
+
+		public Local(Shared shared) {
+			this.shared = shared;
 		}
 	}
 
@@ -36,6 +66,8 @@ class TestExampleInjectorSubContextBinds {
 		@Override
 		protected void declare() {
 			bind(int.class).to(42);
+			per(Scope.application).construct(Local.class);
+			per(Scope.request).construct(Visit.class);
 		}
 	}
 
@@ -77,6 +109,61 @@ class TestExampleInjectorSubContextBinds {
 		assertEquals("42", bar.resolve(String.class));
 	}
 
+	@Test
+	void subContextIsChildOfTheContextItIsResolvedFrom() {
+		Injector foo = injector.subContext("foo");
+		assertEquals("root", injector.resolve(String.class));
+		assertEquals("13", foo.resolve(String.class));
+		assertSame(injector.resolve(Shared.class), foo.resolve(Shared.class));
+		Local local = foo.resolve(Local.class);
+		assertSame(local, foo.resolve(Local.class));
+		assertSame(injector.resolve(Shared.class), local.shared);
+		Injector bar = foo.subContext("bar");
+		assertSame(local, bar.resolve(Local.class));
+		assertEquals(42, bar.resolve(int.class).intValue());
+	}
+
+	@Test
+	void childSharesTheRequestsOfItsParent() {
+		Injector foo = injector.subContext("foo");
+		Visit[] visits = new Visit[2];
+		RequestScope.of(injector).run(() -> {
+			Trip trip = injector.resolve(Trip.class);
+			visits[0] = foo.resolve(Visit.class);
+			assertSame(visits[0], foo.resolve(Visit.class));
+			assertSame(trip, foo.resolve(Trip.class));
+			assertSame(trip, injector.resolve(Trip.class));
+		});
+		RequestScope.of(injector).run(
+				() -> visits[1] = foo.resolve(Visit.class));
+		assertNotNull(visits[1]);
+		assertNotSame(visits[0], visits[1]);
+		assertSame(RequestScope.of(injector), RequestScope.of(foo));
+	}
+
+	@Test
+	void childRequestScopedInstancesAreOnlyAvailableWithinARequest() {
+		Injector foo = injector.subContext("foo");
+		assertThrows(UnresolvableDependency.class,
+				() -> foo.resolve(Visit.class));
+	}
+
+	@Test
+	void childArraysContainElementsOfChildAndParent() {
+		Injector foo = injector.subContext("foo");
+		assertArrayEquals(new String[] { "13", "root" },
+				foo.resolve(String[].class));
+	}
+
+	@Test
+	void childContextsAreCreatedFromDescriptors() {
+		Injector parent = Bootstrap.injector(
+				TestExampleInjectorSubContextBindsModule.class);
+		Injector child = Container.childInjector(parent);
+		assertSame(parent.resolve(Shared.class), child.resolve(Shared.class));
+		assertSame(child, child.resolve(Injector.class));
+	}
+
 	@Test
 	void anySubContextCanBeResolvedButItMightBeEmpty() {
 		Injector subContext = injector.subContext("withoutInstallIn");
@@ -50,6 +50,19 @@ class TestFeatureAnnotatedWithBinds {
 
 	}
 
+	@Target(ElementType.ANNOTATION_TYPE)
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Metric {
+
+	}
+
+	@Metric
+	@Target(ElementType.METHOD)
+	@Retention(RetentionPolicy.RUNTIME)
+	@interface Measured {
+
+	}
+
 	@Component
 	public static class ServiceImpl implements Service {
 
@@ -93,6 +106,7 @@ class TestFeatureAnnotatedWithBinds {
 		}
 
 		@Marker
+		@Measured
 		public int methodResource() {
 			return 42;
 		}
@@ -165,4 +179,12 @@ class TestFeatureAnnotatedWithBinds {
 		assertSame(injector.annotatedWith(Marker.class),
 				injector.annotatedWith(Marker.class));
 	}
+
+	@Test
+	void annotatedInstancesCanBeResolvedByMetaAnnotation() {
+		List<AnnotatedInstance<?>> annotated = injector.annotatedWith(
+				Metric.class);
+		assertEquals(1, annotated.size());
+		assertEquals(42, annotated.get(0).instance.get());
+	}
 }
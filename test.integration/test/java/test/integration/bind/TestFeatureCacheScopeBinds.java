@@ -0,0 +1,185 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Name;
+import se.jbee.inject.Scope;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.scope.CachePolicy;
+import se.jbee.inject.scope.CacheScope;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Instances in a {@link Scope#cache(String)} are kept as described by the
+ * {@link CachePolicy} bound for the name of the cache.
+ */
+class TestFeatureCacheScopeBinds {
+
+	static final Name expiring = Scope.cache("expiring");
+	static final Name bounded = Scope.cache("bounded");
+	static final Name refreshing = Scope.cache("refreshing");
+	static final Name large = Scope.cache("large");
+
+	static final AtomicLong time = new AtomicLong();
+	static final AtomicInteger created = new AtomicInteger();
+
+	static final class Lookup {
+
+		final String key;
+		final int version = created.incrementAndGet();
+
+		Lookup(String key) {
+			this.key = key;
+		}
+	}
+
+	static final class Template {
+
+		final int version = created.incrementAndGet();
+	}
+
+	static final class Token {
+	}
+
+	static final class Item {
+	}
+
+	static final class Report {
+
+		final int version = created.incrementAndGet();
+	}
+
+	private static class TestFeatureCacheScopeBindsModule extends BinderModule {
+
+		@Override
+		protected void declare() {
+			CachePolicy testing = CachePolicy.DEFAULT.ticker(time::get) //
+					.refreshOn(Runnable::run);
+			bind(expiring, CachePolicy.class).to(testing //
+					.expireAfterWrite(Duration.ofNanos(10)));
+			bind(bounded, CachePolicy.class).to(testing.maximumSize(1));
+			bind(refreshing, CachePolicy.class).to(testing //
+					.refreshAfterWrite(Duration.ofNanos(10)));
+			bind(large, CachePolicy.class).to(testing.maximumSize(100));
+
+			per(expiring).bind(Template.class).toSupplier(
+					(dep, context) -> new Template());
+			per(bounded).bind(Name.ANY, Lookup.class).toSupplier(
+					(dep, context) -> new Lookup(dep.instance.name.toString()));
+			per(expiring).bind(Name.ANY, Token.class).toSupplier(
+					(dep, context) -> new Token());
+			per(refreshing).bind(Report.class).toSupplier(
+					(dep, context) -> new Report());
+			per(large).bind(Name.ANY, Item.class).toSupplier(
+					(dep, context) -> new Item());
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestFeatureCacheScopeBindsModule.class);
+
+	@Test
+	void entriesExpireAfterWrite() {
+		Template t1 = context.resolve(Template.class);
+		assertSame(t1, context.resolve(Template.class));
+		time.addAndGet(10);
+		Template t2 = context.resolve(Template.class);
+		assertNotSame(t1, t2);
+		assertSame(t2, context.resolve(Template.class));
+
+		CacheScope.Stats stats = CacheScope.of(context, expiring).stats();
+		assertEquals(2, stats.hits);
+		assertEquals(2, stats.misses);
+		assertEquals(1, stats.expirations);
+		assertEquals(1, stats.size);
+	}
+
+	@Test
+	void expiredEntriesAreRemovedEvenIfNotAccessedAgain() {
+		context.resolve("old", Token.class);
+		time.addAndGet(10);
+		for (int i = 0; i < 64; i++)
+			context.resolve("new" + i, Token.class);
+
+		CacheScope.Stats stats = CacheScope.of(context, expiring).stats();
+		assertEquals(64, stats.size);
+		assertEquals(1, stats.expirations);
+	}
+
+	@Test
+	void expiredEntriesAreRemovedWhenAccessed() {
+		Token t1 = context.resolve("a", Token.class);
+		time.addAndGet(10);
+		assertNotSame(t1, context.resolve("a", Token.class));
+
+		CacheScope.Stats stats = CacheScope.of(context, expiring).stats();
+		assertEquals(1, stats.size);
+		assertEquals(1, stats.expirations);
+	}
+
+	@Test
+	void entriesAreKeptPerDependency() {
+		Lookup a = context.resolve("a", Lookup.class);
+		assertEquals("a", a.key);
+		assertSame(a, context.resolve("a", Lookup.class));
+		assertNotSame(a, context.resolve("b", Lookup.class));
+	}
+
+	@Test
+	void lessFrequentlyUsedEntriesAreNotKeptWhenFull() {
+		Lookup a = context.resolve("a", Lookup.class);
+		context.resolve("a", Lookup.class);
+		context.resolve("a", Lookup.class);
+		Lookup b = context.resolve("b", Lookup.class);
+		assertNotSame(b, context.resolve("b", Lookup.class));
+		assertSame(a, context.resolve("a", Lookup.class));
+
+		CacheScope.Stats stats = CacheScope.of(context, bounded).stats();
+		assertEquals(1, stats.size);
+		assertEquals(2, stats.evictions);
+	}
+
+	@Test
+	void moreFrequentlyUsedEntriesReplaceLessFrequentlyUsedOnes() {
+		Lookup a = context.resolve("a", Lookup.class);
+		for (int i = 0; i < 3; i++)
+			context.resolve("b", Lookup.class);
+		Lookup b = context.resolve("b", Lookup.class);
+		assertSame(b, context.resolve("b", Lookup.class));
+		assertNotSame(a, context.resolve("a", Lookup.class));
+	}
+
+	@Test
+	void boundedCachesDoNotGrowBeyondTheirMaximumSize() {
+		for (int i = 0; i < 10_000; i++)
+			context.resolve("item" + i, Item.class);
+		CacheScope.Stats stats = CacheScope.of(context, large).stats();
+		assertTrue(stats.size <= 100);
+		assertEquals(10_000 - stats.size, stats.evictions);
+	}
+
+	@Test
+	void entriesAreRefreshedAheadOfAccess() {
+		Report r1 = context.resolve(Report.class);
+		time.addAndGet(10);
+		assertSame(r1, context.resolve(Report.class));
+		Report r2 = context.resolve(Report.class);
+		assertNotSame(r1, r2);
+		assertTrue(r2.version > r1.version);
+		assertEquals(1, CacheScope.of(context, refreshing).stats().refreshes);
+	}
+
+	@Test
+	void eachCacheNameHasItsOwnScope() {
+		assertNotSame(CacheScope.of(context, expiring),
+				CacheScope.of(context, bounded));
+		assertSame(CacheScope.of(context, bounded),
+				CacheScope.of(context, bounded));
+	}
+}
@@ -0,0 +1,118 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Env;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Resource;
+import se.jbee.inject.Scope;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.container.ContextTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.inject.config.ProducesBy.declaredMethods;
+
+/**
+ * A {@link ContextTemplate} is bootstrapped once and then used to create any
+ * number of {@link Injector} contexts with the same structure. Each of them
+ * must have its own singletons and {@link Scope}s.
+ */
+class TestFeatureContextTemplateBinds {
+
+	public static final class Tenant {
+
+		public Tenant() {
+			// a new instance for each context
+		}
+
+		public StringBuilder greeting() {
+			return new StringBuilder("tenant " + System.identityHashCode(this));
+		}
+	}
+
+	public static final class Service {
+
+		final Tenant tenant;
+
+		public Service(Tenant tenant) {
+			this.tenant = tenant;
+		}
+	}
+
+	private static class TestFeatureContextTemplateBindsModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			construct(Tenant.class);
+			construct(Service.class);
+			per(Scope.application).construct(Object.class);
+			autobind().produceBy(declaredMethods(false)).in(Tenant.class);
+			bind(String.class).to("shared");
+		}
+	}
+
+	private final ContextTemplate template = Bootstrap.template(
+			Bootstrap.DEFAULT_ENV, TestFeatureContextTemplateBindsModule.class);
+
+	@Test
+	void contextsHaveTheirOwnSingletons() {
+		Injector a = template.injector();
+		Injector b = template.injector();
+		assertNotSame(a, b);
+		assertSame(a.resolve(Tenant.class), a.resolve(Tenant.class));
+		assertNotSame(a.resolve(Tenant.class), b.resolve(Tenant.class));
+		assertSame(a.resolve(Tenant.class), a.resolve(Service.class).tenant);
+		assertSame(b.resolve(Tenant.class), b.resolve(Service.class).tenant);
+	}
+
+	@Test
+	void contextsHaveTheirOwnScopes() {
+		Injector a = template.injector();
+		Injector b = template.injector();
+		assertSame(a.resolve(Object.class), a.resolve(Object.class));
+		assertNotSame(a.resolve(Object.class), b.resolve(Object.class));
+		assertNotSame(a.resolve(Scope.application, Scope.class),
+				b.resolve(Scope.application, Scope.class));
+	}
+
+	@Test
+	void producedInstancesUseTheOwnerOfTheirContext() {
+		Injector a = template.injector();
+		Injector b = template.injector();
+		String greetingA = a.resolve(StringBuilder.class).toString();
+		String greetingB = b.resolve(StringBuilder.class).toString();
+		assertEquals(a.resolve(Tenant.class).greeting().toString(), greetingA);
+		assertEquals(b.resolve(Tenant.class).greeting().toString(), greetingB);
+		assertNotEquals(greetingA, greetingB);
+	}
+
+	@Test
+	void constantsAreShared() {
+		assertSame(template.injector().resolve(String.class),
+				template.injector().resolve(String.class));
+	}
+
+	@Test
+	void contextsHaveSameStructureAsBootstrappedContext() {
+		Injector bootstrapped = Bootstrap.injector(Bootstrap.DEFAULT_ENV,
+				TestFeatureContextTemplateBindsModule.class);
+		Resource<?>[] expected = bootstrapped.resolve(Resource[].class);
+		Resource<?>[] actual = template.injector().resolve(Resource[].class);
+		assertEquals(expected.length, actual.length);
+		// resources bound for name patterns are not listed
+		assertTrue(template.size() >= actual.length);
+		for (int i = 0; i < expected.length; i++)
+			assertEquals(expected[i].toString(), actual[i].toString());
+	}
+
+	@Test
+	void lazyTemplatesCreateLazyContexts() {
+		ContextTemplate lazy = Bootstrap.template(
+				Bootstrap.DEFAULT_ENV.with(Env.LAZY_RESOURCES, true),
+				TestFeatureContextTemplateBindsModule.class);
+		Injector a = lazy.injector();
+		Injector b = lazy.injector();
+		assertNotSame(a.resolve(Tenant.class), b.resolve(Tenant.class));
+	}
+}
@@ -0,0 +1,126 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.*;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.binder.Constructs;
+import se.jbee.inject.bootstrap.Bootstrap;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.frequency;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static se.jbee.inject.Name.named;
+import static se.jbee.lang.Cast.functionTypeOf;
+
+/**
+ * With {@link Env#LAZY_RESOURCES} the {@link Resource}s of a raw type are only
+ * created on first lookup of that type. Apart from the point in time when
+ * {@link Resource}s are created (and verified) this must not make a
+ * difference compared to the default where all {@link Resource}s are created
+ * up front.
+ */
+class TestFeatureLazyResourcesBinds {
+
+	static final AtomicInteger eagerCount = new AtomicInteger();
+
+	public static class Alpha {}
+
+	public static class Beta {}
+
+	private static class TestFeatureLazyResourcesBindsModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			bindLifeCycle(ScopeLifeCycle.singleton.derive(
+					Scope.application).eager());
+			bind(named("eager"), Long.class).toSupplier(
+					(dep, context) -> (long) eagerCount.incrementAndGet());
+			bind(String.class).to("foo");
+			bind(named("bar"), String.class).to("bar");
+			bind(Number.class).to(Integer.class);
+			bind(Integer.class).to(42);
+			per(Scope.injection).bind(Alpha.class).toConstructor();
+			per(Scope.injection).bind(Beta.class).toConstructor();
+			per(Scope.injection).bind(StringBuilder.class).toSupplier(
+					(dep, context) -> new StringBuilder(
+							context.resolve(String.class)));
+		}
+	}
+
+	/**
+	 * The classes of all bound constructors in the order their {@link
+	 * Resource}s were verified which happens when they are created
+	 */
+	private final List<Class<?>> verified = new CopyOnWriteArrayList<>();
+
+	private static Injector injector(boolean lazy) {
+		return Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+						.with(Env.LAZY_RESOURCES, lazy),
+				TestFeatureLazyResourcesBindsModule.class);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private Injector verifyingInjector(boolean lazy) {
+		Function<Constructs<?>, Verifier> verifierFactory = ref -> context -> verified.add(
+				ref.target.getDeclaringClass());
+		return Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+						.with(Env.LAZY_RESOURCES, lazy) //
+						.with(Env.USE_VERIFICATION, true) //
+						.with(functionTypeOf(Constructs.class, Verifier.class),
+								(Function) verifierFactory),
+				TestFeatureLazyResourcesBindsModule.class);
+	}
+
+	@Test
+	void lazyResourcesAreCreatedOnFirstLookupOfTheirType() {
+		Injector context = verifyingInjector(true);
+		assertEquals(0, frequency(verified, Alpha.class));
+		assertEquals(0, frequency(verified, Beta.class));
+		context.resolve(Alpha.class);
+		assertEquals(1, frequency(verified, Alpha.class));
+		assertEquals(0, frequency(verified, Beta.class));
+		context.resolve(Alpha.class);
+		context.resolve(Beta.class);
+		assertEquals(1, frequency(verified, Alpha.class));
+		assertEquals(1, frequency(verified, Beta.class));
+	}
+
+	@Test
+	void eagerResourcesOfAllTypesAreCreatedUpFront() {
+		verifyingInjector(false);
+		assertTrue(verified.containsAll(asList(Alpha.class, Beta.class)));
+	}
+
+	@Test
+	void eagerResourcesAreCreatedUpFront() {
+		int before = eagerCount.get();
+		Injector context = injector(true);
+		assertEquals(before + 1, eagerCount.get());
+		assertEquals(before + 1L, context.resolve("eager", Long.class));
+		assertEquals(before + 1, eagerCount.get());
+	}
+
+	@Test
+	void lazyResourcesResolveSameAsEagerResources() {
+		Injector lazy = injector(true);
+		Injector eager = injector(false);
+		assertEquals(eager.resolve(String.class), lazy.resolve(String.class));
+		assertEquals(eager.resolve("bar", String.class),
+				lazy.resolve("bar", String.class));
+		assertEquals(eager.resolve(Number.class), lazy.resolve(Number.class));
+		assertEquals(eager.resolve(StringBuilder.class).toString(),
+				lazy.resolve(StringBuilder.class).toString());
+		assertArrayEquals(eager.resolve(String[].class),
+				lazy.resolve(String[].class));
+		assertEquals(eager.resolve(Resource[].class).length,
+				lazy.resolve(Resource[].class).length);
+	}
+}
@@ -0,0 +1,116 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Scope;
+import se.jbee.inject.UnresolvableDependency;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.scope.PoolPolicy;
+import se.jbee.inject.scope.PoolScope;
+import se.jbee.inject.scope.RequestScope;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Instances in the {@link Scope#pool} are borrowed within a {@link
+ * Scope#worker} or {@link Scope#request} context and returned when the
+ * context ends.
+ */
+class TestFeaturePoolScopeBinds {
+
+	static final class Buffer {
+
+		final AtomicInteger resets = new AtomicInteger();
+	}
+
+	private static class TestFeaturePoolScopeBindsModule extends BinderModule {
+
+		@Override
+		protected void declare() {
+			per(Scope.pool).bind(Buffer.class).toSupplier(
+					(dep, context) -> new Buffer());
+			injectingInto(Buffer.class).bind(Scope.pool, PoolPolicy.class) //
+					.to(PoolPolicy.DEFAULT.maximumSize(1) //
+							.maxWait(Duration.ofMillis(10)) //
+							.validateBy(obj -> ((Buffer) obj).resets.incrementAndGet() < 3));
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestFeaturePoolScopeBindsModule.class);
+	private final RequestScope requests = RequestScope.of(context);
+
+	private PoolScope pool() {
+		return (PoolScope) context.resolve(Scope.pool, Scope.class);
+	}
+
+	@Test
+	void sameInstanceIsUsedWithinContext() throws Exception {
+		Buffer[] buffers = requests.call(() -> new Buffer[] {
+				context.resolve(Buffer.class), context.resolve(Buffer.class) });
+		assertSame(buffers[0], buffers[1]);
+	}
+
+	@Test
+	void instancesAreReturnedAndValidatedWhenContextEnds() throws Exception {
+		Buffer first = requests.call(() -> context.resolve(Buffer.class));
+		assertEquals(1, first.resets.get());
+		assertSame(first, requests.call(() -> context.resolve(Buffer.class)));
+		assertEquals(2, first.resets.get());
+		// the third return is not valid so the instance is dropped
+		assertSame(first, requests.call(() -> context.resolve(Buffer.class)));
+		assertNotSame(first, requests.call(() -> context.resolve(Buffer.class)));
+
+		PoolScope.Stats stats = pool().stats();
+		assertEquals(4, stats.borrowed);
+		assertEquals(2, stats.created);
+		assertEquals(3, stats.returned);
+		assertEquals(1, stats.dropped);
+	}
+
+	@Test
+	void instancesAreReturnedOnDeallocate() {
+		Scope.Controller worker = context.resolve(
+				Scope.Controller.forScope(Scope.worker));
+		worker.allocate();
+		Buffer first = context.resolve(Buffer.class);
+		worker.deallocate();
+		worker = context.resolve(Scope.Controller.forScope(Scope.worker));
+		worker.allocate();
+		assertSame(first, context.resolve(Buffer.class));
+		worker.deallocate();
+	}
+
+	@Test
+	void borrowingFailsWhenPoolIsExhausted() throws Exception {
+		requests.call(() -> {
+			context.resolve(Buffer.class);
+			// the nested request is another context
+			assertThrows(UnresolvableDependency.class,
+					() -> requests.call(() -> context.resolve(Buffer.class)));
+			return null;
+		});
+	}
+
+	@Test
+	void borrowingFailsAfterContextEndedWithoutLosingPermits()
+			throws Exception {
+		Callable<Buffer> late = requests.call(() -> requests.propagate(
+				() -> context.resolve(Buffer.class)));
+		assertThrows(UnresolvableDependency.class, late::call);
+		assertEquals(0, pool().stats().borrowed);
+		// the only permit is still available
+		assertNotNull(requests.call(() -> context.resolve(Buffer.class)));
+	}
+
+	@Test
+	void pooledInstancesRequireContext() {
+		assertThrows(UnresolvableDependency.class,
+				() -> context.resolve(Buffer.class));
+	}
+}
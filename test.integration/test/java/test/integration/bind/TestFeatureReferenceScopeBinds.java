@@ -0,0 +1,93 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Scope;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.scope.ReferenceScope;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Instances in the {@link Scope#weak} and {@link Scope#soft} {@link Scope}s
+ * are recreated once they were collected.
+ */
+class TestFeatureReferenceScopeBinds {
+
+	static final class LookupTable {
+
+		final int[] table = new int[1024];
+	}
+
+	private static class TestFeatureReferenceScopeBindsModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			per(Scope.weak).bind(LookupTable.class).toSupplier(
+					(dep, context) -> new LookupTable());
+			per(Scope.soft).bind("soft", LookupTable.class).toSupplier(
+					(dep, context) -> new LookupTable());
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestFeatureReferenceScopeBindsModule.class);
+
+	@Test
+	void instancesAreSharedWhileReachable() {
+		LookupTable table = context.resolve(LookupTable.class);
+		assertSame(table, context.resolve(LookupTable.class));
+		LookupTable soft = context.resolve("soft", LookupTable.class);
+		assertSame(soft, context.resolve("soft", LookupTable.class));
+		assertNotSame(table, soft);
+	}
+
+	@Test
+	void collectedInstancesAreRecreated() throws InterruptedException {
+		WeakReference<LookupTable> first = new WeakReference<>(
+				context.resolve(LookupTable.class));
+		for (int i = 0; i < 50 && first.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertNull(first.get(), "instance was not collected");
+		assertNotNull(context.resolve(LookupTable.class));
+
+		ReferenceScope scope = (ReferenceScope) context.resolve(Scope.weak,
+				Scope.class);
+		ReferenceScope.Stats stats = scope.stats();
+		assertEquals(1, stats.creations);
+		assertEquals(1, stats.recreations);
+		// cleared references are enqueued asynchronously
+		for (int i = 0; i < 50 && stats.collections == 0; i++) {
+			Thread.sleep(10);
+			stats = scope.stats();
+		}
+		assertEquals(1, stats.collections);
+	}
+
+	@Test
+	void recreationIsKnownAfterCollectedEntryWasRemoved()
+			throws InterruptedException {
+		ReferenceScope scope = (ReferenceScope) context.resolve(Scope.weak,
+				Scope.class);
+		WeakReference<LookupTable> first = new WeakReference<>(
+				context.resolve(LookupTable.class));
+		ReferenceScope.Stats stats = scope.stats();
+		for (int i = 0; i < 50 && stats.collections == 0; i++) {
+			System.gc();
+			Thread.sleep(10);
+			stats = scope.stats();
+		}
+		assertNull(first.get(), "instance was not collected");
+		assertEquals(1, stats.collections);
+		assertNotNull(context.resolve(LookupTable.class));
+		stats = scope.stats();
+		assertEquals(1, stats.creations);
+		assertEquals(1, stats.recreations);
+	}
+}
@@ -0,0 +1,192 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Scope;
+import se.jbee.inject.UnresolvableDependency;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.scope.RequestScope;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * The {@link Scope#request} {@link Scope} provides the same instance within
+ * one {@link RequestScope#call(Callable)} and fresh
+ * instances for each request. Other threads only take part in a request when
+ * work is explicitly propagated to them. The {@code ScopedValue} and {@link
+ * ThreadLocal} modes are tested separately.
+ */
+class TestFeatureRequestScopeBinds {
+
+	static final class Session {
+	}
+
+	private static class TestFeatureRequestScopeBindsModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			per(Scope.request).bind(Session.class).toSupplier(
+					(dep, context) -> new Session());
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestFeatureRequestScopeBindsModule.class);
+	private final RequestScope requests = RequestScope.of(context);
+
+	@Test
+	void sameInstanceWithinRequest() throws Exception {
+		Session[] sessions = requests.call(() -> new Session[] {
+				context.resolve(Session.class), context.resolve(Session.class) });
+		assertSame(sessions[0], sessions[1]);
+	}
+
+	@Test
+	void differentInstanceForEachRequest() throws Exception {
+		Session first = requests.call(() -> context.resolve(Session.class));
+		Session second = requests.call(() -> context.resolve(Session.class));
+		assertNotSame(first, second);
+	}
+
+	@Test
+	void requestIsNotInheritedByThreadsStartedWithinRequest()
+			throws Exception {
+		assertNotInherited(context, requests);
+	}
+
+	@Test
+	void requestIsPropagatedExplicitly() throws Exception {
+		assertPropagatedExplicitly(context, requests);
+	}
+
+	@Test
+	void propagatedTasksFailAfterRequestEnded() throws Exception {
+		Callable<Session> task = requests.call(() -> requests.propagate(
+				() -> context.resolve(Session.class)));
+		assertThrows(UnresolvableDependency.class, task::call);
+	}
+
+	@Test
+	void propagatingOutsideOfRequestFails() {
+		assertThrows(IllegalStateException.class,
+				() -> requests.propagate(() -> {}));
+	}
+
+	/*
+	 * ScopedValue mode
+	 */
+
+	@Test
+	void scopedValueModeIsUsedWhereAvailable() throws Exception {
+		assumeTrue(requests.isScopedValueBased(),
+				"java.lang.ScopedValue is not available");
+		assertNotInherited(context, requests);
+		assertPropagatedExplicitly(context, requests);
+	}
+
+	/*
+	 * ThreadLocal mode
+	 */
+
+	private static class TestFeatureRequestScopeBindsThreadLocalModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			bindScope(Scope.request).to(RequestScope.usingThreadLocal());
+			per(Scope.request).bind(Session.class).toSupplier(
+					(dep, context) -> new Session());
+		}
+	}
+
+	@Test
+	void threadLocalModeCanBeUsedExplicitly() throws Exception {
+		Injector context = Bootstrap.injector(
+				TestFeatureRequestScopeBindsThreadLocalModule.class);
+		RequestScope requests = RequestScope.of(context);
+		assertFalse(requests.isScopedValueBased());
+		Session[] sessions = requests.call(() -> new Session[] {
+				context.resolve(Session.class), context.resolve(Session.class) });
+		assertSame(sessions[0], sessions[1]);
+		assertNotInherited(context, requests);
+		assertPropagatedExplicitly(context, requests);
+	}
+
+	@Test
+	void threadLocalModeDoesNotLeakToPooledThreads() throws Exception {
+		Injector context = Bootstrap.injector(
+				TestFeatureRequestScopeBindsThreadLocalModule.class);
+		RequestScope requests = RequestScope.of(context);
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			requests.call(() -> pool.submit(
+					requests.propagate(() -> context.resolve(Session.class))).get());
+			assertFalse(pool.submit(requests::isActive).get());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private static void assertNotInherited(Injector context,
+			RequestScope requests) throws Exception {
+		AtomicReference<Throwable> inThread = new AtomicReference<>();
+		requests.run(() -> {
+			Thread t = new Thread(() -> {
+				try {
+					context.resolve(Session.class);
+				} catch (Throwable e) {
+					inThread.set(e);
+				}
+			});
+			t.start();
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		assertTrue(inThread.get() instanceof UnresolvableDependency);
+	}
+
+	private static void assertPropagatedExplicitly(Injector context,
+			RequestScope requests) throws Exception {
+		AtomicReference<Session> inThread = new AtomicReference<>();
+		Session inRequest = requests.call(() -> {
+			Thread t = new Thread(requests.propagate(
+					() -> inThread.set(context.resolve(Session.class))));
+			t.start();
+			t.join();
+			return context.resolve(Session.class);
+		});
+		assertSame(inRequest, inThread.get());
+	}
+
+	@Test
+	void nestedRequestsAreIndependent() throws Exception {
+		Session[] sessions = requests.call(() -> {
+			Session outer = context.resolve(Session.class);
+			Session inner = requests.call(() -> context.resolve(Session.class));
+			return new Session[] { outer, inner,
+					context.resolve(Session.class) };
+		});
+		assertNotSame(sessions[0], sessions[1]);
+		assertSame(sessions[0], sessions[2]);
+	}
+
+	@Test
+	void resolvingOutsideOfRequestFails() {
+		assertFalse(requests.isActive());
+		assertThrows(UnresolvableDependency.class,
+				() -> context.resolve(Session.class));
+		requests.run(() -> assertTrue(requests.isActive()));
+		assertFalse(requests.isActive());
+	}
+}
@@ -0,0 +1,75 @@
+package test.integration.bind;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.*;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.bootstrap.Bootstrap;
+
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.inject.Name.named;
+
+/**
+ * The slots passed to {@link Scope#provide(int, int, Dependency, Provider)}
+ * are dense per scope {@link Name} so that array based {@link Scope}s only
+ * need as many slots as there are {@link Resource}s in that scope, not as
+ * many as there are in the whole context.
+ */
+class TestFeatureScopeSlotsBinds {
+
+	static final Name slotted = named("slotted");
+
+	static final class RecordingScope implements Scope {
+
+		final Set<Integer> slots = ConcurrentHashMap.newKeySet();
+		final Set<Integer> sizes = ConcurrentHashMap.newKeySet();
+		final Object[] instances = new Object[2];
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <T> T provide(int serialID, int resources,
+				Dependency<? super T> dep, Provider<T> provider) {
+			slots.add(serialID);
+			sizes.add(resources);
+			if (instances[serialID] == null)
+				instances[serialID] = provider.provide();
+			return (T) instances[serialID];
+		}
+	}
+
+	private static class TestFeatureScopeSlotsBindsModule
+			extends BinderModule {
+
+		@Override
+		protected void declare() {
+			bindLifeCycle(ScopeLifeCycle.singleton.derive(slotted));
+			bindScope(slotted).to(new RecordingScope());
+			per(slotted).bind(String.class).toSupplier((dep, context) -> "a");
+			per(slotted).bind(Integer.class).toSupplier((dep, context) -> 42);
+			per(Scope.thread).bind(Long.class).toSupplier((dep, context) -> 13L);
+			per(Scope.application).bind(Double.class).toSupplier((dep, context) -> 1d);
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestFeatureScopeSlotsBindsModule.class);
+
+	@Test
+	void slotsAreDensePerScope() {
+		assertEquals("a", context.resolve(String.class));
+		assertEquals(42, context.resolve(Integer.class).intValue());
+		RecordingScope scope = (RecordingScope) context.resolve(slotted,
+				Scope.class);
+		assertEquals(new TreeSet<>(Set.of(0, 1)), new TreeSet<>(scope.slots));
+		assertEquals(Set.of(2), scope.sizes);
+	}
+
+	@Test
+	void arrayBasedScopesWorkWithDenseSlots() {
+		assertEquals(13L, context.resolve(Long.class).longValue());
+		assertEquals(1d, context.resolve(Double.class), 0.001);
+	}
+}
@@ -0,0 +1,123 @@
+package test.integration.bootstrap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.inject.Extends;
+import se.jbee.inject.bind.BindingIndex;
+import se.jbee.inject.bind.BindingIndex.AnnotatedMethod;
+import se.jbee.inject.bind.Bundle;
+import se.jbee.inject.binder.BinderModuleWith;
+import se.jbee.inject.processor.BindingIndexProcessor;
+import se.jbee.lang.Type;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the {@link BindingIndexProcessor} creates a {@link
+ * BindingIndex} that contains the same information the bootstrapping would
+ * otherwise extract by reflection.
+ */
+class TestBindingIndexProcessor {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void indexContainsBundlesEffectsAndAnnotatedMembers() throws Exception {
+		Path out = compile();
+		assertTrue(Files.exists(out.resolve(BindingIndex.LOCATION)));
+
+		try (URLClassLoader loader = new URLClassLoader(
+				new URL[] { out.toUri().toURL() }, getClass().getClassLoader())) {
+			BindingIndex index = BindingIndex.of(loader);
+			assertEquals("se.jbee.inject.Env",
+					index.bundles().get("sample.SampleBundle"));
+			assertEquals("", index.bundles().get("sample.PlainBundle"));
+			assertEquals("sample.Sample",
+					index.effects().get("sample.SampleEffect"));
+
+			Class<?> bean = loader.loadClass("sample.SampleBean");
+			assertTrue(index.isIndexed(bean));
+			assertEquals(singletonList("sample.Sample"),
+					index.typeAnnotationsOf(bean));
+			List<AnnotatedMethod> methods = index.annotatedMethodsOf(bean);
+			assertEquals(1, methods.size());
+			assertEquals("java.lang.Deprecated", methods.get(0).annotation);
+			assertEquals(bean.getMethod("old", String[].class, int.class),
+					methods.get(0).in(bean));
+			assertFalse(index.isIndexed(loader.loadClass("sample.PlainBundle")));
+		}
+	}
+
+	private Path compile() throws Exception {
+		Path src = dir.resolve("src");
+		Path out = Files.createDirectories(dir.resolve("out"));
+		write(src, "sample/Sample.java", "package sample;",
+				"@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)",
+				"public @interface Sample {}");
+		write(src, "sample/SampleBundle.java", "package sample;",
+				"@se.jbee.inject.Extends(se.jbee.inject.Env.class)",
+				"public class SampleBundle implements se.jbee.inject.bind.Bundle {",
+				"  public void bootstrap(se.jbee.inject.bind.Bootstrapper b) {}",
+				"}");
+		write(src, "sample/PlainBundle.java", "package sample;",
+				"public class PlainBundle implements se.jbee.inject.bind.Bundle {",
+				"  public void bootstrap(se.jbee.inject.bind.Bootstrapper b) {}",
+				"}");
+		write(src, "sample/SampleEffect.java", "package sample;",
+				"@se.jbee.inject.Extends(Sample.class)",
+				"public class SampleEffect extends se.jbee.inject.binder.BinderModuleWith<Class<?>> {",
+				"  protected void declare(Class<?> annotated) {}",
+				"}");
+		write(src, "sample/SampleBean.java", "package sample;",
+				"@Sample public class SampleBean {",
+				"  @Deprecated public void old(String[] a, int b) {}",
+				"}");
+		write(src, "META-INF/services/se.jbee.inject.bind.Bundle",
+				"sample.SampleBundle", "sample.PlainBundle");
+		write(src, "META-INF/services/se.jbee.inject.bind.ModuleWith",
+				"sample.SampleEffect");
+
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager files = javac.getStandardFileManager(null,
+				null, null)) {
+			JavaCompiler.CompilationTask task = javac.getTask(null, files, null,
+					asList("-sourcepath", src.toString(), "-d", out.toString(),
+							"-classpath", classpathOf(Extends.class, Bundle.class,
+									BinderModuleWith.class, Type.class)), null,
+					files.getJavaFileObjects(src.resolve("sample").toFile() //
+							.listFiles()));
+			task.setProcessors(singletonList(new BindingIndexProcessor()));
+			assertTrue(task.call());
+		}
+		return out;
+	}
+
+	private static String classpathOf(Class<?>... types) throws Exception {
+		StringBuilder classpath = new StringBuilder();
+		for (Class<?> type : types)
+			classpath.append(Path.of(type.getProtectionDomain().getCodeSource() //
+					.getLocation().toURI())).append(File.pathSeparator);
+		return classpath.toString();
+	}
+
+	private static void write(Path root, String file, String... lines)
+			throws IOException {
+		Path path = root.resolve(file);
+		Files.createDirectories(path.getParent());
+		Files.write(path, asList(lines));
+	}
+}
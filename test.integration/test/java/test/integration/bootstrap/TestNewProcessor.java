@@ -0,0 +1,285 @@
+package test.integration.bootstrap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.inject.Env;
+import se.jbee.inject.Hint;
+import se.jbee.inject.Injector;
+import se.jbee.inject.binder.BinderModule;
+import se.jbee.inject.binder.BinderModuleWith;
+import se.jbee.inject.binder.Supply;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.config.New;
+import se.jbee.inject.processor.NewProcessor;
+import se.jbee.lang.Type;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies that the {@link NewProcessor} generates {@link New}s that are used
+ * instead of reflection when {@link New#preferGenerated(New)} is bound and
+ * that reflection is still used for types or constructors not covered.
+ * <p>
+ * Types with a unique constructor picked by the default strategy also get a
+ * generated {@link se.jbee.inject.Supplier} that is used when binding with
+ * {@link se.jbee.inject.binder.Binder#preferGenerated()}.
+ */
+class TestNewProcessor {
+
+	@TempDir
+	Path dir;
+
+	private final AtomicInteger reflectiveCalls = new AtomicInteger();
+	private final New fallback = new New() {
+
+		@Override
+		public <T> T call(Constructor<T> target, Object[] args)
+				throws Exception {
+			reflectiveCalls.incrementAndGet();
+			return target.newInstance(args);
+		}
+	};
+
+	@Test
+	void generatedNewIsPreferredOverReflection() throws Exception {
+		Path out = compile("");
+		assertTrue(Files.exists(out.resolve("sample/Widget$$New.class")));
+		assertFalse(Files.exists(out.resolve("sample/Plain$$New.class")));
+		try (URLClassLoader loader = loader(out)) {
+			Class<?> widget = loader.loadClass("sample.Widget");
+			New preferGenerated = New.preferGenerated(fallback);
+
+			Object w = preferGenerated.call(
+					widget.getConstructor(String.class), new Object[] { "a" });
+			assertEquals("a", w.toString());
+			w = preferGenerated.call(
+					widget.getDeclaredConstructor(String.class, int.class),
+					new Object[] { "b", 2 });
+			assertEquals("b2", w.toString());
+			assertEquals(0, reflectiveCalls.get());
+
+			Constructor<?> withList = widget.getConstructor(java.util.List.class);
+			w = preferGenerated.call(withList,
+					new Object[] { asList("c", "d") });
+			assertEquals("[c, d]", w.toString());
+			assertEquals(0, reflectiveCalls.get());
+		}
+	}
+
+	@Test
+	void reflectionIsUsedWhenNoNewWasGenerated() throws Exception {
+		Path out = compile("");
+		try (URLClassLoader loader = loader(out)) {
+			Class<?> plain = loader.loadClass("sample.Plain");
+			Object p = New.preferGenerated(fallback).call(
+					plain.getConstructor(), new Object[0]);
+			assertNotNull(p);
+			assertEquals(1, reflectiveCalls.get());
+		}
+	}
+
+	@Test
+	void packagesOptionGeneratesNewForNestedTypes() throws Exception {
+		Path out = compile("sample");
+		assertTrue(Files.exists(out.resolve("sample/Plain$$New.class")));
+		assertTrue(Files.exists(out.resolve("sample/Plain$Part$$New.class")));
+		assertTrue(Files.exists(out.resolve("sample/Plain_Part$$New.class")));
+		try (URLClassLoader loader = loader(out)) {
+			Class<?> part = loader.loadClass("sample.Plain$Part");
+			Object p = New.preferGenerated(fallback).call(
+					part.getConstructor(long.class), new Object[] { 42L });
+			assertEquals("42", p.toString());
+			assertEquals(0, reflectiveCalls.get());
+		}
+	}
+
+	public static class Bean {
+
+		final String name;
+
+		public Bean(String name) {
+			this.name = name;
+		}
+	}
+
+	private static class TestNewProcessorModule extends BinderModule {
+
+		@Override
+		protected void declare() {
+			preferGeneratedNew();
+			construct(Bean.class);
+			bind(String.class).to("x");
+		}
+	}
+
+	@Test
+	void binderCanPreferGeneratedNewWithReflectionAsFallback() {
+		Injector context = Bootstrap.injector(TestNewProcessorModule.class);
+		assertEquals("x", context.resolve(Bean.class).name);
+	}
+
+	@Test
+	void generatedNamesDoNotCollideWithNamesOfOtherTypes() throws Exception {
+		Path out = compile("sample");
+		try (URLClassLoader loader = loader(out)) {
+			assertInstanceOf(se.jbee.inject.Supplier.class, loader.loadClass(
+					"sample.Plain$Part$$New").getConstructor().newInstance());
+			assertInstanceOf(se.jbee.inject.Supplier.class, loader.loadClass(
+					"sample.Plain_Part$$New").getConstructor().newInstance());
+		}
+	}
+
+	@Test
+	void generatedSupplierIsOnlyCreatedForUniqueOptimisticConstructor()
+			throws Exception {
+		Path out = compile("sample");
+		try (URLClassLoader loader = loader(out)) {
+			assertInstanceOf(se.jbee.inject.Supplier.class, loader.loadClass(
+					"sample.Gadget$$New").getConstructor().newInstance());
+			assertFalse(se.jbee.inject.Supplier.class.isAssignableFrom(
+					loader.loadClass("sample.Widget$$New")));
+		}
+	}
+
+	static final AtomicInteger BINDING_CALLS = new AtomicInteger();
+
+	private static class TestNewProcessorSupplierModule
+			extends BinderModuleWith<ClassLoader> {
+
+		@Override
+		protected void declare(ClassLoader loader) {
+			bind(New.class).to(new New() {
+
+				@Override
+				public <T> T call(Constructor<T> target, Object[] args)
+						throws Exception {
+					if (target.getDeclaringClass().getName().equals("sample.Gadget"))
+						BINDING_CALLS.incrementAndGet();
+					return target.newInstance(args);
+				}
+			});
+			bind(String.class).to("g");
+			bind(Integer.class).to(7);
+			try {
+				Class<?> gadget = loader.loadClass("sample.Gadget");
+				if (env(Env.PREFER_GENERATED, false))
+					preferGenerated().bind(gadget).toConstructor();
+				else
+					bind(gadget).toConstructor();
+			} catch (ClassNotFoundException e) {
+				throw new AssertionError(e);
+			}
+		}
+
+		private boolean env(String property, boolean defaultValue) {
+			return env().property(property, defaultValue);
+		}
+	}
+
+	@Test
+	void binderCanPreferGeneratedSupplier() throws Exception {
+		Path out = compile("");
+		try (URLClassLoader loader = loader(out)) {
+			Class<?> gadget = loader.loadClass("sample.Gadget");
+			BINDING_CALLS.set(0);
+			Injector context = Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+					.with(ClassLoader.class, loader) //
+					.with(Env.PREFER_GENERATED, true),
+					TestNewProcessorSupplierModule.class);
+			assertEquals("g7", context.resolve(gadget).toString());
+			assertEquals(0, BINDING_CALLS.get());
+
+			context = Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+					.with(ClassLoader.class, loader),
+					TestNewProcessorSupplierModule.class);
+			assertEquals("g7", context.resolve(gadget).toString());
+			assertEquals(1, BINDING_CALLS.get());
+		}
+	}
+
+	private URLClassLoader loader(Path out) throws IOException {
+		return new URLClassLoader(new URL[] { out.toUri().toURL() },
+				getClass().getClassLoader());
+	}
+
+	private Path compile(String packages) throws Exception {
+		Path src = dir.resolve("src");
+		Path out = Files.createDirectories(dir.resolve("out"));
+		write(src, "sample/Widget.java", "package sample;",
+				"@se.jbee.inject.config.New.Generate",
+				"public class Widget {",
+				"  private final String s;",
+				"  public Widget(String s) { this.s = s; }",
+				"  Widget(String s, int n) { this(s + n); }",
+				"  private Widget(int n) { this(\"\" + n); }",
+				"  public Widget(java.util.List<? extends CharSequence> l) { this(l.toString()); }",
+				"  @Override public String toString() { return s; }",
+				"}");
+		write(src, "sample/Plain.java", "package sample;",
+				"public class Plain {",
+				"  public static class Part {",
+				"    private final long n;",
+				"    public Part(long n) { this.n = n; }",
+				"    @Override public String toString() { return String.valueOf(n); }",
+				"  }",
+				"}");
+
+		write(src, "sample/Plain_Part.java", "package sample;",
+				"public class Plain_Part {",
+				"  public Plain_Part() { }",
+				"}");
+		write(src, "sample/Gadget.java", "package sample;",
+				"@se.jbee.inject.config.New.Generate",
+				"public class Gadget {",
+				"  private final String s;",
+				"  public Gadget() { this(\"\", 0); }",
+				"  public Gadget(String s, Integer n) { this.s = s + n; }",
+				"  @Override public String toString() { return s; }",
+				"}");
+
+		JavaCompiler javac = ToolProvider.getSystemJavaCompiler();
+		try (StandardJavaFileManager files = javac.getStandardFileManager(null,
+				null, null)) {
+			JavaCompiler.CompilationTask task = javac.getTask(null, files, null,
+					asList("-d", out.toString(), "-classpath", classpath(
+							New.class, Supply.class, Hint.class, Type.class),
+							"-A" + NewProcessor.PACKAGES + "=" + packages), null,
+					files.getJavaFileObjects(src.resolve("sample").toFile() //
+							.listFiles()));
+			task.setProcessors(singletonList(new NewProcessor()));
+			assertTrue(task.call());
+		}
+		return out;
+	}
+
+	private static String classpath(Class<?>... types) throws Exception {
+		Set<String> entries = new LinkedHashSet<>();
+		for (Class<?> type : types)
+			entries.add(Path.of(type.getProtectionDomain().getCodeSource() //
+					.getLocation().toURI()).toString());
+		return String.join(File.pathSeparator, entries);
+	}
+
+	private static void write(Path root, String file, String... lines)
+			throws IOException {
+		Path path = root.resolve(file);
+		Files.createDirectories(path.getParent());
+		Files.write(path, asList(lines));
+	}
+}
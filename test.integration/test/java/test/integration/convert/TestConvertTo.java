@@ -5,14 +5,18 @@ import se.jbee.inject.Converter;
 import se.jbee.inject.Injector;
 import se.jbee.inject.bootstrap.Bootstrap;
 import se.jbee.inject.convert.ConvertTo;
+import se.jbee.inject.convert.Conversions;
 import se.jbee.inject.convert.ConverterModule;
 import se.jbee.inject.convert.Converts;
 import se.jbee.inject.convert.Imports;
+import se.jbee.lang.Type;
 
 import java.math.BigInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static se.jbee.lang.Type.raw;
 
 class TestConvertTo {
@@ -28,6 +32,15 @@ class TestConvertTo {
 		}
 	}
 
+	public static final class UnannotatedConverter
+			implements Converter<Integer, BigInteger> {
+
+		@Override
+		public BigInteger convert(Integer input) {
+			return BigInteger.valueOf(input.longValue());
+		}
+	}
+
 	public static class TestChainModule extends ConverterModule {
 
 		public Converter<String, Long> str2long = Long::parseLong;
@@ -45,6 +58,34 @@ class TestConvertTo {
 		assertConverts(toBigInteger, Long.class, 42L, BigInteger.valueOf(42));
 	}
 
+	@Test
+	void chainIsDiscoveredFromBoundConverters() {
+		ConvertTo<BigInteger> toBigInteger = new ConvertTo<>(new UnannotatedConverter(), context);
+		assertConverts(toBigInteger, String.class, "42", BigInteger.valueOf(42));
+		assertConverts(toBigInteger, Long.class, 42L, BigInteger.valueOf(42));
+	}
+
+	@Test
+	void conversionsFindShortestChainOfBoundConverters() {
+		Conversions conversions = new Conversions(context);
+		Converter<String, Integer> str2int = conversions.from(raw(String.class), raw(Integer.class));
+		assertEquals(42, str2int.convert("42"));
+		assertSame(str2int, conversions.from(raw(String.class), raw(Integer.class)));
+		assertNull(conversions.find(raw(Integer.class), raw(String.class)));
+	}
+
+	@Test
+	void conversionsAreSharedWithinTheContext() {
+		Conversions conversions = context.resolve(Conversions.class);
+		assertSame(conversions, context.resolve(Conversions.class));
+		ConvertTo<BigInteger> toBigInteger = new ConvertTo<>(new UnannotatedConverter(), context);
+		Type<String> in = raw(String.class);
+		Converter<String, BigInteger> str2bigInt = toBigInteger.from(in);
+		assertSame(str2bigInt, toBigInteger.from(in));
+		assertSame(str2bigInt, toBigInteger.from(raw(String.class)));
+		assertNotNull(conversions.find(in, raw(Integer.class)));
+	}
+
 	private static <A, B> void assertConverts(ConvertTo<B> convertTo, Class<A> type,
 			A input, B expected) {
 		Converter<A, B> a2b = convertTo.from(raw(type));
@@ -0,0 +1,129 @@
+package test.integration.event;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.disk.DiskCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.InvalidObjectException;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.lang.Type.raw;
+
+/**
+ * Tests the basic round trip of the built-in {@link DiskCodec}s.
+ */
+class TestDiskCodec {
+
+	enum Level { LOW, HIGH }
+
+	public static final class Bean {
+		int count;
+		String name;
+		Level level;
+		long[] values;
+		Integer optional;
+		Bean next;
+	}
+
+	public static final class OtherBean {
+		int count;
+	}
+
+	public static final class ListBean {
+		ArrayList<String> names;
+	}
+
+	public static final class NestedListBean {
+		int count;
+		ListBean[] lists;
+	}
+
+	public static final class ObjectBean {
+		Object value;
+	}
+
+	public static class BaseBean {
+		int count;
+	}
+
+	public static final class SubBean extends BaseBean {}
+
+	@Test
+	void binaryCodecSupportsSimpleBeans() {
+		assertTrue(DiskCodec.BINARY.supports(raw(Bean.class)));
+		assertFalse(DiskCodec.BINARY.supports(raw(Runnable.class)));
+	}
+
+	@Test
+	void binaryCodecDoesNotSupportBeansWithUnsupportedNestedFields() {
+		assertFalse(DiskCodec.BINARY.supports(raw(ListBean.class)));
+		assertFalse(DiskCodec.BINARY.supports(raw(NestedListBean.class)));
+		assertFalse(DiskCodec.BINARY.supports(raw(ObjectBean.class)));
+	}
+
+	@Test
+	void binaryCodecRoundTrip() throws IOException {
+		assertRoundTrip(DiskCodec.BINARY);
+	}
+
+	@Test
+	void compressedBinaryCodecRoundTrip() throws IOException {
+		assertRoundTrip(DiskCodec.compressed(DiskCodec.BINARY));
+	}
+
+	@Test
+	void binaryCodecRejectsDataOfOtherLayout() throws IOException {
+		OtherBean bean = new OtherBean();
+		bean.count = 7;
+		byte[] data = encode(DiskCodec.BINARY, bean);
+		assertThrows(InvalidClassException.class,
+				() -> DiskCodec.BINARY.decode(raw(Bean.class),
+						new ByteArrayInputStream(data)));
+	}
+
+	@Test
+	void binaryCodecRejectsCyclicObjectGraphs() {
+		Bean bean = new Bean();
+		bean.next = new Bean();
+		bean.next.next = bean;
+		assertThrows(InvalidObjectException.class,
+				() -> encode(DiskCodec.BINARY, bean));
+	}
+
+	@Test
+	void binaryCodecRejectsSubtypeInstances() {
+		assertThrows(InvalidClassException.class,
+				() -> DiskCodec.BINARY.encode(raw(BaseBean.class),
+						new SubBean(), new ByteArrayOutputStream()));
+	}
+
+	private static void assertRoundTrip(DiskCodec codec) throws IOException {
+		Bean bean = new Bean();
+		bean.count = 42;
+		bean.name = "foo";
+		bean.level = Level.HIGH;
+		bean.values = new long[] { 1L, 2L };
+		bean.next = new Bean();
+		bean.next.name = "bar";
+		Bean actual = (Bean) codec.decode(raw(Bean.class),
+				new ByteArrayInputStream(encode(codec, bean)));
+		assertNotSame(bean, actual);
+		assertEquals(42, actual.count);
+		assertEquals("foo", actual.name);
+		assertSame(Level.HIGH, actual.level);
+		assertArrayEquals(new long[] { 1L, 2L }, actual.values);
+		assertNull(actual.optional);
+		assertEquals("bar", actual.next.name);
+		assertNull(actual.next.next);
+	}
+
+	private static byte[] encode(DiskCodec codec, Object obj) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.encode(raw(obj.getClass()), obj, out);
+		return out.toByteArray();
+	}
+}
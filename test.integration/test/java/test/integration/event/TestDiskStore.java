@@ -0,0 +1,146 @@
+package test.integration.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.inject.disk.DiskStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the basic properties of the built-in {@link DiskStore}s.
+ */
+class TestDiskStore {
+
+	@TempDir
+	File dir;
+
+	@Test
+	void filesStoreRoundTrip() throws IOException {
+		assertRoundTrip(DiskStore.files(dir));
+	}
+
+	@Test
+	void filesStoreDoesNotReportItsOwnWritesAsModified() throws IOException {
+		DiskStore store = DiskStore.files(dir);
+		for (int i = 0; i < 20; i++) {
+			store.write("foo", bytes("bar" + i));
+			assertFalse(store.isModified("foo"));
+		}
+		assertEquals("bar19", string(store.read("foo")));
+		store.close();
+	}
+
+	@Test
+	void logStoreRoundTrip() throws IOException {
+		assertRoundTrip(DiskStore.log(new File(dir, "scope.log")));
+	}
+
+	@Test
+	void logStoreIsOnlyCreatedByTheFirstWrite() throws IOException {
+		File log = new File(dir, "scope.log");
+		DiskStore store = DiskStore.log(log);
+		assertNull(store.read("a"));
+		store.compact();
+		store.flush();
+		assertFalse(log.exists());
+		store.write("a", bytes("1"));
+		store.flush();
+		assertTrue(log.exists());
+		assertEquals("1", string(store.read("a")));
+		store.close();
+	}
+
+	@Test
+	void logStoreReplaysLogWhenOpened() throws IOException {
+		File log = new File(dir, "scope.log");
+		DiskStore store = DiskStore.log(log);
+		store.write("a", bytes("1"));
+		store.write("b", bytes("2"));
+		store.write("a", bytes("3"));
+		store.close();
+
+		store = DiskStore.log(log);
+		assertEquals("3", string(store.read("a")));
+		assertEquals("2", string(store.read("b")));
+		store.close();
+	}
+
+	@Test
+	void logStoreDropsIncompleteRecordWhenOpened() throws IOException {
+		File log = new File(dir, "scope.log");
+		DiskStore store = DiskStore.log(log);
+		store.write("a", bytes("1"));
+		store.close();
+		long size = log.length();
+		try (FileOutputStream out = new FileOutputStream(log, true)) {
+			out.write(new byte[] { 0, 0, 0, 1, 0, 0 }); // simulated crash
+		}
+
+		store = DiskStore.log(log);
+		assertEquals("1", string(store.read("a")));
+		store.close();
+		assertEquals(size, log.length());
+	}
+
+	@Test
+	void logStoreCompactionRemovesSupersededRecords() throws IOException {
+		File log = new File(dir, "scope.log");
+		DiskStore store = DiskStore.log(log);
+		ByteBuffer data = ByteBuffer.allocate(10_000);
+		for (int i = 0; i < 20; i++)
+			store.write("a", data.duplicate());
+		store.write("b", bytes("b"));
+		store.close();
+		long size = log.length();
+		store = DiskStore.log(log);
+		store.compact();
+		assertEquals(10_000, store.read("a").remaining());
+		assertEquals("b", string(store.read("b")));
+		store.close();
+		assertTrue(log.length() < size / 10);
+	}
+
+	@Test
+	void logStoreKeepsReadViewsValidWhenGrowing() throws IOException {
+		File log = new File(dir, "scope.log");
+		DiskStore store = DiskStore.log(log);
+		store.write("a", bytes("first"));
+		ByteBuffer a = store.read("a");
+		ByteBuffer data = ByteBuffer.allocate(64 * 1024);
+		for (int i = 0; i < 40; i++)
+			store.write("b" + i, data.duplicate());
+		assertEquals("first", string(a));
+		assertEquals(64 * 1024, store.read("b39").remaining());
+		store.close();
+		// header + key + data + trailer for each record
+		long expected = (8 + 1 + 5 + 4) + 10 * (8 + 2 + 64 * 1024 + 4)
+			+ 30 * (8 + 3 + 64 * 1024 + 4);
+		assertEquals(expected, log.length(), "spare capacity is cut off on close");
+	}
+
+	private static void assertRoundTrip(DiskStore store) throws IOException {
+		assertNull(store.read("foo"));
+		store.write("foo", bytes("bar"));
+		assertEquals("bar", string(store.read("foo")));
+		assertFalse(store.isModified("foo"));
+		store.write("foo", bytes("baz"));
+		assertEquals("baz", string(store.read("foo")));
+		store.close();
+	}
+
+	private static ByteBuffer bytes(String str) {
+		return ByteBuffer.wrap(str.getBytes(UTF_8));
+	}
+
+	private static String string(ByteBuffer buf) {
+		byte[] bytes = new byte[buf.remaining()];
+		buf.duplicate().get(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
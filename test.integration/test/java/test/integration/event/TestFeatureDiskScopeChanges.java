@@ -0,0 +1,159 @@
+package test.integration.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.inject.Dependency;
+import se.jbee.inject.disk.DiskCodec;
+import se.jbee.inject.disk.DiskScope;
+import se.jbee.inject.disk.DiskStore;
+import se.jbee.inject.disk.DiskWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.inject.Dependency.dependency;
+
+/**
+ * Tests that the {@link DiskScope} only writes entries that changed or that
+ * were marked as {@link DiskScope#markDirty(Object)}.
+ *
+ * @see TestFeatureDiskScopeSync
+ */
+class TestFeatureDiskScopeChanges {
+
+	/**
+	 * Counts the writes per key.
+	 */
+	static final class CountingDiskStore implements DiskStore {
+
+		final DiskStore store;
+		final Map<String, AtomicInteger> writes = new ConcurrentHashMap<>();
+
+		CountingDiskStore(DiskStore store) {
+			this.store = store;
+		}
+
+		int writes(String key) {
+			AtomicInteger n = writes.get(key);
+			return n == null ? 0 : n.get();
+		}
+
+		@Override
+		public ByteBuffer read(String key) throws IOException {
+			return store.read(key);
+		}
+
+		@Override
+		public void write(String key, ByteBuffer data) throws IOException {
+			writes.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+			store.write(key, data);
+		}
+
+		@Override
+		public boolean isModified(String key) {
+			return store.isModified(key);
+		}
+
+		@Override
+		public void close() throws IOException {
+			store.close();
+		}
+	}
+
+	@TempDir
+	File dir;
+
+	private final AtomicInteger provided = new AtomicInteger();
+
+	private DiskScope scope(DiskStore store, Consumer<DiskScope.DiskEntry> disk) {
+		return new DiskScope(store, dep -> dep.instance.name.toString(), disk,
+				type -> DiskCodec.SERIALIZATION);
+	}
+
+	private AtomicInteger provide(DiskScope scope, String name) {
+		Dependency<AtomicInteger> dep = dependency(AtomicInteger.class).named(
+				name);
+		return scope.provide(0, 1, dep,
+				() -> new AtomicInteger(provided.incrementAndGet()));
+	}
+
+	@Test
+	void unchangedEntriesAreNotWrittenAgain() {
+		CountingDiskStore store = new CountingDiskStore(DiskStore.files(dir));
+		DiskScope scope = scope(store, DiskScope::syncToDisk);
+		AtomicInteger a = provide(scope, "a");
+		assertEquals(1, store.writes("a"));
+		scope.syncToDisk();
+		scope.syncToDisk();
+		assertEquals(1, store.writes("a"));
+		a.set(42);
+		scope.syncToDisk();
+		assertEquals(2, store.writes("a"));
+		scope.syncToDisk();
+		assertEquals(2, store.writes("a"));
+	}
+
+	@Test
+	void loadedEntriesAreNotWrittenAgain() {
+		DiskScope scope = scope(DiskStore.files(dir), DiskScope::syncToDisk);
+		provide(scope, "a").set(42);
+		scope.close();
+
+		CountingDiskStore store = new CountingDiskStore(DiskStore.files(dir));
+		scope = scope(store, DiskScope::syncToDisk);
+		assertEquals(42, provide(scope, "a").get());
+		assertEquals(1, provided.get());
+		scope.syncToDisk();
+		assertEquals(0, store.writes("a"));
+	}
+
+	@Test
+	void dirtyEntriesAreWrittenEvenIfUnchanged() {
+		CountingDiskStore store = new CountingDiskStore(DiskStore.files(dir));
+		DiskScope scope = scope(store, DiskScope::syncToDisk);
+		AtomicInteger a = provide(scope, "a");
+		AtomicInteger b = provide(scope, "b");
+		assertTrue(scope.markDirty(a));
+		assertFalse(scope.markDirty(new AtomicInteger()));
+		scope.syncToDisk();
+		assertEquals(2, store.writes("a"));
+		assertEquals(1, store.writes("b"));
+		scope.syncToDisk();
+		assertEquals(2, store.writes("a"));
+	}
+
+	@Test
+	void entriesAreWrittenInBatchesInTheBackground() throws IOException {
+		CountingDiskStore store = new CountingDiskStore(DiskStore.files(dir));
+		DiskWriter writer = new DiskWriter();
+		DiskScope scope = scope(store, writer);
+		for (int i = 0; i < 10; i++)
+			provide(scope, "e" + i);
+		for (int i = 0; i < 5; i++)
+			scope.syncToDisk();
+		writer.flush();
+		for (int i = 0; i < 10; i++) {
+			assertEquals(1, store.writes("e" + i));
+			assertNotNull(store.read("e" + i));
+		}
+	}
+
+	@Test
+	void closingTheScopeClosesItsWriter() {
+		CountingDiskStore store = new CountingDiskStore(DiskStore.files(dir));
+		DiskWriter writer = new DiskWriter();
+		DiskScope scope = scope(store, writer);
+		provide(scope, "a");
+		scope.close();
+		assertEquals(1, store.writes("a"));
+		// after closing entries are written directly
+		provide(scope, "b");
+		assertEquals(1, store.writes("b"));
+	}
+}
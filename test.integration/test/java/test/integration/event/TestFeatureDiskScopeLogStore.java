@@ -0,0 +1,78 @@
+package test.integration.event;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import se.jbee.inject.Env;
+import se.jbee.inject.Injector;
+import se.jbee.inject.Name;
+import se.jbee.inject.Scope;
+import se.jbee.inject.binder.BinderModuleWith;
+import se.jbee.inject.binder.Installs;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.disk.DiskScope;
+import se.jbee.inject.disk.DiskScopeModule;
+import se.jbee.inject.disk.DiskStore;
+import se.jbee.inject.schedule.SchedulerModule;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.lang.Cast.consumerTypeOf;
+
+/**
+ * Tests that a {@link DiskScope} can use the {@link DiskStore#log(File)} store
+ * instead of the default file per entry by binding it for the name of the
+ * disk scope.
+ *
+ * @see TestFeatureDiskScopeSync
+ */
+class TestFeatureDiskScopeLogStore {
+
+	@Installs(bundles = DiskScopeModule.class)
+	private static final class TestFeatureDiskScopeLogStoreModule
+			extends BinderModuleWith<File> {
+
+		@Override
+		protected void declare(File dir) {
+			Name disk = Scope.disk(dir);
+			bind(disk, DiskStore.class).toProvider(
+					() -> DiskStore.log(new File(dir, "scope.log")));
+			per(disk).bind(AtomicInteger.class).toProvider(
+					() -> new AtomicInteger(1));
+
+			// write directly and without a scheduler
+			bind(consumerTypeOf(DiskScope.DiskEntry.class)).to(
+					(Consumer<DiskScope.DiskEntry>) DiskScope::syncToDisk);
+			bind(SchedulerModule.ScheduledExecutor.class).to(
+					new RecordingScheduledExecutor());
+		}
+	}
+
+	@TempDir
+	File dir;
+
+	private Injector injector() {
+		Env env = Bootstrap.DEFAULT_ENV.with(File.class, dir);
+		return Bootstrap.injector(env, TestFeatureDiskScopeLogStoreModule.class);
+	}
+
+	@Test
+	void valuesSurviveReopeningTheStore() {
+		Injector context = injector();
+		AtomicInteger value = context.resolve(AtomicInteger.class);
+		assertEquals(1, value.get());
+		value.set(42);
+		((DiskScope) context.resolve(Scope.disk(dir), Scope.class)).close();
+
+		File[] files = dir.listFiles();
+		assertNotNull(files);
+		assertEquals(1, files.length);
+		assertEquals("scope.log", files[0].getName());
+
+		context = injector();
+		assertEquals(42, context.resolve(AtomicInteger.class).get());
+		((DiskScope) context.resolve(Scope.disk(dir), Scope.class)).close();
+	}
+}
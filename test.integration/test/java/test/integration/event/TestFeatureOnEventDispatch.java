@@ -0,0 +1,243 @@
+package test.integration.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Injector;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.event.*;
+
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+import static se.jbee.inject.event.EventTrigger.eventTriggerTypeOf;
+
+/**
+ * Tests the {@link DefaultEventDispatcher} which calls {@link On} annotated
+ * methods of {@link On.Aware} instances for each published event of the
+ * event type(s) given by {@link On#value()}.
+ * <p>
+ * Events of the same type are handled in the order they were published.
+ * Events returned by {@link On.DispatchType#SEQUENTIAL} receivers are
+ * published when all receivers have received the event.
+ */
+class TestFeatureOnEventDispatch {
+
+	static final int EVENTS = 1000;
+	static final int SPARKS = 5000;
+
+	public static final class Ping {
+
+		final int n;
+
+		Ping(int n) {
+			this.n = n;
+		}
+	}
+
+	public static final class Pong {
+
+		final int n;
+
+		Pong(int n) {
+			this.n = n;
+		}
+	}
+
+	public static final class Tick {}
+
+	public static final class Boom {}
+
+	public static class Signal {}
+
+	public static final class Alarm extends Signal {}
+
+	public static final class Burst {}
+
+	public static final class Spark {
+
+		final int n;
+
+		Spark(int n) {
+			this.n = n;
+		}
+	}
+
+	public static class Receiver implements On.Aware {
+
+		final List<String> received = Collections.synchronizedList(new ArrayList<>());
+		final List<Integer> pings = new CopyOnWriteArrayList<>();
+		final CountDownLatch pongs = new CountDownLatch(EVENTS);
+		final AtomicInteger ticks = new AtomicInteger();
+		final List<Class<?>> signals = new CopyOnWriteArrayList<>();
+		final CountDownLatch signalled = new CountDownLatch(2);
+		final List<Integer> sparks = new CopyOnWriteArrayList<>();
+		final CountDownLatch sparked = new CountDownLatch(SPARKS);
+
+		@On(Ping.class)
+		public Pong answer(Ping ping) {
+			received.add("answer" + ping.n);
+			return new Pong(ping.n);
+		}
+
+		@On(Ping.class)
+		public void record(String label, Ping ping) {
+			pings.add(ping.n);
+			received.add(label + ping.n);
+		}
+
+		@On(Pong.class)
+		public void pong(Pong pong) {
+			received.add("pong" + pong.n);
+			pongs.countDown();
+		}
+
+		@On(Tick.class)
+		public void tick() {
+			ticks.incrementAndGet();
+		}
+
+		@On(Boom.class)
+		public void boom(Boom boom) throws Exception {
+			throw new Exception("boom");
+		}
+
+		@On(Signal.class)
+		public void signal(Signal signal) {
+			signals.add(signal.getClass());
+			signalled.countDown();
+		}
+
+		@On(Burst.class)
+		public List<Spark> burst(Burst burst) {
+			List<Spark> res = new ArrayList<>();
+			for (int i = 0; i < SPARKS; i++)
+				res.add(new Spark(i));
+			return res;
+		}
+
+		@On(Spark.class)
+		public void spark(Spark spark) {
+			sparks.add(spark.n);
+			sparked.countDown();
+		}
+	}
+
+	public static class RecordingRecovery implements EventRecovery {
+
+		final List<Exception> recovered = new CopyOnWriteArrayList<>();
+
+		@Override
+		public <T> void recover(Exception ex, Event<T> event,
+				EventHandler<? super T> handler, Controller controller) {
+			recovered.add(ex);
+		}
+	}
+
+	private static final class TestFeatureOnEventDispatchModule
+			extends EventModule {
+
+		@Override
+		protected void declare() {
+			bind(Receiver.class).toConstructor();
+			bind(String.class).to("record");
+			bind(EventRecovery.class).to(RecordingRecovery.class);
+			bind(eventTriggerTypeOf(Tick.class)).to(dispatcher -> {
+				for (int i = 0; i < 3; i++)
+					dispatcher.accept(new Tick());
+			});
+		}
+	}
+
+	private final Injector context = Bootstrap.injector(
+			TestFeatureOnEventDispatchModule.class);
+	private final Receiver receiver = context.resolve(Receiver.class);
+	private final EventDispatcher dispatcher = context.resolve(
+			EventDispatcher.class);
+
+	@AfterEach
+	void close() {
+		((DefaultEventDispatcher) dispatcher).close();
+	}
+
+	@Test
+	void eventsOfSameTypeAreReceivedInPublishedOrder()
+			throws InterruptedException {
+		for (int i = 0; i < EVENTS; i++)
+			dispatcher.publish(new Ping(i));
+		assertTrue(receiver.pongs.await(10, TimeUnit.SECONDS));
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < EVENTS; i++)
+			expected.add(i);
+		assertEquals(expected, receiver.pings);
+	}
+
+	@Test
+	void returnedEventsArePublishedAfterAllReceiversReceivedTheEvent()
+			throws InterruptedException {
+		for (int i = 0; i < EVENTS; i++)
+			dispatcher.publish(new Ping(i));
+		assertTrue(receiver.pongs.await(10, TimeUnit.SECONDS));
+		Map<String, Integer> positions = new HashMap<>();
+		List<String> received = new ArrayList<>(receiver.received);
+		for (int i = 0; i < received.size(); i++)
+			positions.put(received.get(i), i);
+		for (int i = 0; i < EVENTS; i++) {
+			int pong = positions.get("pong" + i);
+			assertTrue(positions.get("answer" + i) < pong);
+			assertTrue(positions.get("record" + i) < pong);
+		}
+	}
+
+	@Test
+	void triggeredEventsAreHandledBeforeTriggerContinues() {
+		assertEquals(3, receiver.ticks.get());
+	}
+
+	@Test
+	void failingReceiversDoNotStopDispatch() throws InterruptedException {
+		RecordingRecovery recovery = (RecordingRecovery) context.resolve(
+				EventRecovery.class);
+		dispatcher.publish(new Boom());
+		dispatcher.publish(new Boom());
+		for (int i = 0; i < EVENTS; i++)
+			dispatcher.publish(new Ping(i));
+		assertTrue(receiver.pongs.await(10, TimeUnit.SECONDS));
+		long deadline = System.currentTimeMillis() + 10_000L;
+		while (recovery.recovered.size() < 2
+			&& System.currentTimeMillis() < deadline)
+			Thread.sleep(1);
+		assertEquals(2, recovery.recovered.size());
+		assertEquals("boom", recovery.recovered.get(0).getMessage());
+	}
+
+	@Test
+	void receiversOfSuperTypeReceiveEventsOfSubTypes()
+			throws InterruptedException {
+		dispatcher.publish(new Signal());
+		dispatcher.publish(new Alarm());
+		assertTrue(receiver.signalled.await(10, TimeUnit.SECONDS));
+		assertEquals(new HashSet<>(asList(Signal.class, Alarm.class)),
+				new HashSet<>(receiver.signals));
+	}
+
+	@Test
+	void eventsReturnedBeyondRingCapacityAreReceivedInOrder()
+			throws InterruptedException {
+		dispatcher.publish(new Burst());
+		assertTrue(receiver.sparked.await(10, TimeUnit.SECONDS));
+		List<Integer> expected = new ArrayList<>();
+		for (int i = 0; i < SPARKS; i++)
+			expected.add(i);
+		assertEquals(expected, receiver.sparks);
+	}
+
+	@Test
+	void eventsWithoutReceiversAreIgnored() {
+		assertDoesNotThrow(() -> dispatcher.publish("nobody listens"));
+	}
+}
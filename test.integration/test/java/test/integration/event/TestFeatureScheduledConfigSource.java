@@ -0,0 +1,121 @@
+package test.integration.event;
+
+import org.junit.jupiter.api.Test;
+import se.jbee.inject.Env;
+import se.jbee.inject.Injector;
+import se.jbee.inject.binder.BinderModuleWith;
+import se.jbee.inject.binder.Installs;
+import se.jbee.inject.bootstrap.Bootstrap;
+import se.jbee.inject.config.ConfigSource;
+import se.jbee.inject.schedule.Scheduled;
+import se.jbee.inject.schedule.SchedulerModule;
+import test.integration.event.RecordingScheduledExecutor.Job;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * When a {@link ConfigSource} is bound {@link Scheduled} methods with an
+ * interval configured {@link Scheduled#by()} a property are rescheduled when
+ * the configured interval changes.
+ *
+ * @see TestFeatureDiskScopeSync
+ */
+class TestFeatureScheduledConfigSource {
+
+	public static final class Ticker implements Scheduled.Aware {
+
+		volatile boolean failing;
+
+		@Scheduled(every = 20, unit = TimeUnit.MILLISECONDS, by = "interval")
+		public void tick() {
+			if (failing)
+				throw new IllegalStateException("failing");
+		}
+	}
+
+	/**
+	 * Records the {@link Job}s like the {@link RecordingScheduledExecutor} but
+	 * returns {@link Future}s that can be cancelled.
+	 */
+	static final class CancellableScheduledExecutor
+			implements SchedulerModule.ScheduledExecutor {
+
+		final List<Job> recorded = new ArrayList<>();
+		final List<Future<?>> futures = new ArrayList<>();
+
+		@Override
+		public Future<?> executeInSchedule(Runnable task, long initialDelay,
+				long period, TimeUnit unit) {
+			recorded.add(new Job(task, initialDelay, period, unit));
+			Future<?> f = new CompletableFuture<>();
+			futures.add(f);
+			return f;
+		}
+
+		Job lastRecorded() {
+			return recorded.get(recorded.size() - 1);
+		}
+	}
+
+	@Installs(bundles = SchedulerModule.class)
+	private static final class TestFeatureScheduledConfigSourceModule
+			extends BinderModuleWith<ConfigSource> {
+
+		@Override
+		protected void declare(ConfigSource source) {
+			bind(ConfigSource.class).to(source);
+			bind(SchedulerModule.ScheduledExecutor.class).to(
+					env().property(SchedulerModule.ScheduledExecutor.class));
+			construct(Ticker.class);
+		}
+	}
+
+	private final CancellableScheduledExecutor executor = new CancellableScheduledExecutor();
+	private final ConfigSource source = ConfigSource.of(new HashMap<>());
+	private final Injector context = Bootstrap.injector(Bootstrap.DEFAULT_ENV //
+			.with(ConfigSource.class, source) //
+			.with(SchedulerModule.ScheduledExecutor.class, executor),
+			TestFeatureScheduledConfigSourceModule.class);
+
+	private static String intervalKey() {
+		return Ticker.class.getName() + ".interval";
+	}
+
+	@Test
+	void schedulerReschedulesWhenConfiguredIntervalChanges() {
+		assertNotNull(context.resolve(Ticker.class));
+		assertEquals(1, executor.recorded.size());
+		assertEquals(20L, executor.lastRecorded().period);
+
+		source.update(singletonMap("unrelated", "1"));
+		assertEquals(1, executor.recorded.size());
+
+		source.update(singletonMap(intervalKey(), "50"));
+		assertEquals(2, executor.recorded.size());
+		assertEquals(50L, executor.lastRecorded().period);
+		assertTrue(executor.futures.get(0).isCancelled());
+	}
+
+	@Test
+	void schedulesCancelledByFailedRunsAreNotRescheduled() {
+		Ticker ticker = context.resolve(Ticker.class);
+		assertEquals(1, executor.recorded.size());
+		ticker.failing = true;
+		Runnable task = executor.lastRecorded().task;
+		assertThrows(RuntimeException.class, task::run);
+		assertTrue(executor.futures.get(0).isCancelled());
+		assertThrows(CancellationException.class, task::run);
+
+		source.update(singletonMap(intervalKey(), "50"));
+		assertEquals(1, executor.recorded.size());
+	}
+}